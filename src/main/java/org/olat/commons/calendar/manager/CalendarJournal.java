@@ -0,0 +1,161 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.calendar.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.commons.calendar.model.KalendarEventKey;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.StringHelper;
+
+/**
+ * Append-only log of the changes made to a calendar since its iCal file
+ * was written the last time. One line is one change: "P" followed by the
+ * event serialized as iCalendar, or "D" followed by the id and the
+ * recurrence id of a removed event, all Base64 encoded. Replaying the
+ * records is idempotent, a journal which survived the compaction of the
+ * calendar doesn't hurt.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+class CalendarJournal {
+	
+	private static final Logger log = Tracing.createLoggerFor(CalendarJournal.class);
+	
+	private static final String PUT = "P";
+	private static final String DELETE = "D";
+	
+	private final File file;
+	private final List<String> lines = new ArrayList<>();
+	
+	CalendarJournal(File calendarFile) {
+		file = new File(calendarFile.getParentFile(), calendarFile.getName() + ".journal");
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	public boolean exists() {
+		return file.exists();
+	}
+	
+	public long length() {
+		return file.length();
+	}
+	
+	public boolean delete() {
+		try {
+			return Files.deleteIfExists(file.toPath());
+		} catch (IOException e) {
+			log.error("Cannot delete calendar journal: {}", file, e);
+			return false;
+		}
+	}
+	
+	public void put(String ical) {
+		lines.add(PUT + " " + encode(ical));
+	}
+	
+	public void delete(KalendarEventKey key) {
+		StringBuilder sb = new StringBuilder(64);
+		sb.append(DELETE).append(" ").append(encode(key.getEventId()));
+		if(StringHelper.containsNonWhitespace(key.getRecurrenceId())) {
+			sb.append(" ").append(encode(key.getRecurrenceId()));
+		}
+		lines.add(sb.toString());
+	}
+	
+	/**
+	 * Append the changes collected with put and delete at the end of the journal.
+	 * 
+	 * @return true if the records are written
+	 */
+	public boolean flush() {
+		if(lines.isEmpty()) {
+			return true;
+		}
+		
+		try {
+			Files.write(file.toPath(), lines, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+			lines.clear();
+			return true;
+		} catch (IOException e) {
+			log.error("Cannot write calendar journal: {}", file, e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Read the records of the journal. A damaged line, which can only be
+	 * the last one written before a crash, ends the journal.
+	 * 
+	 * @param replay The callback which applies the records in order
+	 */
+	public void replay(Replay replay) {
+		if(!file.exists()) {
+			return;
+		}
+		
+		try {
+			List<String> records = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			for(String record:records) {
+				String[] tokens = record.split(" ");
+				if(PUT.equals(tokens[0]) && tokens.length == 2) {
+					replay.put(decode(tokens[1]));
+				} else if(DELETE.equals(tokens[0]) && (tokens.length == 2 || tokens.length == 3)) {
+					String recurrenceId = tokens.length == 3 ? decode(tokens[2]) : null;
+					replay.delete(new KalendarEventKey(decode(tokens[1]), recurrenceId));
+				} else {
+					log.warn("Stop replay of calendar journal {} at damaged record: {}", file, record);
+					break;
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			log.error("Cannot replay calendar journal: {}", file, e);
+		}
+	}
+	
+	private static String encode(String value) {
+		return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static String decode(String value) {
+		return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+	}
+	
+	public interface Replay {
+		
+		public void put(String ical);
+		
+		public void delete(KalendarEventKey key);
+		
+	}
+}
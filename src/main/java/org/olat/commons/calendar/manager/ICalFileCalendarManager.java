@@ -36,6 +36,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URL;
 import java.net.URLConnection;
 import java.text.ParseException;
@@ -47,8 +49,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.logging.log4j.Logger;
@@ -61,11 +68,13 @@ import org.olat.commons.calendar.model.CalendarKey;
 import org.olat.commons.calendar.model.CalendarUserConfiguration;
 import org.olat.commons.calendar.model.Kalendar;
 import org.olat.commons.calendar.model.KalendarEvent;
+import org.olat.commons.calendar.model.KalendarEventIndex;
 import org.olat.commons.calendar.model.KalendarEventKey;
 import org.olat.commons.calendar.model.KalendarEventLink;
 import org.olat.commons.calendar.model.KalendarRecurEvent;
 import org.olat.commons.calendar.ui.components.KalendarRenderWrapper;
 import org.olat.commons.calendar.ui.events.CalendarGUIModifiedEvent;
+import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.OLATRuntimeException;
@@ -79,12 +88,16 @@ import org.olat.core.util.resource.OresHelper;
 import org.olat.course.ICourse;
 import org.olat.group.BusinessGroup;
 import org.olat.user.UserManager;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.data.CalendarOutputter;
+import net.fortuna.ical4j.data.ParserException;
 import net.fortuna.ical4j.model.Calendar;
 import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.DateTime;
@@ -118,7 +131,7 @@ import net.fortuna.ical4j.model.property.Version;
 import net.fortuna.ical4j.model.property.XProperty;
 
 @Service
-public class ICalFileCalendarManager implements CalendarManager, InitializingBean {
+public class ICalFileCalendarManager implements CalendarManager, InitializingBean, DisposableBean {
 
 	private static final Logger log = Tracing.createLoggerFor(ICalFileCalendarManager.class);
 
@@ -134,9 +147,23 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	private static final String ICAL_RRULE = "RRULE";
 	/** property to exclude events from recurrence */
 	private static final String ICAL_EXDATE = "EXDATE";
+	/** margin around the occurrences of a recurring event for time zones and all day events */
+	private static final long RECURRENCE_MARGIN = 2l * 24l * 60l * 60l * 1000l;
 	
 	private TimeZone tz;
 	
+	@Value("${calendar.event.index.enabled:true}")
+	private boolean eventIndexEnabled;
+	@Value("${calendar.journal.enabled:true}")
+	private boolean journalEnabled;
+	@Value("${calendar.journal.compact.size:256}")
+	private long journalCompactSize;
+	@Value("${calendar.journal.compact.interval:15}")
+	private long journalCompactInterval;
+	
+	private final Set<CalendarKey> journaledCalendars = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService journalScheduler;
+	
 	@Autowired
 	private UserManager userManager;
 	@Autowired
@@ -166,6 +193,41 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		// initialize timezone
 		tz = calendarModule.getDefaultTimeZone();
 		calendarCache = CoordinatorManager.getInstance().getCoordinator().getCacher().getCache(CalendarManager.class.getSimpleName(), "calendar");
+		
+		if(journalEnabled && journalCompactInterval > 0) {
+			journalScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("oo-calendar-journal-"));
+			journalScheduler.scheduleWithFixedDelay(this::compactJournals, journalCompactInterval, journalCompactInterval, TimeUnit.MINUTES);
+		}
+	}
+	
+	@Override
+	public void destroy() {
+		if(journalScheduler != null) {
+			// the journals are replayed at the next start
+			journalScheduler.shutdownNow();
+		}
+	}
+	
+	public boolean isEventIndexEnabled() {
+		return eventIndexEnabled;
+	}
+	
+	/**
+	 * [used by tests]
+	 */
+	public void setEventIndexEnabled(boolean enabled) {
+		this.eventIndexEnabled = enabled;
+	}
+	
+	public boolean isJournalEnabled() {
+		return journalEnabled;
+	}
+	
+	/**
+	 * [used by tests]
+	 */
+	public void setJournalEnabled(boolean enabled) {
+		this.journalEnabled = enabled;
 	}
 	
 	@Override
@@ -240,8 +302,47 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	 */
 	// o_clusterOK by:cg This must not be synchronized because the caller already synchronized 
 	private Kalendar loadCalendarFromFile(String type, String calendarID) {
-		Calendar calendar = readCalendar(type, calendarID);
-		return createKalendar(type, calendarID, calendar);
+		if(log.isDebugEnabled()) {
+			log.debug("loadCalendarFromFile, type={} calendarID={}", type, calendarID);
+		}
+		
+		File calendarFile = getCalendarFile(type, calendarID);
+		Calendar calendar = readCalendar(calendarFile);
+		Kalendar kalendar = createKalendar(type, calendarID, calendar);
+		replayJournal(kalendar, calendarFile);
+		return kalendar;
+	}
+	
+	private void replayJournal(Kalendar kalendar, File calendarFile) {
+		CalendarJournal journal = new CalendarJournal(calendarFile);
+		journal.replay(new CalendarJournal.Replay() {
+			@Override
+			public void put(String ical) {
+				try(StringReader reader = new StringReader(ical)) {
+					Calendar calendar = new CalendarBuilder().build(reader);
+					for(Object comp:calendar.getComponents()) {
+						if(comp instanceof VEvent) {
+							KalendarEvent event = getKalendarEvent((VEvent)comp);
+							KalendarEvent currentEvent = kalendar.getEvent(event.getID(), event.getRecurrenceID());
+							if(currentEvent != null) {
+								kalendar.removeEvent(currentEvent);
+							}
+							kalendar.addEvent(event);
+						}
+					}
+				} catch (IOException | ParserException e) {
+					log.error("Cannot replay event of calendar: {}", kalendar, e);
+				}
+			}
+
+			@Override
+			public void delete(KalendarEventKey key) {
+				KalendarEvent currentEvent = kalendar.getEvent(key.getEventId(), key.getRecurrenceId());
+				if(currentEvent != null) {
+					kalendar.removeEvent(currentEvent);
+				}
+			}
+		});
 	}
 
 	protected Kalendar createKalendar(String type, String calendarID, Calendar calendar) {
@@ -264,7 +365,8 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 
 	/**
 	 * Internal read calendar file from filesystem. It doesn't
-	 * use the cache and return a not shared calendar.
+	 * use the cache and return a not shared calendar. The changes
+	 * in the journal are included.
 	 */
 	@Override
 	public Calendar readCalendar(String type, String calendarID) {
@@ -273,6 +375,9 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		}
 		
 		File calendarFile = getCalendarFile(type, calendarID);
+		if(new CalendarJournal(calendarFile).exists()) {
+			return buildCalendar(loadCalendarFromFile(type, calendarID));
+		}
 		return readCalendar(calendarFile);
 	}
 	
@@ -369,12 +474,97 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	// o_clusterOK by:cg only called by Junit-test  
 	@Override
 	public boolean persistCalendar(Kalendar kalendar) {
+		kalendar.invalidateEventIndex();
 		Calendar calendar = buildCalendar(kalendar);
 		boolean success = writeCalendarFile(calendar, kalendar.getType(), kalendar.getCalendarID());
+		if(success) {
+			// the file contains all the changes of the journal
+			new CalendarJournal(getCalendarFile(kalendar.getType(), kalendar.getCalendarID())).delete();
+		}
 		calendarCache.update(getKeyFor(kalendar.getType(), kalendar.getCalendarID()), kalendar);
 		return success;
 	}
 	
+	/**
+	 * Save the changes of some events of a calendar. With the journal enabled, the
+	 * changes are appended to the journal of the calendar and the iCal file is only
+	 * rewritten if the journal is too large or by the periodic compaction.
+	 * This method is not thread-safe. Must be called from a synchronized block.
+	 * 
+	 * @param kalendar The calendar with the changes applied
+	 * @param changedEvents The keys of the added, updated and removed events
+	 * @return true if successful
+	 */
+	private boolean persistCalendarChanges(Kalendar kalendar, Collection<KalendarEventKey> changedEvents) {
+		File calendarFile = getCalendarFile(kalendar.getType(), kalendar.getCalendarID());
+		if(!journalEnabled || !calendarFile.exists()) {
+			return persistCalendar(kalendar);
+		}
+		
+		// events can be changed in place, as the rule of a recurring event
+		kalendar.invalidateEventIndex();
+		CalendarJournal journal = new CalendarJournal(calendarFile);
+		for(KalendarEventKey key:changedEvents) {
+			KalendarEvent event = kalendar.getEvent(key.getEventId(), key.getRecurrenceId());
+			if(event == null) {
+				journal.delete(key);
+			} else {
+				String ical = toICal(event);
+				if(ical == null) {
+					return persistCalendar(kalendar);
+				}
+				journal.put(ical);
+			}
+		}
+		
+		if(!journal.flush() || journal.length() > journalCompactSize * 1024l) {
+			return persistCalendar(kalendar);
+		}
+		calendarCache.update(getKeyFor(kalendar.getType(), kalendar.getCalendarID()), kalendar);
+		journaledCalendars.add(new CalendarKey(kalendar.getCalendarID(), kalendar.getType()));
+		return true;
+	}
+	
+	private String toICal(KalendarEvent kEvent) {
+		Calendar calendar = newICalendar();
+		calendar.getComponents().add(getVEvent(kEvent));
+		try(StringWriter writer = new StringWriter()) {
+			new CalendarOutputter(false).output(calendar, writer);
+			return writer.toString();
+		} catch (Exception e) {
+			log.error("Cannot serialize event: {}", kEvent.getID(), e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Write the calendars with a journal in their iCal files.
+	 */
+	public void compactJournals() {
+		try {
+			for(Iterator<CalendarKey> it=journaledCalendars.iterator(); it.hasNext(); ) {
+				CalendarKey key = it.next();
+				it.remove();
+				compactJournal(key.getType(), key.getCalendarId());
+			}
+		} catch (Exception e) {
+			log.error("", e);
+		} finally {
+			DBFactory.getInstance().commitAndCloseSession();
+		}
+	}
+	
+	private void compactJournal(String type, String calendarID) {
+		OLATResourceable calOres = OresHelper.createOLATResourceableType(getKeyFor(type, calendarID));
+		CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(calOres, () -> {
+			if(new CalendarJournal(getCalendarFile(type, calendarID)).exists()) {
+				Kalendar loadedCal = getCalendarFromCache(type, calendarID);
+				persistCalendar(loadedCal);
+			}
+			return Boolean.TRUE;
+		});
+	}
+	
 	private boolean writeCalendarFile(Calendar calendar, String calType, String calId) {
 		File fKalendarFile = getCalendarFile(calType, calId);
 
@@ -393,13 +583,19 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	@Override
 	public boolean deleteCalendar(String type, String calendarID) {
 		calendarCache.remove( getKeyFor(type,calendarID) );
+		journaledCalendars.remove(new CalendarKey(calendarID, type));
 		File fKalendarFile = getCalendarFile(type, calendarID);
+		new CalendarJournal(fKalendarFile).delete();
 		return fKalendarFile.delete();
 	}
 
 	@Override
 	public File getCalendarICalFile(String type, String calendarID) {
 		File fCalendarICalFile = getCalendarFile(type, calendarID);
+		if(new CalendarJournal(fCalendarICalFile).exists()) {
+			// the file is read without the manager
+			compactJournal(type, calendarID);
+		}
 		if (fCalendarICalFile.exists()) return fCalendarICalFile;
 		else return null;
 	}
@@ -478,11 +674,7 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	}
 
 	protected Calendar buildCalendar(Kalendar kalendar) {
-		Calendar calendar = new Calendar();
-		// add standard propeties
-		calendar.getProperties().add(new ProdId("-//Ben Fortuna//iCal4j 1.0//EN"));
-		calendar.getProperties().add(Version.VERSION_2_0);
-		calendar.getProperties().add(CalScale.GREGORIAN);
+		Calendar calendar = newICalendar();
 		for (Iterator<KalendarEvent> iter = kalendar.getEvents().iterator(); iter.hasNext();) {
 			KalendarEvent kEvent = iter.next();
 			VEvent vEvent = getVEvent(kEvent);
@@ -491,6 +683,15 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		return calendar;
 	}
 	
+	private Calendar newICalendar() {
+		Calendar calendar = new Calendar();
+		// add standard propeties
+		calendar.getProperties().add(new ProdId("-//Ben Fortuna//iCal4j 1.0//EN"));
+		calendar.getProperties().add(Version.VERSION_2_0);
+		calendar.getProperties().add(CalScale.GREGORIAN);
+		return calendar;
+	}
+	
 	@Override
 	public KalendarEvent createKalendarEventRecurringOccurence(KalendarRecurEvent recurEvent) {
 		KalendarEvent rootEvent = recurEvent.getCalendar().getEvent(recurEvent.getID(), null);
@@ -1022,11 +1223,13 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		OLATResourceable calOres = getOresHelperFor(cal);
 		Boolean persistSuccessful = CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync( calOres, () -> {
 			Kalendar loadedCal = getCalendarFromCache(cal.getType(),cal.getCalendarID());
+			List<KalendarEventKey> changedEvents = new ArrayList<>(kalendarEvents.size());
 			for(KalendarEvent kalendarEvent:kalendarEvents) {
 				loadedCal.addEvent(kalendarEvent);
 				kalendarEvent.resetImmutableDates();
+				changedEvents.add(new KalendarEventKey(kalendarEvent));
 			}
-			boolean successfullyPersist = persistCalendar(loadedCal);
+			boolean successfullyPersist = persistCalendarChanges(loadedCal, changedEvents);
 			return Boolean.valueOf(successfullyPersist);
 		});
 		// inform all controller about calendar change for reload
@@ -1039,25 +1242,29 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		OLATResourceable calOres = getOresHelperFor(cal);
 		Boolean removeSuccessful = CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync( calOres, () -> {
 			Kalendar loadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
+			List<KalendarEventKey> changedEvents = new ArrayList<>();
 			for(KalendarEvent kalendarEvent:kalendarEvents) {
 				String uid = kalendarEvent.getID();
 				String recurrenceId = kalendarEvent.getRecurrenceID();
 				if(StringHelper.containsNonWhitespace(recurrenceId)) {
 					loadedCal.removeEvent(kalendarEvent);
+					changedEvents.add(new KalendarEventKey(kalendarEvent));
 					KalendarEvent rootEvent = loadedCal.getEvent(kalendarEvent.getID(), null);
 					if(rootEvent != null && kalendarEvent instanceof KalendarRecurEvent) {
 						Date recurrenceDate = ((KalendarRecurEvent)kalendarEvent).getOccurenceDate();
 						rootEvent.addRecurrenceExc(recurrenceDate);
+						changedEvents.add(new KalendarEventKey(rootEvent));
 					}
 				} else {
 					for(KalendarEvent kEvent:loadedCal.getEvents()) {
 						if(uid.equals(kEvent.getID())) {
 							loadedCal.removeEvent(kEvent);
+							changedEvents.add(new KalendarEventKey(kEvent));
 						}
 					}
 				}
 			}
-			boolean successfullyPersist = persistCalendar(loadedCal);
+			boolean successfullyPersist = persistCalendarChanges(loadedCal, changedEvents);
 			return Boolean.valueOf(successfullyPersist);
 		});
 		// inform all controller about calendar change for reload
@@ -1080,15 +1287,18 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 			Kalendar loadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
 			KalendarEvent rootEvent = loadedCal.getEvent(kalendarEvent.getID(), null);
 			rootEvent.addRecurrenceExc(kalendarEvent.getBegin());
+			List<KalendarEventKey> changedEvents = new ArrayList<>();
+			changedEvents.add(new KalendarEventKey(rootEvent));
 			
 			for(KalendarEvent kEvent:loadedCal.getEvents()) {
 				if(uid.equals(kEvent.getID())
 						&& kEvent.getOccurenceDate() != null
 						&& occurenceDate.equals(kEvent.getOccurenceDate())) {
 					loadedCal.removeEvent(kEvent);
+					changedEvents.add(new KalendarEventKey(kEvent));
 				}
 			}
-			boolean successfullyPersist = persistCalendar(loadedCal);
+			boolean successfullyPersist = persistCalendarChanges(loadedCal, changedEvents);
 			return Boolean.valueOf(successfullyPersist);
 		});
 		// inform all controller about calendar change for reload
@@ -1114,16 +1324,19 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 				recur.setUntil(CalendarUtils.createDate(occurenceDate));
 				RRule rrule = new RRule(recur);
 				rootEvent.setRecurrenceRule(rrule.getValue());
+				List<KalendarEventKey> changedEvents = new ArrayList<>();
+				changedEvents.add(new KalendarEventKey(rootEvent));
 				
 				for(KalendarEvent kEvent:loadedCal.getEvents()) {
 					if(uid.equals(kEvent.getID())
 							&& StringHelper.containsNonWhitespace(kEvent.getRecurrenceID())
 							&& occurenceDate.before(kEvent.getBegin())) {
 						loadedCal.removeEvent(kEvent);
+						changedEvents.add(new KalendarEventKey(kEvent));
 					}
 				}
 				
-				successfullyPersist = persistCalendar(loadedCal);
+				successfullyPersist = persistCalendarChanges(loadedCal, changedEvents);
 			} catch (ParseException e) {
 				log.error("", e);
 			}
@@ -1146,11 +1359,13 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		final OLATResourceable calOres = getOresHelperFor(cal);
 		Boolean updatedSuccessful = CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync( calOres, () -> {
 			Kalendar loadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
+			List<KalendarEventKey> changedEvents = new ArrayList<>(kalendarEvents.size());
 			for(KalendarEvent kalendarEvent:kalendarEvents) {
 				loadedCal.removeEvent(kalendarEvent); // remove old event
 				loadedCal.addEvent(kalendarEvent); // add changed event
+				changedEvents.add(new KalendarEventKey(kalendarEvent));
 			}
-			boolean successfullyPersist = persistCalendar(loadedCal);
+			boolean successfullyPersist = persistCalendarChanges(loadedCal, changedEvents);
 			// inform all controller about calendar change for reload
 			CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(new CalendarGUIModifiedEvent(cal), OresHelper.lookupType(CalendarManager.class));
 			return successfullyPersist;
@@ -1166,6 +1381,7 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		OLATResourceable calOres = getOresHelperFor(cal);
 		CoordinatorManager.getInstance().getCoordinator().getSyncer().assertAlreadyDoInSyncFor(calOres);
 		Kalendar reloadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
+		List<KalendarEventKey> changedEvents = new ArrayList<>();
 		
 		if(StringHelper.containsNonWhitespace(kalendarEvent.getRecurrenceRule())) {
 			Date oldBegin = kalendarEvent.getImmutableBegin();
@@ -1198,6 +1414,7 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 				for(KalendarEvent exEvent:exEvents) {
 					try {
 						reloadedCal.removeEvent(exEvent);
+						changedEvents.add(new KalendarEventKey(exEvent));
 						String recurrenceId = exEvent.getRecurrenceID();
 						
 						RecurrenceId recurId = new RecurrenceId(recurrenceId, tz);
@@ -1222,6 +1439,7 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 						}
 						exEvent.setRecurrenceID(newRecurId.getValue());
 						reloadedCal.addEvent(exEvent);
+						changedEvents.add(new KalendarEventKey(exEvent));
 					} catch (ParseException e) {
 						log.error("", e);
 					}
@@ -1232,8 +1450,9 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		reloadedCal.removeEvent(kalendarEvent); // remove old event
 		kalendarEvent.resetImmutableDates();
 		reloadedCal.addEvent(kalendarEvent); // add changed event
+		changedEvents.add(new KalendarEventKey(kalendarEvent));
 
-		boolean successfullyPersist = persistCalendar(reloadedCal);
+		boolean successfullyPersist = persistCalendarChanges(reloadedCal, changedEvents);
 		// inform all controller about calendar change for reload
 		CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(new CalendarGUIModifiedEvent(cal), OresHelper.lookupType(CalendarManager.class));
 		return successfullyPersist;
@@ -1286,18 +1505,16 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	
 	@Override
 	public List<KalendarEvent> getEvents(Kalendar calendar, Date from, Date to, boolean privateEventsVisible) {
-		List<KalendarEvent> allEvents = calendar.getEvents();
+		KalendarEventIndex index = getEventIndex(calendar);
+		List<KalendarEvent> candidates = index.getEvents(from.getTime(), to.getTime());
 		List<KalendarEvent> events = new ArrayList<>(128);
 		
 		Map<String, List<KalendarRecurEvent>> idToRecurringEvents = new HashMap<>();
-		//first pass, ignore events with recurrenceId
-		for(KalendarEvent event:allEvents) {
+		//first pass, the index doesn't return events with recurrenceId
+		for(KalendarEvent event:candidates) {
 			if(!privateEventsVisible && event.getClassification() == KalendarEvent.CLASS_PRIVATE) {
 				continue;
 			}
-			if(StringHelper.containsNonWhitespace(event.getRecurrenceID())) {
-				continue;
-			}
 
 			if (StringHelper.containsNonWhitespace(event.getRecurrenceRule())) {
 				List<KalendarRecurEvent> recurringEvents = getRecurringEventsInPeriod(event, from, to, tz);
@@ -1313,13 +1530,8 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		}
 		
 		//process events with recurrenceId
-		for(KalendarEvent event:allEvents) {
-			if(!StringHelper.containsNonWhitespace(event.getRecurrenceID())) {
-				continue;
-			}
-
-			String id = event.getID();
-			if(idToRecurringEvents.containsKey(id)) {
+		for(String id:idToRecurringEvents.keySet()) {
+			for(KalendarEvent event:index.getRecurrenceExceptions(id)) {
 				VEvent vEvent = getVEvent(event);
 				RecurrenceId recurrenceId = vEvent.getRecurrenceId();
 				net.fortuna.ical4j.model.Date startDate = recurrenceId.getDate();
@@ -1347,6 +1559,51 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		return events;
 	}
 	
+	/**
+	 * The index is built once per version of the calendar and shared until the
+	 * next change of its events. If the index is disabled, all events are returned
+	 * as candidates.
+	 */
+	private KalendarEventIndex getEventIndex(Kalendar calendar) {
+		KalendarEventIndex index = calendar.getEventIndex();
+		if(index == null) {
+			index = buildEventIndex(calendar);
+			if(eventIndexEnabled) {
+				calendar.setEventIndex(index);
+			}
+		}
+		return index;
+	}
+	
+	private KalendarEventIndex buildEventIndex(Kalendar calendar) {
+		KalendarEventIndex.Builder builder = new KalendarEventIndex.Builder(calendar.getModCount());
+		for(KalendarEvent event:calendar.getEvents()) {
+			if(StringHelper.containsNonWhitespace(event.getRecurrenceID())) {
+				builder.addRecurrenceException(event);
+				continue;
+			}
+			
+			Date begin = event.getBegin();
+			Date end = CalendarUtils.endOf(event);
+			if(!eventIndexEnabled || begin == null || end == null) {
+				builder.addUnbounded(event);
+			} else if(StringHelper.containsNonWhitespace(event.getRecurrenceRule())) {
+				// envelope of all occurrences, they are expanded at query time
+				long envelopeEnd = Long.MAX_VALUE;
+				Date recurrenceEnd = getRecurrenceEndDate(event.getRecurrenceRule());
+				if(recurrenceEnd != null) {
+					long duration = Math.max(0l, end.getTime() - begin.getTime());
+					envelopeEnd = Math.max(recurrenceEnd.getTime(), end.getTime()) + duration + RECURRENCE_MARGIN;
+				}
+				builder.add(event, begin.getTime() - RECURRENCE_MARGIN, envelopeEnd);
+			} else {
+				// the exact range check is done by the caller
+				builder.add(event, Math.min(begin.getTime(), end.getTime()), Math.max(begin.getTime(), end.getTime()));
+			}
+		}
+		return builder.build();
+	}
+	
 	private final boolean isInRange(Date from, Date to, KalendarEvent event) {
 		Date begin = event.getBegin();
 		Date end = CalendarUtils.endOf(event);
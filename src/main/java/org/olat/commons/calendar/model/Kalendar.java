@@ -42,6 +42,9 @@ public class Kalendar implements Serializable {
 	private int managedEvent;
 	private int notManagedEvent;
 	
+	private transient volatile int modCount;
+	private transient volatile KalendarEventIndex eventIndex;
+	
 	public Kalendar(String calendarID, String type) {
 		this.calendarID = calendarID;
 		this.type = type;
@@ -79,6 +82,7 @@ public class Kalendar implements Serializable {
 		}
 		event.setKalendar(this);
 		events.put(new KalendarEventKey(event.getID(), event.getRecurrenceID()), event);
+		modCount++;
 	}
 	
 	/**
@@ -92,6 +96,7 @@ public class Kalendar implements Serializable {
 			notManagedEvent--;
 		}
 		events.remove(new KalendarEventKey(event.getID(), event.getRecurrenceID()));
+		modCount++;
 	}
 	
 	/**
@@ -112,6 +117,33 @@ public class Kalendar implements Serializable {
 		return new ArrayList<>(events.values());
 	}
 
+	/**
+	 * @return A counter incremented by every change of the events
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+	
+	/**
+	 * @return The index of the events if it is up to date, or null
+	 */
+	public KalendarEventIndex getEventIndex() {
+		KalendarEventIndex index = eventIndex;
+		return index != null && index.getModCount() == modCount ? index : null;
+	}
+	
+	public void setEventIndex(KalendarEventIndex eventIndex) {
+		this.eventIndex = eventIndex;
+	}
+	
+	/**
+	 * Discard the index, needed if an event was changed in place.
+	 */
+	public void invalidateEventIndex() {
+		modCount++;
+		eventIndex = null;
+	}
+
 	public String getType() {
 		return type;
 	}
@@ -0,0 +1,207 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.calendar.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable interval tree of the events of a calendar. The events are sorted
+ * by begin and the array is seen as an implicit balanced binary tree where
+ * every node knows the maximum end of its subtree. A range query visits
+ * O(log n + k) nodes instead of all the events of the calendar.<br>
+ * Recurring events are indexed with the envelope of all their occurrences,
+ * the expansion of the rule is left to the caller. Events with a recurrence
+ * id are not indexed but grouped by the id of their series.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class KalendarEventIndex {
+	
+	private final int modCount;
+	private final long[] begins;
+	private final long[] ends;
+	private final long[] maxEnds;
+	private final KalendarEvent[] events;
+	private final List<KalendarEvent> unboundedEvents;
+	private final Map<String,List<KalendarEvent>> recurrenceExceptions;
+	
+	private KalendarEventIndex(int modCount, List<Entry> entries, List<KalendarEvent> unboundedEvents,
+			Map<String,List<KalendarEvent>> recurrenceExceptions) {
+		this.modCount = modCount;
+		this.unboundedEvents = unboundedEvents;
+		this.recurrenceExceptions = recurrenceExceptions;
+		
+		entries.sort(Comparator.comparingLong(Entry::getBegin));
+		int size = entries.size();
+		begins = new long[size];
+		ends = new long[size];
+		maxEnds = new long[size];
+		events = new KalendarEvent[size];
+		for(int i=0; i<size; i++) {
+			Entry entry = entries.get(i);
+			begins[i] = entry.getBegin();
+			ends[i] = entry.getEnd();
+			events[i] = entry.getEvent();
+		}
+		computeMaxEnds(0, size - 1);
+	}
+	
+	/**
+	 * @return The modification count of the calendar at the time the index was built
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+	
+	public int size() {
+		return events.length + unboundedEvents.size();
+	}
+	
+	private long computeMaxEnds(int low, int high) {
+		if(low > high) {
+			return Long.MIN_VALUE;
+		}
+		int mid = (low + high) >>> 1;
+		long max = Math.max(ends[mid], Math.max(computeMaxEnds(low, mid - 1), computeMaxEnds(mid + 1, high)));
+		maxEnds[mid] = max;
+		return max;
+	}
+	
+	/**
+	 * Return the events (without the ones with a recurrence id) which intervals
+	 * overlap the closed range from - to and the events which cannot be indexed.
+	 * 
+	 * @param from The begin of the range in milliseconds
+	 * @param to The end of the range in milliseconds
+	 * @return A list of candidates, ordered by begin
+	 */
+	public List<KalendarEvent> getEvents(long from, long to) {
+		List<KalendarEvent> overlaps = new ArrayList<>();
+		collect(0, events.length - 1, from, to, overlaps);
+		overlaps.addAll(unboundedEvents);
+		return overlaps;
+	}
+	
+	private void collect(int low, int high, long from, long to, List<KalendarEvent> overlaps) {
+		if(low > high) {
+			return;
+		}
+		
+		int mid = (low + high) >>> 1;
+		if(maxEnds[mid] < from) {
+			return;// nothing in this subtree ends after the begin of the range
+		}
+		collect(low, mid - 1, from, to, overlaps);
+		if(begins[mid] > to) {
+			return;// this node and its right subtree begin after the range
+		}
+		if(ends[mid] >= from) {
+			overlaps.add(events[mid]);
+		}
+		collect(mid + 1, high, from, to, overlaps);
+	}
+	
+	/**
+	 * @param eventId The id of a recurring event
+	 * @return The events which override an occurrence of the series
+	 */
+	public List<KalendarEvent> getRecurrenceExceptions(String eventId) {
+		List<KalendarEvent> exceptions = recurrenceExceptions.get(eventId);
+		return exceptions == null ? Collections.emptyList() : exceptions;
+	}
+	
+	@Override
+	public String toString() {
+		return "KalendarEventIndex[size=" + size() + ", modCount=" + modCount + "]";
+	}
+	
+	public static class Builder {
+		
+		private final int modCount;
+		private final List<Entry> entries = new ArrayList<>();
+		private final List<KalendarEvent> unboundedEvents = new ArrayList<>();
+		private final Map<String,List<KalendarEvent>> recurrenceExceptions = new HashMap<>();
+		
+		/**
+		 * @param modCount The modification count of the calendar before its events are read
+		 */
+		public Builder(int modCount) {
+			this.modCount = modCount;
+		}
+		
+		public Builder add(KalendarEvent event, long begin, long end) {
+			entries.add(new Entry(event, begin, end));
+			return this;
+		}
+		
+		/**
+		 * Add an event which is a candidate for every range.
+		 */
+		public Builder addUnbounded(KalendarEvent event) {
+			unboundedEvents.add(event);
+			return this;
+		}
+		
+		public Builder addRecurrenceException(KalendarEvent event) {
+			recurrenceExceptions.computeIfAbsent(event.getID(), id -> new ArrayList<>(2)).add(event);
+			return this;
+		}
+		
+		public KalendarEventIndex build() {
+			return new KalendarEventIndex(modCount, entries, unboundedEvents, recurrenceExceptions);
+		}
+	}
+	
+	private static class Entry {
+		
+		private final long begin;
+		private final long end;
+		private final KalendarEvent event;
+		
+		public Entry(KalendarEvent event, long begin, long end) {
+			this.event = event;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		public long getBegin() {
+			return begin;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public KalendarEvent getEvent() {
+			return event;
+		}
+		
+		@Override
+		public String toString() {
+			return "Entry[begin=" + begin + ", end=" + end + ", id=" + event.getID() + "]";
+		}
+	}
+}
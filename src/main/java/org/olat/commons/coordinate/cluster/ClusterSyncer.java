@@ -24,6 +24,9 @@
 */
 package org.olat.commons.coordinate.cluster;
 
+import java.util.Collection;
+import java.util.TreeSet;
+
 import org.apache.logging.log4j.Logger;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.services.lock.pessimistic.PessimisticLockManager;
@@ -50,6 +53,8 @@ public class ClusterSyncer implements Syncer {
 	private final ThreadLocal<ThreadLocalClusterSyncer> data = new ThreadLocal<>();
 	private PessimisticLockManager pessimisticLockManager;
 	private DB dbInstance;
+	private boolean leaseEnabled = false;
+	private PLockLeases leases = new PLockLeases(30000l);
 	
 	/**
 	 * [used by spring]
@@ -63,6 +68,22 @@ public class ClusterSyncer implements Syncer {
 		dbInstance = db;
 	}
 	
+	/**
+	 * [used by spring]
+	 * @param leaseEnabled true to use a fair lease per asset instead of synchronized
+	 */
+	public void setLeaseEnabled(boolean leaseEnabled) {
+		this.leaseEnabled = leaseEnabled;
+	}
+	
+	/**
+	 * [used by spring]
+	 * @param leaseDuration The duration in milliseconds after which a lease expires
+	 */
+	public void setLeaseDuration(long leaseDuration) {
+		leases = new PLockLeases(leaseDuration);
+	}
+	
 	/**
 	 * @see org.olat.core.util.coordinate.Syncer#doInSync(org.olat.core.id.OLATResourceable, org.olat.core.util.coordinate.SyncerCallback)
 	 */
@@ -79,38 +100,22 @@ public class ClusterSyncer implements Syncer {
 	
 
 		T res;
-		Object syncObj = DerivedStringSyncer.getInstance().getSynchLockFor(ores);
-		synchronized (syncObj) {//cluster_ok is per vm only. this synchronized is needed for multi-core processors to handle 
- 			                      // memory-flushing from registers correctly. without this synchronized you could have different
-			                      // states of (instance-/static-)fields in different cores
-			getData().incrementAndCheckNestedLevelCounter();
-			
-			// 2. sync on cluster
-			// acquire a db lock with select for update which blocks other db select for updates on the same record 
-			// until the transaction is committed or rollbacked
+		if(leaseEnabled) {
+			// fair, the threads of this node waiting for the asset get it in order of arrival,
+			// or when the lease of the holder expired
+			PLockLeases.Lease lease = leases.acquire(asset);
 			try {
-				getPessimisticLockManager().findOrPersistPLock(asset);
-	
-				// now execute the task, which may or may not contain further db queries.
-				res = callback.execute();
+				res = doInClusterSync(asset, callback);
 			} finally {
-				getData().decrementNestedLevelCounter();				
+				leases.release(lease);
 			}
-			
-			//clear the thread local
-			if(getData().getNestedLevel() == 0) {
-				data.remove();
+		} else {
+			Object syncObj = DerivedStringSyncer.getInstance().getSynchLockFor(ores);
+			synchronized (syncObj) {//cluster_ok is per vm only. this synchronized is needed for multi-core processors to handle 
+	 			                      // memory-flushing from registers correctly. without this synchronized you could have different
+				                      // states of (instance-/static-)fields in different cores
+				res = doInClusterSync(asset, callback);
 			}
-			
-			// we used to not do a commit here but delay that to the end of the dispatching-process. the comment
-			// was: "the lock will be released after calling commit at the end of dispatching-process
-			//       needed postcondition after the servlet has finished the request: a commit or rollback on the db to release the lock.
-			//       otherwise the database will throw a "lock wait timeout exceeded" message after some time and thus release the lock."
-			// but realizing that this can a) cause long locking phases and b) deadlocks between VMs
-			// we decided to do a commit here and work with its consequence which is that everything that happened
-			// prior to the doInSync call is also committed. This though corresponds to the OLAT 6.0.x model and
-			// was acceptable there as well.
-			dbInstance.commit();
 		}
 		if (isDebug) {
 			long stop = System.currentTimeMillis();
@@ -121,6 +126,40 @@ public class ClusterSyncer implements Syncer {
 		return res;
 	}
 	
+	private <T> T doInClusterSync(String asset, SyncerCallback<T> callback) {
+		getData().incrementAndCheckNestedLevelCounter();
+		
+		T res;
+		
+		// 2. sync on cluster
+		// acquire a db lock with select for update which blocks other db select for updates on the same record 
+		// until the transaction is committed or rollbacked
+		try {
+			getPessimisticLockManager().findOrPersistPLock(asset);
+
+			// now execute the task, which may or may not contain further db queries.
+			res = callback.execute();
+		} finally {
+			getData().decrementNestedLevelCounter();				
+		}
+		
+		//clear the thread local
+		if(getData().getNestedLevel() == 0) {
+			data.remove();
+		}
+		
+		// we used to not do a commit here but delay that to the end of the dispatching-process. the comment
+		// was: "the lock will be released after calling commit at the end of dispatching-process
+		//       needed postcondition after the servlet has finished the request: a commit or rollback on the db to release the lock.
+		//       otherwise the database will throw a "lock wait timeout exceeded" message after some time and thus release the lock."
+		// but realizing that this can a) cause long locking phases and b) deadlocks between VMs
+		// we decided to do a commit here and work with its consequence which is that everything that happened
+		// prior to the doInSync call is also committed. This though corresponds to the OLAT 6.0.x model and
+		// was acceptable there as well.
+		dbInstance.commit();
+		return res;
+	}
+	
 	/**
 	 * @see org.olat.core.util.coordinate.Syncer#doInSync(org.olat.core.id.OLATResourceable, org.olat.core.util.coordinate.SyncerExecutor)
 	 */
@@ -137,6 +176,41 @@ public class ClusterSyncer implements Syncer {
 		
 	}
 
+	/**
+	 * The node-local sync is not used, the rows of the database are locked
+	 * in the natural order of the assets to prevent dead locks with other
+	 * syncs on several resourceables.
+	 * 
+	 * @see org.olat.core.util.coordinate.Syncer#doInSync(java.util.Collection, org.olat.core.util.coordinate.SyncerExecutor)
+	 */
+	@Override
+	public void doInSync(Collection<? extends OLATResourceable> resources, SyncerExecutor executor) {
+		if(resources == null || resources.isEmpty()) return;
+		
+		TreeSet<String> assets = new TreeSet<>();
+		for(OLATResourceable ores:resources) {
+			assets.add(OresHelper.createStringRepresenting(ores));
+		}
+		
+		getData().setSyncObject(null);
+		getData().incrementAndCheckNestedLevelCounter();
+		try {
+			// create the missing rows in one go, the select for update will find them
+			getPessimisticLockManager().createPLocks(assets);
+			for(String asset:assets) {
+				getPessimisticLockManager().findOrPersistPLock(asset);
+			}
+			executor.execute();
+		} finally {
+			getData().decrementNestedLevelCounter();
+		}
+		if(getData().getNestedLevel() == 0) {
+			data.remove();
+		}
+		// release all the locks together
+		dbInstance.commit();
+	}
+
 	/**
 	 * @see org.olat.core.util.coordinate.Syncer#assertAlreadyDoInSyncFor(org.olat.core.id.OLATResourceable)
 	 */
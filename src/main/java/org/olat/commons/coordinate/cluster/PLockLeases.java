@@ -0,0 +1,151 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.Tracing;
+
+/**
+ * Node-local and fair leases on the assets of the pessimistic locks. Only
+ * one thread of the node holds the lease of an asset at a time, the waiting
+ * threads get it in the order of their arrival. A lease expires after its
+ * duration: the threads waiting for it stop to wait and go on without lease,
+ * the row lock in the database still excludes them until the holder commits.
+ * A blocked holder slows the other threads of the node down, but cannot hold
+ * them indefinitely. The lease is removed from the map as soon as no thread
+ * holds it or waits for it.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class PLockLeases {
+	
+	private static final Logger log = Tracing.createLoggerFor(PLockLeases.class);
+	
+	private final ConcurrentMap<String,LeaseEntry> leases = new ConcurrentHashMap<>();
+	private final long leaseDuration;
+	
+	/**
+	 * @param leaseDuration The duration of a lease in milliseconds
+	 */
+	public PLockLeases(long leaseDuration) {
+		this.leaseDuration = leaseDuration;
+	}
+	
+	public long getLeaseDuration() {
+		return leaseDuration;
+	}
+	
+	/**
+	 * Wait until the lease of the asset is free or expired and acquire it.
+	 * 
+	 * @param asset The asset
+	 * @return The lease which must be released in a finally block
+	 */
+	public Lease acquire(String asset) {
+		LeaseEntry entry = leases.compute(asset, (key, current) -> {
+			LeaseEntry l = current == null ? new LeaseEntry(key) : current;
+			l.holders++;
+			return l;
+		});
+		
+		try {
+			for(;;) {
+				// 0 means that the lease is free or just granted and not expired
+				long expiresAt = entry.expiresAt;
+				long remaining = expiresAt - System.currentTimeMillis();
+				if(expiresAt > 0l && remaining <= 0 && entry.lock.isLocked()) {
+					log.warn("Lease of {} expired after {} ms, continue without lease", asset, leaseDuration);
+					return new Lease(entry, false);
+				}
+				// the holder can change while waiting, the expiration is checked again
+				if(entry.lock.tryLock(Math.max(remaining, 1l), TimeUnit.MILLISECONDS)) {
+					entry.expiresAt = System.currentTimeMillis() + leaseDuration;
+					return new Lease(entry, true);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while waiting for the lease of {}, continue without lease", asset);
+			return new Lease(entry, false);
+		}
+	}
+	
+	public void release(Lease lease) {
+		LeaseEntry entry = lease.entry;
+		try {
+			if(lease.granted) {
+				entry.expiresAt = 0l;
+				entry.lock.unlock();
+			}
+		} finally {
+			leases.computeIfPresent(entry.asset, (key, current) -> --current.holders <= 0 ? null : current);
+		}
+	}
+	
+	/**
+	 * @return The number of assets currently held or waited for
+	 */
+	public int size() {
+		return leases.size();
+	}
+	
+	public static class Lease {
+		
+		private final LeaseEntry entry;
+		private final boolean granted;
+		
+		private Lease(LeaseEntry entry, boolean granted) {
+			this.entry = entry;
+			this.granted = granted;
+		}
+		
+		public String getAsset() {
+			return entry.asset;
+		}
+		
+		/**
+		 * @return false if the thread goes on without the lease because
+		 * 		the lease of the previous holder expired
+		 */
+		public boolean isGranted() {
+			return granted;
+		}
+	}
+	
+	private static class LeaseEntry {
+		
+		private final String asset;
+		private final ReentrantLock lock = new ReentrantLock(true);
+		// 0 if nobody holds the lease
+		private volatile long expiresAt = 0l;
+		// only changed in the compute methods of the map
+		private int holders = 0;
+		
+		private LeaseEntry(String asset) {
+			this.asset = asset;
+		}
+	}
+}
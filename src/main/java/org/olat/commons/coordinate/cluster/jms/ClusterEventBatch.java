@@ -0,0 +1,231 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * Description:<br>
+ * The events collected during the batch window of the cluster event bus and
+ * the compact binary frame used to send them in one JMS message. The frame is
+ * deflated and contains a small header followed by the resource type, the
+ * resource id and the payload of every event. Only the payload of the event
+ * itself is serialized with Java serialization, the events are subclasses of
+ * MultiUserEvent and can hold any serializable state. Identical pairs of
+ * resource and serialized event are sent only once.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class ClusterEventBatch {
+	
+	private static final int MAGIC = 0x4F4C4542;
+	private static final byte VERSION = 1;
+	
+	private final long created;
+	private final List<Entry> entries = new ArrayList<>();
+	
+	ClusterEventBatch() {
+		created = System.currentTimeMillis();
+	}
+	
+	public long getCreated() {
+		return created;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+	
+	public List<Entry> getEntries() {
+		return entries;
+	}
+	
+	void add(OLATResourceable ores, MultiUserEvent event) {
+		entries.add(new Entry(ores.getResourceableTypeName(), ores.getResourceableId(), event));
+	}
+	
+	/**
+	 * Write the frame.
+	 * 
+	 * @param nodeId The node which sends the batch
+	 * @param msgId The id of the message
+	 * @return The compressed frame
+	 * @throws IOException
+	 */
+	byte[] toFrame(Integer nodeId, long msgId) throws IOException {
+		List<byte[]> payloads = new ArrayList<>(entries.size());
+		List<Entry> uniqueEntries = new ArrayList<>(entries.size());
+		Set<PayloadKey> deduplication = new HashSet<>();
+		for(Entry entry:entries) {
+			byte[] payload = serialize(entry.getEvent());
+			if(deduplication.add(new PayloadKey(entry.getResType(), entry.getResId(), payload))) {
+				payloads.add(payload);
+				uniqueEntries.add(entry);
+			}
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+		try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(nodeId.intValue());
+			out.writeLong(msgId);
+			out.writeInt(uniqueEntries.size());
+			for(int i=0; i<uniqueEntries.size(); i++) {
+				Entry entry = uniqueEntries.get(i);
+				out.writeUTF(entry.getResType());
+				if(entry.getResId() == null) {
+					out.writeBoolean(false);
+				} else {
+					out.writeBoolean(true);
+					out.writeLong(entry.getResId().longValue());
+				}
+				byte[] payload = payloads.get(i);
+				out.writeInt(payload.length);
+				out.write(payload);
+			}
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Read a frame written by toFrame.
+	 * 
+	 * @param frame The compressed frame
+	 * @return The list of messages
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	static List<JMSWrapper> fromFrame(byte[] frame) throws IOException, ClassNotFoundException {
+		try(DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(frame)))) {
+			if(in.readInt() != MAGIC) {
+				throw new IOException("Not a cluster event frame");
+			}
+			byte version = in.readByte();
+			if(version != VERSION) {
+				throw new IOException("Unsupported version of cluster event frame: " + version);
+			}
+			
+			Integer nodeId = Integer.valueOf(in.readInt());
+			long msgId = in.readLong();
+			int size = in.readInt();
+			List<JMSWrapper> wrappers = new ArrayList<>(size);
+			for(int i=0; i<size; i++) {
+				String resType = in.readUTF();
+				Long resId = in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+				byte[] payload = new byte[in.readInt()];
+				in.readFully(payload);
+				MultiUserEvent event = deserialize(payload);
+				wrappers.add(new JMSWrapper(nodeId, msgId, resType, resId, event));
+			}
+			return wrappers;
+		}
+	}
+	
+	private static byte[] serialize(MultiUserEvent event) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(event);
+		}
+		return bytes.toByteArray();
+	}
+	
+	private static MultiUserEvent deserialize(byte[] payload) throws IOException, ClassNotFoundException {
+		try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+			return (MultiUserEvent)in.readObject();
+		}
+	}
+	
+	public static class Entry {
+		
+		private final String resType;
+		private final Long resId;
+		private final MultiUserEvent event;
+		
+		Entry(String resType, Long resId, MultiUserEvent event) {
+			this.resType = resType;
+			this.resId = resId;
+			this.event = event;
+		}
+
+		public String getResType() {
+			return resType;
+		}
+
+		public Long getResId() {
+			return resId;
+		}
+
+		public MultiUserEvent getEvent() {
+			return event;
+		}
+	}
+	
+	private static class PayloadKey {
+		
+		private final String resType;
+		private final Long resId;
+		private final byte[] payload;
+		private final int hash;
+		
+		PayloadKey(String resType, Long resId, byte[] payload) {
+			this.resType = resType;
+			this.resId = resId;
+			this.payload = payload;
+			hash = (31 * resType.hashCode() + (resId == null ? 0 : resId.hashCode())) * 31 + Arrays.hashCode(payload);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(obj instanceof PayloadKey) {
+				PayloadKey key = (PayloadKey)obj;
+				return hash == key.hash && resType.equals(key.resType)
+						&& (resId == null ? key.resId == null : resId.equals(key.resId))
+						&& Arrays.equals(payload, key.payload);
+			}
+			return false;
+		}
+	}
+}
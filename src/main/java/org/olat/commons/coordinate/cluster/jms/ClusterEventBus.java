@@ -25,12 +25,16 @@
 package org.olat.commons.coordinate.cluster.jms;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.DeliveryMode;
@@ -107,8 +111,19 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	
 	private final SimpleProbe mrtgProbeJMSEnqueueTime_ = new SimpleProbe();
 	
+	private final LatencyHistogram sendLatency = new LatencyHistogram();
+	private final LatencyHistogram receiveLatency = new LatencyHistogram();
+	
 	private ExecutorService jmsExecutor;
 	
+	// batch transport: the events are collected during a small window and sent in one frame
+	private boolean batchEnabled = false;
+	private long batchWindow = 25;
+	private int batchMaxSize = 250;
+	private final Object batchLock = new Object();
+	private ClusterEventBatch currentBatch;
+	private ScheduledExecutorService batchScheduler;
+	
 	/**
 	 * [used by spring]
 	 * 
@@ -120,6 +135,10 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 
 	public void springInit() throws JMSException {
 		jmsExecutor = Executors.newSingleThreadExecutor();
+		if(batchEnabled) {
+			batchScheduler = Executors.newSingleThreadScheduledExecutor();
+			log.info("ClusterEventBus sends events in batch, window: {}ms, max. size: {}", batchWindow, batchMaxSize);
+		}
 		
 		connection = connectionFactory.createConnection();
 		sessionConsumer = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
@@ -165,6 +184,8 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		t.start();
 		// register to listen for other nodes' clusterinfoevents
 		registerFor(this, null, CLUSTER_CHANNEL);
+		// registrations and fires per resource type
+		getStatistics().register("ClusterEventBus");
 	}
 	
 	public SimpleProbe getMrtgProbeJMSDeliveryTime() {
@@ -183,6 +204,22 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		return mrtgProbeJMSEnqueueTime_;
 	}
 	
+	/**
+	 * @return The histogram of the time between the fire of the event and
+	 * 		the end of the send to the JMS broker.
+	 */
+	public LatencyHistogram getSendLatency() {
+		return sendLatency;
+	}
+	
+	/**
+	 * @return The histogram of the time between the JMS timestamp of the message
+	 * 		and the end of the distribution of its events to the listeners.
+	 */
+	public LatencyHistogram getReceiveLatency() {
+		return receiveLatency;
+	}
+	
 	/* (non-Javadoc)
 	 * @see org.olat.core.util.event.GenericEventListener#event(org.olat.core.gui.control.Event)
 	 */
@@ -224,8 +261,14 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	private void fireEventToListenersOf(final MultiUserEvent event, final OLATResourceable ores, boolean strict) {
 		// send the event wrapped over jms to all nodes 
 		// (the receiver will detect whether messages are from itself and thus can be ignored, since they were already sent directly.
+		if(strict && batchEnabled) {
+			addToBatch(event, ores);
+			return;
+		}
+		
 		final long msgId = ++latestSentMsgId;
 		final Integer nodeId = clusterConfig.getNodeId();
+		final long fireTime = System.currentTimeMillis();
 		
 		jmsExecutor.execute(new Runnable() {
 			@Override
@@ -239,19 +282,10 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 						producer.send(message, DeliveryMode.NON_PERSISTENT, 3, 5000);
 					}
 				} catch (Exception e) {
-					log.error("Cannot send JMS message", e);
-					// cluster:::: what shall we do here: the JMS bus is broken! and we thus cannot know if other nodes are alive.
-					// if we are the only node running, then we could continue.
-					// a) either throw an exception - meaning olat doesn't really run at all and produces redscreens all the time and logging in is not possible.
-					// b) or warn in the log/jmx - but surveillance is critical here!!
-					// -> do the more fail-fast option a) at the moment for correctness reasons.
-					System.err.println("###############################################################################################");
-					System.err.println("### ClusterEventBus: communication error with JMS - cannot send messages!!!" + e);
-					System.err.println("###############################################################################################");
-					
-					throw new OLATRuntimeException("communication error with JMS - cannot send messages!!!", e);
+					throw sendError(e);
 				}
 				numOfSentMessages++;
+				sendLatency.addMeasurement(System.currentTimeMillis() - fireTime);
 			}
 		});
 
@@ -260,6 +294,78 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		addToSentScreen(sentMsg);
 		if (log.isDebugEnabled()) log.debug(sentMsg);
 	}
+	
+	private void addToBatch(final MultiUserEvent event, final OLATResourceable ores) {
+		ClusterEventBatch fullBatch = null;
+		boolean newBatch = false;
+		synchronized(batchLock) {
+			if(currentBatch == null) {
+				currentBatch = new ClusterEventBatch();
+				newBatch = true;
+			}
+			currentBatch.add(ores, event);
+			if(currentBatch.size() >= batchMaxSize) {
+				fullBatch = currentBatch;
+				currentBatch = null;
+			}
+		}
+		
+		if(fullBatch != null) {
+			sendBatch(fullBatch);
+		} else if(newBatch) {
+			batchScheduler.schedule(this::flushBatch, batchWindow, TimeUnit.MILLISECONDS);
+		}
+
+		String sentMsg = "batch msg: from node:" + clusterConfig.getNodeId() + ", ores:" + ores.getResourceableTypeName() + ":" + ores.getResourceableId() + ", event:" + event;
+		addToSentScreen(sentMsg);
+		if (log.isDebugEnabled()) log.debug(sentMsg);
+	}
+	
+	private void flushBatch() {
+		ClusterEventBatch batch;
+		synchronized(batchLock) {
+			batch = currentBatch;
+			currentBatch = null;
+		}
+		if(batch != null) {
+			sendBatch(batch);
+		}
+	}
+	
+	private void sendBatch(final ClusterEventBatch batch) {
+		final long msgId = ++latestSentMsgId;
+		final Integer nodeId = clusterConfig.getNodeId();
+		
+		jmsExecutor.execute(() -> {
+			try {
+				byte[] frame = batch.toFrame(nodeId, msgId);
+				BytesMessage message = sessionProducer.createBytesMessage();
+				message.writeBytes(frame);
+				producer.send(message);
+			} catch (Exception e) {
+				throw sendError(e);
+			}
+			numOfSentMessages++;
+			sendLatency.addMeasurement(System.currentTimeMillis() - batch.getCreated());
+			if (log.isDebugEnabled()) log.debug("sent batch: from node:{}, olat-id:{}, events:{}", nodeId, msgId, batch.size());
+		});
+	}
+
+	/**
+	 * Log a failed send and build the exception to throw.<br>
+	 * cluster:::: what shall we do here: the JMS bus is broken! and we thus cannot know if other nodes are alive.
+	 * if we are the only node running, then we could continue.
+	 * a) either throw an exception - meaning olat doesn't really run at all and produces redscreens all the time and logging in is not possible.
+	 * b) or warn in the log/jmx - but surveillance is critical here!!
+	 * -> do the more fail-fast option a) at the moment for correctness reasons.
+	 * 
+	 * @param e The cause
+	 * @return The exception to throw
+	 */
+	private OLATRuntimeException sendError(Exception e) {
+		log.error("ClusterEventBus: communication error with JMS - cannot send messages!!!", e);
+		return new OLATRuntimeException("communication error with JMS - cannot send messages!!!", e);
+	}
 
 	/**
 	 * called by springs org.springframework.jms.listener.DefaultMessageListenerContainer, see coredefaultconfig.xml
@@ -309,46 +415,44 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			lastOnMessageFinishTime_ = -1;
 		}
 
-		ObjectMessage om = (ObjectMessage) message;
 		try {
 			// unpack
-			JMSWrapper jmsWrapper = (JMSWrapper) om.getObject();
-			Integer nodeId = jmsWrapper.getNodeId();			
-			MultiUserEvent event = jmsWrapper.getMultiUserEvent();
-			OLATResourceable ores = jmsWrapper.getOres();
-			boolean fromSameNode = clusterConfig.getNodeId().equals(nodeId);
-
-			String recMsg = "received msg: "+(fromSameNode? "[same node]":"")+" from node:" + 
-			nodeId + ", olat-id:" + jmsWrapper.getMsgId() + ", ores:" + ores.getResourceableTypeName() + ":" + ores.getResourceableId() +
-			", event:"+event+"}";
-
+			List<JMSWrapper> jmsWrappers;
+			if (message instanceof BytesMessage) {
+				BytesMessage bm = (BytesMessage) message;
+				byte[] frame = new byte[(int)bm.getBodyLength()];
+				bm.readBytes(frame);
+				jmsWrappers = ClusterEventBatch.fromFrame(frame);
+			} else {
+				jmsWrappers = Collections.singletonList((JMSWrapper)((ObjectMessage) message).getObject());
+			}
+			
 			// stats
-			final long jmsTimestamp = om.getJMSTimestamp();
+			final long jmsTimestamp = message.getJMSTimestamp();
 			if (jmsTimestamp!=0) {
 				final long deliveryTime = receiveTime - jmsTimestamp;
 				if (deliveryTime>1500) {
 					// then issue a log statement
-					log.warn("message received with long delivery time (longer than 1500ms: {}): {}", deliveryTime, recMsg);
+					log.warn("message received with long delivery time (longer than 1500ms: {}): {} events", deliveryTime, jmsWrappers.size());
 				}
 				mrtgProbeJMSDeliveryTime_.addMeasurement(deliveryTime);
 			}
 			
-			addToReceivedScreen(recMsg);
-			if (log.isDebugEnabled()) log.debug(recMsg);
-			
-			// message with destination and source both having this vm are ignored here, since they were already 
-			// "inline routed" when having been sent (direct call within the vm).
-			// distribute the unmarshalled event to all JVM wide listeners for this channel.
-			doFire(event, ores);
+			for (JMSWrapper jmsWrapper:jmsWrappers) {
+				serveEvent(jmsWrapper);
+			}
 			
 			// stats
 			final long doneTime = System.currentTimeMillis();
 			final long processingTime = doneTime - receiveTime;
 			if (processingTime>500) {
 				// then issue a log statement
-				log.warn("message received with long processing time (longer than 500ms: {}): {}", processingTime, recMsg);
+				log.warn("message received with long processing time (longer than 500ms: {}): {} events", processingTime, jmsWrappers.size());
 			}
 			mrtgProbeJMSProcessingTime_.addMeasurement(processingTime);
+			if (jmsTimestamp!=0) {
+				receiveLatency.addMeasurement(doneTime - jmsTimestamp);
+			}
 		} catch (Error er) {
 			log.error("Uncaught Error in ClusterEventBus.onMessage!", er);
 			throw er;
@@ -364,6 +468,25 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			lastOnMessageFinishTime_ = System.currentTimeMillis();
 		}
 	}
+	
+	private void serveEvent(JMSWrapper jmsWrapper) {
+		Integer nodeId = jmsWrapper.getNodeId();			
+		MultiUserEvent event = jmsWrapper.getMultiUserEvent();
+		OLATResourceable ores = jmsWrapper.getOres();
+		boolean fromSameNode = clusterConfig.getNodeId().equals(nodeId);
+
+		String recMsg = "received msg: "+(fromSameNode? "[same node]":"")+" from node:" + 
+		nodeId + ", olat-id:" + jmsWrapper.getMsgId() + ", ores:" + ores.getResourceableTypeName() + ":" + ores.getResourceableId() +
+		", event:"+event+"}";
+		
+		addToReceivedScreen(recMsg);
+		if (log.isDebugEnabled()) log.debug(recMsg);
+		
+		// message with destination and source both having this vm are ignored here, since they were already 
+		// "inline routed" when having been sent (direct call within the vm).
+		// distribute the unmarshalled event to all JVM wide listeners for this channel.
+		doFire(event, ores);
+	}
 
 	private NodeInfo getNodeInfoFor(Integer nodeId) {
 		synchronized (nodeInfos) {//cluster_ok node info is per vm only
@@ -416,6 +539,8 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	void resetStats() {
 		msgsSentCount = 0;
 		msgsReceivedCount = 0;
+		sendLatency.reset();
+		receiveLatency.reset();
 	}
 	
 	private void addToSentScreen(String msg) {
@@ -466,7 +591,15 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	public void stop() {
 		log.info("ClusterEventBus: Set stop flag for ClusterInfoEvent-Thread.");
 		isClusterInfoEventThreadRunning = false;
+		getStatistics().unregister();
 		try {
+			if(batchScheduler != null) {
+				batchScheduler.shutdownNow();
+				// send the last events
+				flushBatch();
+				jmsExecutor.shutdown();
+				jmsExecutor.awaitTermination(5, TimeUnit.SECONDS);
+			}
 			jmsExecutor.shutdownNow();
 			sessionProducer.close();
 			sessionConsumer.close();
@@ -474,6 +607,8 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			log.info("ClusterEventBus stopped");
 		} catch (JMSException e) {
 			log.warn("Exception in stop ClusteredSearchProvider, ",e);
+		} catch (InterruptedException e) {
+			log.warn("Interrupted while sending the last batch of events", e);
 		}
 	}
 
@@ -506,4 +641,28 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		this.destination = destination;
 	}
 
+	/**
+	 * [used by spring]
+	 * @param batchEnabled true to collect the events in a window and send them in one message
+	 */
+	public void setBatchEnabled(boolean batchEnabled) {
+		this.batchEnabled = batchEnabled;
+	}
+
+	/**
+	 * [used by spring]
+	 * @param batchWindow The max. time in milliseconds an event waits in the batch
+	 */
+	public void setBatchWindow(long batchWindow) {
+		this.batchWindow = batchWindow;
+	}
+
+	/**
+	 * [used by spring]
+	 * @param batchMaxSize The max. number of events in one batch
+	 */
+	public void setBatchMaxSize(int batchMaxSize) {
+		this.batchMaxSize = batchMaxSize;
+	}
+
 }
@@ -0,0 +1,117 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Description:<br>
+ * A lock-free histogram of latencies in milliseconds with fixed, roughly
+ * logarithmic buckets. Complements the SimpleProbe which only knows
+ * the average and the maximum.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class LatencyHistogram {
+	
+	private static final long[] BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	
+	public void addMeasurement(long millis) {
+		int index = BOUNDS.length;
+		for(int i=0; i<BOUNDS.length; i++) {
+			if(millis < BOUNDS[i]) {
+				index = i;
+				break;
+			}
+		}
+		buckets.incrementAndGet(index);
+		count.increment();
+		total.add(millis);
+	}
+	
+	public long getNum() {
+		return count.sum();
+	}
+	
+	public long getAvg() {
+		long num = count.sum();
+		return num == 0 ? 0 : Math.round((double)total.sum() / (double)num);
+	}
+	
+	/**
+	 * @param percentile A value between 0 and 100
+	 * @return The upper bound in milliseconds of the bucket containing the percentile,
+	 * 		or -1 if the percentile lies in the last, unbounded bucket
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = getCounts();
+		long num = 0;
+		for(long c:snapshot) {
+			num += c;
+		}
+		if(num == 0) {
+			return 0;
+		}
+		
+		long threshold = (long)Math.ceil(num * percentile / 100.0d);
+		long cumulated = 0;
+		for(int i=0; i<BOUNDS.length; i++) {
+			cumulated += snapshot[i];
+			if(cumulated >= threshold) {
+				return BOUNDS[i];
+			}
+		}
+		return -1;
+	}
+	
+	public long[] getCounts() {
+		long[] snapshot = new long[buckets.length()];
+		for(int i=snapshot.length; i-->0; ) {
+			snapshot[i] = buckets.get(i);
+		}
+		return snapshot;
+	}
+	
+	public void reset() {
+		for(int i=buckets.length(); i-->0; ) {
+			buckets.set(i, 0l);
+		}
+		count.reset();
+		total.reset();
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(128);
+		long[] snapshot = getCounts();
+		sb.append("histogram[num=").append(getNum()).append(",avg=").append(getAvg());
+		for(int i=0; i<BOUNDS.length; i++) {
+			sb.append(",<").append(BOUNDS[i]).append("ms=").append(snapshot[i]);
+		}
+		sb.append(",>=").append(BOUNDS[BOUNDS.length - 1]).append("ms=").append(snapshot[BOUNDS.length]).append("]");
+		return sb.toString();
+	}
+}
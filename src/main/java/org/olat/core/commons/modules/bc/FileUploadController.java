@@ -744,6 +744,7 @@ public class FileUploadController extends FormBasicController {
 			vfsRepositoryService.updateMetadata(meta);
 			vfsRepositoryService.itemSaved((VFSLeaf)item, getIdentity());
 			vfsRepositoryService.resetThumbnails((VFSLeaf)item);
+			vfsRepositoryService.generateThumbnails(List.of((VFSLeaf)item), 200, 200, false);
 		}
 		
 		if(item == null) {
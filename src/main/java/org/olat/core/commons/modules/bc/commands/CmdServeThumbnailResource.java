@@ -26,16 +26,21 @@
 
 package org.olat.core.commons.modules.bc.commands;
 
+import java.io.File;
+
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.modules.bc.components.FolderComponent;
 import org.olat.core.commons.services.vfs.VFSRepositoryService;
 import org.olat.core.gui.UserRequest;
 import org.olat.core.gui.control.Controller;
 import org.olat.core.gui.control.WindowControl;
+import org.olat.core.gui.media.FileMediaResource;
 import org.olat.core.gui.media.ForbiddenMediaResource;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.gui.media.NotFoundMediaResource;
+import org.olat.core.gui.media.ServletUtil;
 import org.olat.core.gui.translator.Translator;
+import org.olat.core.util.WebappHelper;
 import org.olat.core.util.vfs.VFSConstants;
 import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.core.util.vfs.VFSManager;
@@ -70,9 +75,11 @@ public class CmdServeThumbnailResource implements FolderCommand {
 			}
 			
 			if(vfsLeaf != null && vfsLeaf.canMeta() == VFSConstants.YES) {
-				VFSLeaf thumbnail = vfsRepositoryservice.getThumbnail(vfsLeaf, 200, 200, false);
+				VFSLeaf thumbnail = vfsRepositoryservice.getThumbnailIfReady(vfsLeaf, 200, 200, false);
 				if(thumbnail != null) {
 					mr = new VFSMediaResource(thumbnail);
+				} else if(vfsRepositoryservice.isThumbnailAvailable(vfsLeaf)) {
+					mr = getPlaceholder();
 				}
 			}
 			if(mr == null) {
@@ -83,6 +90,20 @@ public class CmdServeThumbnailResource implements FolderCommand {
 		return null;
 	}
 
+	/**
+	 * The thumbnail is generated in the background, send a transparent
+	 * image which is not cached by the browser.
+	 */
+	private MediaResource getPlaceholder() {
+		File placeholder = new File(WebappHelper.getContextRealPath("/static/images/transparent.gif"));
+		if(placeholder.exists()) {
+			FileMediaResource mr = new FileMediaResource(placeholder);
+			mr.setCacheControlDuration(ServletUtil.CACHE_NO_CACHE);
+			return mr;
+		}
+		return null;
+	}
+
 	@Override
 	public int getStatus() {
 		return status;
@@ -24,17 +24,27 @@
 */
 package org.olat.core.commons.services.lock.pessimistic;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.persistence.LockModeType;
+import javax.persistence.TemporalType;
 
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.logging.AssertException;
-import org.apache.logging.log4j.Logger;
 import org.olat.core.logging.Tracing;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 
@@ -54,9 +64,14 @@ public class PessimisticLockManager implements InitializingBean {
 	private static final Logger log = Tracing.createLoggerFor(PessimisticLockManager.class);
 	
 
+	private static final int BATCH_SIZE = 500;
+
 	private final String ASSET_INSERT_LOCK = "SYS_plock_global";
 	private boolean initDone = false;
 	
+	@Value("${cluster.plock.insert.ignore:true}")
+	private boolean insertIgnore;
+	
 	private final DB dbInstance;
 	
 	@Autowired
@@ -103,6 +118,108 @@ public class PessimisticLockManager implements InitializingBean {
 		dbInstance.saveObject(plock);
 	}
 	
+	/**
+	 * @return true if the rows can be created with an insert-or-ignore
+	 * 		statement on the current database
+	 */
+	public boolean isInsertIgnore() {
+		return insertIgnore && (dbInstance.isPostgreSQL() || dbInstance.isMySQL());
+	}
+
+	/**
+	 * [used by tests]
+	 * @param insertIgnore
+	 */
+	public void setInsertIgnore(boolean insertIgnore) {
+		this.insertIgnore = insertIgnore;
+	}
+	
+	/**
+	 * Insert the row if no other transaction has already inserted it. If an other
+	 * transaction inserted the same asset but has not committed yet, the statement
+	 * waits on the unique index of the asset and then does nothing.
+	 * 
+	 * @param asset The asset
+	 * @return true if the row was inserted by this statement
+	 */
+	private boolean insertIgnorePLock(String asset) {
+		StringBuilder sb = new StringBuilder(128);
+		if(dbInstance.isMySQL()) {
+			sb.append("insert ignore into o_plock (plock_id, version, creationdate, asset)")
+			  .append(" values (:key, 0, :creationDate, :asset)");
+		} else {
+			sb.append("insert into o_plock (plock_id, version, creationdate, asset)")
+			  .append(" values (:key, 0, :creationDate, :asset)")
+			  .append(" on conflict do nothing");
+		}
+		
+		int rows = dbInstance.getCurrentEntityManager()
+				.createNativeQuery(sb.toString())
+				.setParameter("key", generateKey())
+				.setParameter("creationDate", new Date(), TemporalType.TIMESTAMP)
+				.setParameter("asset", asset)
+				.executeUpdate();
+		return rows > 0;
+	}
+	
+	private Long generateKey() {
+		SharedSessionContractImplementor session = dbInstance.getCurrentEntityManager()
+				.unwrap(SharedSessionContractImplementor.class);
+		IdentifierGenerator generator = session.getFactory().getIdentifierGenerator(PLockImpl.class.getName());
+		Serializable key = generator.generate(session, null);
+		return Long.valueOf(((Number)key).longValue());
+	}
+	
+	private List<String> getExistingAssets(List<String> assets) {
+		return dbInstance.getCurrentEntityManager()
+				.createQuery("select lock.asset from plock as lock where lock.asset in (:assets)", String.class)
+				.setParameter("assets", assets)
+				.getResultList();
+	}
+	
+	/**
+	 * Create the lock rows of the specified assets in one go, the assets
+	 * which already have a row are ignored. The rows are not locked, the
+	 * method only makes sure that a later {@link #findOrPersistPLock(String)}
+	 * finds its row at the first select for update. The caller is responsible
+	 * to commit the transaction.
+	 * 
+	 * @param assets A list of assets
+	 * @return The number of rows created
+	 */
+	public int createPLocks(Collection<String> assets) {
+		if (!initDone) throw new AssertException("init not called yet - make sure the ClusterModule is enabled in your olat.local.properties file");
+		if(assets == null || assets.isEmpty()) return 0;
+		
+		int created = 0;
+		List<String> assetList = new ArrayList<>(new LinkedHashSet<>(assets));
+		for(int i=0; i<assetList.size(); i += BATCH_SIZE) {
+			List<String> batch = assetList.subList(i, Math.min(assetList.size(), i + BATCH_SIZE));
+			Set<String> missingAssets = new LinkedHashSet<>(batch);
+			missingAssets.removeAll(new HashSet<>(getExistingAssets(batch)));
+			if(missingAssets.isEmpty()) {
+				continue;
+			}
+			
+			if(isInsertIgnore()) {
+				for(String asset:missingAssets) {
+					if(insertIgnorePLock(asset)) {
+						created++;
+					}
+				}
+			} else {
+				// one global lock for the whole batch
+				findPLock(ASSET_INSERT_LOCK);
+				missingAssets.removeAll(new HashSet<>(getExistingAssets(new ArrayList<>(missingAssets))));
+				for(String asset:missingAssets) {
+					savePLock(createPLock(asset));
+					created++;
+				}
+			}
+		}
+		return created;
+	}
+	
 	/**
 	 * do not use this class directly. please use Syncer or Locker via CoordinatorManager!
 	 * @param asset
@@ -124,7 +241,15 @@ public class PessimisticLockManager implements InitializingBean {
 			}
 		}
 		// if not found, persist it.
-		if (plock == null ) {
+		if (plock == null && isInsertIgnore()) {
+			// no global lock needed, the unique index of the asset serializes
+			// the concurrent inserts of the same asset and only them
+			boolean inserted = insertIgnorePLock(asset);
+			if (debug) {
+				log.debug("findOrPersistPLock insert or ignore plock: {} inserted: {}", asset, inserted);
+			}
+			plock = findPLock(asset);
+		} else if (plock == null) {
 			// synchronize the findOrCreate by using the special row with the global-lock-asset
 			// locks the global lock - which is only used to sync creation of new resource entries, so that those can later be locked.
 			findPLock(ASSET_INSERT_LOCK);
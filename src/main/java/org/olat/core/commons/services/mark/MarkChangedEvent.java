@@ -0,0 +1,58 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.services.mark;
+
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * Fired on the whole cluster if an identity sets or removes a mark.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class MarkChangedEvent extends MultiUserEvent {
+
+	private static final long serialVersionUID = 3207459134561270941L;
+	
+	public static final String MARK_CHANGED = "mark.changed";
+	
+	private final Long identityKey;
+	private final String resName;
+	private final Long resId;
+	
+	public MarkChangedEvent(Long identityKey, String resName, Long resId) {
+		super(MARK_CHANGED);
+		this.identityKey = identityKey;
+		this.resName = resName;
+		this.resId = resId;
+	}
+
+	public Long getIdentityKey() {
+		return identityKey;
+	}
+
+	public String getResName() {
+		return resName;
+	}
+
+	public Long getResId() {
+		return resId;
+	}
+}
@@ -32,10 +32,13 @@ import javax.persistence.TypedQuery;
 
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.services.mark.Mark;
+import org.olat.core.commons.services.mark.MarkChangedEvent;
 import org.olat.core.commons.services.mark.MarkManager;
 import org.olat.core.commons.services.mark.MarkResourceStat;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.resource.OresHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -52,6 +55,8 @@ public class MarkManagerImpl implements MarkManager {
 	
 	@Autowired
 	private DB dbInstance;
+	@Autowired
+	private CoordinatorManager coordinatorManager;
 
 	@Override
 	public List<Mark> getMarks(OLATResourceable ores, Identity identity, Collection<String> subPath) {
@@ -180,6 +185,7 @@ public class MarkManagerImpl implements MarkManager {
 			mark.setBusinessPath(businessPath);
 			mark.setCreator(identity);
 			dbInstance.saveObject(mark);
+			fireMarkChangedEvent(mark);
 		}
 		return mark;
 	}
@@ -206,9 +212,15 @@ public class MarkManagerImpl implements MarkManager {
 		MarkImpl mark = loadMark(ores, identity, subPath);
 		if(mark != null) {
 			dbInstance.deleteObject(mark);
+			fireMarkChangedEvent(mark);
 		}
 	}
 	
+	private void fireMarkChangedEvent(MarkImpl mark) {
+		MarkChangedEvent event = new MarkChangedEvent(mark.getCreator().getKey(), mark.getResName(), mark.getResId());
+		coordinatorManager.getCoordinator().getEventBus().fireEventToListenersOf(event, OresHelper.lookupType(Mark.class));
+	}
+	
 	@Override
 	public void removeMark(Mark mark) {
 		removeMark(mark.getOLATResourceable(), mark.getCreator(), mark.getResSubPath());
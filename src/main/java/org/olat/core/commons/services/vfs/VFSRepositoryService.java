@@ -191,6 +191,33 @@ public interface VFSRepositoryService {
 	 */
 	public VFSLeaf getThumbnail(VFSLeaf file, VFSMetadata metadata, int maxWidth, int maxHeight, boolean fill);
 	
+	/**
+	 * Return the thumbnail if it is already generated. If not, the generation
+	 * is queued and the method returns null, the caller can send a placeholder.
+	 * If the asynchronous generation is disabled, the method is the same as
+	 * getThumbnail.
+	 * 
+	 * @param file The file
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @param fill
+	 * @return The thumbnail or null if not ready
+	 */
+	public VFSLeaf getThumbnailIfReady(VFSLeaf file, int maxWidth, int maxHeight, boolean fill);
+	
+	/**
+	 * Queue the generation of the thumbnails of the specified files,
+	 * for example after an upload. Do nothing if the asynchronous generation
+	 * is disabled. The current transaction is committed before queuing, the
+	 * metadata of the files must be saved.
+	 * 
+	 * @param files The files
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @param fill
+	 */
+	public void generateThumbnails(List<VFSLeaf> files, int maxWidth, int maxHeight, boolean fill);
+	
 	public void resetThumbnails(VFSLeaf file);
 	
 	/**
@@ -296,9 +296,14 @@ public class VFSMetadataDAO {
 	}
 	
 	public void increaseDownloadCount(String relativePath, String filename) {
-		String updateQuery = "update vfsmetadatadownloadcount set downloadCount=downloadCount+1 where filename=:filename and relativePath=:relativePath";
+		increaseDownloadCount(relativePath, filename, 1);
+	}
+	
+	public void increaseDownloadCount(String relativePath, String filename, int delta) {
+		String updateQuery = "update vfsmetadatadownloadcount set downloadCount=downloadCount+:delta where filename=:filename and relativePath=:relativePath";
 		dbInstance.getCurrentEntityManager()
 			.createQuery(updateQuery)
+			.setParameter("delta", delta)
 			.setParameter("filename", filename)
 			.setParameter("relativePath", relativePath)
 			.setHint("javax.persistence.query.timeout", 1000)
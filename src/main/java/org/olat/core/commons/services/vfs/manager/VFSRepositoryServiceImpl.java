@@ -26,6 +26,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -43,11 +44,29 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.Adler32;
 import java.util.zip.Checksum;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.apache.logging.log4j.Logger;
 import org.olat.basesecurity.BaseSecurity;
 import org.olat.core.commons.modules.bc.FolderConfig;
@@ -85,6 +104,7 @@ import org.olat.core.gui.control.Event;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.CounterAccumulator;
 import org.olat.core.util.FileUtils;
 import org.olat.core.util.StringHelper;
 import org.olat.core.util.coordinate.CoordinatorManager;
@@ -100,8 +120,11 @@ import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.core.util.vfs.VFSManager;
 import org.olat.core.util.vfs.version.RevisionFileImpl;
 import org.olat.core.util.vfs.version.VersionsFileImpl;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 /**
@@ -111,13 +134,34 @@ import org.springframework.stereotype.Service;
  *
  */
 @Service
-public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEventListener, InitializingBean {
+public class VFSRepositoryServiceImpl implements VFSRepositoryService, VFSThumbnailsMXBean, GenericEventListener, InitializingBean, DisposableBean {
 	
 	private static final Logger log = Tracing.createLoggerFor(VFSRepositoryServiceImpl.class);
 	private final OLATResourceable fileSizeSubscription = OresHelper.createOLATResourceableType("UpdateFileSizeAsync");
 	private final OLATResourceable incrementFileDownload = OresHelper.createOLATResourceableType("IncrementFileDownloadAsync");
 	private static final String CANONICAL_ROOT_REL_PATH = "/";
 	
+	@Value("${counters.accumulate.enabled:false}")
+	private boolean accumulateDownloads;
+	@Value("${counters.accumulate.interval:5}")
+	private int accumulateInterval;
+	private final CounterAccumulator<FileDownloadKey> downloadCounters = new CounterAccumulator<>();
+	private ScheduledExecutorService downloadCountersScheduler;
+	
+	@Value("${vfs.thumbnails.async.enabled:false}")
+	private boolean asyncThumbnails;
+	@Value("${vfs.thumbnails.workers:2}")
+	private int thumbnailWorkers;
+	@Value("${vfs.thumbnails.queue.size:1000}")
+	private int thumbnailQueueSize;
+	private ThreadPoolExecutor thumbnailExecutor;
+	private ObjectName objectName;
+	private final ConcurrentMap<ThumbnailKey,ThumbnailGeneration> thumbnailsInFlight = new ConcurrentHashMap<>();
+	private final LongAdder generatedThumbnails = new LongAdder();
+	private final LongAdder rejectedThumbnails = new LongAdder();
+	private final AtomicLong totalThumbnailNanos = new AtomicLong();
+	private final AtomicLong maxThumbnailNanos = new AtomicLong();
+	
 	@Autowired
 	private DB dbInstance;
 	@Autowired
@@ -153,6 +197,28 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 	public void afterPropertiesSet() throws Exception {
 		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, fileSizeSubscription);
 		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, incrementFileDownload);
+		if(accumulateDownloads) {
+			long interval = Math.max(1, accumulateInterval);
+			downloadCountersScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("oo-vfs-downloads-"));
+			downloadCountersScheduler.scheduleWithFixedDelay(this::flushDownloadCounters, interval, interval, TimeUnit.SECONDS);
+		}
+		int workers = Math.max(1, thumbnailWorkers);
+		thumbnailExecutor = new ThreadPoolExecutor(workers, workers, 60l, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, thumbnailQueueSize)), new CustomizableThreadFactory("oo-vfs-thumbnails-"));
+		thumbnailExecutor.allowCoreThreadTimeOut(true);
+		register();
+	}
+	
+	@Override
+	public void destroy() throws Exception {
+		if(downloadCountersScheduler != null) {
+			downloadCountersScheduler.shutdownNow();
+		}
+		unregister();
+		if(thumbnailExecutor != null) {
+			thumbnailExecutor.shutdownNow();
+		}
+		flushDownloadCounters();
 	}
 
 	@Override
@@ -186,6 +252,122 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 		}
 	}
 	
+	/**
+	 * Write the download counters accumulated in memory.
+	 * 
+	 * @return The number of files updated
+	 */
+	public int flushDownloadCounters() {
+		if(downloadCounters.isEmpty()) return 0;
+		
+		Map<FileDownloadKey,Long> downloads = downloadCounters.drain();
+		try {
+			for(Map.Entry<FileDownloadKey,Long> download:downloads.entrySet()) {
+				FileDownloadKey key = download.getKey();
+				metadataDao.increaseDownloadCount(key.getRelativePath(), key.getFilename(), download.getValue().intValue());
+			}
+			dbInstance.commitAndCloseSession();
+		} catch (Exception e) {
+			log.error("Cannot flush the download counters of {} files", downloads.size(), e);
+			dbInstance.rollbackAndCloseSession();
+			downloadCounters.addAll(downloads);
+			return 0;
+		}
+		return downloads.size();
+	}
+	
+	public boolean isAccumulateDownloads() {
+		return accumulateDownloads;
+	}
+
+	/**
+	 * [used by tests]
+	 * @param accumulateDownloads
+	 */
+	public void setAccumulateDownloads(boolean accumulateDownloads) {
+		this.accumulateDownloads = accumulateDownloads;
+	}
+	
+	@Override
+	public boolean isAsyncThumbnails() {
+		return asyncThumbnails;
+	}
+
+	/**
+	 * [used by tests]
+	 * @param asyncThumbnails
+	 */
+	public void setAsyncThumbnails(boolean asyncThumbnails) {
+		this.asyncThumbnails = asyncThumbnails;
+	}
+	
+	/**
+	 * @return The number of thumbnails waiting to be generated in the background
+	 */
+	@Override
+	public int getThumbnailQueueSize() {
+		return thumbnailExecutor == null ? 0 : thumbnailExecutor.getQueue().size();
+	}
+	
+	@Override
+	public long getNumOfGeneratedThumbnails() {
+		return generatedThumbnails.sum();
+	}
+	
+	/**
+	 * @return The number of thumbnails not queued because the queue was full
+	 */
+	@Override
+	public long getNumOfRejectedThumbnails() {
+		return rejectedThumbnails.sum();
+	}
+	
+	/**
+	 * @return The average time in milliseconds to generate a thumbnail
+	 */
+	@Override
+	public double getAverageThumbnailLatency() {
+		long count = generatedThumbnails.sum();
+		return count == 0 ? 0.0d : (totalThumbnailNanos.get() / (double)count) / 1000000.0d;
+	}
+	
+	/**
+	 * @return The max. time in milliseconds to generate a thumbnail
+	 */
+	@Override
+	public double getMaxThumbnailLatency() {
+		return maxThumbnailNanos.get() / 1000000.0d;
+	}
+	
+	public synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName("org.olat.core:type=VFS,name=Thumbnails");
+			if(server.isRegistered(on)) {
+				server.unregisterMBean(on);
+			}
+			server.registerMBean(this, on);
+			objectName = on;
+		} catch (Exception e) {
+			log.error("Cannot register the thumbnails statistics in JMX", e);
+		}
+	}
+	
+	public synchronized void unregister() {
+		if(objectName == null) return;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			log.error("Cannot unregister the thumbnails statistics in JMX", e);
+		} finally {
+			objectName = null;
+		}
+	}
+	
 	@Override
 	public VFSMetadata getMetadataByUUID(String uuid) {
 		if(StringHelper.containsNonWhitespace(uuid)) {
@@ -662,7 +844,9 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 	@Override
 	public void increaseDownloadCount(VFSLeaf item) {
 		String relPath = getContainerRelativePath(item);
-		if(StringHelper.containsNonWhitespace(relPath)) {
+		if(StringHelper.containsNonWhitespace(relPath) && accumulateDownloads) {
+			downloadCounters.increment(new FileDownloadKey(relPath, item.getName()));
+		} else if(StringHelper.containsNonWhitespace(relPath)) {
 			AsyncIncrementFileDownloadEvent event = new AsyncIncrementFileDownloadEvent(relPath, item.getName());
 			coordinatorManager.getCoordinator().getEventBus().fireEventToListenersOf(event, incrementFileDownload);
 		}
@@ -677,7 +861,7 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 		if(relativePath != null) {
 			VFSThumbnailMetadata thumbnail = thumbnailDao.findThumbnail(relativePath, file.getName(), fill, maxWidth, maxHeight);
 			if(thumbnail == null) {
-				thumbnailLeaf = generateThumbnail(file, metadata, fill, maxWidth, maxHeight);
+				thumbnailLeaf = generateThumbnailOnce(file, relativePath, metadata, fill, maxWidth, maxHeight);
 			} else {
 				VFSItem item = parentContainer.resolve(thumbnail.getFilename());
 				if(item instanceof VFSLeaf) {
@@ -701,21 +885,187 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 				if(metadata == null) {// fallback and generated the needed database entries
 					metadata = getMetadataFor(file);
 				}
-				thumbnailLeaf = generateThumbnail(file, metadata, fill, maxWidth, maxHeight);
+				thumbnailLeaf = generateThumbnailOnce(file, relativePath, metadata, fill, maxWidth, maxHeight);
 			} else {
-				VFSItem item = parentContainer.resolve(thumbnail.getFilename());
-				if(item instanceof VFSLeaf) {
-					thumbnailLeaf = (VFSLeaf)item;
-				} else if(item == null) {
-					thumbnailDao.removeThumbnail(thumbnail);
-					dbInstance.commit();// free lock ASAP
-				}
+				thumbnailLeaf = resolveThumbnail(parentContainer, thumbnail);
 			}
 		}
 		return thumbnailLeaf;
 	}
 	
+	@Override
+	public VFSLeaf getThumbnailIfReady(VFSLeaf file, int maxWidth, int maxHeight, boolean fill) {
+		if(!asyncThumbnails) {
+			return getThumbnail(file, maxWidth, maxHeight, fill);
+		}
+		
+		String relativePath = getContainerRelativePath(file);
+		if(relativePath == null) return null;
+		
+		ThumbnailKey key = new ThumbnailKey(relativePath, file.getName(), fill, maxWidth, maxHeight);
+		if(thumbnailsInFlight.containsKey(key)) {
+			return null;
+		}
+		
+		VFSThumbnailMetadata thumbnail = thumbnailDao.findThumbnail(relativePath, file.getName(), fill, maxWidth, maxHeight);
+		if(thumbnail != null) {
+			VFSLeaf thumbnailLeaf = resolveThumbnail(getSecureParentContainer(file), thumbnail);
+			if(thumbnailLeaf != null) {
+				return thumbnailLeaf;
+			}
+		}
+		if(metadataDao.getMetadata(relativePath, file.getName(), false) == null) {
+			// the workers don't create metadata
+			getMetadataFor(file);
+			dbInstance.commit();
+		}
+		queueThumbnail(file, key);
+		return null;
+	}
+	
+	@Override
+	public void generateThumbnails(List<VFSLeaf> files, int maxWidth, int maxHeight, boolean fill) {
+		if(!asyncThumbnails || files == null) return;
+		
+		// the workers need the metadata of the files
+		dbInstance.commit();
+		for(VFSLeaf file:files) {
+			if(file == null || file.canMeta() != VFSConstants.YES || !thumbnailService.isThumbnailPossible(file)) {
+				continue;
+			}
+			String relativePath = getContainerRelativePath(file);
+			if(relativePath != null) {
+				queueThumbnail(file, new ThumbnailKey(relativePath, file.getName(), fill, maxWidth, maxHeight));
+			}
+		}
+	}
+	
+	private VFSLeaf resolveThumbnail(VFSContainer parentContainer, VFSThumbnailMetadata thumbnail) {
+		VFSItem item = parentContainer.resolve(thumbnail.getFilename());
+		if(item instanceof VFSLeaf) {
+			return (VFSLeaf)item;
+		}
+		if(item == null) {
+			thumbnailDao.removeThumbnail(thumbnail);
+			dbInstance.commit();// free lock ASAP
+		}
+		return null;
+	}
+	
+	/**
+	 * Generate the thumbnail in the thread of the caller. If the same thumbnail
+	 * is already generated by an other thread, wait for it. If it is only queued
+	 * for the workers, the task is removed from the queue and the thumbnail is
+	 * generated inline instead of waiting behind the whole queue.
+	 */
+	private VFSLeaf generateThumbnailOnce(VFSLeaf file, String relativePath, VFSMetadata metadata, boolean fill, int maxWidth, int maxHeight) {
+		ThumbnailKey key = new ThumbnailKey(relativePath, file.getName(), fill, maxWidth, maxHeight);
+		ThumbnailGeneration generation = new ThumbnailGeneration();
+		generation.start();
+		ThumbnailGeneration inFlight = thumbnailsInFlight.putIfAbsent(key, generation);
+		if(inFlight != null) {
+			if(!inFlight.start()) {
+				return waitThumbnail(inFlight.getFuture(), key);
+			}
+			// still waiting in the queue of the workers, take it over
+			if(inFlight.getTask() != null) {
+				thumbnailExecutor.remove(inFlight.getTask());
+			}
+			generation = inFlight;
+		}
+		
+		try {
+			VFSLeaf thumbnailLeaf = generateThumbnail(file, metadata, fill, maxWidth, maxHeight);
+			generation.getFuture().complete(thumbnailLeaf);
+			return thumbnailLeaf;
+		} catch(RuntimeException e) {
+			generation.getFuture().complete(null);
+			throw e;
+		} finally {
+			thumbnailsInFlight.remove(key, generation);
+		}
+	}
+	
+	private VFSLeaf waitThumbnail(CompletableFuture<VFSLeaf> inFlight, ThumbnailKey key) {
+		try {
+			return inFlight.get(60, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			log.warn("Waiting too long for the thumbnail: {}/{}", key.getRelativePath(), key.getFilename());
+		}
+		return null;
+	}
+	
+	private void queueThumbnail(VFSLeaf file, ThumbnailKey key) {
+		ThumbnailGeneration generation = new ThumbnailGeneration();
+		if(thumbnailsInFlight.putIfAbsent(key, generation) != null) {
+			return;// already queued or generated by someone
+		}
+		
+		Runnable task = () -> {
+			if(!generation.start()) {
+				return;// generated inline by a request
+			}
+			
+			VFSLeaf thumbnailLeaf = null;
+			try {
+				thumbnailLeaf = generateQueuedThumbnail(file, key);
+				dbInstance.commitAndCloseSession();
+			} catch (Exception e) {
+				log.error("Cannot generate thumbnail of: {}/{}", key.getRelativePath(), key.getFilename(), e);
+				dbInstance.rollbackAndCloseSession();
+			} finally {
+				generation.getFuture().complete(thumbnailLeaf);
+				thumbnailsInFlight.remove(key, generation);
+			}
+		};
+		generation.setTask(task);
+		
+		try {
+			thumbnailExecutor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// the next request will try again
+			rejectedThumbnails.increment();
+			if(generation.start()) {
+				generation.getFuture().complete(null);
+				thumbnailsInFlight.remove(key, generation);
+			}
+		}
+	}
+	
+	private VFSLeaf generateQueuedThumbnail(VFSLeaf file, ThumbnailKey key) {
+		VFSThumbnailMetadata thumbnail = thumbnailDao.findThumbnail(key.getRelativePath(), key.getFilename(),
+				key.isFill(), key.getMaxWidth(), key.getMaxHeight());
+		if(thumbnail != null) {
+			VFSLeaf thumbnailLeaf = resolveThumbnail(getSecureParentContainer(file), thumbnail);
+			if(thumbnailLeaf != null) {
+				return thumbnailLeaf;
+			}
+		}
+		
+		VFSMetadata metadata = metadataDao.getMetadata(key.getRelativePath(), key.getFilename(), false);
+		if(metadata == null) {
+			// not committed yet, don't create a second row, the next request will queue the thumbnail again
+			log.debug("No metadata for thumbnail: {}/{}", key.getRelativePath(), key.getFilename());
+			return null;
+		} else if(metadata.getCannotGenerateThumbnails() != null && metadata.getCannotGenerateThumbnails().booleanValue()) {
+			return null;
+		}
+		return generateThumbnail(file, metadata, key.isFill(), key.getMaxWidth(), key.getMaxHeight());
+	}
+	
 	private VFSLeaf generateThumbnail(VFSLeaf file, VFSMetadata metadata, boolean fill, int maxWidth, int maxHeight) {
+		long start = System.nanoTime();
+		VFSLeaf thumbnailLeaf = generateThumbnailLeaf(file, metadata, fill, maxWidth, maxHeight);
+		long duration = System.nanoTime() - start;
+		generatedThumbnails.increment();
+		totalThumbnailNanos.addAndGet(duration);
+		maxThumbnailNanos.accumulateAndGet(duration, Math::max);
+		return thumbnailLeaf;
+	}
+	
+	private VFSLeaf generateThumbnailLeaf(VFSLeaf file, VFSMetadata metadata, boolean fill, int maxWidth, int maxHeight) {
 		String name = file.getName();
 		String thumbnailName = generateFilenameForThumbnail(name, fill, maxWidth, maxHeight);
 		
@@ -1643,4 +1993,126 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 		this.vfsContextInfoResolver = vfsContextInfoResolver;
 	}
 	
+	private static final class FileDownloadKey {
+		
+		private final String relativePath;
+		private final String filename;
+		
+		public FileDownloadKey(String relativePath, String filename) {
+			this.relativePath = relativePath;
+			this.filename = filename;
+		}
+
+		public String getRelativePath() {
+			return relativePath;
+		}
+
+		public String getFilename() {
+			return filename;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(relativePath, filename);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(obj instanceof FileDownloadKey) {
+				FileDownloadKey key = (FileDownloadKey)obj;
+				return Objects.equals(relativePath, key.relativePath)
+						&& Objects.equals(filename, key.filename);
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * A thumbnail queued for the workers or generated. The generation can only
+	 * be started once, by a worker or by a request which takes it over.
+	 */
+	private static final class ThumbnailGeneration {
+		
+		private final CompletableFuture<VFSLeaf> future = new CompletableFuture<>();
+		private final AtomicBoolean started = new AtomicBoolean(false);
+		private volatile Runnable task;
+		
+		public CompletableFuture<VFSLeaf> getFuture() {
+			return future;
+		}
+		
+		public Runnable getTask() {
+			return task;
+		}
+		
+		public void setTask(Runnable task) {
+			this.task = task;
+		}
+		
+		/**
+		 * @return true if the caller is allowed to generate the thumbnail
+		 */
+		public boolean start() {
+			return started.compareAndSet(false, true);
+		}
+	}
+	
+	private static final class ThumbnailKey {
+		
+		private final String relativePath;
+		private final String filename;
+		private final boolean fill;
+		private final int maxWidth;
+		private final int maxHeight;
+		
+		public ThumbnailKey(String relativePath, String filename, boolean fill, int maxWidth, int maxHeight) {
+			this.relativePath = relativePath;
+			this.filename = filename;
+			this.fill = fill;
+			this.maxWidth = maxWidth;
+			this.maxHeight = maxHeight;
+		}
+
+		public String getRelativePath() {
+			return relativePath;
+		}
+
+		public String getFilename() {
+			return filename;
+		}
+
+		public boolean isFill() {
+			return fill;
+		}
+
+		public int getMaxWidth() {
+			return maxWidth;
+		}
+
+		public int getMaxHeight() {
+			return maxHeight;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(relativePath, filename, fill, maxWidth, maxHeight);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(obj instanceof ThumbnailKey) {
+				ThumbnailKey key = (ThumbnailKey)obj;
+				return fill == key.fill && maxWidth == key.maxWidth && maxHeight == key.maxHeight
+						&& Objects.equals(relativePath, key.relativePath)
+						&& Objects.equals(filename, key.filename);
+			}
+			return false;
+		}
+	}
 }
@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.logging.log4j.Logger;
 import org.olat.core.CoreSpringFactory;
@@ -125,9 +126,29 @@ public class VFSResourceRoot implements WebResourceRoot  {
 		return new VFSResource(file, path);
 	}
 
+	@Override
+	public WebResource getResource(String path, VFSItem item) {
+		if(item == null) {
+			return new EmptyWebResource(path);
+		}
+		return new VFSResource(item, path);
+	}
+
 	@Override
 	public Collection<VFSItem> list(String path) {
 		VFSItem file = resolveFile(path);
+		return list(file);
+	}
+
+	@Override
+	public Collection<VFSItem> list(String path, WebResource resource) {
+		if(resource instanceof VFSResource) {
+			return list(((VFSResource)resource).getItem());
+		}
+		return list(path);
+	}
+	
+	private Collection<VFSItem> list(VFSItem file) {
 		if(file instanceof VFSContainer) {
 			VFSContainer container = (VFSContainer)file;
 			return container.getItems(new WebDAVFileSystemFilter());
@@ -235,6 +256,7 @@ public class VFSResourceRoot implements WebResourceRoot  {
 			}
 			addLicense(metadata, identity);
 			vfsRepositoryService.resetThumbnails(childLeaf);
+			vfsRepositoryService.generateThumbnails(List.of(childLeaf), 200, 200, false);
 		}
 		return true;
 	}
@@ -612,32 +612,33 @@ public class WebDAVDispatcherImpl
         generatedXML.writeElement("D", DEFAULT_NAMESPACE, "multistatus", XMLWriter.OPENING);
 
         if (depth == 0) {
-            parseProperties(req, generatedXML, path, type,
+            parseProperties(req, generatedXML, path, resource, type,
                             properties);
         } else {
-            // The stack always contains the object of the current level
-            Stack<String> stack = new Stack<>();
-            stack.push(path);
+            // The stack always contains the object of the current level. The
+            // listed items are used as is, the paths are not resolved a second time
+            Stack<PropfindItem> stack = new Stack<>();
+            stack.push(new PropfindItem(path, resource));
 
             // Stack of the objects one level below
-            Stack<String> stackBelow = new Stack<>();
+            Stack<PropfindItem> stackBelow = new Stack<>();
 
             while ((!stack.isEmpty()) && (depth >= 0)) {
 
-                final String currentPath = stack.pop();
-                parseProperties(req, generatedXML, currentPath, type, properties);
-
-                resource = resources.getResource(currentPath);
+                final PropfindItem currentItem = stack.pop();
+                final String currentPath = currentItem.getPath();
+                resource = currentItem.getResource();
+                parseProperties(req, generatedXML, currentPath, resource, type, properties);
 
                 if (resource.isDirectory() && (depth > 0)) {
 
-                    Collection<VFSItem> entries = resources.list(currentPath);
+                    Collection<VFSItem> entries = resources.list(currentPath, resource);
                     for (VFSItem entry : entries) {
                         String newPath = currentPath;
                         if (!(newPath.endsWith("/")))
                                 newPath += "/";
                         newPath += entry.getName();
-                        stackBelow.push(newPath);
+                        stackBelow.push(new PropfindItem(newPath, resources.getResource(newPath, entry)));
                     }
 
                     // Displaying the lock-null resources present in that
@@ -1984,6 +1985,29 @@ public class WebDAVDispatcherImpl
 
         final WebResourceRoot resources = getResources(req);
         final WebResource resource = resources.getResource(path);
+        parseProperties(req, generatedXML, path, resource, type, propertiesVector);
+    }
+
+    /**
+     * Propfind helper method for a resource already resolved.
+     *
+     * @param req The servlet request
+     * @param generatedXML XML response to the Propfind request
+     * @param path Path of the current resource
+     * @param resource The resource at the specified path
+     * @param type Propfind type
+     * @param propertiesVector If the propfind type is find properties by
+     * name, then this Vector contains those properties
+     */
+    private void parseProperties(HttpServletRequest req,
+                                 XMLWriter generatedXML,
+                                 final String path, final WebResource resource,
+                                 int type, Vector<String> propertiesVector) {
+
+        // Exclude any resource in the /WEB-INF and /META-INF subdirectories
+        if (isSpecialPath(path))
+            return;
+
         if (!resource.exists()) {
             // File is in directory listing but doesn't appear to exist
             // Broken symlink or odd permission settings?
@@ -2577,6 +2601,28 @@ public class WebDAVDispatcherImpl
                     new StringReader("Ignored external entity"));
         }
     }
+
+    /**
+     * A path and its resolved resource in the PROPFIND walk.
+     */
+    private static class PropfindItem {
+
+        private final String path;
+        private final WebResource resource;
+
+        public PropfindItem(String path, WebResource resource) {
+            this.path = path;
+            this.resource = resource;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public WebResource getResource() {
+            return resource;
+        }
+    }
 }
 
 
@@ -2910,5 +2956,3 @@ class WebdavStatus {
     }
 
 }
-
-
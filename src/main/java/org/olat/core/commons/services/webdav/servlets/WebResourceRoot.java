@@ -45,6 +45,17 @@ public interface WebResourceRoot {
      */
 	WebResource getResource(String path);
 
+    /**
+     * Obtain the object that represents an item already resolved, for
+     * example by a listing, without resolving the path again.
+     *
+     * @param path  The path of the item relative to the root
+     * @param item  The item
+     *
+     * @return  The object that represents the resource at the given path
+     */
+	WebResource getResource(String path, VFSItem item);
+
     /**
      * Obtain the list of the names of all of the files and directories located
      * in the specified directory.
@@ -57,6 +68,17 @@ public interface WebResourceRoot {
      */
     Collection<VFSItem> list(String path);
 
+    /**
+     * Obtain the list of the files and directories located in the specified
+     * directory, the resource is used instead of resolving the path.
+     *
+     * @param path      The path of the directory
+     * @param resource  The directory
+     *
+     * @return  The list of resources
+     */
+    Collection<VFSItem> list(String path, WebResource resource);
+
     /**
      * Create a new directory at the given path.
      *
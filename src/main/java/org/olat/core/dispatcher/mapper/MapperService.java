@@ -98,6 +98,15 @@ public interface MapperService {
 
 	public void cleanUp(List<MapperKey> mappers);
 	
+	/**
+	 * In write-behind mode, write immediately the serializable mappers of the
+	 * session which are only hold in memory, e.g. before the session is
+	 * passivated or moved to an other node.
+	 * 
+	 * @param sessionId The HTTP session id
+	 */
+	public void persistPendingMappers(String sessionId);
+	
 	public void slayZombies();
 	
 	
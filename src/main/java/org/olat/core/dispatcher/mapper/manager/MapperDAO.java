@@ -54,19 +54,26 @@ public class MapperDAO {
 	 * @return
 	 */
 	public PersistedMapper persistMapper(String sessionId, String mapperId, Serializable mapper, int expirationTime) {
+		String configuration = XStreamHelper.createXStreamInstance().toXML(mapper);
+		return persistMapperConfiguration(sessionId, mapperId, configuration, expirationTime);
+	}
+	
+	/**
+	 * Persist a mapper with its already serialized configuration.
+	 * 
+	 * @param sessionId The HTTP session id
+	 * @param mapperId The unique id of the mapper
+	 * @param configuration The XML configuration of the mapper
+	 * @param expirationTime The expiration time in seconds
+	 * @return
+	 */
+	public PersistedMapper persistMapperConfiguration(String sessionId, String mapperId, String configuration, int expirationTime) {
 		PersistedMapper m = new PersistedMapper();
 		m.setMapperId(mapperId);
 		Date currentDate = new Date();
 		m.setLastModified(currentDate);
-		if(expirationTime > 0) {
-			Calendar cal = Calendar.getInstance();
-			cal.setTime(currentDate);
-			cal.add(Calendar.SECOND, expirationTime);
-			m.setExpirationDate(cal.getTime());
-		}
+		m.setExpirationDate(getExpirationDate(currentDate, expirationTime));
 		m.setOriginalSessionId(sessionId);
-		
-		String configuration = XStreamHelper.createXStreamInstance().toXML(mapper);
 		m.setXmlConfiguration(configuration);
 		
 		dbInstance.getCurrentEntityManager().persist(m);
@@ -83,7 +90,31 @@ public class MapperDAO {
 	 */
 	public boolean updateConfiguration(String mapperId, Serializable mapper, int expirationTime) {
 		String configuration = XStreamHelper.createXStreamInstance().toXML(mapper);
+		boolean updated = updateMapperConfiguration(mapperId, configuration, expirationTime);
+		dbInstance.commit();
+		return updated;
+	}
+	
+	/**
+	 * Update the configuration of a persisted mapper without committing.
+	 * 
+	 * @param mapperId The mapper unique id (uuid)
+	 * @param configuration The XML configuration of the mapper
+	 * @param expirationTime The expiration time in seconds
+	 * @return true if the mapper exists on the database
+	 */
+	public boolean updateMapperConfiguration(String mapperId, String configuration, int expirationTime) {
 		Date currentDate = new Date();
+		int row = dbInstance.getCurrentEntityManager().createNamedQuery("updateMapperByMapperId")
+			.setParameter("now", currentDate)
+			.setParameter("expirationDate", getExpirationDate(currentDate, expirationTime))
+			.setParameter("config", configuration)
+			.setParameter("mapperId", mapperId)
+			.executeUpdate();
+		return row > 0;
+	}
+	
+	private Date getExpirationDate(Date currentDate, int expirationTime) {
 		Date expirationDate = null;
 		if(expirationTime > 0) {
 			Calendar cal = Calendar.getInstance();
@@ -91,15 +122,7 @@ public class MapperDAO {
 			cal.add(Calendar.SECOND, expirationTime);
 			expirationDate = cal.getTime();
 		}
-		int row = dbInstance.getCurrentEntityManager().createNamedQuery("updateMapperByMapperId")
-			.setParameter("now", currentDate)
-			.setParameter("expirationDate", expirationDate)
-			.setParameter("config", configuration)
-			.setParameter("mapperId", mapperId)
-			.executeUpdate();
-
-		dbInstance.commit();
-		return row > 0;
+		return expirationDate;
 	}
 	
 	public PersistedMapper loadByMapperId(String mapperId) {
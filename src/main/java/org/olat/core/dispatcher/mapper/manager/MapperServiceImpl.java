@@ -22,23 +22,36 @@ package org.olat.core.dispatcher.mapper.manager;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.Logger;
+import org.olat.core.commons.persistence.DB;
 import org.olat.core.dispatcher.DispatcherModule;
 import org.olat.core.dispatcher.mapper.Mapper;
 import org.olat.core.dispatcher.mapper.MapperService;
 import org.olat.core.dispatcher.mapper.model.PersistedMapper;
+import org.olat.core.logging.Tracing;
 import org.olat.core.util.Encoder;
 import org.olat.core.util.StringHelper;
 import org.olat.core.util.UserSession;
 import org.olat.core.util.WebappHelper;
 import org.olat.core.util.cache.CacheWrapper;
 import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.xml.XStreamHelper;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 /**
@@ -46,13 +59,34 @@ import org.springframework.stereotype.Service;
  * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
  */
 @Service("mapperService")
-public class MapperServiceImpl implements MapperService, InitializingBean {
+public class MapperServiceImpl implements MapperService, InitializingBean, DisposableBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(MapperServiceImpl.class);
+	private static final int MAX_CONFIGURATION_HASHES = 10000;
+	// rewrite identical configurations to refresh the last modification date before the zombies slayer deletes them
+	private static final long CONFIGURATION_HASH_VALIDITY = 60l * 60l * 1000l;
 	
 	private Map<MapperKey,Mapper> mapperKeyToMapper = new ConcurrentHashMap<>();
 	private Map<String,List<MapperKey>> sessionIdToMapperKeys = new ConcurrentHashMap<>();
+	/**
+	 * Serializable mappers not yet written on the database (write-behind mode)
+	 */
+	private Map<String,PendingMapper> pendingMappers = new ConcurrentHashMap<>();
+	/**
+	 * Hash of the last configuration written for the cacheable mappers
+	 */
+	private Map<String,ConfigurationHash> cacheableConfigurationHashes = new ConcurrentHashMap<>();
 
 	private CacheWrapper<String, Mapper> mapperCache;
+	private ScheduledExecutorService writeBehindScheduler;
+	
+	@Value("${mapper.write.behind.enabled:false}")
+	private boolean writeBehindEnabled;
+	@Value("${mapper.write.behind.grace:60}")
+	private int writeBehindGrace;
 	
+	@Autowired
+	private DB dbInstance;
 	@Autowired
 	private MapperDAO mapperDao;
 	@Autowired
@@ -61,11 +95,36 @@ public class MapperServiceImpl implements MapperService, InitializingBean {
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		mapperCache = coordinatorManager.getCoordinator().getCacher().getCache(MapperService.class.getSimpleName(), "mapper");
+		if(writeBehindEnabled) {
+			long period = Math.max(1000l, writeBehindGrace * 500l);
+			writeBehindScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("oo-mapper-"));
+			writeBehindScheduler.scheduleWithFixedDelay(this::flushPendingMappers, period, period, TimeUnit.MILLISECONDS);
+			log.info("Mappers persisted after a grace period of {}s", writeBehindGrace);
+		}
 	}
 	
+	@Override
+	public void destroy() throws Exception {
+		if(writeBehindScheduler != null) {
+			writeBehindScheduler.shutdownNow();
+		}
+	}
+	
+	public boolean isWriteBehindEnabled() {
+		return writeBehindEnabled;
+	}
+
+	/**
+	 * [used by tests]
+	 * @param writeBehindEnabled
+	 */
+	public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+		this.writeBehindEnabled = writeBehindEnabled;
+	}
+
 	@Override
 	public int inMemoryCount() {
-		return mapperKeyToMapper.size() + sessionIdToMapperKeys.size();
+		return mapperKeyToMapper.size() + sessionIdToMapperKeys.size() + pendingMappers.size();
 	}
 
 	@Override
@@ -90,7 +149,11 @@ public class MapperServiceImpl implements MapperService, InitializingBean {
 		}
 		
 		if(mapper instanceof Serializable) {
-			mapperDao.persistMapper(sessionId, mapid, (Serializable)mapper, -1);
+			if(writeBehindEnabled) {
+				pendingMappers.put(mapid, new PendingMapper(mapperKey, sessionId, (Serializable)mapper, -1));
+			} else {
+				mapperDao.persistMapper(sessionId, mapid, (Serializable)mapper, -1);
+			}
 		}
 		mapperKey.setUrl(WebappHelper.getServletContextPath() + DispatcherModule.PATH_MAPPED + mapid);
 		return mapperKey;
@@ -109,7 +172,12 @@ public class MapperServiceImpl implements MapperService, InitializingBean {
 		String encryptedMapId = Encoder.md5hash(mapperId);
 		MapperKey mapperKey = new MapperKey(session, encryptedMapId);
 		boolean alreadyLoaded = mapperKeyToMapper.containsKey(mapperKey);
-		if(mapper instanceof Serializable) {
+		if(mapper instanceof Serializable && writeBehindEnabled) {
+			// the last registration wins, identical configurations are written only once,
+			// the grace period starts with the first registration
+			pendingMappers.merge(encryptedMapId, new PendingMapper(mapperKey, null, (Serializable)mapper, expirationTime),
+					(previous, next) -> new PendingMapper(next, previous.getRegistrationTime()));
+		} else if(mapper instanceof Serializable) {
 			if(alreadyLoaded) {
 				if(!mapperDao.updateConfiguration(encryptedMapId, (Serializable)mapper, expirationTime)) {
 					mapperDao.persistMapper(null, encryptedMapId, (Serializable)mapper, expirationTime);
@@ -144,6 +212,13 @@ public class MapperServiceImpl implements MapperService, InitializingBean {
 		
 		MapperKey mapperKey = new MapperKey(session, id);
 		Mapper mapper = mapperKeyToMapper.get(mapperKey);
+		if(mapper == null) {
+			// registered on this node with an other session and not yet persisted
+			PendingMapper pending = pendingMappers.get(id);
+			if(pending != null) {
+				mapper = (Mapper)pending.getMapper();
+			}
+		}
 		if(mapper == null) {
 			mapper = mapperCache.get(id);
 			if(mapper == null) {
@@ -169,7 +244,7 @@ public class MapperServiceImpl implements MapperService, InitializingBean {
 		if(mapKeys != null && !mapKeys.isEmpty()) {
 			for(MapperKey mapKey:mapKeys) {
 				Mapper mapper = mapperKeyToMapper.remove(mapKey);
-				if(mapper != null) {
+				if(mapper != null && !removePending(mapKey)) {
 					if(mapper instanceof Serializable) {
 						mapperDao.updateConfiguration(mapKey.getMapperId(), (Serializable)mapper, -1);
 					}
@@ -183,9 +258,244 @@ public class MapperServiceImpl implements MapperService, InitializingBean {
 		if(mapperKeys == null || mapperKeys.isEmpty()) return;
 		for(MapperKey mapperKey:mapperKeys) {
 			Mapper mapper = mapperKeyToMapper.remove(mapperKey);
-			if(mapper instanceof Serializable) {
+			if(mapper instanceof Serializable && !removePending(mapperKey)) {
 				mapperDao.updateConfiguration(mapperKey.getMapperId(), (Serializable)mapper, -1);
 			}
 		}
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * A mapper disposed within the grace period is never written. A cacheable
+	 * mapper still used by an other session stays pending.
+	 * 
+	 * @param mapperKey The key of the mapper
+	 * @return true if the mapper was still pending
+	 */
+	private boolean removePending(MapperKey mapperKey) {
+		PendingMapper pending = pendingMappers.get(mapperKey.getMapperId());
+		if(pending == null || !pending.getMapperKey().equals(mapperKey)) {
+			return false;
+		}
+		if(pending.isCacheable() && isInUse(mapperKey.getMapperId())) {
+			return true;
+		}
+		return pendingMappers.remove(mapperKey.getMapperId(), pending);
+	}
+	
+	private boolean isInUse(String mapperId) {
+		for(MapperKey mapperKey:mapperKeyToMapper.keySet()) {
+			if(mapperId.equals(mapperKey.getMapperId())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void persistPendingMappers(String sessionId) {
+		if(pendingMappers.isEmpty() || sessionId == null) return;
+		
+		List<PendingMapper> toPersist = new ArrayList<>();
+		for(PendingMapper pending:pendingMappers.values()) {
+			if(sessionId.equals(pending.getMapperKey().getSessionId())) {
+				toPersist.add(pending);
+			}
+		}
+		persistPendingMappers(toPersist);
+	}
+	
+	/**
+	 * Write the pending mappers which are still in use after the grace period.
+	 * 
+	 * @return The number of mappers written on the database
+	 */
+	public int flushPendingMappers() {
+		return flushPendingMappers(System.currentTimeMillis() - (writeBehindGrace * 1000l));
+	}
+	
+	/**
+	 * Write the pending mappers registered before the specified limit and
+	 * still in use.
+	 * 
+	 * @param registeredBefore The limit in milliseconds
+	 * @return The number of mappers written on the database
+	 */
+	public int flushPendingMappers(long registeredBefore) {
+		if(pendingMappers.isEmpty()) return 0;
+		
+		List<PendingMapper> toPersist = new ArrayList<>();
+		for(PendingMapper pending:pendingMappers.values()) {
+			if(pending.getRegistrationTime() <= registeredBefore) {
+				toPersist.add(pending);
+			}
+		}
+		return persistPendingMappers(toPersist);
+	}
+	
+	/**
+	 * Write the specified pending mappers if they are still in use,
+	 * independently of the grace period.
+	 * 
+	 * @param mapperIds The ids of the mappers
+	 * @return The number of mappers written on the database
+	 */
+	public int flushPendingMappers(Collection<String> mapperIds) {
+		if(pendingMappers.isEmpty() || mapperIds == null || mapperIds.isEmpty()) return 0;
+		
+		List<PendingMapper> toPersist = new ArrayList<>();
+		for(String mapperId:mapperIds) {
+			PendingMapper pending = pendingMappers.get(mapperId);
+			if(pending != null) {
+				toPersist.add(pending);
+			}
+		}
+		return persistPendingMappers(toPersist);
+	}
+	
+	private int persistPendingMappers(List<PendingMapper> toPersist) {
+		if(toPersist.isEmpty()) return 0;
+		
+		// a cacheable mapper can be registered by several sessions
+		Set<String> mapperIdsInUse = new HashSet<>();
+		for(MapperKey mapperKey:mapperKeyToMapper.keySet()) {
+			mapperIdsInUse.add(mapperKey.getMapperId());
+		}
+		
+		int count = 0;
+		try {
+			for(PendingMapper pending:toPersist) {
+				String mapperId = pending.getMapperKey().getMapperId();
+				if(!pendingMappers.remove(mapperId, pending)) {
+					continue;// replaced or disposed in the meantime
+				}
+				if(!mapperIdsInUse.contains(mapperId)) {
+					continue;// not used anymore
+				}
+				if(persistPendingMapper(pending)) {
+					count++;
+				}
+			}
+			dbInstance.commitAndCloseSession();
+		} catch (Exception e) {
+			log.error("Cannot persist mappers", e);
+			dbInstance.rollbackAndCloseSession();
+		}
+		return count;
+	}
+	
+	private boolean persistPendingMapper(PendingMapper pending) {
+		String mapperId = pending.getMapperKey().getMapperId();
+		String configuration = XStreamHelper.createXStreamInstance().toXML(pending.getMapper());
+		if(pending.isCacheable()) {
+			int hash = configuration.hashCode();
+			long now = System.currentTimeMillis();
+			ConfigurationHash lastHash = cacheableConfigurationHashes.get(mapperId);
+			if(lastHash != null && lastHash.getHash() == hash
+					&& lastHash.getWriteTime() + getConfigurationHashValidity(pending.getExpirationTime()) > now) {
+				return false;
+			}
+			if(!mapperDao.updateMapperConfiguration(mapperId, configuration, pending.getExpirationTime())) {
+				mapperDao.persistMapperConfiguration(null, mapperId, configuration, pending.getExpirationTime());
+			}
+			if(cacheableConfigurationHashes.size() > MAX_CONFIGURATION_HASHES) {
+				cacheableConfigurationHashes.clear();
+			}
+			cacheableConfigurationHashes.put(mapperId, new ConfigurationHash(hash, now));
+		} else {
+			mapperDao.persistMapperConfiguration(pending.getSessionId(), mapperId, configuration, -1);
+		}
+		return true;
+	}
+	
+	/**
+	 * An unchanged configuration is not written again during this period, but
+	 * the write refreshes the expiration date of the mapper on the database.
+	 * The period is capped at the half of the expiration time of the mapper
+	 * to not let the job which deletes the expired mappers delete a mapper
+	 * still in use.
+	 * 
+	 * @param expirationTime The expiration time of the mapper in seconds
+	 * @return The period in milliseconds
+	 */
+	public static long getConfigurationHashValidity(int expirationTime) {
+		if(expirationTime > 0) {
+			return Math.min(CONFIGURATION_HASH_VALIDITY, (expirationTime * 1000l) / 2l);
+		}
+		return CONFIGURATION_HASH_VALIDITY;
+	}
+	
+	private static class ConfigurationHash {
+		
+		private final int hash;
+		private final long writeTime;
+		
+		public ConfigurationHash(int hash, long writeTime) {
+			this.hash = hash;
+			this.writeTime = writeTime;
+		}
+
+		public int getHash() {
+			return hash;
+		}
+
+		public long getWriteTime() {
+			return writeTime;
+		}
+	}
+	
+	private static class PendingMapper {
+		
+		private final MapperKey mapperKey;
+		private final String sessionId;
+		private final Serializable mapper;
+		private final int expirationTime;
+		private final long registrationTime;
+		
+		public PendingMapper(MapperKey mapperKey, String sessionId, Serializable mapper, int expirationTime) {
+			this.mapperKey = mapperKey;
+			this.sessionId = sessionId;
+			this.mapper = mapper;
+			this.expirationTime = expirationTime;
+			registrationTime = System.currentTimeMillis();
+		}
+		
+		/**
+		 * A new registration of the mapper which keeps the registration time
+		 * of the previous one.
+		 */
+		public PendingMapper(PendingMapper pending, long registrationTime) {
+			this.mapperKey = pending.mapperKey;
+			this.sessionId = pending.sessionId;
+			this.mapper = pending.mapper;
+			this.expirationTime = pending.expirationTime;
+			this.registrationTime = registrationTime;
+		}
+
+		public MapperKey getMapperKey() {
+			return mapperKey;
+		}
+
+		/**
+		 * @return The session id of a session mapper, null for a cacheable mapper
+		 */
+		public String getSessionId() {
+			return sessionId;
+		}
+		
+		public boolean isCacheable() {
+			return sessionId == null;
+		}
+
+		public Serializable getMapper() {
+			return mapper;
+		}
+
+		public int getExpirationTime() {
+			return expirationTime;
+		}
+
+		public long getRegistrationTime() {
+			return registrationTime;
+		}
+	}
+}
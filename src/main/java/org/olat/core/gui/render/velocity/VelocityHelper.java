@@ -28,9 +28,18 @@ package org.olat.core.gui.render.velocity;
 
 import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.velocity.Template;
 import org.apache.velocity.app.VelocityEngine;
@@ -48,7 +57,7 @@ import org.olat.core.util.WebappHelper;
  * Initial Date: 01.12.2003
  * @author Mike Stock
  */
-public class VelocityHelper {
+public class VelocityHelper implements VelocityHelperMXBean {
 
 	private static final Logger log = Tracing.createLoggerFor(VelocityHelper.class);
 	private static final VelocityHelper INSTANCE = new VelocityHelper();
@@ -56,6 +65,12 @@ public class VelocityHelper {
 	private VelocityEngine ve;
 	
 	private Set<String> resourcesNotFound = ConcurrentHashMap.newKeySet();
+	/**
+	 * Resolved and compiled templates: theme ("" for the default one) to template path to template
+	 */
+	private final ConcurrentMap<String,ConcurrentMap<String,Template>> resolvedTemplates = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String,VelocityTemplateMetrics> templateMetrics = new ConcurrentHashMap<>();
+	private ObjectName objectName;
 
 	/**
 	 * 
@@ -115,45 +130,20 @@ public class VelocityHelper {
 	 */ 
 	private void merge(String template, Context c, Writer wOut, String theme) {
 		try {
-			Template vtemplate = null;
 			if (log.isDebugEnabled()) log.debug("Merging template::" + template + " for theme::" + theme);
 
-			if (theme != null) {
-				// try the theme first, if resource not found exception, fallback to normal resource.
-				// e.g. try /_accessibility/index.html first, if not found, try /index.html.
-				// this allows for themes to only provide the delta to the default templates
-				
-				int latestSlash = template.lastIndexOf('/');
-				StringBuilder sb = new StringBuilder(template.substring(0,latestSlash));
-				sb.append("/_").append(theme).append("/").append(template.substring(latestSlash+1));
-				String themedTemplatePath = sb.toString();
-
-				// check cache
-				boolean notFound = resourcesNotFound.contains(themedTemplatePath);
-				
-				if (!notFound) {
-					// never tried before -> try to load it
-					if (!ve.resourceExists(themedTemplatePath)) {
-						// remember not found (since velocity doesn't) then try fallback.
-						// this will happen once for each theme when a resource does not exist in its themed variant but only in the default theme.
-						if (!Settings.isDebuging()) {
-							resourcesNotFound.add(themedTemplatePath);
-						} // for debugging, allow introduction of themed files without restarting the application
-					} else {
-						// template exists -> load it
-						vtemplate = ve.getTemplate(themedTemplatePath, VelocityModule.getInputEncoding());
-					}
-				}
-				// if not found, fallback to standard
-				if (vtemplate == null) {
-					vtemplate = ve.getTemplate(template, VelocityModule.getInputEncoding());
+			Template vtemplate = getTemplate(template, theme);
+			if(VelocityModule.isTemplateMetricsEnabled()) {
+				long start = System.nanoTime();
+				try {
+					vtemplate.merge(c, wOut);
+				} finally {
+					templateMetrics.computeIfAbsent(template, VelocityTemplateMetrics::new)
+						.record(System.nanoTime() - start);
 				}
 			} else {
-				// no theme, load the standard template
-				vtemplate = ve.getTemplate(template, VelocityModule.getInputEncoding());
+				vtemplate.merge(c, wOut);
 			}
-			
-			vtemplate.merge(c, wOut);			
 		} catch (MethodInvocationException me) {
 			throw new OLATRuntimeException(VelocityHelper.class, "MethodInvocationException occured while merging template: methName:"
 					+ me.getMethodName() + ", refName:" + me.getReferenceName(), me.getCause());
@@ -162,8 +152,151 @@ public class VelocityHelper {
 		}
 	}
 	
+	/**
+	 * Return the compiled template of the theme or of the default theme. The
+	 * resolution is done once per template and theme, except in debug mode
+	 * where the templates can change.
+	 * 
+	 * @param template The template path
+	 * @param theme The theme or null for the default theme
+	 * @return The compiled template
+	 */
+	private Template getTemplate(String template, String theme) {
+		if (Settings.isDebuging()) {
+			return resolveTemplate(template, theme);
+		}
+		
+		ConcurrentMap<String,Template> themeTemplates = resolvedTemplates
+				.computeIfAbsent(theme == null ? "" : theme, t -> new ConcurrentHashMap<>());
+		Template vtemplate = themeTemplates.get(template);
+		if (vtemplate == null) {
+			vtemplate = resolveTemplate(template, theme);
+			themeTemplates.putIfAbsent(template, vtemplate);
+		}
+		return vtemplate;
+	}
 	
+	private Template resolveTemplate(String template, String theme) {
+		Template vtemplate = null;
+		if (theme != null) {
+			// try the theme first, if resource not found exception, fallback to normal resource.
+			// e.g. try /_accessibility/index.html first, if not found, try /index.html.
+			// this allows for themes to only provide the delta to the default templates
+			
+			int latestSlash = template.lastIndexOf('/');
+			StringBuilder sb = new StringBuilder(template.substring(0,latestSlash));
+			sb.append("/_").append(theme).append("/").append(template.substring(latestSlash+1));
+			String themedTemplatePath = sb.toString();
 
+			// check cache
+			boolean notFound = resourcesNotFound.contains(themedTemplatePath);
+			
+			if (!notFound) {
+				// never tried before -> try to load it
+				if (!ve.resourceExists(themedTemplatePath)) {
+					// remember not found (since velocity doesn't) then try fallback.
+					// this will happen once for each theme when a resource does not exist in its themed variant but only in the default theme.
+					if (!Settings.isDebuging()) {
+						resourcesNotFound.add(themedTemplatePath);
+					} // for debugging, allow introduction of themed files without restarting the application
+				} else {
+					// template exists -> load it
+					vtemplate = ve.getTemplate(themedTemplatePath, VelocityModule.getInputEncoding());
+				}
+			}
+			// if not found, fallback to standard
+			if (vtemplate == null) {
+				vtemplate = ve.getTemplate(template, VelocityModule.getInputEncoding());
+			}
+		} else {
+			// no theme, load the standard template
+			vtemplate = ve.getTemplate(template, VelocityModule.getInputEncoding());
+		}
+		return vtemplate;
+	}
+	
+	/**
+	 * Parse the template and register it for the default theme.
+	 * 
+	 * @param template The template path
+	 */
+	public void precompile(String template) {
+		getTemplate(template, null);
+	}
+	
+	/**
+	 * @return The number of compiled templates in the registry
+	 */
+	@Override
+	public int getNumOfResolvedTemplates() {
+		int count = 0;
+		for(ConcurrentMap<String,Template> themeTemplates:resolvedTemplates.values()) {
+			count += themeTemplates.size();
+		}
+		return count;
+	}
+	
+	@Override
+	public boolean isTemplateMetricsEnabled() {
+		return VelocityModule.isTemplateMetricsEnabled();
+	}
+	
+	/**
+	 * @return The metrics of the rendered templates, the slowest first
+	 */
+	@Override
+	public List<VelocityTemplateMetrics> getTemplateMetrics() {
+		// snapshot of the times, the metrics change while sorting
+		Map<VelocityTemplateMetrics,Long> totalTimes = new HashMap<>();
+		for(VelocityTemplateMetrics metric:templateMetrics.values()) {
+			totalTimes.put(metric, Long.valueOf(metric.getTotalTimeNanos()));
+		}
+		List<VelocityTemplateMetrics> metrics = new ArrayList<>(totalTimes.keySet());
+		metrics.sort((m1, m2) -> totalTimes.get(m2).compareTo(totalTimes.get(m1)));
+		return metrics;
+	}
+	
+	@Override
+	public void resetTemplateMetrics() {
+		templateMetrics.clear();
+	}
+	
+	/**
+	 * Remove the compiled templates from the registry.
+	 */
+	protected void clearResolvedTemplates() {
+		resolvedTemplates.clear();
+	}
+	
+	public synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName("org.olat.core:type=Velocity,name=VelocityHelper");
+			if(server.isRegistered(on)) {
+				server.unregisterMBean(on);
+			}
+			server.registerMBean(this, on);
+			objectName = on;
+		} catch (Exception e) {
+			log.error("Cannot register the velocity templates statistics in JMX", e);
+		}
+	}
+	
+	public synchronized void unregister() {
+		if(objectName == null) return;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			log.error("Cannot unregister the velocity templates statistics in JMX", e);
+		} finally {
+			objectName = null;
+		}
+	}
+	
 	/**
 	 * @param path
 	 * @param c
@@ -39,6 +39,7 @@ public class VelocityModule implements Initializable {
 	private static String inputEncoding = DEFAULT_ENCODING;
 	private static String outputEncoding = DEFAULT_ENCODING;
 	private static String parserPoolSize = "20";
+	private static boolean templateMetricsEnabled = true;
 	
 	/**
 	 * [spring]
@@ -62,7 +63,11 @@ public class VelocityModule implements Initializable {
 	}
 	
 	public void init() {
-		VelocityHelper.getInstance();
+		VelocityHelper.getInstance().register();
+	}
+	
+	public void destroy() {
+		VelocityHelper.getInstance().unregister();
 	}
 
 	/**
@@ -79,6 +84,21 @@ public class VelocityModule implements Initializable {
 	public void setParserPoolSize(String newParserPoolSize) {
 		parserPoolSize = newParserPoolSize;
 	}
+	
+	/**
+	 * @return true if the render count and time of the templates are collected
+	 */
+	public static boolean isTemplateMetricsEnabled() {
+		return templateMetricsEnabled;
+	}
+	
+	/**
+	 * [SPRING]
+	 * @param enabled
+	 */
+	public void setTemplateMetricsEnabled(boolean enabled) {
+		templateMetricsEnabled = enabled;
+	}
 
 
 
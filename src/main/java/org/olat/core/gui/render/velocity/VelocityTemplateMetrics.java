@@ -0,0 +1,80 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.render.velocity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Render count and render time of a velocity template. The time of a
+ * template includes the time to render the components it contains.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class VelocityTemplateMetrics {
+	
+	private final String template;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	
+	VelocityTemplateMetrics(String template) {
+		this.template = template;
+	}
+	
+	void record(long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+	
+	public long getTotalTimeNanos() {
+		return totalNanos.sum();
+	}
+	
+	public long getTotalTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+	}
+	
+	public double getAverageTimeMillis() {
+		long c = count.sum();
+		return c == 0 ? 0.0d : (totalNanos.sum() / (double)c) / 1000000.0d;
+	}
+	
+	public long getMaxTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return template + " count: " + getCount() + " total (ms): " + getTotalTimeMillis()
+			+ " avg (ms): " + getAverageTimeMillis() + " max (ms): " + getMaxTimeMillis();
+	}
+}
@@ -26,17 +26,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.velocity.VelocityContext;
+import org.apache.logging.log4j.Logger;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.olat.core.configuration.PreWarm;
-import org.olat.core.gui.render.StringOutput;
-import org.apache.logging.log4j.Logger;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.CodeHelper;
 import org.olat.core.util.WebappHelper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 /**
@@ -52,10 +56,9 @@ public class VelocityTemplatesPreWarm implements PreWarm {
 	@Override
 	public void run() {
 		long start = System.nanoTime();
-		log.info("Start filling the velocity template cache");
+		log.info("Start compiling the velocity templates");
 		
-		final VelocityContext context = new VelocityContext();
-		final AtomicInteger numOfTemplates = new AtomicInteger(0);
+		final List<String> templates = new ArrayList<>();
 		final File root = new File(WebappHelper.getContextRoot(), "WEB-INF/classes");
 		final Path fPath = root.toPath();
 		try {
@@ -68,12 +71,7 @@ public class VelocityTemplatesPreWarm implements PreWarm {
 							return FileVisitResult.SKIP_SUBTREE;
 						}
 						if(path.endsWith(".html") && path.contains("/_content/")) {
-							try(StringOutput writer = new StringOutput()) {
-								VelocityHelper.getInstance().mergeContent(path, context, writer, null);
-								numOfTemplates.incrementAndGet();
-							} catch (IOException | ResourceNotFoundException | ParseErrorException e) {
-								log.error("", e);
-							}
+							templates.add(path);
 						}
 						return FileVisitResult.CONTINUE;
 					}
@@ -82,7 +80,42 @@ public class VelocityTemplatesPreWarm implements PreWarm {
 		} catch (IOException e) {
 			log.error("", e);
 		}
-		log.info("Velocity cache filled with {} templates in (ms): {}", numOfTemplates, CodeHelper.nanoToMilliTime(start));
+		
+		int numOfTemplates = precompile(templates);
+		log.info("Velocity registry filled with {} compiled templates in (ms): {}", numOfTemplates, CodeHelper.nanoToMilliTime(start));
+	}
+	
+	/**
+	 * Compile the templates in parallel and register them.
+	 * 
+	 * @param templates The template paths
+	 * @return The number of templates compiled successfully
+	 */
+	int precompile(List<String> templates) {
+		final AtomicInteger numOfTemplates = new AtomicInteger(0);
+		int numOfThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(numOfThreads, new CustomizableThreadFactory("oo-velocity-prewarm-"));
+		try {
+			List<Callable<Boolean>> tasks = new ArrayList<>(templates.size());
+			for(String template:templates) {
+				tasks.add(() -> {
+					try {
+						VelocityHelper.getInstance().precompile(template);
+						numOfTemplates.incrementAndGet();
+						return Boolean.TRUE;
+					} catch (ResourceNotFoundException | ParseErrorException e) {
+						log.error("Cannot compile velocity template: {}", template, e);
+						return Boolean.FALSE;
+					}
+				});
+			}
+			executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			log.error("", e);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+		return numOfTemplates.get();
 	}
-
 }
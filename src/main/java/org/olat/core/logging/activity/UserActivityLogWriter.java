@@ -0,0 +1,380 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.logging.activity;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManager;
+
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.logging.Tracing;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Write the user activity logs asynchronously. The logs are collected
+ * in a bounded queue and a single writer thread inserts them in batches,
+ * one transaction and one JDBC batch per chunk. If the queue is full,
+ * the caller waits a short time, then the log is written synchronously
+ * in the transaction of the caller (policy "sync") or dropped (policy
+ * "drop"). The queue is flushed at shutdown. The writer thread is only
+ * started if the asynchronous writer is enabled, the metrics are available
+ * in JMX.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class UserActivityLogWriter implements UserActivityLogWriterMXBean, InitializingBean, DisposableBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(UserActivityLogWriter.class);
+	
+	public static final String OVERFLOW_SYNC = "sync";
+	public static final String OVERFLOW_DROP = "drop";
+	
+	private static final int MAX_ATTEMPTS = 3;
+	
+	private DB dbInstance;
+	
+	private boolean enabled;
+	private int queueSize = 10000;
+	private int batchSize = 250;
+	private long flushInterval = 1000l;
+	private long offerTimeout = 50l;
+	private String overflowPolicy = OVERFLOW_SYNC;
+	
+	private BlockingQueue<LoggingObject> queue;
+	private ExecutorService writer;
+	private volatile boolean running;
+	private boolean initialized;
+	private ObjectName objectName;
+	
+	private final LongAdder writtenLogs = new LongAdder();
+	private final LongAdder synchronousLogs = new LongAdder();
+	private final LongAdder droppedLogs = new LongAdder();
+	private final LongAdder failedLogs = new LongAdder();
+	private final AtomicLong flushes = new AtomicLong();
+	private final AtomicLong totalFlushNanos = new AtomicLong();
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+	
+	/**
+	 * [used by Spring]
+	 * @param dbInstance
+	 */
+	public void setDbInstance(DB dbInstance) {
+		this.dbInstance = dbInstance;
+	}
+
+	/**
+	 * [used by Spring and tests]
+	 * @param enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if(enabled && initialized) {
+			start();
+		}
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param queueSize
+	 */
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param flushInterval The max. time in milliseconds a log waits in the queue
+	 */
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param offerTimeout The time in milliseconds the caller waits if the queue is full
+	 */
+	public void setOfferTimeout(long offerTimeout) {
+		this.offerTimeout = offerTimeout;
+	}
+
+	/**
+	 * [used by Spring and tests]
+	 * @param overflowPolicy sync or drop
+	 */
+	public void setOverflowPolicy(String overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	@Override
+	public synchronized void afterPropertiesSet() {
+		batchSize = Math.max(1, batchSize);
+		flushInterval = Math.max(10l, flushInterval);
+		initialized = true;
+		if(enabled) {
+			start();
+		}
+		register();
+	}
+	
+	private synchronized void start() {
+		if(writer != null) return;
+		
+		queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+		running = true;
+		writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("oo-activity-log-"));
+		writer.execute(new Writer());
+		log.info("User activity log writer started (queue: {}, batch: {})", queueSize, batchSize);
+	}
+
+	@Override
+	public void destroy() {
+		unregister();
+		running = false;
+		if(writer != null) {
+			writer.shutdown();
+			try {
+				if(!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+					writer.shutdownNow();
+				}
+			} catch (InterruptedException e) {
+				writer.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+		// what the writer doesn't have written
+		flush();
+		log.info("User activity log writer stopped, {} logs written, {} dropped, {} failed",
+				getNumOfWrittenLogs(), getNumOfDroppedLogs(), getNumOfFailedLogs());
+	}
+	
+	@Override
+	public boolean isEnabled() {
+		return enabled && running;
+	}
+	
+	/**
+	 * Queue the log or, if the asynchronous writer is disabled, save it
+	 * in the current transaction.
+	 * 
+	 * @param logObj The log to save
+	 */
+	public void log(LoggingObject logObj) {
+		if(!isEnabled()) {
+			saveObject(logObj);
+			return;
+		}
+		
+		// the audit interceptor would set the date of the insert
+		if(logObj.getCreationDate() == null) {
+			logObj.setCreationDate(new Date());
+		}
+		
+		boolean queued;
+		try {
+			queued = queue.offer(logObj, offerTimeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			queued = false;
+		}
+		
+		if(!queued) {
+			if(OVERFLOW_DROP.equals(overflowPolicy)) {
+				droppedLogs.increment();
+				if(droppedLogs.sum() % 1000 == 1) {
+					log.warn("User activity log queue is full, {} logs dropped until now", droppedLogs.sum());
+				}
+			} else {
+				saveObject(logObj);
+			}
+		}
+	}
+	
+	private void saveObject(LoggingObject logObj) {
+		dbInstance.saveObject(logObj);
+		synchronousLogs.increment();
+	}
+	
+	/**
+	 * Write all the queued logs in the thread of the caller.
+	 */
+	public void flush() {
+		if(queue == null) return;
+		
+		List<LoggingObject> batch = new ArrayList<>(batchSize);
+		while(queue.drainTo(batch, batchSize) > 0) {
+			writeBatch(batch);
+			batch.clear();
+		}
+	}
+	
+	private void writeBatch(List<LoggingObject> batch) {
+		long start = System.nanoTime();
+		for(int attempt=1; attempt<=MAX_ATTEMPTS; attempt++) {
+			try {
+				EntityManager em = dbInstance.getCurrentEntityManager();
+				em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+				for(LoggingObject logObj:batch) {
+					em.persist(logObj);
+				}
+				dbInstance.commitAndCloseSession();
+				writtenLogs.add(batch.size());
+				break;
+			} catch (Exception e) {
+				dbInstance.rollbackAndCloseSession();
+				if(attempt < MAX_ATTEMPTS) {
+					log.warn("Cannot write {} user activity logs, retry", batch.size(), e);
+					// primary keys of the rolled back inserts
+					for(LoggingObject logObj:batch) {
+						logObj.setKey(null);
+					}
+				} else {
+					failedLogs.add(batch.size());
+					log.error("Cannot write {} user activity logs, they are lost", batch.size(), e);
+				}
+			}
+		}
+		
+		long duration = System.nanoTime() - start;
+		flushes.incrementAndGet();
+		totalFlushNanos.addAndGet(duration);
+		maxFlushNanos.accumulateAndGet(duration, Math::max);
+	}
+	
+	@Override
+	public int getQueueSize() {
+		return queue == null ? 0 : queue.size();
+	}
+	
+	@Override
+	public long getNumOfWrittenLogs() {
+		return writtenLogs.sum();
+	}
+	
+	@Override
+	public long getNumOfSynchronousLogs() {
+		return synchronousLogs.sum();
+	}
+	
+	@Override
+	public long getNumOfDroppedLogs() {
+		return droppedLogs.sum();
+	}
+	
+	@Override
+	public long getNumOfFailedLogs() {
+		return failedLogs.sum();
+	}
+	
+	/**
+	 * @return The average time in milliseconds to write a batch of logs
+	 */
+	@Override
+	public double getAverageFlushLatency() {
+		long count = flushes.get();
+		return count == 0 ? 0.0d : (totalFlushNanos.get() / (double)count) / 1000000.0d;
+	}
+	
+	/**
+	 * @return The max. time in milliseconds to write a batch of logs
+	 */
+	@Override
+	public double getMaxFlushLatency() {
+		return maxFlushNanos.get() / 1000000.0d;
+	}
+	
+	public synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName("org.olat.core:type=Logging,name=UserActivityLogWriter");
+			if(server.isRegistered(on)) {
+				server.unregisterMBean(on);
+			}
+			server.registerMBean(this, on);
+			objectName = on;
+		} catch (Exception e) {
+			log.error("Cannot register the user activity log writer in JMX", e);
+		}
+	}
+	
+	public synchronized void unregister() {
+		if(objectName == null) return;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			log.error("Cannot unregister the user activity log writer in JMX", e);
+		} finally {
+			objectName = null;
+		}
+	}
+	
+	private class Writer implements Runnable {
+		
+		@Override
+		public void run() {
+			List<LoggingObject> batch = new ArrayList<>(batchSize);
+			while(running || !queue.isEmpty()) {
+				try {
+					LoggingObject first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+					if(first != null) {
+						batch.add(first);
+						queue.drainTo(batch, batchSize - 1);
+						writeBatch(batch);
+					}
+				} catch (InterruptedException e) {
+					log.debug("User activity log writer interrupted");
+					break;
+				} catch (Exception e) {
+					log.error("", e);
+				} finally {
+					batch.clear();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Accumulate in memory the increments of some counters to write them
+ * later as deltas in one batch. The increments and the drain are atomic
+ * per key, no increment is lost between two drains.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class CounterAccumulator<K> {
+	
+	private final ConcurrentMap<K,Long> deltas = new ConcurrentHashMap<>();
+	
+	public void increment(K key) {
+		add(key, 1l);
+	}
+	
+	public void add(K key, long delta) {
+		if(key == null || delta == 0l) return;
+		deltas.merge(key, Long.valueOf(delta), Long::sum);
+	}
+	
+	/**
+	 * Give back some deltas, e.g. if they cannot be written.
+	 * 
+	 * @param drainedDeltas The deltas
+	 */
+	public void addAll(Map<K,Long> drainedDeltas) {
+		for(Map.Entry<K,Long> delta:drainedDeltas.entrySet()) {
+			add(delta.getKey(), delta.getValue().longValue());
+		}
+	}
+	
+	/**
+	 * @param key The key of the counter
+	 * @return The delta accumulated since the last drain
+	 */
+	public long get(K key) {
+		Long delta = deltas.get(key);
+		return delta == null ? 0l : delta.longValue();
+	}
+	
+	/**
+	 * Remove and return the accumulated deltas.
+	 * 
+	 * @return A map key to delta
+	 */
+	public Map<K,Long> drain() {
+		Map<K,Long> drained = new HashMap<>();
+		for(K key:deltas.keySet()) {
+			Long delta = deltas.remove(key);
+			if(delta != null && delta.longValue() != 0l) {
+				drained.put(key, delta);
+			}
+		}
+		return drained;
+	}
+	
+	public boolean isEmpty() {
+		return deltas.isEmpty();
+	}
+	
+	public int size() {
+		return deltas.size();
+	}
+}
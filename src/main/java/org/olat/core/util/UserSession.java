@@ -37,12 +37,15 @@ import java.util.Stack;
 import java.util.UUID;
 import java.util.function.Predicate;
 
+import javax.servlet.http.HttpSessionActivationListener;
 import javax.servlet.http.HttpSessionBindingEvent;
 import javax.servlet.http.HttpSessionBindingListener;
+import javax.servlet.http.HttpSessionEvent;
 
 import org.apache.logging.log4j.Logger;
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.dispatcher.mapper.MapperService;
 import org.olat.core.gui.UserRequest;
 import org.olat.core.gui.control.Event;
 import org.olat.core.id.Identity;
@@ -72,7 +75,7 @@ import org.olat.course.assessment.model.TransientAssessmentMode;
  * 
  * @author Felix Jost
  */
-public class UserSession implements HttpSessionBindingListener, GenericEventListener, Serializable  {
+public class UserSession implements HttpSessionBindingListener, HttpSessionActivationListener, GenericEventListener, Serializable  {
 	
 	private static final Logger log = Tracing.createLoggerFor(UserSession.class);	
 	private static final long serialVersionUID = 1975177605776990868L;
@@ -512,6 +515,26 @@ public class UserSession implements HttpSessionBindingListener, GenericEventList
 		}
 	}
 
+	/**
+	 * The session will be serialized to be moved or stored, the mappers
+	 * only hold in memory must be written before.
+	 * 
+	 * @see javax.servlet.http.HttpSessionActivationListener#sessionWillPassivate(javax.servlet.http.HttpSessionEvent)
+	 */
+	@Override
+	public void sessionWillPassivate(HttpSessionEvent se) {
+		try {
+			CoreSpringFactory.getImpl(MapperService.class).persistPendingMappers(se.getSession().getId());
+		} catch (Exception e) {
+			log.error("exception while session was passivated!", e);
+		}
+	}
+
+	@Override
+	public void sessionDidActivate(HttpSessionEvent se) {
+		//
+	}
+
 	/**
 	 * only for preference changed event
 	 */
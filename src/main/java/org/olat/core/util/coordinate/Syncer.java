@@ -25,6 +25,8 @@
 */ 
 package org.olat.core.util.coordinate;
 
+import java.util.Collection;
+
 import org.olat.core.id.OLATResourceable;
 
 /**
@@ -53,6 +55,17 @@ public interface Syncer {
 	 * @param action
 	 */
 	public void doInSync(OLATResourceable ores, SyncerExecutor action);
+	
+	/**
+	 * Same as <code>doInSync(OLATResourceable ores, SyncerExecutor action)</code> but
+	 * the code is serialized in regard to other code with any of the resourceables. The
+	 * locks are acquired in a stable order and released together by a single commit at
+	 * the end, which allows to write the changes of many resourceables in one transaction.
+	 * 
+	 * @param resources The resourceables to sync upon
+	 * @param action The code to be executed in the protected region
+	 */
+	public void doInSync(Collection<? extends OLATResourceable> resources, SyncerExecutor action);
 
 	/**
 	 * Check if already in synchronized block for certain olat-resource
@@ -24,11 +24,10 @@
 */
 package org.olat.core.util.event;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.Logger;
 import org.olat.core.gui.control.Controller;
@@ -41,70 +40,55 @@ import org.olat.core.util.event.businfo.BusListenerInfo;
 
 /**
  * abstract class for common services of the system bus
+ * <p>
+ * The listeners are held in a concurrent map keyed by (type, id). The
+ * registrations and deregistrations only lock the bin of the map where the
+ * key lives, and every channel holds its listeners in a copy-on-write array
+ * so that firing an event reads the listeners without any lock.
+ * 
  * @author Felix Jost
  */
 public abstract class AbstractEventBus implements EventBus {
 
-	private final Map<String, EventAgency> infocenter;
-	private final Map<String, EventAgency> typeInfocenter;
-	private final Logger log = Tracing.createLoggerFor(this.getClass());
+	private static final Logger log = Tracing.createLoggerFor(AbstractEventBus.class);
+
+	/**
+	 * The channels grouped by resource type: the channels of the instances and
+	 * the channel of the type itself for the listeners of all the events of a type.
+	 */
+	private final Map<String, TypeChannels> infocenter;
+	private final EventBusStatistics statistics;
 
 	public AbstractEventBus() {
-		infocenter = new HashMap<>();
-		typeInfocenter = new HashMap<>();
+		infocenter = new ConcurrentHashMap<>();
+		statistics = new EventBusStatistics(this);
+	}
+	
+	public EventBusStatistics getStatistics() {
+		return statistics;
+	}
+	
+	int getNumOfChannels() {
+		int count = 0;
+		for(TypeChannels channels:infocenter.values()) {
+			count += channels.size();
+		}
+		return count;
 	}
 
 	@Override
 	public void registerFor(GenericEventListener gel, Identity identity, OLATResourceable ores) {
-		final Long oresId = ores.getResourceableId();
 		final String typeName = ores.getResourceableTypeName();
-		synchronized (infocenter) {
-			EventAgency ea = null;
-			if (oresId == null) {
-				// return the eventagency which listens to all events with the type of
-				// the ores
-				ea = typeInfocenter.get(typeName);
-				if (ea == null) { // we are the first listener -> create an agency
-					ea = new EventAgency();
-					typeInfocenter.put(typeName, ea);
-				}
-			} else {
-				// type and id
-				String oresStr = typeName + "::" + oresId;
-				ea = infocenter.get(oresStr);
-				if (ea == null) { // we are the first listener
-					ea = new EventAgency();
-					infocenter.put(oresStr, ea);
-				}
-			}
-			ea.addListener(gel, identity);
-		}
+		infocenter.computeIfAbsent(typeName, TypeChannels::new)
+			.addListener(ores.getResourceableId(), gel, identity);
+		statistics.incrementRegistrations(typeName);
 	}
 
 	@Override
 	public void deregisterFor(GenericEventListener gel, OLATResourceable ores) {
-		final Long oresId = ores.getResourceableId();
-		final String typeName = ores.getResourceableTypeName();
-		synchronized (infocenter) {
-			if (oresId == null) {
-				EventAgency ea = typeInfocenter.get(typeName);
-				if (ea != null) {
-					ea.removeListener(gel);
-					if(ea.getListenerCount() == 0) {
-						typeInfocenter.remove(typeName);
-					}
-				}
-			} else {
-				// type and id
-				String oresStr = typeName + "::" + oresId;
-				EventAgency ea = infocenter.get(oresStr);
-				if (ea != null) {
-					ea.removeListener(gel);
-					if(ea.getListenerCount() == 0) {
-						infocenter.remove(typeName);
-					}
-				}
-			}
+		TypeChannels channels = infocenter.get(ores.getResourceableTypeName());
+		if(channels != null) {
+			channels.removeListener(ores.getResourceableId(), gel);
 		}
 	}
 
@@ -121,34 +105,29 @@ public abstract class AbstractEventBus implements EventBus {
 	protected final void doFire(final MultiUserEvent event, final OLATResourceable ores) {
 		final Long oresId = ores.getResourceableId();
 		final String typeName = ores.getResourceableTypeName();
+		statistics.incrementFires(typeName);
 
-		GenericEventListener[] listenersArr = null;
-		GenericEventListener[] listenersTypeArr = null;
-		synchronized (infocenter) {  
-			if (oresId != null) {
-				String oresStr = typeName + "::" + oresId;
-				EventAgency ea = infocenter.get(oresStr);
-				if (ea != null) {
-					listenersArr = ea.getListeners();
-				}
-			}
-			EventAgency ea = typeInfocenter.get(typeName);
+		// the agencies are read without lock and without allocation, the listeners are a snapshot
+		TypeChannels channels = infocenter.get(typeName);
+		if (channels == null) {
+			return;
+		}
+		if (oresId != null) {
+			EventAgency ea = channels.getInstanceAgency(oresId);
 			if (ea != null) {
-				listenersTypeArr = ea.getListeners();
+				doFire(event, ea.getListeners());
 			}
 		}
-
-		doFire(event, listenersArr);
-		doFire(event, listenersTypeArr);
+		EventAgency typeEa = channels.getTypeAgency();
+		if (typeEa != null) {
+			doFire(event, typeEa.getListeners());
+		}
 	}
 	
-	private final void doFire(final MultiUserEvent event, final GenericEventListener[] liArr) {
-		if(liArr == null) return;
-		
+	private final void doFire(final MultiUserEvent event, final ListenerRef[] liArr) {
 		for (int i = 0; i < liArr.length; i++) {
+			final GenericEventListener listener = liArr[i].get();
 			try {
-				final GenericEventListener listener = liArr[i];
-				
 				//make sure GenericEvents are only sent when controller is not yet disposed
 				if (listener instanceof Controller) {
 					Controller dCtrl = (Controller)listener;
@@ -173,104 +152,227 @@ public abstract class AbstractEventBus implements EventBus {
 					}, ThreadLocalUserActivityLoggerInstaller.createEmptyUserActivityLogger());
 				}
 			} catch (RuntimeException e) {
-				log.error("Error while sending generic event: "+liArr[i], e);
+				log.error("Error while sending generic event: "+listener, e);
 			}
 		}
 	}
 	
 	protected final BusListenerInfo createBusListenerInfo() {
 		BusListenerInfo bii = new BusListenerInfo();
-		synchronized(infocenter) { // o_clusterOK by:fj: extract quickly so that we can later serialize and send across the wire. data affects only one vm.
-			// for all types: the name of the type + "::"+ the id (integer) is used as key
-			List<String> infocenterKeys = new ArrayList<>(infocenter.keySet());
-			for (String derivedOres: infocenterKeys) {
-				EventAgency ea = infocenter.get(derivedOres);
-				int cnt = ea.getListenerCount();
-				// only add those with at least one current listener. Telling that a resource has no listeners is unneeded since we update 
-				// the whole table on each clusterInfoEvent (cluster:: could be improved by only sending the delta of listeners)
-				if (cnt > 0) {
-					bii.addEntry(derivedOres, cnt);
-				} else {
-					infocenter.remove(derivedOres);
-				}
-			}
-			infocenterKeys = null;
-			
-			// for all types: the name of the type is used as key
-			List<String> typeInfocenterKeys = new ArrayList<>(typeInfocenter.keySet());
-			for (String derivedOres: typeInfocenterKeys) {
-				EventAgency ea = typeInfocenter.get(derivedOres);
-				int cnt = ea.getListenerCount();
-				if (cnt > 0) {
-					bii.addEntry(derivedOres, cnt);
-				} else {
-					typeInfocenter.remove(derivedOres);
-				}
-			}
+		// o_clusterOK by:fj: extract quickly so that we can later serialize and send across the wire. data affects only one vm.
+		// for all types: the name of the type + "::"+ the id (integer) is used as key, the name of the type for the types
+		for (TypeChannels channels: infocenter.values()) {
+			channels.purge(bii);
 		}
 		return bii;
 	}
 	
 	protected final int getLocalListeningIdentityCntFor(OLATResourceable ores) {
-		int cnt = 0;
-		final Long oresId = ores.getResourceableId();
-		final String typeName = ores.getResourceableTypeName();
-		synchronized (infocenter) { 
-			EventAgency ea = null;
-			if (oresId == null) {
-				ea = typeInfocenter.get(typeName);	
+		TypeChannels channels = infocenter.get(ores.getResourceableTypeName());
+		if(channels == null) {
+			return 0;
+		}
+		Long oresId = ores.getResourceableId();
+		EventAgency ea = oresId == null ? channels.getTypeAgency() : channels.getInstanceAgency(oresId);
+		return ea == null ? 0 : ea.getListenerCount();
+	}
+	
+	/**
+	 * The channels of a resource type. The channel of the type is a field,
+	 * the channels of the instances are mapped by the id of the resource,
+	 * a fire looks them up without building any key.
+	 */
+	private static final class TypeChannels {
+		
+		private final String typeName;
+		private final ConcurrentHashMap<Long, EventAgency> instances = new ConcurrentHashMap<>();
+		private volatile EventAgency typeAgency;
+		
+		TypeChannels(String typeName) {
+			this.typeName = typeName;
+		}
+		
+		EventAgency getTypeAgency() {
+			return typeAgency;
+		}
+		
+		EventAgency getInstanceAgency(Long id) {
+			return instances.get(id);
+		}
+		
+		int size() {
+			return instances.size() + (typeAgency == null ? 0 : 1);
+		}
+		
+		void addListener(Long id, GenericEventListener gel, Identity identity) {
+			if(id == null) {
+				synchronized(this) {
+					if(typeAgency == null) {
+						typeAgency = new EventAgency();
+					}
+					typeAgency.addListener(gel, identity);
+				}
 			} else {
-				// type and id
-				String oresStr = typeName + "::" + oresId;
-				ea = infocenter.get(oresStr);
+				instances.compute(id, (k, ea) -> {
+					if (ea == null) { // we are the first listener -> create an agency
+						ea = new EventAgency();
+					}
+					ea.addListener(gel, identity);
+					return ea;
+				});
 			}
-			if (ea != null) {
-				cnt = ea.getListenerCount();
+		}
+		
+		void removeListener(Long id, GenericEventListener gel) {
+			if(id == null) {
+				synchronized(this) {
+					if(typeAgency != null) {
+						typeAgency.removeListener(gel);
+						if(typeAgency.getListenerCount() == 0) {
+							typeAgency = null;
+						}
+					}
+				}
+			} else {
+				instances.computeIfPresent(id, (k, ea) -> {
+					ea.removeListener(gel);
+					return ea.getListenerCount() == 0 ? null : ea;
+				});
+			}
+		}
+		
+		/**
+		 * Remove the garbage collected listeners and add the channels with at least
+		 * one listener to the infos. Telling that a resource has no listeners is unneeded
+		 * since we update the whole table on each clusterInfoEvent.
+		 */
+		void purge(BusListenerInfo bii) {
+			synchronized(this) {
+				if(typeAgency != null) {
+					typeAgency.purge();
+					if(typeAgency.getListenerCount() == 0) {
+						typeAgency = null;
+					} else {
+						bii.addEntry(typeName, typeAgency.getListenerCount());
+					}
+				}
+			}
+			for (Long id: instances.keySet()) {
+				EventAgency ea = instances.computeIfPresent(id, (k, agency) -> {
+					agency.purge();
+					return agency.getListenerCount() == 0 ? null : agency;
+				});
+				if (ea != null) {
+					bii.addEntry(typeName + "::" + id, ea.getListenerCount());
+				}
 			}
 		}
-		return cnt;
+	}
+	
+	/**
+	 * Weak reference to the listener, the identity key is kept for debug purposes.
+	 * 
+	 * Initial date: 17 Oct 2026<br>
+	 */
+	private static final class ListenerRef extends WeakReference<GenericEventListener> {
+		
+		private final Long identityKey;
+		
+		ListenerRef(GenericEventListener gel, Long identityKey) {
+			super(gel);
+			this.identityKey = identityKey;
+		}
+
+		@Override
+		public String toString() {
+			return "listener[identity=" + identityKey + "]" + super.toString();
+		}
 	}
 	
 	/**
 	 * Description: <br>
-	 * The listeners map is not synchronized, but need to be. The synchronization
-	 * is done by the infocenter map. Make sure that you always access instances of
-	 * this class in a synchronized(infocenter).
+	 * The listeners are held in a copy-on-write array of weak references. The
+	 * mutations are synchronized on the agency itself (they are already executed
+	 * in the lock of the bin of the concurrent map), the readers get the current
+	 * array without lock and must never modify it.
 	 * 
 	 * @author Felix Jost
 	 * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
 	 */
 	private static class EventAgency {
-		private WeakHashMap<GenericEventListener, Long> listeners = new WeakHashMap<>();
+		
+		private static final ListenerRef[] EMPTY = new ListenerRef[0];
+		
+		private volatile ListenerRef[] listeners = EMPTY;
 		
 		/**
-		 * @param event
+		 * @return The current snapshot of listeners, some references can be cleared
 		 */
-		GenericEventListener[] getListeners() {
-			return listeners.keySet().toArray(new GenericEventListener[listeners.size()]);
+		ListenerRef[] getListeners() {
+			return listeners;
 		}
 
 		/**
-		 * impl note: the underlying impl takes a weakHashMap, so unused entries are
-		 * cleared. an instance may not be added twice (make no sense anyway), since we
-		 * are using a map, not a list.
+		 * impl note: the listeners are weakly referenced, so unused entries are
+		 * cleared. an instance may not be added twice (make no sense anyway).
 		 * 
 		 * @param gel the instance which wants to listen to events.
 		 * @param identity the identity belonging to the listener, or null if there is
 		 *          none (e.g. the LockManager = the 'System')
 		 */
-		void addListener(GenericEventListener gel, Identity identity) {
-			if (!listeners.containsKey(gel)) {
-				Long identityKey = (identity != null? identity.getKey() : null);
-				listeners.put(gel, identityKey);
+		synchronized void addListener(GenericEventListener gel, Identity identity) {
+			ListenerRef[] current = listeners;
+			for (ListenerRef ref : current) {
+				if (ref.get() == gel) {
+					return;
+				}
 			}
+			
+			Long identityKey = (identity != null? identity.getKey() : null);
+			listeners = copyAlive(current, null, new ListenerRef(gel, identityKey));
 		}
 
 		/**
 		 * @param gel
 		 */
-		void removeListener(GenericEventListener gel) {
-			listeners.remove(gel);
+		synchronized void removeListener(GenericEventListener gel) {
+			listeners = copyAlive(listeners, gel, null);
+		}
+		
+		/**
+		 * Remove the cleared references.
+		 */
+		synchronized void purge() {
+			ListenerRef[] current = listeners;
+			for (ListenerRef ref : current) {
+				if (ref.get() == null) {
+					listeners = copyAlive(current, null, null);
+					break;
+				}
+			}
+		}
+		
+		/**
+		 * Copy the references which are not cleared.
+		 * 
+		 * @param current The current listeners
+		 * @param except A listener to remove (optional)
+		 * @param additional A reference to add (optional)
+		 * @return A new array of listeners
+		 */
+		private static ListenerRef[] copyAlive(ListenerRef[] current, GenericEventListener except, ListenerRef additional) {
+			ListenerRef[] copy = new ListenerRef[current.length + 1];
+			int pos = 0;
+			for (ListenerRef ref : current) {
+				GenericEventListener listener = ref.get();
+				if (listener != null && listener != except) {
+					copy[pos++] = ref;
+				}
+			}
+			if (additional != null) {
+				copy[pos++] = additional;
+			}
+			return pos == 0 ? EMPTY : Arrays.copyOf(copy, pos);
 		}
 		
 		/**
@@ -278,7 +380,13 @@ public abstract class AbstractEventBus implements EventBus {
 		 * @return the current number of listeners listening to this channel/eventagency 
 		 */
 		int getListenerCount() {
-			return listeners.size();	
+			int count = 0;
+			for (ListenerRef ref : listeners) {
+				if (ref.get() != null) {
+					count++;
+				}
+			}
+			return count;
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,151 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.event;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.Tracing;
+
+/**
+ * Description:<br>
+ * Lock-free counters of the registrations and the fired events
+ * of an event bus, grouped by the type of the resource.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class EventBusStatistics implements EventBusStatisticsMXBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(EventBusStatistics.class);
+	
+	private final AbstractEventBus eventBus;
+	private final Map<String,LongAdder> registrations = new ConcurrentHashMap<>();
+	private final Map<String,LongAdder> fires = new ConcurrentHashMap<>();
+	
+	private ObjectName objectName;
+	
+	EventBusStatistics(AbstractEventBus eventBus) {
+		this.eventBus = eventBus;
+	}
+	
+	void incrementRegistrations(String typeName) {
+		getAdder(registrations, typeName).increment();
+	}
+	
+	void incrementFires(String typeName) {
+		getAdder(fires, typeName).increment();
+	}
+	
+	private static LongAdder getAdder(Map<String,LongAdder> adders, String typeName) {
+		LongAdder adder = adders.get(typeName);
+		if(adder == null) {
+			adder = adders.computeIfAbsent(typeName, t -> new LongAdder());
+		}
+		return adder;
+	}
+
+	@Override
+	public long getTotalRegistrations() {
+		return sum(registrations);
+	}
+
+	@Override
+	public long getTotalFires() {
+		return sum(fires);
+	}
+	
+	@Override
+	public int getNumOfChannels() {
+		return eventBus.getNumOfChannels();
+	}
+
+	@Override
+	public Map<String, Long> getRegistrationsPerType() {
+		return toMap(registrations);
+	}
+
+	@Override
+	public Map<String, Long> getFiresPerType() {
+		return toMap(fires);
+	}
+	
+	@Override
+	public void resetStatistics() {
+		registrations.clear();
+		fires.clear();
+	}
+	
+	private static long sum(Map<String,LongAdder> adders) {
+		long total = 0l;
+		for(LongAdder adder:adders.values()) {
+			total += adder.sum();
+		}
+		return total;
+	}
+	
+	private static Map<String,Long> toMap(Map<String,LongAdder> adders) {
+		Map<String,Long> map = new HashMap<>();
+		for(Map.Entry<String,LongAdder> entry:adders.entrySet()) {
+			map.put(entry.getKey(), Long.valueOf(entry.getValue().sum()));
+		}
+		return map;
+	}
+	
+	/**
+	 * Register the counters in the platform MBean server.
+	 * 
+	 * @param name The name of the bus, used in the object name
+	 */
+	public synchronized void register(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName("org.olat.core.util.event:type=EventBus,name=" + name);
+			if(!server.isRegistered(on)) {
+				server.registerMBean(this, on);
+				objectName = on;
+			}
+		} catch (Exception e) {
+			log.error("Cannot register the event bus statistics in JMX", e);
+		}
+	}
+	
+	public synchronized void unregister() {
+		if(objectName == null) return;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			log.error("Cannot unregister the event bus statistics in JMX", e);
+		} finally {
+			objectName = null;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.i18n;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The final, resolved value of a translation with a pre-parsed formatter
+ * for its arguments. The object is immutable and can be shared between
+ * threads.
+ * <p>
+ * Simple arguments like {0} are replaced by the string value of the argument
+ * like MessageFormat does. Patterns with format types ({0,number}) and
+ * numbers or dates as arguments are delegated to MessageFormat.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+final class CompiledTranslation {
+	
+	static final CompiledTranslation NOT_FOUND = new CompiledTranslation(null);
+	
+	private final String value;
+	/**
+	 * The value with escaped single quotes, single quotes have special meaning
+	 * in MessageFormat (see OLAT-5107, OLAT-5756)
+	 */
+	private final String pattern;
+	/**
+	 * Literal strings and argument indexes (Integer), null if the pattern
+	 * cannot be handled without MessageFormat
+	 */
+	private final Object[] segments;
+	
+	CompiledTranslation(String value) {
+		this.value = value;
+		if(value == null) {
+			pattern = null;
+			segments = null;
+		} else {
+			pattern = value.indexOf('\'') > -1 ? value.replace("'", "''") : value;
+			segments = parse(value);
+		}
+	}
+	
+	String getValue() {
+		return value;
+	}
+	
+	String format(Object[] args) {
+		if(value == null || args == null) {
+			return value;
+		}
+		if(segments == null || !isSimple(args)) {
+			return MessageFormat.format(pattern, args);
+		}
+		
+		StringBuilder sb = new StringBuilder(value.length() + 32);
+		for(Object segment:segments) {
+			if(segment instanceof Integer) {
+				int index = ((Integer)segment).intValue();
+				if(index >= args.length) {
+					sb.append('{').append(index).append('}');
+				} else {
+					sb.append(args[index]);
+				}
+			} else {
+				sb.append((String)segment);
+			}
+		}
+		return sb.toString();
+	}
+	
+	private static boolean isSimple(Object[] args) {
+		for(Object arg:args) {
+			if(arg instanceof Number || arg instanceof Date) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static Object[] parse(String value) {
+		List<Object> parsed = new ArrayList<>();
+		int length = value.length();
+		int literalStart = 0;
+		for(int i=0; i<length; i++) {
+			char ch = value.charAt(i);
+			if(ch == '}') {
+				return null;
+			} else if(ch == '{') {
+				int end = value.indexOf('}', i + 1);
+				if(end < 0 || end == i + 1 || end - i > 10) {
+					return null;
+				}
+				for(int j=i+1; j<end; j++) {
+					if(!Character.isDigit(value.charAt(j))) {
+						return null;
+					}
+				}
+				if(literalStart < i) {
+					parsed.add(value.substring(literalStart, i));
+				}
+				parsed.add(Integer.valueOf(value.substring(i + 1, end)));
+				i = end;
+				literalStart = end + 1;
+			}
+		}
+		if(literalStart < length) {
+			parsed.add(value.substring(literalStart));
+		}
+		return parsed.toArray();
+	}
+}
@@ -140,7 +140,10 @@ public class I18nManager {
 	private ConcurrentMap<String, Properties> cachedBundles = new ConcurrentHashMap<>();
 	private ConcurrentMap<String, String> cachedJSTranslatorData = new ConcurrentHashMap<>();
 	private ConcurrentMap<String, Deque<String>> referencingBundlesIndex = new ConcurrentHashMap<>();
+	// compiled translation table per bundle, locale and fallback options, replaced as a whole on changes
+	private volatile ConcurrentMap<String, ConcurrentMap<String,CompiledTranslation>> compiledTables = new ConcurrentHashMap<>();
 	private boolean cachingEnabled = true;
+	private boolean compiledTablesEnabled = true;
 	
 	private final I18nModule i18nModule;
 
@@ -201,8 +204,66 @@ public class I18nManager {
 	 *         possible and not found
 	 */
 	public String getLocalizedString(String bundleName, String key, Object[] args, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		if(compiledTablesEnabled && cachingEnabled && bundleName != null && key != null && locale != null
+				&& !isCurrentThreadMarkLocalizedStringsEnabled()) {
+			return getCompiledTranslation(bundleName, key, locale, overlayEnabled, fallBackToDefaultLocale).format(args);
+		}
 		return getLocalizedString(bundleName, key, args, locale, overlayEnabled, fallBackToDefaultLocale, true, true, true, 0);
 	}
+	
+	private CompiledTranslation getCompiledTranslation(String bundleName, String key, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		ConcurrentMap<String, ConcurrentMap<String,CompiledTranslation>> tables = compiledTables;
+		String tableKey = calcPropertiesFileKey(locale, bundleName) + ":" + overlayEnabled + ":" + fallBackToDefaultLocale;
+		ConcurrentMap<String,CompiledTranslation> table = tables.get(tableKey);
+		if(table == null) {
+			table = compileTable(bundleName, locale, overlayEnabled, fallBackToDefaultLocale);
+			ConcurrentMap<String,CompiledTranslation> currentTable = tables.putIfAbsent(tableKey, table);
+			if(currentTable != null) {
+				table = currentTable;
+			}
+		}
+		
+		CompiledTranslation translation = table.get(key);
+		if(translation == null) {
+			// missing keys and keys only available in the fallbacks
+			translation = compileTranslation(bundleName, key, locale, overlayEnabled, fallBackToDefaultLocale);
+			table.putIfAbsent(key, translation);
+		}
+		return translation;
+	}
+	
+	/**
+	 * Flatten the overlay and the fallbacks of all the keys available in the
+	 * bundle for the specified locale.
+	 */
+	private ConcurrentMap<String,CompiledTranslation> compileTable(String bundleName, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		ConcurrentMap<String,CompiledTranslation> table = new ConcurrentHashMap<>();
+		Properties properties = getProperties(locale, bundleName, true, 0);
+		if(properties != null) {
+			for(String key:properties.stringPropertyNames()) {
+				table.put(key, compileTranslation(bundleName, key, locale, overlayEnabled, fallBackToDefaultLocale));
+			}
+		}
+		return table;
+	}
+	
+	private CompiledTranslation compileTranslation(String bundleName, String key, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		String value = getLocalizedString(bundleName, key, null, locale, overlayEnabled, fallBackToDefaultLocale, true, true, false, 0);
+		return value == null ? CompiledTranslation.NOT_FOUND : new CompiledTranslation(value);
+	}
+	
+	public boolean isCompiledTablesEnabled() {
+		return compiledTablesEnabled;
+	}
+
+	/**
+	 * [used by tests]
+	 * @param enabled
+	 */
+	public void setCompiledTablesEnabled(boolean enabled) {
+		this.compiledTablesEnabled = enabled;
+		compiledTables = new ConcurrentHashMap<>();
+	}
 
 	public String getLocalizedString(String bundleName, String key, Object[] args, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale,
 			boolean fallBackToFallbackLocale, boolean resolveRecursively, int recursionLevel) {
@@ -713,6 +774,7 @@ public class I18nManager {
 				for (String bundleName : referencingBundles) {
 					cachedBundles.remove(bundleName);
 				}
+				compiledTables = new ConcurrentHashMap<>();
 			}
 		}
 
@@ -1010,7 +1072,8 @@ public class I18nManager {
 			knownBundles.add(bundleName);
 			Collections.sort(knownBundles);
 		}
-		// 3) Replace in cache
+		// 3) Replace in cache, the compiled tables are rebuilt lazy
+		compiledTables = new ConcurrentHashMap<>();
 		// not loaded yet or a non-resolved file (trans-tool)
 		if (cachedBundles.containsValue(properties)) {
 			// nothing to do with the property, a reused property
@@ -1042,6 +1105,7 @@ public class I18nManager {
 		String key = calcPropertiesFileKey(locale, bundleName);
 		if (log.isDebugEnabled()) log.debug("deleteProperties for key::{}", key);
 
+		compiledTables = new ConcurrentHashMap<>();
 		if (locale != null) { // metadata files are not in cache
 			// 1) Remove from cache first
 			if (cachedBundles.containsKey(key)) {
@@ -1632,6 +1696,7 @@ public class I18nManager {
 		cachedBundles.clear();
 		cachedJSTranslatorData.clear();
 		referencingBundlesIndex.clear();
+		compiledTables = new ConcurrentHashMap<>();
 	}
 
 	/**
@@ -1651,6 +1716,7 @@ public class I18nManager {
 			cachedJSTranslatorData = new AlwaysEmptyMap<>();
 			referencingBundlesIndex = new AlwaysEmptyMap<>();
 		}
+		compiledTables = new ConcurrentHashMap<>();
 		cachingEnabled = useCache;
 	}
 
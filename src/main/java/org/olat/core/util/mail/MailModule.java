@@ -64,6 +64,19 @@ public class MailModule extends AbstractSpringModule {
 	@Value("${mail.receiveRealMailUserDefaultSetting:true}")
 	private boolean receiveRealMailUserDefaultSetting;
 	
+	@Value("${mail.spool.enabled:false}")
+	private boolean spoolEnabled;
+	@Value("${mail.spool.connections:2}")
+	private int spoolConnections;
+	@Value("${mail.spool.connection.max.messages:100}")
+	private int spoolMaxMessagesPerConnection;
+	@Value("${mail.spool.rate:0}")
+	private double spoolRate;
+	@Value("${mail.spool.max.attempts:8}")
+	private int spoolMaxAttempts;
+	@Value("${mail.spool.retry.delay:30}")
+	private int spoolRetryDelay;
+	
 	private int maxSizeOfAttachments = 5;
 	
 	private static final String ATTACHMENT_DEFAULT = "/mail";
@@ -217,6 +230,57 @@ public class MailModule extends AbstractSpringModule {
 		return rootContainer;
 	}
 
+	public boolean isSpoolEnabled() {
+		return spoolEnabled;
+	}
+	
+	/**
+	 * [used by tests]
+	 */
+	public void setSpoolEnabled(boolean spoolEnabled) {
+		this.spoolEnabled = spoolEnabled;
+	}
+
+	/**
+	 * @return The number of SMTP connections used by the spool
+	 */
+	public int getSpoolConnections() {
+		return spoolConnections;
+	}
+
+	/**
+	 * @return The number of e-mails sent with the same SMTP connection
+	 */
+	public int getSpoolMaxMessagesPerConnection() {
+		return spoolMaxMessagesPerConnection;
+	}
+
+	/**
+	 * @return The maximum number of e-mails sent per second, 0 is unlimited
+	 */
+	public double getSpoolRate() {
+		return spoolRate;
+	}
+
+	public int getSpoolMaxAttempts() {
+		return spoolMaxAttempts;
+	}
+
+	/**
+	 * @return The delay in seconds before the first retry to send an e-mail
+	 */
+	public int getSpoolRetryDelay() {
+		return spoolRetryDelay;
+	}
+	
+	public File getSpoolDirectory() {
+		File spoolDir = new File(new File(WebappHelper.getUserDataRoot(), "mailspool"), Integer.toString(WebappHelper.getNodeId()));
+		if(!spoolDir.exists()) {
+			spoolDir.mkdirs();
+		}
+		return spoolDir;
+	}
+
 	/**
 	 * @return the configured mail host. Can be null, indicating that the system
 	 *         should not send any mail at all
@@ -113,6 +113,7 @@ import org.olat.core.util.vfs.VFSContainer;
 import org.olat.core.util.vfs.VFSItem;
 import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.core.util.vfs.VFSManager;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -132,7 +133,7 @@ import com.sun.mail.smtp.SMTPMessage;
  * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
  */
 @Service("mailManager")
-public class MailManagerImpl implements MailManager, InitializingBean  {
+public class MailManagerImpl implements MailManager, InitializingBean, DisposableBean  {
 	
 	private static final Logger log = Tracing.createLoggerFor(MailManagerImpl.class);
 
@@ -151,6 +152,7 @@ public class MailManagerImpl implements MailManager, InitializingBean  {
 	private GUISettings guiSettings;
 
 	private FileStorage attachmentStorage;
+	private MailSpool mailSpool;
 	
 	@Autowired
 	public MailManagerImpl(MailModule mailModule) {
@@ -174,6 +176,40 @@ public class MailManagerImpl implements MailManager, InitializingBean  {
 		} catch (Exception e) {
 			throw new RuntimeException("config error " + p);
 		}
+		
+		if(mailModule.isSpoolEnabled()) {
+			startSpool();
+		}
+	}
+	
+	@Override
+	public void destroy() {
+		stopSpool();
+	}
+	
+	/**
+	 * Start the spool, the e-mails sent after are queued and
+	 * sent with pooled SMTP connections.
+	 */
+	public synchronized void startSpool() {
+		if(mailSpool == null) {
+			mailSpool = new MailSpool(mailModule.getSpoolDirectory(), this::createMailSession,
+					mailModule.getSpoolConnections(), mailModule.getSpoolMaxMessagesPerConnection(),
+					mailModule.getSpoolRate(), mailModule.getSpoolMaxAttempts(),
+					mailModule.getSpoolRetryDelay() * 1000l);
+			mailSpool.start();
+		}
+	}
+	
+	public synchronized void stopSpool() {
+		if(mailSpool != null) {
+			mailSpool.stop();
+			mailSpool = null;
+		}
+	}
+	
+	public MailSpool getMailSpool() {
+		return mailSpool;
 	}
 	
 	@Override
@@ -1598,6 +1634,21 @@ public class MailManagerImpl implements MailManager, InitializingBean  {
 	 */
 	private MimeMessage createMessage(String subject, Address from)
 	throws AddressException, MessagingException, UnsupportedEncodingException {
+		MimeMessage msg = new MimeMessage(createMailSession());
+		
+		String platformFrom = WebappHelper.getMailConfig("mailFrom");
+		String platformName = WebappHelper.getMailConfig("mailFromName");
+		Address viewableFrom = createAddressWithName(platformFrom, platformName);
+		msg.setFrom(viewableFrom);
+		msg.setSubject(subject, "utf-8");
+		// reply to can only be an address without name (at least for postfix!), see FXOLAT-312
+		Address convertedFrom = getRawEmailFromAddress(from); 
+		msg.setReplyTo(new Address[] { convertedFrom });
+		
+		return msg;
+	}
+	
+	Session createMailSession() {
 		String mailhost = WebappHelper.getMailConfig("mailhost");
 		String mailport = WebappHelper.getMailConfig("mailport");
 		String mailhostTimeout = WebappHelper.getMailConfig("mailTimeout");
@@ -1641,18 +1692,7 @@ public class MailManagerImpl implements MailManager, InitializingBean  {
 			// enable mail session debugging on console
 			mailSession.setDebug(true);
 		}
-		MimeMessage msg = new MimeMessage(mailSession);
-		
-		String platformFrom = WebappHelper.getMailConfig("mailFrom");
-		String platformName = WebappHelper.getMailConfig("mailFromName");
-		Address viewableFrom = createAddressWithName(platformFrom, platformName);
-		msg.setFrom(viewableFrom);
-		msg.setSubject(subject, "utf-8");
-		// reply to can only be an address without name (at least for postfix!), see FXOLAT-312
-		Address convertedFrom = getRawEmailFromAddress(from); 
-		msg.setReplyTo(new Address[] { convertedFrom });
-		
-		return msg;
+		return mailSession;
 	}
 	
 	// converts an address "bla bli <bla@bli.ch>" => "bla@bli.ch"
@@ -1815,7 +1855,12 @@ public class MailManagerImpl implements MailManager, InitializingBean  {
 				if(Settings.isDebuging()) {
 					logMessage(msg);
 				}
-				Transport.send(msg);
+				MailSpool spool = mailSpool;
+				if(spool != null && spool.isRunning()) {
+					spoolMessage(spool, msg);
+				} else {
+					Transport.send(msg);
+				}
 			} else if(Settings.isDebuging() && result.getReturnCode() == MailerResult.OK) {
 				logMessage(msg);
 			} else {
@@ -1834,6 +1879,20 @@ public class MailManagerImpl implements MailManager, InitializingBean  {
 		}
 	}
 	
+	/**
+	 * Queue the message in the spool. The errors of the delivery are only
+	 * logged, the result cannot report them.
+	 */
+	private void spoolMessage(MailSpool spool, MimeMessage msg) throws MessagingException {
+		try {
+			msg.saveChanges();
+			spool.spool(msg);
+		} catch (IOException e) {
+			log.error("Cannot spool e-mail, send it directly", e);
+			Transport.send(msg);
+		}
+	}
+	
 	private void logMessage(MimeMessage msg) throws MessagingException {
 		try {
 			log.info("E-mail send: {}", msg.getSubject());
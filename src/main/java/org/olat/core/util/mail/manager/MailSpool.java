@@ -0,0 +1,455 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.mail.manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.StringHelper;
+import org.olat.core.util.WebappHelper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPMessage;
+import com.sun.mail.smtp.SMTPSendFailedException;
+
+/**
+ * Outbound queue for the e-mails. The messages are written in a spool
+ * directory and sent by a small pool of workers which keep their SMTP
+ * connection open between the messages. A message which cannot be sent
+ * because of a connection or server error is retried later with an
+ * exponential backoff, the messages still in the directory at startup
+ * are sent again (at least once delivery). If the server rejects some
+ * recipients temporarily (4xx), the message is retried only for them and
+ * the valid recipients not sent yet, only permanent errors (5xx) fail.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class MailSpool {
+	
+	private static final Logger log = Tracing.createLoggerFor(MailSpool.class);
+	
+	private static final String SUFFIX = ".eml";
+	private static final long MAX_RETRY_DELAY = TimeUnit.HOURS.toMillis(1);
+	private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+	
+	private final File spoolDir;
+	private final File failedDir;
+	private final Supplier<Session> sessionFactory;
+	private final DelayQueue<SpooledMail> queue = new DelayQueue<>();
+	
+	private final int connections;
+	private final int maxMessagesPerConnection;
+	private final int maxAttempts;
+	private final long retryDelay;
+	private final long minSendIntervalNanos;
+	private final AtomicLong nextSendSlot = new AtomicLong();
+	
+	private final LongAdder sentMails = new LongAdder();
+	private final LongAdder failedMails = new LongAdder();
+	private final LongAdder retriedMails = new LongAdder();
+	
+	private ExecutorService senders;
+	private volatile boolean running;
+	
+	/**
+	 * 
+	 * @param spoolDir The directory where the messages wait to be sent
+	 * @param sessionFactory Create the mail session with the SMTP configuration
+	 * @param connections The number of parallel SMTP connections
+	 * @param maxMessagesPerConnection The number of messages sent before the connection is renewed
+	 * @param rate The maximum number of messages per second, 0 for no limit
+	 * @param maxAttempts The number of attempts before a message is moved to the failed directory
+	 * @param retryDelay The delay in milliseconds before the first retry
+	 */
+	public MailSpool(File spoolDir, Supplier<Session> sessionFactory, int connections,
+			int maxMessagesPerConnection, double rate, int maxAttempts, long retryDelay) {
+		this.spoolDir = spoolDir;
+		this.failedDir = new File(spoolDir, "failed");
+		this.sessionFactory = sessionFactory;
+		this.connections = Math.max(1, connections);
+		this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.retryDelay = Math.max(1000l, retryDelay);
+		this.minSendIntervalNanos = rate > 0.0d ? (long)(TimeUnit.SECONDS.toNanos(1) / rate) : 0l;
+	}
+	
+	public synchronized void start() {
+		if(running) return;
+		
+		failedDir.mkdirs();
+		// messages of a previous run
+		File[] spooledFiles = spoolDir.listFiles((dir, name) -> name.endsWith(SUFFIX));
+		if(spooledFiles != null && spooledFiles.length > 0) {
+			log.info("Resend {} e-mails from spool: {}", spooledFiles.length, spoolDir);
+			for(File spooledFile:spooledFiles) {
+				queue.add(new SpooledMail(spooledFile, null, 0, System.currentTimeMillis()));
+			}
+		}
+		
+		running = true;
+		senders = Executors.newFixedThreadPool(connections, new CustomizableThreadFactory("oo-mail-spool-"));
+		for(int i=0; i<connections; i++) {
+			senders.execute(new Sender());
+		}
+		log.info("Mail spool started with {} connections in: {}", connections, spoolDir);
+	}
+	
+	public synchronized void stop() {
+		running = false;
+		if(senders != null) {
+			senders.shutdownNow();
+			senders = null;
+		}
+	}
+	
+	/**
+	 * Write the message in the spool directory and queue it.
+	 * 
+	 * @param msg The message
+	 * @throws IOException If the message cannot be written in the spool
+	 * @throws MessagingException If the message cannot be serialized
+	 */
+	public void spool(MimeMessage msg) throws IOException, MessagingException {
+		String name = UUID.randomUUID().toString();
+		File tmpFile = new File(spoolDir, name + ".tmp");
+		File spooledFile = new File(spoolDir, name + SUFFIX);
+		try(OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+			msg.writeTo(out);
+		}
+		// only complete messages are visible in the spool
+		Files.move(tmpFile.toPath(), spooledFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		queue.add(new SpooledMail(spooledFile, null, 0, System.currentTimeMillis()));
+	}
+	
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * @return The number of messages waiting to be sent, retries included
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+	
+	public long getNumOfSentMails() {
+		return sentMails.sum();
+	}
+	
+	public long getNumOfFailedMails() {
+		return failedMails.sum();
+	}
+	
+	public long getNumOfRetries() {
+		return retriedMails.sum();
+	}
+	
+	private void acquireSendPermit() throws InterruptedException {
+		if(minSendIntervalNanos <= 0l) return;
+		
+		long now = System.nanoTime();
+		long previousSlot = nextSendSlot.getAndAccumulate(now, (slot, n) -> Math.max(slot, n) + minSendIntervalNanos);
+		long wait = previousSlot - now;
+		if(wait > 0l) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+	
+	private void retryOrFail(SpooledMail mail, Exception e) {
+		retryOrFail(mail, mail.getRecipients(), e);
+	}
+	
+	private void retryOrFail(SpooledMail mail, Address[] recipients, Exception e) {
+		int attempts = mail.getAttempts() + 1;
+		if(attempts >= maxAttempts) {
+			moveToFailed(mail, e);
+		} else {
+			long delay = Math.min(MAX_RETRY_DELAY, retryDelay << Math.min(attempts - 1, 20));
+			log.warn("Could not send mail {} (attempt {}), retry in {}s: {}", mail.getFile().getName(), attempts,
+					TimeUnit.MILLISECONDS.toSeconds(delay), e.getMessage());
+			retriedMails.increment();
+			queue.add(new SpooledMail(mail.getFile(), recipients, attempts, System.currentTimeMillis() + delay));
+		}
+	}
+	
+	/**
+	 * The recipients to retry after a failed send: the valid recipients which
+	 * were not sent and the ones rejected with a transient error (4xx). If the
+	 * whole message was rejected with a transient error, all the recipients
+	 * of the attempt are retried.
+	 * 
+	 * @param e The exception
+	 * @param recipients The recipients of the failed attempt
+	 * @return The recipients to retry or null if the errors are permanent
+	 */
+	static Address[] getRetryRecipients(SendFailedException e, Address[] recipients) {
+		int returnCode = getReturnCode(e);
+		if(isPermanent(returnCode)) {
+			return null;// the message itself is rejected
+		}
+		
+		Set<Address> retry = new LinkedHashSet<>();
+		addAll(retry, e.getValidUnsentAddresses());
+		for(Exception next=e.getNextException(); next instanceof MessagingException; next=((MessagingException)next).getNextException()) {
+			if(next instanceof SMTPAddressFailedException) {
+				SMTPAddressFailedException addressEx = (SMTPAddressFailedException)next;
+				if(isTransient(addressEx.getReturnCode())) {
+					retry.add(addressEx.getAddress());
+				}
+			}
+		}
+		if(retry.isEmpty() && isTransient(returnCode)) {
+			addAll(retry, recipients);
+		}
+		return retry.isEmpty() ? null : retry.toArray(new Address[retry.size()]);
+	}
+	
+	private static void addAll(Set<Address> set, Address[] addresses) {
+		if(addresses != null) {
+			for(Address address:addresses) {
+				set.add(address);
+			}
+		}
+	}
+	
+	private static int getReturnCode(SendFailedException e) {
+		return e instanceof SMTPSendFailedException ? ((SMTPSendFailedException)e).getReturnCode() : -1;
+	}
+	
+	private static boolean isTransient(int returnCode) {
+		return returnCode >= 400 && returnCode < 500;
+	}
+	
+	private static boolean isPermanent(int returnCode) {
+		return returnCode >= 500 && returnCode < 600;
+	}
+	
+	private void moveToFailed(SpooledMail mail, Exception e) {
+		failedMails.increment();
+		File file = mail.getFile();
+		log.warn("Could not send mail {}, moved to {}: {}", file.getName(), failedDir, e.getMessage());
+		try {
+			Files.move(file.toPath(), new File(failedDir, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
+			log.error("Cannot move spooled mail: {}", file, ex);
+		}
+	}
+	
+	private void delete(SpooledMail mail) {
+		try {
+			Files.deleteIfExists(mail.getFile().toPath());
+		} catch (IOException e) {
+			log.error("Cannot delete spooled mail: {}", mail.getFile(), e);
+		}
+	}
+	
+	/**
+	 * A worker with its own session and SMTP connection.
+	 */
+	private class Sender implements Runnable {
+		
+		private Session session;
+		private Transport transport;
+		private int sentWithTransport;
+		
+		@Override
+		public void run() {
+			try {
+				while(running) {
+					SpooledMail mail = queue.poll(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+					if(mail == null) {
+						closeTransport();// don't keep idle connections
+					} else {
+						acquireSendPermit();
+						send(mail);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				log.error("Mail spool worker stopped", e);
+			} finally {
+				closeTransport();
+			}
+		}
+		
+		private void send(SpooledMail mail) {
+			if(!mail.getFile().exists()) {
+				return;
+			}
+			
+			MimeMessage msg;
+			try {
+				msg = load(mail.getFile());
+			} catch (IOException | MessagingException e) {
+				moveToFailed(mail, e);
+				return;
+			}
+			
+			Address[] recipients = null;
+			try {
+				recipients = mail.getRecipients() == null ? msg.getAllRecipients() : mail.getRecipients();
+				Transport connectedTransport = getTransport();
+				connectedTransport.sendMessage(msg, recipients);
+				sentWithTransport++;
+				sentMails.increment();
+				delete(mail);
+			} catch(SendFailedException e) {
+				closeTransportIfBroken();
+				Address[] retryRecipients = getRetryRecipients(e, recipients);
+				if(retryRecipients != null) {
+					retryOrFail(mail, retryRecipients, e);
+				} else if(e.getValidSentAddresses() != null && e.getValidSentAddresses().length > 0) {
+					// partially delivered, the other recipients are permanently rejected
+					log.warn("Mail {} not sent to the rejected recipients: {}", mail.getFile().getName(), e.getMessage());
+					sentMails.increment();
+					delete(mail);
+				} else {
+					moveToFailed(mail, e);
+				}
+			} catch (MessagingException e) {
+				closeTransport();
+				retryOrFail(mail, e);
+			}
+		}
+		
+		private MimeMessage load(File file) throws IOException, MessagingException {
+			try(InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+				SMTPMessage msg = new SMTPMessage(getSession(), in);
+				String smtpFrom = WebappHelper.getMailConfig("smtpFrom");
+				if(StringHelper.containsNonWhitespace(smtpFrom)) {
+					msg.setEnvelopeFrom(smtpFrom);
+				}
+				return msg;
+			}
+		}
+		
+		private Session getSession() {
+			if(session == null) {
+				session = sessionFactory.get();
+			}
+			return session;
+		}
+		
+		private Transport getTransport() throws MessagingException {
+			if(transport != null && (sentWithTransport >= maxMessagesPerConnection || !transport.isConnected())) {
+				closeTransport();
+			}
+			if(transport == null) {
+				Transport newTransport = getSession().getTransport("smtp");
+				newTransport.connect();
+				transport = newTransport;
+				sentWithTransport = 0;
+			}
+			return transport;
+		}
+		
+		private void closeTransportIfBroken() {
+			if(transport != null && !transport.isConnected()) {
+				closeTransport();
+			}
+		}
+		
+		private void closeTransport() {
+			if(transport != null) {
+				try {
+					transport.close();
+				} catch (MessagingException e) {
+					log.debug("Cannot close SMTP connection", e);
+				}
+				transport = null;
+				session = null;
+			}
+		}
+	}
+	
+	private static class SpooledMail implements Delayed {
+		
+		private final File file;
+		private final Address[] recipients;
+		private final int attempts;
+		private final long dueTime;
+		
+		public SpooledMail(File file, Address[] recipients, int attempts, long dueTime) {
+			this.file = file;
+			this.recipients = recipients;
+			this.attempts = attempts;
+			this.dueTime = dueTime;
+		}
+
+		public File getFile() {
+			return file;
+		}
+		
+		/**
+		 * @return The recipients of a partial retry, null for all the recipients of the message
+		 */
+		public Address[] getRecipients() {
+			return recipients;
+		}
+
+		public int getAttempts() {
+			return attempts;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(dueTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			if(o instanceof SpooledMail) {
+				return Long.compare(dueTime, ((SpooledMail)o).dueTime);
+			}
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+		}
+	}
+}
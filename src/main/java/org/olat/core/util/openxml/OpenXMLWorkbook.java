@@ -127,12 +127,16 @@ public class OpenXMLWorkbook implements Closeable {
 	
 	@Override
 	public void close() throws IOException {
-		if(opened) {
-			currentWorkSheet.close();
-			zout.closeEntry();
-			appendEpilogue();
-			zout.flush();
-			zout.close();
+		try {
+			if(opened) {
+				currentWorkSheet.close();
+				zout.closeEntry();
+				appendEpilogue();
+				zout.flush();
+				zout.close();
+			}
+		} finally {
+			sharedStrings.close();
 		}
 	}
 	
@@ -19,22 +19,76 @@
  */
 package org.olat.core.util.openxml;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.OLATRuntimeException;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.WebappHelper;
 
 /**
+ * The table of the shared strings of a workbook. The strings are indexed
+ * by a hash map. If the strings take too much memory, the table is spilled
+ * to a temporary file: only the short strings are kept in memory, the long ones
+ * are referenced by their hash code and their offset in the file.
  * 
  * Initial date: 25.04.2016<br>
  * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
  *
  */
-public class OpenXMLWorkbookSharedStrings implements Iterable<String> {
+public class OpenXMLWorkbookSharedStrings implements Iterable<String>, Closeable {
+	
+	private static final Logger log = Tracing.createLoggerFor(OpenXMLWorkbookSharedStrings.class);
+	
+	/** Number of characters held in memory before spilling to the disk */
+	private static final long DEFAULT_SPILL_THRESHOLD = 4l * 1024l * 1024l;
+	/** Strings up to this length stay in memory after the spill */
+	private static final int SHORT_STRING_LENGTH = 64;
 
+	private final long spillThreshold;
+	
+	private int size = 0;
+	private long numOfChars = 0;
 	private final List<String> sharedStrings = new ArrayList<>();
+	private final Map<String,Integer> stringToIndex = new HashMap<>();
+	
+	// after spill
+	private File spillFile;
+	private DataOutputStream spillOut;
+	private RandomAccessFile spillIn;
+	private long spillPosition;
+	private long[] offsets;
+	private Map<Integer,int[]> hashToIndexes;
 	
 	public OpenXMLWorkbookSharedStrings() {
-		sharedStrings.add("OpenOLAT");//prevent empty list
+		this(DEFAULT_SPILL_THRESHOLD);
+	}
+	
+	/**
+	 * @param spillThreshold The number of characters kept in memory before
+	 * 		the strings are spilled to the disk.
+	 */
+	OpenXMLWorkbookSharedStrings(long spillThreshold) {
+		this.spillThreshold = spillThreshold;
+		add("OpenOLAT");//prevent empty list
 	}
 	
 	/**
@@ -43,20 +97,200 @@ public class OpenXMLWorkbookSharedStrings implements Iterable<String> {
 	 * @return
 	 */
 	public int add(String string) {
-		int index = sharedStrings.indexOf(string);
-		if(index < 0) {
+		Integer index = stringToIndex.get(string);
+		if(index != null) {
+			return index.intValue();
+		}
+		
+		if(spillFile == null) {
+			int newIndex = size++;
 			sharedStrings.add(string);
-			index = sharedStrings.size() - 1;
+			stringToIndex.put(string, Integer.valueOf(newIndex));
+			numOfChars += string.length();
+			if(numOfChars > spillThreshold) {
+				spill();
+			}
+			return newIndex;
 		}
-		return index;
+		return addSpilled(string);
+	}
+	
+	boolean isSpilled() {
+		return spillFile != null;
 	}
 
 	@Override
 	public Iterator<String> iterator() {
-		return sharedStrings.iterator();
+		if(spillFile == null) {
+			return sharedStrings.iterator();
+		}
+		return new SpilledIterator();
 	}
 	
 	public int size() {
-		return sharedStrings.size();
+		return size;
+	}
+	
+	@Override
+	public void close() {
+		closeSpillStreams();
+		if(spillFile != null) {
+			try {
+				Files.deleteIfExists(spillFile.toPath());
+			} catch (IOException e) {
+				log.warn("Cannot delete shared strings: {}", spillFile, e);
+			}
+		}
+	}
+	
+	private void spill() {
+		try {
+			File tmpDir = new File(WebappHelper.getTmpDir());
+			if(!tmpDir.exists()) {
+				tmpDir.mkdirs();
+			}
+			spillFile = File.createTempFile("sharedstrings", ".bin", tmpDir);
+			spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile), 65536));
+			offsets = new long[Math.max(1024, size * 2)];
+			hashToIndexes = new HashMap<>();
+			
+			stringToIndex.clear();
+			for(int i=0; i<size; i++) {
+				String string = sharedStrings.get(i);
+				writeSpilled(i, string);
+				indexSpilled(i, string);
+			}
+			sharedStrings.clear();
+			log.debug("Shared strings spilled to disk: {} strings, {} characters", size, numOfChars);
+		} catch (IOException e) {
+			throw new OLATRuntimeException("Cannot spill shared strings", e);
+		}
+	}
+	
+	private int addSpilled(String string) {
+		if(string.length() > SHORT_STRING_LENGTH) {
+			int[] candidates = hashToIndexes.get(Integer.valueOf(string.hashCode()));
+			if(candidates != null) {
+				for(int candidate:candidates) {
+					if(string.equals(readSpilled(candidate))) {
+						return candidate;
+					}
+				}
+			}
+		}
+		
+		try {
+			int newIndex = size++;
+			writeSpilled(newIndex, string);
+			indexSpilled(newIndex, string);
+			numOfChars += string.length();
+			return newIndex;
+		} catch (IOException e) {
+			throw new OLATRuntimeException("Cannot spill shared strings", e);
+		}
+	}
+	
+	private void indexSpilled(int index, String string) {
+		if(string.length() <= SHORT_STRING_LENGTH) {
+			stringToIndex.put(string, Integer.valueOf(index));
+		} else {
+			Integer hash = Integer.valueOf(string.hashCode());
+			int[] indexes = hashToIndexes.get(hash);
+			if(indexes == null) {
+				indexes = new int[] { index };
+			} else {
+				indexes = Arrays.copyOf(indexes, indexes.length + 1);
+				indexes[indexes.length - 1] = index;
+			}
+			hashToIndexes.put(hash, indexes);
+		}
+	}
+	
+	private void writeSpilled(int index, String string) throws IOException {
+		if(index >= offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		offsets[index] = spillPosition;
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		spillOut.writeInt(bytes.length);
+		spillOut.write(bytes);
+		spillPosition += 4 + bytes.length;
+	}
+	
+	private String readSpilled(int index) {
+		try {
+			spillOut.flush();
+			if(spillIn == null) {
+				spillIn = new RandomAccessFile(spillFile, "r");
+			}
+			spillIn.seek(offsets[index]);
+			byte[] bytes = new byte[spillIn.readInt()];
+			spillIn.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new OLATRuntimeException("Cannot read spilled shared strings", e);
+		}
+	}
+	
+	private void closeSpillStreams() {
+		try {
+			if(spillOut != null) {
+				spillOut.close();
+				spillOut = null;
+			}
+			if(spillIn != null) {
+				spillIn.close();
+				spillIn = null;
+			}
+		} catch (IOException e) {
+			log.warn("", e);
+		}
+	}
+	
+	private class SpilledIterator implements Iterator<String> {
+		
+		private int next = 0;
+		private DataInputStream in;
+		
+		@Override
+		public boolean hasNext() {
+			boolean hasNext = next < size;
+			if(!hasNext) {
+				closeInput();
+			}
+			return hasNext;
+		}
+
+		@Override
+		public String next() {
+			if(next >= size) {
+				throw new NoSuchElementException();
+			}
+			
+			try {
+				if(in == null) {
+					spillOut.flush();
+					in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile), 65536));
+				}
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				next++;
+				return new String(bytes, StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				closeInput();
+				throw new OLATRuntimeException("Cannot read spilled shared strings", e);
+			}
+		}
+		
+		private void closeInput() {
+			if(in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					log.warn("", e);
+				}
+				in = null;
+			}
+		}
 	}
 }
@@ -151,6 +151,7 @@ import org.olat.util.logging.activity.LoggingResourceable;
 public class CourseFactory {
 
 	private static CacheWrapper<Long,PersistingCourseImpl> loadedCourses;
+	private static CourseSnapshotStore snapshotStore;
 	private static ConcurrentMap<Long, ModifyCourseEvent> modifyCourseEvents = new ConcurrentHashMap<>();
 
 	public static final String COURSE_EDITOR_LOCK = "courseEditLock";
@@ -170,6 +171,28 @@ public class CourseFactory {
 		loadedCourses = coordinatorManager.getCoordinator().getCacher().getCache(CourseFactory.class.getSimpleName(), "courses");
 		CourseFactory.referenceManager = referenceManager;
 	}
+	
+	/**
+	 * [used by spring]
+	 * @param enabled true to hold a binary snapshot of the run structures on disk
+	 */
+	public void setSnapshotEnabled(boolean enabled) {
+		if(CourseFactory.snapshotStore != null) {
+			CourseFactory.snapshotStore.unregister();
+		}
+		CourseSnapshotStore store = new CourseSnapshotStore(enabled);
+		store.register();
+		CourseFactory.snapshotStore = store;
+	}
+	
+	/**
+	 * @return The second tier of the course cache with its statistics (the hit
+	 * 		and miss of the course cache are counted there too), they are
+	 * 		exposed in JMX as org.olat.course:type=CourseCache
+	 */
+	public static CourseSnapshotStore getSnapshotStore() {
+		return snapshotStore;
+	}
 
 	/**
 	 * Create an editor controller for the given course resourceable
@@ -303,6 +326,7 @@ public class CourseFactory {
 		}
 		Long resourceableId = courseEntry.getOlatResource().getResourceableId();
 		PersistingCourseImpl course = loadedCourses.get(resourceableId);
+		countCacheAccess(course);
 		if (course == null) {
 			// o_clusterOK by:ld - load and put in cache in doInSync block to ensure
 			// that no invalidate cache event was missed
@@ -326,6 +350,7 @@ public class CourseFactory {
 	public static ICourse loadCourse(final Long resourceableId) {
 		if (resourceableId == null) throw new AssertException("No resourceable ID found.");
 		PersistingCourseImpl course = loadedCourses.get(resourceableId);
+		countCacheAccess(course);
 		if (course == null) {
 			// o_clusterOK by:ld - load and put in cache in doInSync block to ensure
 			// that no invalidate cache event was missed
@@ -343,6 +368,16 @@ public class CourseFactory {
 		return course;
 	}
 
+	private static void countCacheAccess(PersistingCourseImpl course) {
+		if(snapshotStore != null) {
+			if(course == null) {
+				snapshotStore.incrementCacheMisses();
+			} else {
+				snapshotStore.incrementCacheHits();
+			}
+		}
+	}
+
 	/**
 	 * Load the course for the given course resourceable
 	 *
@@ -432,6 +467,9 @@ public class CourseFactory {
 
 		// cleanup cache
 		removeFromCache(res.getResourceableId());
+		if(snapshotStore != null) {
+			snapshotStore.deleteSnapshot(res.getResourceableId());
+		}
 
 		// Everything is deleted, so we could get rid of course logging
 		// with the change in user audit logging - which now all goes into a DB
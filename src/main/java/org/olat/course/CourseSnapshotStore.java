@@ -0,0 +1,345 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.WebappHelper;
+
+/**
+ * Description:<br>
+ * Second tier of the course cache. It holds a compact binary snapshot
+ * (deflated Java serialization) of the run structure of the courses on disk,
+ * so a course evicted from the cache of the CourseFactory can be
+ * rehydrated without parsing the XML of the run structure with XStream.<br>
+ * The snapshot is valid for one version of the published run structure,
+ * the version is given by the length and the SHA-256 checksum of the
+ * file runstructure.xml. The modification date is not reliable, a copy or
+ * a restore of the course can keep it and a publish in the same second
+ * doesn't change it.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class CourseSnapshotStore implements CourseSnapshotStoreMXBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(CourseSnapshotStore.class);
+	
+	private static final int MAGIC = 0x4F4C5254;
+	private static final String CHECKSUM_ALGORITHM = "SHA-256";
+	private static final String SNAPSHOT_SUFFIX = ".runstructure.bin";
+	
+	private final boolean enabled;
+	private File snapshotDirectory;
+	
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final LongAdder snapshotHits = new LongAdder();
+	private final LongAdder snapshotMisses = new LongAdder();
+	private final LongAdder snapshotErrors = new LongAdder();
+	private final LongAdder rehydrationTime = new LongAdder();
+	private final LongAdder xmlLoads = new LongAdder();
+	private final LongAdder xmlLoadTime = new LongAdder();
+	
+	private ObjectName objectName;
+	
+	CourseSnapshotStore(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * @param enabled true to hold the snapshots
+	 * @param snapshotDirectory The directory of the snapshots
+	 */
+	CourseSnapshotStore(boolean enabled, File snapshotDirectory) {
+		this.enabled = enabled;
+		this.snapshotDirectory = snapshotDirectory;
+	}
+	
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	private File getSnapshotDirectory() {
+		if(snapshotDirectory == null) {
+			File dir = new File(new File(WebappHelper.getUserDataRoot(), "cache"), "courses");
+			if(!dir.exists() && !dir.mkdirs()) {
+				log.warn("Cannot create the directory for the course snapshots: {}", dir);
+			}
+			snapshotDirectory = dir;
+		}
+		return snapshotDirectory;
+	}
+	
+	private File getSnapshotFile(Long resourceableId) {
+		return new File(getSnapshotDirectory(), resourceableId + SNAPSHOT_SUFFIX);
+	}
+	
+	void incrementCacheHits() {
+		cacheHits.increment();
+	}
+	
+	void incrementCacheMisses() {
+		cacheMisses.increment();
+	}
+	
+	void addXmlLoadTime(long timeInNanos) {
+		xmlLoads.increment();
+		xmlLoadTime.add(timeInNanos);
+	}
+	
+	/**
+	 * Load the run structure from the snapshot if the snapshot exists
+	 * and matches the version of the XML file.
+	 * 
+	 * @param resourceableId The resource id of the course
+	 * @param runStructureXml The file runstructure.xml of the course
+	 * @return The run structure or null if there isn't any valid snapshot
+	 */
+	Structure loadRunStructure(Long resourceableId, File runStructureXml) {
+		if(!enabled || runStructureXml == null) return null;
+		
+		long start = System.nanoTime();
+		File snapshot = getSnapshotFile(resourceableId);
+		if(!snapshot.exists()) {
+			snapshotMisses.increment();
+			return null;
+		}
+		
+		try(InputStream fileIn = Files.newInputStream(snapshot.toPath());
+				DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+			if(in.readInt() != MAGIC || in.readLong() != runStructureXml.length()) {
+				snapshotMisses.increment();
+				return null;
+			}
+			byte[] checksum = new byte[in.readInt()];
+			in.readFully(checksum);
+			if(!MessageDigest.isEqual(checksum, checksum(runStructureXml))) {
+				snapshotMisses.increment();
+				return null;
+			}
+			
+			try(ObjectInputStream objectIn = new ObjectInputStream(new InflaterInputStream(in))) {
+				Structure structure = (Structure)objectIn.readObject();
+				snapshotHits.increment();
+				rehydrationTime.add(System.nanoTime() - start);
+				return structure;
+			}
+		} catch(Exception | LinkageError e) {
+			// the classes of the course nodes can have changed, the XML is the reference
+			log.warn("Cannot read the snapshot of the course: {}", resourceableId, e);
+			snapshotErrors.increment();
+			FileUtils.deleteFile(snapshot);
+			return null;
+		}
+	}
+	
+	/**
+	 * Write a snapshot of the run structure for the current version of the XML file.
+	 * 
+	 * @param resourceableId The resource id of the course
+	 * @param runStructureXml The file runstructure.xml of the course
+	 * @param structure The run structure
+	 */
+	void storeRunStructure(Long resourceableId, File runStructureXml, Structure structure) {
+		if(!enabled || runStructureXml == null || !runStructureXml.exists() || structure == null) return;
+		
+		File snapshot = getSnapshotFile(resourceableId);
+		File tmpSnapshot = new File(snapshot.getParentFile(), snapshot.getName() + "." + WebappHelper.getNodeId() + ".tmp");
+		try(OutputStream fileOut = Files.newOutputStream(tmpSnapshot.toPath());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+			byte[] checksum = checksum(runStructureXml);
+			out.writeInt(MAGIC);
+			out.writeLong(runStructureXml.length());
+			out.writeInt(checksum.length);
+			out.write(checksum);
+			
+			DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out);
+			ObjectOutputStream objectOut = new ObjectOutputStream(deflaterOut);
+			objectOut.writeObject(structure);
+			objectOut.flush();
+			deflaterOut.finish();
+		} catch(IOException | RuntimeException e) {
+			log.warn("Cannot write the snapshot of the course: {}", resourceableId, e);
+			snapshotErrors.increment();
+			FileUtils.deleteFile(tmpSnapshot);
+			return;
+		}
+		
+		try {
+			Files.move(tmpSnapshot.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.warn("Cannot move the snapshot of the course: {}", resourceableId, e);
+			FileUtils.deleteFile(tmpSnapshot);
+		}
+	}
+	
+	/**
+	 * Reading the file is a fraction of the cost of parsing it with XStream.
+	 * 
+	 * @param file The file
+	 * @return The SHA-256 checksum of the content of the file
+	 * @throws IOException If the file cannot be read
+	 */
+	private byte[] checksum(File file) throws IOException {
+		try(InputStream in = Files.newInputStream(file.toPath())) {
+			MessageDigest digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+			byte[] buffer = new byte[8192];
+			for(int read; (read = in.read(buffer)) != -1; ) {
+				digest.update(buffer, 0, read);
+			}
+			return digest.digest();
+		} catch(NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	void deleteSnapshot(Long resourceableId) {
+		if(!enabled) return;
+		
+		File snapshot = getSnapshotFile(resourceableId);
+		if(snapshot.exists()) {
+			FileUtils.deleteFile(snapshot);
+		}
+	}
+	
+	/**
+	 * @return Number of courses found in the cache
+	 */
+	@Override
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+	
+	/**
+	 * @return Number of courses not found in the cache
+	 */
+	@Override
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+	
+	/**
+	 * @return Number of run structures rehydrated from a snapshot
+	 */
+	@Override
+	public long getSnapshotHits() {
+		return snapshotHits.sum();
+	}
+	
+	/**
+	 * @return Number of run structures without valid snapshot
+	 */
+	@Override
+	public long getSnapshotMisses() {
+		return snapshotMisses.sum();
+	}
+	
+	@Override
+	public long getSnapshotErrors() {
+		return snapshotErrors.sum();
+	}
+	
+	/**
+	 * @return The average time in milliseconds to rehydrate a run structure from a snapshot
+	 */
+	@Override
+	public double getAverageRehydrationTime() {
+		long hits = snapshotHits.sum();
+		return hits == 0 ? 0.0d : (rehydrationTime.sum() / 1000000.0d) / hits;
+	}
+	
+	/**
+	 * @return The average time in milliseconds to load a run structure from the XML file
+	 */
+	@Override
+	public double getAverageXmlLoadTime() {
+		long loads = xmlLoads.sum();
+		return loads == 0 ? 0.0d : (xmlLoadTime.sum() / 1000000.0d) / loads;
+	}
+	
+	@Override
+	public void resetStatistics() {
+		cacheHits.reset();
+		cacheMisses.reset();
+		snapshotHits.reset();
+		snapshotMisses.reset();
+		snapshotErrors.reset();
+		rehydrationTime.reset();
+		xmlLoads.reset();
+		xmlLoadTime.reset();
+	}
+	
+	/**
+	 * Register the statistics in the platform MBean server.
+	 */
+	public synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName("org.olat.course:type=CourseCache,name=CourseSnapshotStore");
+			if(server.isRegistered(on)) {
+				server.unregisterMBean(on);
+			}
+			server.registerMBean(this, on);
+			objectName = on;
+		} catch (Exception e) {
+			log.error("Cannot register the course cache statistics in JMX", e);
+		}
+	}
+	
+	public synchronized void unregister() {
+		if(objectName == null) return;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			log.error("Cannot unregister the course cache statistics in JMX", e);
+		} finally {
+			objectName = null;
+		}
+	}
+}
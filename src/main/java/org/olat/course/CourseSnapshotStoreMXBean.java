@@ -0,0 +1,50 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+/**
+ * Description:<br>
+ * JMX view of the statistics of the course cache and of its
+ * second tier with the snapshots of the run structures.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public interface CourseSnapshotStoreMXBean {
+	
+	public boolean isEnabled();
+	
+	public long getCacheHits();
+	
+	public long getCacheMisses();
+	
+	public long getSnapshotHits();
+	
+	public long getSnapshotMisses();
+	
+	public long getSnapshotErrors();
+	
+	public double getAverageRehydrationTime();
+	
+	public double getAverageXmlLoadTime();
+	
+	public void resetStatistics();
+
+}
@@ -0,0 +1,450 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.basesecurity.GroupRoles;
+import org.olat.core.commons.services.mark.Mark;
+import org.olat.core.commons.services.mark.MarkChangedEvent;
+import org.olat.core.commons.services.webdav.WebDAVModule;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.IdentityEnvironment;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.group.BusinessGroup;
+import org.olat.group.model.BusinessGroupDeletedEvent;
+import org.olat.group.model.BusinessGroupRelationModified;
+import org.olat.group.ui.edit.BusinessGroupModifiedEvent;
+import org.olat.modules.curriculum.CurriculumService;
+import org.olat.modules.curriculum.model.CurriculumElementWebDAVInfos;
+import org.olat.repository.RepositoryEntry;
+import org.olat.repository.RepositoryEntryRelationType;
+import org.olat.repository.RepositoryEntryStatusEnum;
+import org.olat.repository.RepositoryManager;
+import org.olat.repository.RepositoryService;
+import org.olat.repository.controllers.EntryChangedEvent;
+import org.olat.repository.controllers.EntryChangedEvent.Change;
+import org.olat.repository.manager.RepositoryEntryRelationDAO;
+import org.olat.repository.model.RepositoryEntryMembershipModifiedEvent;
+import org.olat.repository.model.RepositoryEntryStatusChangedEvent;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache the courses listed in the WebDAV course folders per identity. WebDAV
+ * clients open new sessions all the time and every new session needs the
+ * courses of the user. The courses of an identity are discarded if its
+ * memberships or bookmarks change, the courses of all the members of a
+ * repository entry if its status changes. The changed repository entries
+ * (title, life cycle...) are reloaded one by one in the cached lists and
+ * filtered with the same status as the queries of the RepositoryManager.
+ * The lists are rebuilt after webdav.coursefolders.cache.maxage seconds
+ * to catch the changes without events.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class CoursefolderWebDAVCache implements GenericEventListener, InitializingBean, DisposableBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(CoursefolderWebDAVCache.class);
+	
+	private static final String COURSE_TYPE = "CourseModule";
+	private static final int MAX_CACHED_IDENTITIES = 5000;
+	
+	private static final List<RepositoryEntryStatusEnum> OWNER_STATUS = Arrays.asList(RepositoryEntryStatusEnum.preparationToClosed());
+	private static final List<RepositoryEntryStatusEnum> COACH_STATUS = Arrays.asList(RepositoryEntryStatusEnum.coachPublishedToClosed());
+	private static final List<RepositoryEntryStatusEnum> PARTICIPANT_STATUS = Arrays.asList(RepositoryEntryStatusEnum.publishedAndClosed());
+	
+	@Value("${webdav.coursefolders.cache.maxage:900}")
+	private int maxAgeInSeconds;
+	
+	private final Map<Long,CoursefolderEntries> identityToEntries = new ConcurrentHashMap<>();
+	private final Map<Long,Long> identityInvalidations = new ConcurrentHashMap<>();
+	private final Map<Long,Long> changedEntries = new ConcurrentHashMap<>();
+	private volatile long globalInvalidation = 0l;
+	
+	@Autowired
+	private WebDAVModule webDAVModule;
+	@Autowired
+	private CoordinatorManager coordinatorManager;
+	@Autowired
+	private RepositoryManager repositoryManager;
+	@Autowired
+	private RepositoryService repositoryService;
+	@Autowired
+	private CurriculumService curriculumService;
+	@Autowired
+	private RepositoryEntryRelationDAO repositoryEntryRelationDao;
+	
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, OresHelper.lookupType(RepositoryEntry.class));
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, OresHelper.lookupType(BusinessGroup.class));
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, RepositoryService.REPOSITORY_EVENT_ORES);
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, OresHelper.lookupType(Mark.class));
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		coordinatorManager.getCoordinator().getEventBus().deregisterFor(this, OresHelper.lookupType(RepositoryEntry.class));
+		coordinatorManager.getCoordinator().getEventBus().deregisterFor(this, OresHelper.lookupType(BusinessGroup.class));
+		coordinatorManager.getCoordinator().getEventBus().deregisterFor(this, RepositoryService.REPOSITORY_EVENT_ORES);
+		coordinatorManager.getCoordinator().getEventBus().deregisterFor(this, OresHelper.lookupType(Mark.class));
+	}
+	
+	public int getMaxAgeInSeconds() {
+		return maxAgeInSeconds;
+	}
+
+	/**
+	 * [used by tests]
+	 * @param maxAgeInSeconds The max. age of the cached lists, 0 disable the cache
+	 */
+	public void setMaxAgeInSeconds(int maxAgeInSeconds) {
+		this.maxAgeInSeconds = maxAgeInSeconds;
+		identityToEntries.clear();
+	}
+
+	@Override
+	public void event(Event event) {
+		if(event instanceof RepositoryEntryMembershipModifiedEvent) {
+			invalidate(((RepositoryEntryMembershipModifiedEvent)event).getIdentityKey());
+		} else if(event instanceof BusinessGroupModifiedEvent) {
+			invalidate(((BusinessGroupModifiedEvent)event).getAffectedIdentityKey());
+		} else if(event instanceof BusinessGroupDeletedEvent) {
+			List<Long> memberKeys = ((BusinessGroupDeletedEvent)event).getMemberKeys();
+			if(memberKeys != null) {
+				memberKeys.forEach(this::invalidate);
+			}
+		} else if(event instanceof BusinessGroupRelationModified) {
+			// we don't know the members of the group
+			invalidateAll();
+		} else if(event instanceof RepositoryEntryStatusChangedEvent) {
+			statusChanged(((RepositoryEntryStatusChangedEvent)event).getRepositoryEntryKey());
+		} else if(event instanceof MarkChangedEvent) {
+			MarkChangedEvent mce = (MarkChangedEvent)event;
+			if("RepositoryEntry".equals(mce.getResName())) {
+				invalidate(mce.getIdentityKey());
+			}
+		} else if(event instanceof EntryChangedEvent) {
+			EntryChangedEvent ece = (EntryChangedEvent)event;
+			if(ece.getChange() == Change.addBookmark || ece.getChange() == Change.removeBookmark) {
+				invalidate(ece.getIdentityKey());
+			} else {
+				entryChanged(ece.getRepositoryEntryKey());
+			}
+		}
+	}
+	
+	public void invalidate(Long identityKey) {
+		if(identityKey == null) return;
+		
+		identityInvalidations.put(identityKey, Long.valueOf(System.currentTimeMillis()));
+		identityToEntries.remove(identityKey);
+	}
+	
+	public void invalidateAll() {
+		globalInvalidation = System.currentTimeMillis();
+		identityToEntries.clear();
+	}
+	
+	/**
+	 * The status changes which entries the members see, their lists
+	 * are discarded.
+	 * 
+	 * @param entryKey The primary key of the repository entry
+	 */
+	private void statusChanged(Long entryKey) {
+		if(entryKey == null) return;
+		
+		entryChanged(entryKey);
+		if(identityToEntries.isEmpty()) return;
+		
+		RepositoryEntry entry = repositoryService.loadByKey(entryKey);
+		if(entry == null) return;
+
+		List<Long> memberKeys = repositoryEntryRelationDao.getMemberKeys(entry, RepositoryEntryRelationType.all,
+				GroupRoles.owner.name(), GroupRoles.coach.name(), GroupRoles.participant.name());
+		memberKeys.forEach(this::invalidate);
+	}
+	
+	private void entryChanged(Long entryKey) {
+		if(entryKey == null) return;
+		
+		changedEntries.put(entryKey, Long.valueOf(System.currentTimeMillis()));
+		if(changedEntries.size() > MAX_CACHED_IDENTITIES) {
+			long expiration = System.currentTimeMillis() - (maxAgeInSeconds * 1000l);
+			changedEntries.values().removeIf(time -> time.longValue() < expiration);
+		}
+	}
+	
+	/**
+	 * Return the courses of the identity, from the cache if the cached lists are
+	 * still valid, updated with the repository entries changed since the lists
+	 * were loaded.
+	 * 
+	 * @param identityEnv The identity environment
+	 * @return The courses to show in the WebDAV course folders
+	 */
+	public CoursefolderEntries getEntries(IdentityEnvironment identityEnv) {
+		Long identityKey = identityEnv.getIdentity().getKey();
+		CoursefolderEntries entries = identityToEntries.get(identityKey);
+		if(entries != null && isValid(identityKey, entries)) {
+			CoursefolderEntries refreshedEntries = refreshChangedEntries(identityKey, entries);
+			if(refreshedEntries != null) {
+				return refreshedEntries;
+			}
+		}
+		
+		long loadTime = System.currentTimeMillis();
+		entries = loadEntries(identityEnv, loadTime);
+		if(maxAgeInSeconds > 0) {
+			if(identityToEntries.size() >= MAX_CACHED_IDENTITIES) {
+				evict();
+			}
+			identityToEntries.put(identityKey, entries);
+		}
+		return entries;
+	}
+	
+	private boolean isValid(Long identityKey, CoursefolderEntries entries) {
+		long loadTime = entries.getLoadTime();
+		if(System.currentTimeMillis() - loadTime > maxAgeInSeconds * 1000l
+				|| loadTime <= globalInvalidation
+				|| !entries.isSameConfiguration(webDAVModule)) {
+			return false;
+		}
+		Long invalidation = identityInvalidations.get(identityKey);
+		return invalidation == null || invalidation.longValue() < loadTime;
+	}
+	
+	/**
+	 * @return The refreshed entries or null if the lists need to be reloaded
+	 */
+	private CoursefolderEntries refreshChangedEntries(Long identityKey, CoursefolderEntries entries) {
+		if(changedEntries.isEmpty()) return entries;
+		
+		Set<Long> toReload = new HashSet<>();
+		for(Long entryKey:entries.getRepositoryEntryKeys()) {
+			Long changed = changedEntries.get(entryKey);
+			if(changed != null && changed.longValue() >= entries.getRefreshTime()) {
+				toReload.add(entryKey);
+			}
+		}
+		if(toReload.isEmpty()) return entries;
+		
+		long refreshTime = System.currentTimeMillis();
+		List<RepositoryEntry> reloadedEntries = repositoryService.loadByKeys(toReload);
+		Map<Long,RepositoryEntry> reloadedMap = new HashMap<>();
+		for(RepositoryEntry reloadedEntry:reloadedEntries) {
+			reloadedMap.put(reloadedEntry.getKey(), reloadedEntry);
+		}
+		
+		CoursefolderEntries refreshedEntries = entries.refresh(toReload, reloadedMap, refreshTime);
+		if(refreshedEntries == null) {
+			// the visibility depends on the roles of the identity in the entry
+			identityToEntries.remove(identityKey, entries);
+			log.debug("WebDAV course folders: reload courses of identity {}", identityKey);
+			return null;
+		}
+		identityToEntries.replace(identityKey, entries, refreshedEntries);
+		log.debug("WebDAV course folders: {} courses refreshed for identity {}", toReload.size(), identityKey);
+		return refreshedEntries;
+	}
+	
+	private void evict() {
+		long expiration = System.currentTimeMillis() - (maxAgeInSeconds * 1000l);
+		identityToEntries.values().removeIf(entries -> entries.getLoadTime() < expiration);
+		identityInvalidations.values().removeIf(time -> time.longValue() < expiration);
+		for(Iterator<Long> it=identityToEntries.keySet().iterator(); it.hasNext() && identityToEntries.size() >= MAX_CACHED_IDENTITIES; ) {
+			it.next();
+			it.remove();
+		}
+	}
+	
+	private CoursefolderEntries loadEntries(IdentityEnvironment identityEnv, long loadTime) {
+		boolean participantsEnabled = webDAVModule.isEnableLearnersParticipatingCourses();
+		boolean bookmarksEnabled = webDAVModule.isEnableLearnersBookmarksCourse();
+		boolean curriculumElementsEnabled = webDAVModule.isCurriculumElementFoldersEnabled();
+
+		List<RepositoryEntry> editorEntries = repositoryManager.queryByOwner(identityEnv.getIdentity(), true, null, COURSE_TYPE);
+		List<RepositoryEntry> participantEntries = participantsEnabled
+				? repositoryManager.getLearningResourcesAsParticipantAndCoach(identityEnv.getIdentity(), COURSE_TYPE)
+				: List.of();
+		List<RepositoryEntry> bookmarkedEntries = bookmarksEnabled
+				? repositoryManager.getLearningResourcesAsBookmarkedMember(identityEnv.getIdentity(), identityEnv.getRoles(), COURSE_TYPE, 0, -1)
+				: List.of();
+		Map<Long,List<CurriculumElementWebDAVInfos>> curriculumElementInfos = curriculumElementsEnabled
+				? getCurriculumElementWebDAVInfosMap(identityEnv)
+				: Map.of();
+		return new CoursefolderEntries(editorEntries, participantEntries, bookmarkedEntries, curriculumElementInfos,
+				participantsEnabled, bookmarksEnabled, curriculumElementsEnabled, loadTime, loadTime);
+	}
+	
+	private Map<Long,List<CurriculumElementWebDAVInfos>> getCurriculumElementWebDAVInfosMap(IdentityEnvironment identityEnv) {
+		List<CurriculumElementWebDAVInfos> infos = curriculumService.getCurriculumElementInfosForWebDAV(identityEnv.getIdentity());
+		Map<Long,List<CurriculumElementWebDAVInfos>> infoMap = new HashMap<>();
+		for(CurriculumElementWebDAVInfos info:infos) {
+			List<CurriculumElementWebDAVInfos> repoInfos = infoMap
+					.computeIfAbsent(info.getRepositoryEntryKey(), i -> new ArrayList<>());
+			if(!repoInfos.contains(info)) {
+				repoInfos.add(info);
+			}
+		}
+		return infoMap;
+	}
+	
+	/**
+	 * An immutable snapshot of the courses of an identity.
+	 */
+	public static class CoursefolderEntries {
+		
+		private final List<RepositoryEntry> editorEntries;
+		private final List<RepositoryEntry> participantEntries;
+		private final List<RepositoryEntry> bookmarkedEntries;
+		private final Map<Long,List<CurriculumElementWebDAVInfos>> curriculumElementInfos;
+		private final boolean participantsEnabled;
+		private final boolean bookmarksEnabled;
+		private final boolean curriculumElementsEnabled;
+		private final long loadTime;
+		private final long refreshTime;
+		
+		private CoursefolderEntries(List<RepositoryEntry> editorEntries, List<RepositoryEntry> participantEntries,
+				List<RepositoryEntry> bookmarkedEntries, Map<Long,List<CurriculumElementWebDAVInfos>> curriculumElementInfos,
+				boolean participantsEnabled, boolean bookmarksEnabled, boolean curriculumElementsEnabled,
+				long loadTime, long refreshTime) {
+			this.editorEntries = List.copyOf(editorEntries);
+			this.participantEntries = List.copyOf(participantEntries);
+			this.bookmarkedEntries = List.copyOf(bookmarkedEntries);
+			this.curriculumElementInfos = curriculumElementInfos;
+			this.participantsEnabled = participantsEnabled;
+			this.bookmarksEnabled = bookmarksEnabled;
+			this.curriculumElementsEnabled = curriculumElementsEnabled;
+			this.loadTime = loadTime;
+			this.refreshTime = refreshTime;
+		}
+
+		public List<RepositoryEntry> getEditorEntries() {
+			return editorEntries;
+		}
+
+		public List<RepositoryEntry> getParticipantEntries() {
+			return participantEntries;
+		}
+
+		public List<RepositoryEntry> getBookmarkedEntries() {
+			return bookmarkedEntries;
+		}
+
+		public Map<Long,List<CurriculumElementWebDAVInfos>> getCurriculumElementInfos() {
+			return curriculumElementInfos;
+		}
+		
+		public long getLoadTime() {
+			return loadTime;
+		}
+		
+		public long getRefreshTime() {
+			return refreshTime;
+		}
+		
+		private boolean isSameConfiguration(WebDAVModule module) {
+			return participantsEnabled == module.isEnableLearnersParticipatingCourses()
+					&& bookmarksEnabled == module.isEnableLearnersBookmarksCourse()
+					&& curriculumElementsEnabled == module.isCurriculumElementFoldersEnabled();
+		}
+		
+		private Set<Long> getRepositoryEntryKeys() {
+			Set<Long> keys = new HashSet<>();
+			editorEntries.forEach(entry -> keys.add(entry.getKey()));
+			participantEntries.forEach(entry -> keys.add(entry.getKey()));
+			bookmarkedEntries.forEach(entry -> keys.add(entry.getKey()));
+			return keys;
+		}
+		
+		/**
+		 * The status are the ones of the queries in RepositoryManager: the editor list
+		 * is queryByOwner, the participant list getLearningResourcesAsParticipantAndCoach
+		 * (participant or coach) and the bookmarks getLearningResourcesAsBookmarkedMember
+		 * (participant, coach or owner).
+		 * 
+		 * @return The refreshed lists or null if the visibility of an entry depends on the roles
+		 */
+		private CoursefolderEntries refresh(Set<Long> changedKeys, Map<Long,RepositoryEntry> reloadedEntries, long time) {
+			List<RepositoryEntry> refreshedEditorEntries = refresh(editorEntries, changedKeys, reloadedEntries,
+					OWNER_STATUS, OWNER_STATUS);
+			List<RepositoryEntry> refreshedParticipantEntries = refresh(participantEntries, changedKeys, reloadedEntries,
+					PARTICIPANT_STATUS, COACH_STATUS);
+			List<RepositoryEntry> refreshedBookmarkedEntries = refresh(bookmarkedEntries, changedKeys, reloadedEntries,
+					PARTICIPANT_STATUS, OWNER_STATUS);
+			if(refreshedEditorEntries == null || refreshedParticipantEntries == null || refreshedBookmarkedEntries == null) {
+				return null;
+			}
+			return new CoursefolderEntries(refreshedEditorEntries, refreshedParticipantEntries, refreshedBookmarkedEntries,
+					curriculumElementInfos, participantsEnabled, bookmarksEnabled, curriculumElementsEnabled,
+					loadTime, time);
+		}
+		
+		/**
+		 * @param visibleStatus The status visible for all the roles of the list
+		 * @param visibleStatusForSomeRoles The status visible for at least one role of the list
+		 * @return The refreshed list or null if the status of an entry is only visible for some roles
+		 */
+		private static List<RepositoryEntry> refresh(List<RepositoryEntry> entries, Set<Long> changedKeys, Map<Long,RepositoryEntry> reloadedEntries,
+				List<RepositoryEntryStatusEnum> visibleStatus, List<RepositoryEntryStatusEnum> visibleStatusForSomeRoles) {
+			List<RepositoryEntry> refreshedEntries = new ArrayList<>(entries.size());
+			for(RepositoryEntry entry:entries) {
+				if(changedKeys.contains(entry.getKey())) {
+					// deleted entries are removed
+					RepositoryEntry reloadedEntry = reloadedEntries.get(entry.getKey());
+					if(reloadedEntry == null) {
+						continue;
+					}
+					
+					RepositoryEntryStatusEnum status = reloadedEntry.getEntryStatus();
+					if(visibleStatus.contains(status)) {
+						refreshedEntries.add(reloadedEntry);
+					} else if(visibleStatusForSomeRoles.contains(status)) {
+						return null;
+					}
+				} else {
+					refreshedEntries.add(entry);
+				}
+			}
+			return refreshedEntries;
+		}
+	}
+}
@@ -36,11 +36,10 @@ import org.olat.core.util.StringHelper;
 import org.olat.core.util.vfs.NamedContainerImpl;
 import org.olat.core.util.vfs.VFSContainer;
 import org.olat.core.util.vfs.VirtualContainer;
-import org.olat.modules.curriculum.CurriculumService;
+import org.olat.course.CoursefolderWebDAVCache.CoursefolderEntries;
 import org.olat.modules.curriculum.model.CurriculumElementWebDAVInfos;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryEntryStatusEnum;
-import org.olat.repository.RepositoryManager;
 import org.olat.repository.model.RepositoryEntryLifecycle;
 
 /**
@@ -54,15 +53,13 @@ class CoursefolderWebDAVMergeSource extends WebDAVMergeSource {
 	private final IdentityEnvironment identityEnv;
 	
 	private final WebDAVModule webDAVModule;
-	private final RepositoryManager repositoryManager;
-	private final CurriculumService curriculumService;
+	private final CoursefolderWebDAVCache coursefolderCache;
 	
 	public CoursefolderWebDAVMergeSource(IdentityEnvironment identityEnv) {
 		super(identityEnv.getIdentity());
 		this.identityEnv = identityEnv;
 		webDAVModule = CoreSpringFactory.getImpl(WebDAVModule.class);
-		repositoryManager = CoreSpringFactory.getImpl(RepositoryManager.class);
-		curriculumService = CoreSpringFactory.getImpl(CurriculumService.class);
+		coursefolderCache = CoreSpringFactory.getImpl(CoursefolderWebDAVCache.class);
 	}
 	
 	/*
@@ -85,26 +82,26 @@ class CoursefolderWebDAVMergeSource extends WebDAVMergeSource {
 		boolean prependReference = webDAVModule.isPrependCourseReferenceToTitle();
 		boolean useManaged = webDAVModule.isManagedFoldersEnabled();
 		
+		// the lists of courses are cached per identity
+		CoursefolderEntries entries = coursefolderCache.getEntries(identityEnv);
+		
 		NamingAndGrouping namingAndGrouping = new NamingAndGrouping(prependReference, useManaged, useSemestersTerms, useCurriculumElementsTerms);
 		if(useCurriculumElementsTerms) {
-			namingAndGrouping.setCurriculumElementInfos(getCurriculumElementWebDAVInfosMap());
+			namingAndGrouping.setCurriculumElementInfos(entries.getCurriculumElementInfos());
 		}
 		
 		NoTermContainer noTermContainer = new NoTermContainer(namingAndGrouping);
 		
-		List<RepositoryEntry> editorEntries = repositoryManager.queryByOwner(getIdentity(), true, null, "CourseModule");
-		appendCourses(editorEntries, containers, terms, noTermContainer, namingAndGrouping, true);
+		appendCourses(entries.getEditorEntries(), containers, terms, noTermContainer, namingAndGrouping, true);
 		
 		//add courses as participant and coaches
 		if(webDAVModule.isEnableLearnersParticipatingCourses()) {
-			List<RepositoryEntry> entries = repositoryManager.getLearningResourcesAsParticipantAndCoach(getIdentity(), "CourseModule");
-			appendCourses(entries, containers, terms, noTermContainer, namingAndGrouping, false);
+			appendCourses(entries.getParticipantEntries(), containers, terms, noTermContainer, namingAndGrouping, false);
 		}
 		
 		//add bookmarked courses
 		if(webDAVModule.isEnableLearnersBookmarksCourse()) {
-			List<RepositoryEntry> bookmarkedEntries = repositoryManager.getLearningResourcesAsBookmarkedMember(getIdentity(), identityEnv.getRoles(), "CourseModule", 0, -1);
-			appendCourses(bookmarkedEntries, containers, terms, noTermContainer, namingAndGrouping, false);
+			appendCourses(entries.getBookmarkedEntries(), containers, terms, noTermContainer, namingAndGrouping, false);
 		}
 
 		if (useSemestersTerms || useCurriculumElementsTerms) {
@@ -119,19 +116,6 @@ class CoursefolderWebDAVMergeSource extends WebDAVMergeSource {
 		return containers;
 	}
 	
-	private Map<Long,List<CurriculumElementWebDAVInfos>> getCurriculumElementWebDAVInfosMap() {
-		List<CurriculumElementWebDAVInfos> infos = curriculumService.getCurriculumElementInfosForWebDAV(getIdentity());
-		Map<Long,List<CurriculumElementWebDAVInfos>> infoMap = new HashMap<>();
-		for(CurriculumElementWebDAVInfos info:infos) {
-			List<CurriculumElementWebDAVInfos> repoInfos = infoMap
-					.computeIfAbsent(info.getRepositoryEntryKey(), i -> new ArrayList<>());
-			if(!repoInfos.contains(info)) {
-				repoInfos.add(info);
-			}
-		}
-		return infoMap;
-	}
-	
 	private void appendCourses(List<RepositoryEntry> courseEntries, List<VFSContainer> containers,
 			Map<String, VFSContainer> terms, NoTermContainer noTermContainer,
 			NamingAndGrouping namingAndGrouping, boolean editor) {	
@@ -90,7 +90,7 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 	private Long resourceableId;
 	private Structure runStructure;
 	private boolean hasAssessableNodes = false;
-	private CourseEditorTreeModel editorTreeModel;
+	private volatile CourseEditorTreeModel editorTreeModel;
 	private CourseConfig courseConfig;
 	private final CourseEnvironmentImpl courseEnvironment;
 	private LocalFolderImpl courseRootContainer;
@@ -139,9 +139,23 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 		return runStructure;
 	}
 
+	/**
+	 * The editor tree model is loaded on demand, most of the courses
+	 * in the cache are only used to run them.
+	 */
 	@Override
 	public CourseEditorTreeModel getEditorTreeModel() {
-		return editorTreeModel;
+		CourseEditorTreeModel model = editorTreeModel;
+		if(model == null) {
+			synchronized(this) {//o_clusterOK: the course is only cached per vm
+				model = editorTreeModel;
+				if(model == null) {
+					model = loadEditorTreeModel();
+					editorTreeModel = model;
+				}
+			}
+		}
+		return model;
 	}
 
 	@Override
@@ -270,6 +284,10 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 	 */
 	void saveRunStructure() {
 		writeObject(RUNSTRUCTURE_XML, getRunStructure());
+		CourseSnapshotStore snapshotStore = CourseFactory.getSnapshotStore();
+		if(snapshotStore != null) {
+			snapshotStore.storeRunStructure(resourceableId, getRunStructureFile(), getRunStructure());
+		}
 		log.debug("saveRunStructure");
 	}
 
@@ -319,15 +337,37 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 		 * remember that loading of the courseConfiguration is already done within
 		 * the constructor !
 		 */
-		Object obj;
-		obj = readObject(RUNSTRUCTURE_XML);
-		if (!(obj instanceof Structure)) throw new AssertException("Error reading course run structure.");
-		runStructure = (Structure) obj;
-		initHasAssessableNodes();
+		CourseSnapshotStore snapshotStore = CourseFactory.getSnapshotStore();
+		File runStructureFile = getRunStructureFile();
+		Structure structure = null;
+		if(snapshotStore != null) {
+			structure = snapshotStore.loadRunStructure(resourceableId, runStructureFile);
+		}
 		
-		obj = readObject(EDITORTREEMODEL_XML);
+		if(structure == null) {
+			long start = System.nanoTime();
+			Object obj = readObject(RUNSTRUCTURE_XML);
+			if (!(obj instanceof Structure)) throw new AssertException("Error reading course run structure.");
+			structure = (Structure) obj;
+			if(snapshotStore != null) {
+				snapshotStore.addXmlLoadTime(System.nanoTime() - start);
+				snapshotStore.storeRunStructure(resourceableId, runStructureFile, structure);
+			}
+		}
+		runStructure = structure;
+		initHasAssessableNodes();
+		// the editor tree model is loaded on demand
+		editorTreeModel = null;
+	}
+	
+	private CourseEditorTreeModel loadEditorTreeModel() {
+		Object obj = readObject(EDITORTREEMODEL_XML);
 		if (!(obj instanceof CourseEditorTreeModel)) throw new AssertException("Error reading course editor tree model.");
-		editorTreeModel = (CourseEditorTreeModel) obj;	
+		return (CourseEditorTreeModel) obj;
+	}
+	
+	private File getRunStructureFile() {
+		return new File(getCourseBaseContainer().getBasefile(), RUNSTRUCTURE_XML);
 	}
 
 	/**
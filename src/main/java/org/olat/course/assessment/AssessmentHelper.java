@@ -57,12 +57,14 @@ import org.olat.course.nodes.CourseNodeFactory;
 import org.olat.course.nodes.STCourseNode;
 import org.olat.course.nodes.ScormCourseNode;
 import org.olat.course.run.environment.CourseEnvironment;
+import org.olat.course.run.scoring.AssessmentAccounting;
 import org.olat.course.run.scoring.AssessmentEvaluation;
 import org.olat.course.run.scoring.ScoreAccounting;
 import org.olat.course.run.userview.UserCourseEnvironment;
 import org.olat.course.run.userview.UserCourseEnvironmentImpl;
 import org.olat.course.tree.CourseEditorTreeModel;
 import org.olat.course.tree.CourseEditorTreeNode;
+import org.olat.modules.assessment.AssessmentEntry;
 
 /**
  * Description:<br>
@@ -119,6 +121,28 @@ public class AssessmentHelper {
 		return uce;
 	}
 
+	/**
+	 * Same as createInitAndUpdateUserCourseEnvironment but the score accounting
+	 * uses the already loaded assessment entries of the user.
+	 * 
+	 * @param identity The assessed user
+	 * @param course The course
+	 * @param assessmentEntries All the assessment entries of the user in the course
+	 * @return Initialized user course environment
+	 */
+	public static UserCourseEnvironment createInitAndUpdateUserCourseEnvironment(Identity identity, ICourse course,
+			List<AssessmentEntry> assessmentEntries) {
+		IdentityEnvironment ienv = new IdentityEnvironment(); 
+		ienv.setIdentity(identity);
+		UserCourseEnvironmentImpl uce = new UserCourseEnvironmentImpl(ienv, course.getCourseEnvironment());
+		ScoreAccounting scoreAccounting = uce.getScoreAccounting();
+		if (scoreAccounting instanceof AssessmentAccounting) {
+			((AssessmentAccounting)scoreAccounting).preload(assessmentEntries);
+		}
+		scoreAccounting.evaluateAll(true);
+		return uce;
+	}
+
 	/**
 	 * Create a user course environment for the given user and course. After
 	 * creation, the users score accounting will be initialized.
@@ -26,8 +26,10 @@
 package org.olat.course.assessment;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
@@ -315,6 +317,19 @@ public interface AssessmentManager {
 	public List<AssessmentEntry> getAssessmentEntries(BusinessGroup group, CourseNode courseNode);
 	
 	public List<AssessmentEntry> getAssessmentEntries(Identity assessedIdentity);
+	
+	/**
+	 * @param assessedIdentity The assessed user
+	 * @param subIdents The identifiers of the course nodes
+	 * @return The assessment entries of the user for the specified course nodes
+	 */
+	public List<AssessmentEntry> getAssessmentEntries(Identity assessedIdentity, Collection<String> subIdents);
+	
+	/**
+	 * @param assessedIdentity The assessed user
+	 * @return The last modification date of the assessment entries of the user by course node identifier
+	 */
+	public Map<String,Date> getAssessmentEntriesLastModified(Identity assessedIdentity);
 
 	
 }
\ No newline at end of file
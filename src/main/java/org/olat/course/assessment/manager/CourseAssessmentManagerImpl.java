@@ -27,8 +27,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.Logger;
 import org.olat.core.CoreSpringFactory;
@@ -75,6 +77,7 @@ import org.olat.modules.assessment.Overridable;
 import org.olat.modules.assessment.Role;
 import org.olat.modules.assessment.model.AssessmentEntryStatus;
 import org.olat.modules.assessment.model.AssessmentRunStatus;
+import org.olat.modules.coach.manager.CoachingRollupManager;
 import org.olat.repository.RepositoryEntry;
 import org.olat.util.logging.activity.LoggingResourceable;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -109,6 +112,8 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 	private CourseAssessmentService courseAssessmentService;
 	@Autowired
 	private NodeAccessService nodeAccessService;
+	@Autowired
+	private CoachingRollupManager coachingRollupManager;
 	
 	public CourseAssessmentManagerImpl(CourseGroupManager cgm) {
 		this.cgm = cgm;
@@ -145,6 +150,17 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		return assessmentService.loadAssessmentEntriesByAssessedIdentity(assessedIdentity, cgm.getCourseEntry());
 	}
 
+	@Override
+	public List<AssessmentEntry> getAssessmentEntries(Identity assessedIdentity, Collection<String> subIdents) {
+		log.debug("Load {} assessment entries of {}", subIdents.size(), assessedIdentity);
+		return assessmentService.loadAssessmentEntriesByAssessedIdentity(assessedIdentity, cgm.getCourseEntry(), subIdents);
+	}
+
+	@Override
+	public Map<String,Date> getAssessmentEntriesLastModified(Identity assessedIdentity) {
+		return assessmentService.getAssessmentEntriesLastModified(assessedIdentity, cgm.getCourseEntry());
+	}
+
 	@Override
 	public List<AssessmentEntry> getAssessmentEntries(BusinessGroup assessedGoup, CourseNode courseNode) {
 		return assessmentService.loadAssessmentEntries(assessedGoup, cgm.getCourseEntry(), courseNode.getIdent());
@@ -154,6 +170,10 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 	public AssessmentEntry updateAssessmentEntry(AssessmentEntry assessmentEntry) {
 		AssessmentEntry updateAssessmentEntry = assessmentService.updateAssessmentEntry(assessmentEntry);
 		DBFactory.getInstance().commit();
+		if(Boolean.TRUE.equals(updateAssessmentEntry.getEntryRoot())) {
+			// completion and status of the course
+			coachingRollupManager.courseChanged(cgm.getCourseEntry().getKey());
+		}
 		return updateAssessmentEntry;
 	}
 
@@ -335,7 +355,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		}
 		assessmentService.updateAssessmentEntry(nodeAssessment);
 		DBFactory.getInstance().commit();
-		userCourseEnv.getScoreAccounting().evaluateAll(true);
+		userCourseEnv.getScoreAccounting().evaluateChanged(courseNode, true);
 		DBFactory.getInstance().commit();
 		
 		AssessmentConfig assessmentConfig = courseAssessmentService.getAssessmentConfig(courseNode);
@@ -388,7 +408,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		assessmentService.updateAssessmentEntry(nodeAssessment);
 		DBFactory.getInstance().commit();
 		
-		userCourseEnv.getScoreAccounting().evaluateAll(true);
+		userCourseEnv.getScoreAccounting().evaluateChanged(courseNode, true);
 		AssessmentConfig assessmentConfig = courseAssessmentService.getAssessmentConfig(courseNode);
 		if(assessmentConfig.isAssessable()) {
 			efficiencyStatementManager.updateUserEfficiencyStatement(userCourseEnv);
@@ -445,7 +465,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		DBFactory.getInstance().commit();
 		
 		ScoreAccounting scoreAccounting = userCourseEnvironment.getScoreAccounting();
-		scoreAccounting.evaluateAll(true);
+		scoreAccounting.evaluateChanged(courseNode, true);
 		DBFactory.getInstance().commit();
 	}
 
@@ -468,7 +488,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		DBFactory.getInstance().commit();
 		
 		ScoreAccounting scoreAccounting = userCourseEnvironment.getScoreAccounting();
-		scoreAccounting.evaluateAll(true);
+		scoreAccounting.evaluateChanged(courseNode, true);
 		DBFactory.getInstance().commit();
 		
 		updateUserEfficiencyStatement(userCourseEnvironment);
@@ -539,7 +559,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		
 		//reevalute the tree
 		ScoreAccounting scoreAccounting = userCourseEnv.getScoreAccounting();
-		scoreAccounting.evaluateAll(true);
+		scoreAccounting.evaluateChanged(courseNode, true);
 		DBFactory.getInstance().commit();
 		
 		// node log
@@ -611,7 +631,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		DBFactory.getInstance().commit();
 		
 		ScoreAccounting scoreAccounting = userCourseEnvironment.getScoreAccounting();
-		scoreAccounting.evaluateAll(true);
+		scoreAccounting.evaluateChanged(rootNode, true);
 		DBFactory.getInstance().commit();
 		
 		logAuditPassed(rootNode, coach, Role.coach, userCourseEnvironment, passed);
@@ -649,7 +669,7 @@ public class CourseAssessmentManagerImpl implements AssessmentManager {
 		DBFactory.getInstance().commit();
 		
 		ScoreAccounting scoreAccounting = userCourseEnvironment.getScoreAccounting();
-		scoreAccounting.evaluateAll(true);
+		scoreAccounting.evaluateChanged(rootNode, true);
 		DBFactory.getInstance().commit();
 		
 		logAuditPassed(rootNode, coach, Role.coach, userCourseEnvironment, passed);
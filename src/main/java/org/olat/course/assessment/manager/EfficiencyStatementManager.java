@@ -33,10 +33,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.persistence.PersistenceException;
 
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
 import org.hibernate.exception.ConstraintViolationException;
 import org.olat.basesecurity.GroupRoles;
 import org.olat.basesecurity.IdentityRef;
@@ -46,6 +54,7 @@ import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.StringHelper;
+import org.olat.core.util.async.ProgressDelegate;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.resource.OresHelper;
 import org.olat.core.util.xml.XStreamHelper;
@@ -67,6 +76,9 @@ import org.olat.course.config.CourseConfig;
 import org.olat.course.run.environment.CourseEnvironment;
 import org.olat.course.run.userview.UserCourseEnvironment;
 import org.olat.group.BusinessGroup;
+import org.olat.modules.assessment.AssessmentEntry;
+import org.olat.modules.assessment.manager.AssessmentEntryDAO;
+import org.olat.modules.coach.manager.CoachingRollupManager;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryEntryRef;
 import org.olat.repository.model.RepositoryEntryRefImpl;
@@ -76,6 +88,8 @@ import org.olat.user.UserDataExportable;
 import org.olat.user.UserManager;
 import org.olat.user.manager.ManifestBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.thoughtworks.xstream.XStream;
@@ -102,6 +116,17 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 	private DB dbInstance;
 	@Autowired
 	private UserManager userManager;
+	@Autowired
+	private AssessmentEntryDAO assessmentEntryDao;
+	@Autowired
+	private CoachingRollupManager coachingRollupManager;
+	@Autowired @Qualifier("efficiencyStatementExecutorService")
+	private ExecutorService bulkExecutor;
+	
+	@Value("${efficiency.statement.update.threads:2}")
+	private int bulkThreads;
+	@Value("${efficiency.statement.update.chunk.size:50}")
+	private int bulkChunkSize;
 	
 	private final XStream xstream = XStreamHelper.createXStreamInstance();
 
@@ -141,6 +166,7 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 		efficiencyProperty.setCourseRepoKey(course.getCourseEnvironment().getCourseGroupManager().getCourseEntry().getKey());
 
 		dbInstance.getCurrentEntityManager().persist(efficiencyProperty);
+		coachingRollupManager.courseChanged(efficiencyProperty.getCourseRepoKey());
 
 		return efficiencyProperty;
 	}
@@ -190,6 +216,13 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 	
 	public void updateUserEfficiencyStatement(Identity assessedIdentity, final CourseEnvironment courseEnv,
 			List<AssessmentNodeData> assessmentNodeList, AssessmentNodesLastModified lastModifications, final RepositoryEntry repoEntry) {
+		UserEfficiencyStatementImpl efficiencyProperty = getUserEfficiencyStatementFull(repoEntry, assessedIdentity);
+		updateUserEfficiencyStatement(assessedIdentity, courseEnv, assessmentNodeList, lastModifications, repoEntry, efficiencyProperty);
+	}
+	
+	private void updateUserEfficiencyStatement(Identity assessedIdentity, final CourseEnvironment courseEnv,
+			List<AssessmentNodeData> assessmentNodeList, AssessmentNodesLastModified lastModifications, final RepositoryEntry repoEntry,
+			UserEfficiencyStatementImpl efficiencyProperty) {
 		List<Map<String,Object>> assessmentNodes = AssessmentHelper.assessmentNodeDataListToMap(assessmentNodeList);
 			
 		EfficiencyStatement efficiencyStatement = new EfficiencyStatement();
@@ -209,7 +242,6 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 		}
 		
 		boolean debug = log.isDebugEnabled();
-		UserEfficiencyStatementImpl efficiencyProperty = getUserEfficiencyStatementFull(repoEntry, assessedIdentity);
 		if (assessmentNodes != null && !assessmentNodes.isEmpty()) {
 			if (efficiencyProperty == null) {
 				// create new
@@ -251,6 +283,8 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 			// else nothing to create and nothing to delete
 		}					
 		
+		coachingRollupManager.courseChanged(repoEntry.getKey());
+		
 		// send modified event to everybody
 		AssessmentChangedEvent ace = new AssessmentChangedEvent(AssessmentChangedEvent.TYPE_EFFICIENCY_STATEMENT_CHANGED, assessedIdentity);
 		OLATResourceable courseOres = OresHelper.createOLATResourceableInstance(CourseModule.class, courseEnv.getCourseResourceableId());
@@ -718,6 +752,7 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 		for(UserEfficiencyStatementImpl statement:statements) {
 			dbInstance.deleteObject(statement);
 		}
+		coachingRollupManager.courseChanged(courseRepoEntryKey);
 	}
 
 	/**
@@ -750,28 +785,177 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 	 * false: always create new one (be careful with this one!)
 	 */	
 	public void updateEfficiencyStatements(final RepositoryEntry courseEntry, List<Identity> identities) {
+		updateEfficiencyStatements(courseEntry, identities, null);
+	}
+	
+	/**
+	 * Create or update the efficiency statements of the given list of identities in bulk.
+	 * The identities are split in chunks. The assessment entries and the efficiency statements
+	 * of a chunk are loaded with a single query each and the chunks are evaluated by a bounded
+	 * pool of workers.
+	 * 
+	 * @param courseEntry The course
+	 * @param identities List of identities
+	 * @param progressDelegate Informed after every chunk (optional)
+	 */
+	public void updateEfficiencyStatements(final RepositoryEntry courseEntry, List<Identity> identities, ProgressDelegate progressDelegate) {
+		BulkProgress progress = new BulkProgress(identities.size(), progressDelegate);
 		if (!identities.isEmpty()) {
 			final ICourse course = CourseFactory.loadCourse(courseEntry);
-			log.info(Tracing.M_AUDIT, "Updating efficiency statements for course::{}, this might produce temporary heavy load on the CPU", course.getResourceableId());
-
-			// preload cache to speed up things
-			AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();		
-			int count = 0;
-			for (Identity identity : identities) {			
-				//o_clusterOK: by ld
-				OLATResourceable efficiencyStatementResourceable = am.createOLATResourceableForLocking(identity);
-				CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(efficiencyStatementResourceable, () -> {					
-					// create temporary user course env
-					UserCourseEnvironment uce = AssessmentHelper.createInitAndUpdateUserCourseEnvironment(identity, course);
-					updateUserEfficiencyStatement(uce, courseEntry);
-				});
-				if (Thread.interrupted()) {
-					break;
+			log.info(Tracing.M_AUDIT, "Updating efficiency statements of {} users for course::{}, this might produce temporary heavy load on the CPU",
+					identities.size(), course.getResourceableId());
+			
+			long start = System.nanoTime();
+			List<List<Identity>> chunks = new ArrayList<>();
+			for (int i = 0; i < identities.size(); i += bulkChunkSize) {
+				chunks.add(identities.subList(i, Math.min(i + bulkChunkSize, identities.size())));
+			}
+			
+			if (bulkThreads <= 1 || chunks.size() == 1) {
+				for (List<Identity> chunk : chunks) {
+					updateEfficiencyStatementsChunk(course, courseEntry, chunk);
+					dbInstance.commit();
+					progress.add(chunk.size());
+					if (Thread.currentThread().isInterrupted()) {
+						break;
+					}
 				}
-				
-				if(++count % 10 == 0) {
-					DBFactory.getInstance().commitAndCloseSession();
+			} else {
+				updateEfficiencyStatementsParallel(course, courseEntry, chunks, progress);
+			}
+			
+			log.info(Tracing.M_AUDIT, "Efficiency statements of {} users for course::{} updated in {} ms",
+					progress.getActual(), course.getResourceableId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+		progress.finished();
+	}
+	
+	private void updateEfficiencyStatementsParallel(ICourse course, RepositoryEntry courseEntry,
+			List<List<Identity>> chunks, BulkProgress progress) {
+		List<Future<?>> futures = new ArrayList<>(chunks.size());
+		try {
+			for (List<Identity> chunk : chunks) {
+				futures.add(bulkExecutor.submit(() -> {
+					try {
+						updateEfficiencyStatementsChunk(course, courseEntry, chunk);
+						dbInstance.commitAndCloseSession();
+					} catch (Exception e) {
+						log.error("Cannot update efficiency statements of course::{}", course.getResourceableId(), e);
+						dbInstance.rollbackAndCloseSession();
+					}
+					progress.add(chunk.size());
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			log.warn("Update of efficiency statements interrupted for course::{}", course.getResourceableId());
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			log.error("", e);
+		}
+	}
+	
+	/**
+	 * Update the statements of a chunk of users. The locks of all the users of the
+	 * chunk are held together and released with a single commit, the statements
+	 * of the chunk are written in JDBC batches.
+	 */
+	private void updateEfficiencyStatementsChunk(ICourse course, RepositoryEntry courseEntry, List<Identity> identities) {
+		Session session = dbInstance.getCurrentEntityManager().unwrap(Session.class);
+		Integer jdbcBatchSize = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(bulkChunkSize);
+		try {
+			List<Long> identityKeys = identities.stream()
+					.map(Identity::getKey)
+					.collect(Collectors.toList());
+			// entries modified after this date are reloaded in the lock
+			Date loadDate = new Date(System.currentTimeMillis() - 1000l);
+			Map<Long,List<AssessmentEntry>> identityKeyToEntries = assessmentEntryDao
+					.loadAssessmentEntriesByAssessedIdentities(identityKeys, courseEntry).stream()
+					.collect(Collectors.groupingBy(entry -> entry.getIdentity().getKey()));
+			Map<Long,UserEfficiencyStatementImpl> identityKeyToStatement = getUserEfficiencyStatementsFull(courseEntry, identityKeys).stream()
+					.collect(Collectors.toMap(statement -> statement.getIdentity().getKey(), Function.identity(), (s1, s2) -> s1));
+			
+			AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();
+			List<OLATResourceable> efficiencyStatementResourceables = identities.stream()
+					.map(am::createOLATResourceableForLocking)
+					.collect(Collectors.toList());
+			//o_clusterOK: by ld
+			CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(efficiencyStatementResourceables, () -> {
+				for (Identity identity : identities) {
+					List<AssessmentEntry> entries = identityKeyToEntries.getOrDefault(identity.getKey(), new ArrayList<>());
+					Date lastModified = assessmentEntryDao.getLastModified(identity, courseEntry);
+					UserCourseEnvironment uce;
+					if (lastModified != null && !lastModified.before(loadDate)) {
+						// modified in the meantime, load the fresh entries
+						uce = AssessmentHelper.createInitAndUpdateUserCourseEnvironment(identity, course);
+					} else {
+						uce = AssessmentHelper.createInitAndUpdateUserCourseEnvironment(identity, course, entries);
+					}
+					
+					CourseConfig cc = uce.getCourseEnvironment().getCourseConfig();
+					if (cc.isEfficencyStatementEnabled()) {
+						AssessmentNodesLastModified lastModifications = new AssessmentNodesLastModified();
+						List<AssessmentNodeData> assessmentNodeList = AssessmentHelper.getAssessmentNodeDataList(uce, lastModifications, true, true, true);
+						updateUserEfficiencyStatement(identity, uce.getCourseEnvironment(), assessmentNodeList, lastModifications,
+								courseEntry, identityKeyToStatement.get(identity.getKey()));
+					}
+					if (Thread.currentThread().isInterrupted()) {
+						break;
+					}
 				}
+			});
+		} finally {
+			session.setJdbcBatchSize(jdbcBatchSize);
+		}
+	}
+	
+	private List<UserEfficiencyStatementImpl> getUserEfficiencyStatementsFull(RepositoryEntryRef courseRepoEntry, List<Long> identityKeys) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select statement from effstatement as statement ")
+		  .append(" left join fetch statement.resource as resource")
+		  .append(" where statement.identity.key in (:identityKeys) and statement.courseRepoKey=:repoKey");
+
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), UserEfficiencyStatementImpl.class)
+				.setParameter("identityKeys", identityKeys)
+				.setParameter("repoKey", courseRepoEntry.getKey())
+				.getResultList();
+	}
+	
+	private static class BulkProgress {
+		
+		private final int max;
+		private final ProgressDelegate delegate;
+		private final AtomicInteger actual = new AtomicInteger();
+		
+		public BulkProgress(int max, ProgressDelegate delegate) {
+			this.max = max;
+			this.delegate = delegate;
+			if (delegate != null) {
+				delegate.setMax(max);
+				delegate.setActual(0.0f);
+			}
+		}
+		
+		public int getActual() {
+			return actual.get();
+		}
+		
+		public void add(int processed) {
+			int value = actual.addAndGet(processed);
+			log.debug("Efficiency statements updated: {} / {}", value, max);
+			if (delegate != null) {
+				delegate.setActual(value);
+			}
+		}
+		
+		public void finished() {
+			if (delegate != null) {
+				delegate.finished();
 			}
 		}
 	}
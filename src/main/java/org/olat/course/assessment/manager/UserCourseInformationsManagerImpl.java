@@ -44,6 +44,7 @@ import org.olat.core.util.resource.OresHelper;
 import org.olat.course.assessment.UserCourseInformations;
 import org.olat.course.assessment.model.UserCourseInfosImpl;
 import org.olat.group.BusinessGroupRef;
+import org.olat.modules.coach.manager.CoachingRollupManager;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryEntryRef;
 import org.olat.resource.OLATResource;
@@ -63,6 +64,8 @@ public class UserCourseInformationsManagerImpl implements UserCourseInformations
 
 	@Autowired
 	private DB dbInstance;
+	@Autowired
+	private CoachingRollupManager coachingRollupManager;
 
 	@Override
 	public UserCourseInfosImpl getUserCourseInformations(OLATResource resource, IdentityRef identity) {
@@ -178,6 +181,7 @@ public class UserCourseInformationsManagerImpl implements UserCourseInformations
 							infos.setVisit(1);
 							infos.setResource(courseResource);
 							dbInstance.getCurrentEntityManager().persist(infos);
+							coachingRollupManager.courseResourceChanged(courseResource.getKey());
 						}
 					} catch (Exception e) {
 						log.error("Cannot update course informations for: " + identity + " from " + identity, e);
@@ -21,15 +21,19 @@ package org.olat.course.config.ui;
 
 import java.util.List;
 
+import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.commons.services.taskexecutor.TaskExecutorManager;
 import org.olat.core.gui.UserRequest;
 import org.olat.core.gui.components.form.flexible.FormItemContainer;
 import org.olat.core.gui.components.form.flexible.elements.MultipleSelectionElement;
 import org.olat.core.gui.components.form.flexible.impl.FormBasicController;
 import org.olat.core.gui.components.form.flexible.impl.FormEvent;
 import org.olat.core.gui.components.form.flexible.impl.FormLayoutContainer;
+import org.olat.core.gui.components.progressbar.ProgressController;
 import org.olat.core.gui.control.Controller;
 import org.olat.core.gui.control.Event;
 import org.olat.core.gui.control.WindowControl;
+import org.olat.core.gui.control.generic.closablewrapper.CloseableModalController;
 import org.olat.core.gui.control.generic.modal.DialogBoxController;
 import org.olat.core.gui.control.generic.modal.DialogBoxUIFactory;
 import org.olat.core.id.Identity;
@@ -38,6 +42,7 @@ import org.olat.core.logging.activity.ILoggingAction;
 import org.olat.core.logging.activity.LearningResourceLoggingAction;
 import org.olat.core.logging.activity.ThreadLocalUserActivityLogger;
 import org.olat.core.util.Util;
+import org.olat.core.util.async.ProgressDelegate;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.event.EventBus;
 import org.olat.course.CourseFactory;
@@ -58,16 +63,20 @@ import org.springframework.beans.factory.annotation.Autowired;
  * @author uhensler, urs.hensler@frentix.com, http://www.frentix.com
  *
  */
-public class EfficiencyStatementController extends FormBasicController {
+public class EfficiencyStatementController extends FormBasicController implements ProgressDelegate {
 
 	private MultipleSelectionElement efficencyEl;
 
 	private DialogBoxController enableEfficiencyDC, disableEfficiencyDC;
+	private ProgressController progressCtrl;
+	private CloseableModalController cmc;
 	
 	private final RepositoryEntry entry;
 	private CourseConfig courseConfig;
 	private final boolean editable;
 
+	@Autowired
+	private TaskExecutorManager taskExecutorManager;
 	@Autowired
 	private EfficiencyStatementManager efficiencyStatementManager;
 
@@ -117,9 +126,18 @@ public class EfficiencyStatementController extends FormBasicController {
 			} else {
 				efficencyEl.select("xx", false);
 			}
+		} else if (source == cmc) {
+			cleanup();
 		}
 		super.event(ureq, source, event);
 	}
+	
+	private void cleanup() {
+		removeAsListenerAndDispose(progressCtrl);
+		removeAsListenerAndDispose(cmc);
+		progressCtrl = null;
+		cmc = null;
+	}
 
 	@Override
 	protected void formOK(UserRequest ureq) {
@@ -163,7 +181,7 @@ public class EfficiencyStatementController extends FormBasicController {
 				// first create the efficiencies, send event to agency (all courses add link)
 				RepositoryEntry courseRe = course.getCourseEnvironment().getCourseGroupManager().getCourseEntry();
 				List<Identity> identitiesWithData = course.getCourseEnvironment().getCoursePropertyManager().getAllIdentitiesWithCourseAssessmentData(null);
-				efficiencyStatementManager.updateEfficiencyStatements(courseRe, identitiesWithData);							
+				doUpdateEfficiencyStatements(ureq, courseRe, identitiesWithData);
 			} else {
 				// delete really the efficiencies of the users.
 				RepositoryEntry courseRepoEntry = RepositoryManager.getInstance().lookupRepositoryEntry(course, true);
@@ -184,6 +202,64 @@ public class EfficiencyStatementController extends FormBasicController {
 		fireEvent(ureq, Event.CHANGED_EVENT);
 	}
 
+	private void doUpdateEfficiencyStatements(UserRequest ureq, RepositoryEntry courseRe, List<Identity> identities) {
+		progressCtrl = new ProgressController(ureq, getWindowControl());
+		progressCtrl.setMessage(translate("options.efficency.update"));
+		progressCtrl.setPercentagesEnabled(true);
+		progressCtrl.setMax(identities.size());
+		progressCtrl.setActual(0.0f);
+		listenTo(progressCtrl);
+		
+		taskExecutorManager.execute(() -> {
+			try {
+				efficiencyStatementManager.updateEfficiencyStatements(courseRe, identities, this);
+				DBFactory.getInstance().commitAndCloseSession();
+			} catch (Exception e) {
+				DBFactory.getInstance().rollbackAndCloseSession();
+				logError("", e);
+				finished();
+			}
+		});
+		
+		synchronized(this) {
+			if(progressCtrl != null) {
+				String title = translate("options.efficency.update");
+				cmc = new CloseableModalController(getWindowControl(), null, progressCtrl.getInitialComponent(), true, title, false);
+				cmc.activate();
+				listenTo(cmc);
+			}
+		}
+	}
+
+	@Override
+	public void setMax(float max) {
+		if(progressCtrl != null && !progressCtrl.isDisposed()) {
+			progressCtrl.setMax(max);
+		}
+	}
+
+	@Override
+	public void setActual(float value) {
+		if(progressCtrl != null && !progressCtrl.isDisposed()) {
+			progressCtrl.setActual(value);
+		}
+	}
+
+	@Override
+	public void setInfo(String message) {
+		if(progressCtrl != null && !progressCtrl.isDisposed()) {
+			progressCtrl.setInfo(message);
+		}
+	}
+
+	@Override
+	public synchronized void finished() {
+		if(cmc != null && !cmc.isDisposed()) {
+			cmc.deactivate();
+		}
+		cleanup();
+	}
+
 	@Override
 	protected void doDispose() {
 		//
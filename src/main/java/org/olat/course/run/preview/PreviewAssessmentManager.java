@@ -26,6 +26,7 @@
 package org.olat.course.run.preview;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -82,6 +83,16 @@ final class PreviewAssessmentManager implements AssessmentManager {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public List<AssessmentEntry> getAssessmentEntries(Identity assessedIdentity, Collection<String> subIdents) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Map<String,Date> getAssessmentEntriesLastModified(Identity assessedIdentity) {
+		return Collections.emptyMap();
+	}
+
 	@Override
 	public List<AssessmentEntry> getAssessmentEntries(BusinessGroup group, CourseNode courseNode) {
 		return Collections.emptyList();
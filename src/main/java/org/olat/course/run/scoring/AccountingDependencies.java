@@ -0,0 +1,191 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.run.scoring;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.olat.core.util.StringHelper;
+import org.olat.core.util.nodes.INode;
+import org.olat.course.Structure;
+import org.olat.course.assessment.CourseAssessmentService;
+import org.olat.course.config.CourseConfig;
+import org.olat.course.nodes.CourseNode;
+import org.olat.course.nodes.STCourseNode;
+
+/**
+ * The dependency graph of the score accounting of a run structure. It knows
+ * which course nodes have to be evaluated again if the assessment entry of a
+ * single course node changed: the ancestors of the node and every structure
+ * node whose score or passed expression references one of them.<br>
+ * The graph only allows an incremental evaluation if all course nodes use the
+ * conventional evaluators without blockers, dates, obligations or durations.
+ * In all other cases (e.g. learning paths) the whole tree has to be evaluated.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+class AccountingDependencies {
+	
+	private static final Map<Structure, AccountingDependencies> cache = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	private final String nodeAccessType;
+	private final boolean incremental;
+	private final Map<String, String> identToParentIdent = new HashMap<>();
+	private final Map<String, Set<String>> identToDependents = new HashMap<>();
+	
+	private AccountingDependencies(Structure runStructure, CourseConfig courseConfig,
+			CourseAssessmentService courseAssessmentService) {
+		nodeAccessType = getNodeAccessType(courseConfig);
+		
+		List<CourseNode> courseNodes = new ArrayList<>();
+		collectRecursiv(runStructure.getRootNode(), courseNodes);
+		
+		boolean allConventional = true;
+		Set<String> idents = new HashSet<>();
+		for (CourseNode courseNode : courseNodes) {
+			idents.add(courseNode.getIdent());
+			AccountingEvaluators evaluators = courseAssessmentService.getEvaluators(courseNode, courseConfig);
+			allConventional &= isConventional(evaluators);
+		}
+		incremental = allConventional;
+		
+		for (CourseNode courseNode : courseNodes) {
+			if (courseNode instanceof STCourseNode) {
+				ScoreCalculator scoreCalculator = ((STCourseNode)courseNode).getScoreCalculator();
+				for (String referencedIdent : getReferencedIdents(scoreCalculator, idents)) {
+					if (!referencedIdent.equals(courseNode.getIdent())) {
+						identToDependents
+							.computeIfAbsent(referencedIdent, key -> new HashSet<>())
+							.add(courseNode.getIdent());
+					}
+				}
+			}
+		}
+	}
+	
+	static AccountingDependencies get(Structure runStructure, CourseConfig courseConfig,
+			CourseAssessmentService courseAssessmentService) {
+		AccountingDependencies dependencies = cache.get(runStructure);
+		if (dependencies == null || !dependencies.nodeAccessType.equals(getNodeAccessType(courseConfig))) {
+			dependencies = new AccountingDependencies(runStructure, courseConfig, courseAssessmentService);
+			cache.put(runStructure, dependencies);
+		}
+		return dependencies;
+	}
+	
+	/**
+	 * @return true if a change of a single course node can be evaluated without
+	 *         walking through the whole tree
+	 */
+	boolean isIncremental() {
+		return incremental;
+	}
+	
+	/**
+	 * The course node itself, its ancestors, the structure nodes depending on
+	 * them and their ancestors.
+	 * 
+	 * @param ident The identifier of the changed course node
+	 * @return The identifiers of all course nodes to evaluate again
+	 */
+	Set<String> getNodesToEvaluate(String ident) {
+		Set<String> toEvaluate = new HashSet<>();
+		Deque<String> pending = new ArrayDeque<>();
+		pending.add(ident);
+		while (!pending.isEmpty()) {
+			String current = pending.poll();
+			for (String path = current; path != null && toEvaluate.add(path); path = identToParentIdent.get(path)) {
+				Set<String> dependents = identToDependents.get(path);
+				if (dependents != null) {
+					pending.addAll(dependents);
+				}
+			}
+		}
+		return toEvaluate;
+	}
+	
+	private void collectRecursiv(CourseNode courseNode, List<CourseNode> courseNodes) {
+		courseNodes.add(courseNode);
+		int childCount = courseNode.getChildCount();
+		for (int i = 0; i < childCount; i++) {
+			INode child = courseNode.getChildAt(i);
+			if (child instanceof CourseNode) {
+				identToParentIdent.put(child.getIdent(), courseNode.getIdent());
+				collectRecursiv((CourseNode)child, courseNodes);
+			}
+		}
+	}
+	
+	private static boolean isConventional(AccountingEvaluators evaluators) {
+		return evaluators.getBlockerEvaluator() == AccountingEvaluatorsFactory.createUnchangingBlockerEvaluator()
+				&& evaluators.getStartDateEvaluator() == AccountingEvaluatorsFactory.createNoBlockingStartDateEvaluator()
+				&& evaluators.getEndDateEvaluator() == AccountingEvaluatorsFactory.createNoBlockingEndDateEvaluator()
+				&& evaluators.getObligationEvaluator() == AccountingEvaluatorsFactory.createNoneObligationEvaluator()
+				&& evaluators.getDurationEvaluator() == AccountingEvaluatorsFactory.createNullDurationEvaluator();
+	}
+	
+	private static Set<String> getReferencedIdents(ScoreCalculator scoreCalculator, Set<String> idents) {
+		Set<String> referencedIdents = new HashSet<>();
+		if (scoreCalculator == null) {
+			return referencedIdents;
+		}
+		if (scoreCalculator.getSumOfScoreNodes() != null) {
+			referencedIdents.addAll(scoreCalculator.getSumOfScoreNodes());
+		}
+		if (scoreCalculator.getPassedNodes() != null) {
+			referencedIdents.addAll(scoreCalculator.getPassedNodes());
+		}
+		
+		String expressions = concat(scoreCalculator.getScoreExpression(), scoreCalculator.getPassedExpression(),
+				scoreCalculator.getFailedExpression());
+		if (StringHelper.containsNonWhitespace(expressions)) {
+			for (String ident : idents) {
+				if (expressions.contains("\"" + ident + "\"")) {
+					referencedIdents.add(ident);
+				}
+			}
+		}
+		return referencedIdents;
+	}
+	
+	private static String concat(String... expressions) {
+		StringBuilder sb = new StringBuilder();
+		for (String expression : expressions) {
+			if (expression != null) {
+				sb.append(expression).append(' ');
+			}
+		}
+		return sb.toString();
+	}
+	
+	private static String getNodeAccessType(CourseConfig courseConfig) {
+		return courseConfig.getNodeAccessType() != null? courseConfig.getNodeAccessType().getType(): "";
+	}
+
+}
@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -33,6 +34,7 @@ import org.olat.core.CoreSpringFactory;
 import org.olat.core.id.Identity;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.nodes.INode;
+import org.olat.course.Structure;
 import org.olat.course.assessment.AssessmentManager;
 import org.olat.course.assessment.CourseAssessmentService;
 import org.olat.course.config.CourseConfig;
@@ -59,6 +61,9 @@ public class AssessmentAccounting implements ScoreAccounting {
 	private final CourseConfig courseConfig;
 	private Map<String, AssessmentEntry> identToEntry = new HashMap<>();
 	private final Map<CourseNode, AssessmentEvaluation> courseNodeToEval = new HashMap<>();
+	private List<AssessmentEntry> preloadedEntries;
+	// the run structure of the cached evaluations, null if the cache is not complete
+	private Structure evaluatedStructure;
 	
 	@Autowired
 	private CourseAssessmentService courseAssessmentService;
@@ -69,6 +74,16 @@ public class AssessmentAccounting implements ScoreAccounting {
 		CoreSpringFactory.autowireObject(this);
 	}
 
+	/**
+	 * The assessment entries are used by the next evaluation instead of loading
+	 * them from the database. Used for bulk evaluations of many users.
+	 * 
+	 * @param entries All the assessment entries of the user in the course
+	 */
+	public void preload(List<AssessmentEntry> entries) {
+		this.preloadedEntries = entries;
+	}
+
 	@Override
 	public AssessmentEvaluation getScoreEvaluation(CourseNode courseNode) {
 		return courseAssessmentService.getAssessmentEvaluation(courseNode, userCourseEnvironment);
@@ -91,25 +106,149 @@ public class AssessmentAccounting implements ScoreAccounting {
 	
 	@Override
 	public boolean evaluateAll(boolean update) {
+		return evaluate(update);
+	}
+	
+	@Override
+	public boolean evaluateChanged(CourseNode changedCourseNode, boolean update) {
+		Structure runStructure = userCourseEnvironment.getCourseEnvironment().getRunStructure();
+		if (changedCourseNode == null || runStructure.getNode(changedCourseNode.getIdent()) == null
+				|| evaluatedStructure != runStructure) {
+			return evaluateAll(update);
+		}
+		
+		AccountingDependencies dependencies = AccountingDependencies.get(runStructure, courseConfig, courseAssessmentService);
+		if (!dependencies.isIncremental()) {
+			return evaluateAll(update);
+		}
+		
+		Set<String> toEvaluate = dependencies.getNodesToEvaluate(changedCourseNode.getIdent());
+		if (!isCacheUpToDate(toEvaluate)) {
+			log.debug("Assessment entries changed outside of the dependencies of course node: '{}'",
+					changedCourseNode.getIdent());
+			return evaluateAll(update);
+		}
+		log.debug("Evaluate {} course nodes after change of course node: '{}'", toEvaluate.size(),
+				changedCourseNode.getIdent());
+		return evaluate(update, runStructure, toEvaluate);
+	}
+	
+	/**
+	 * Evaluate the whole tree.
+	 * 
+	 * @param update true if the assessment entries should be updated
+	 */
+	private boolean evaluate(boolean update) {
 		courseNodeToEval.clear();
+		evaluatedStructure = null;
 		
 		identToEntry = loadAssessmentEntries(getIdentity());
 		
-		CourseNode root = userCourseEnvironment.getCourseEnvironment().getRunStructure().getRootNode();
+		Structure runStructure = userCourseEnvironment.getCourseEnvironment().getRunStructure();
+		CourseNode root = runStructure.getRootNode();
 		fillCacheRecursiv(root);
 		
 		if (update) {
 			Blocker blocker = courseAssessmentService.getEvaluators(root, courseConfig).getBlockerEvaluator()
 					.getChildrenBlocker(null);
-			updateEntryRecursiv(root, blocker);
+			updateEntryRecursiv(root, blocker, null);
+		}
+		
+		evaluatedStructure = runStructure;
+		return false;
+	}
+	
+	/**
+	 * Evaluate only the dependency closure of a changed course node. The assessment
+	 * entries of the course nodes outside of the closure are not loaded and their
+	 * cached evaluations are reused.
+	 * 
+	 * @param update true if the assessment entries should be updated
+	 * @param runStructure The run structure of the cached evaluations
+	 * @param toEvaluate The identifiers of the course nodes to evaluate (the changed
+	 * 		course node, its dependents and their ancestors)
+	 */
+	private boolean evaluate(boolean update, Structure runStructure, Set<String> toEvaluate) {
+		evaluatedStructure = null;
+		preloadedEntries = null;
+		
+		Map<String, AssessmentEntry> reloadedEntries = getAssessmentManager()
+				.getAssessmentEntries(getIdentity(), toEvaluate)
+				.stream()
+				.collect(Collectors.toMap(AssessmentEntry::getSubIdent, Function.identity()));
+		for (String ident : toEvaluate) {
+			AssessmentEntry entry = reloadedEntries.get(ident);
+			if (entry == null) {
+				identToEntry.remove(ident);
+			} else {
+				identToEntry.put(ident, entry);
+			}
+		}
+		for (String ident : toEvaluate) {
+			CourseNode courseNode = runStructure.getNode(ident);
+			if (courseNode != null) {
+				courseNodeToEval.put(courseNode, getAssessmentEvaluation(courseNode));
+			}
+		}
+		
+		if (update) {
+			CourseNode root = runStructure.getRootNode();
+			Blocker blocker = courseAssessmentService.getEvaluators(root, courseConfig).getBlockerEvaluator()
+					.getChildrenBlocker(null);
+			updateEntryRecursiv(root, blocker, toEvaluate);
 		}
 		
+		evaluatedStructure = runStructure;
 		return false;
 	}
 
+	/**
+	 * The cached evaluations of the course nodes outside of the dependencies are
+	 * only valid if their assessment entries were not changed in the meantime by
+	 * an other session, a coach or a reset.
+	 * 
+	 * @param toEvaluate The identifiers of the course nodes which will be evaluated
+	 * @return true if the assessment entries of the other course nodes are unchanged
+	 */
+	private boolean isCacheUpToDate(Set<String> toEvaluate) {
+		Map<String, Date> lastModified = getAssessmentManager().getAssessmentEntriesLastModified(getIdentity());
+		for (Map.Entry<String, Date> modified : lastModified.entrySet()) {
+			String ident = modified.getKey();
+			if (!toEvaluate.contains(ident)) {
+				AssessmentEntry cachedEntry = identToEntry.get(ident);
+				if (cachedEntry == null || !isSameSecond(cachedEntry.getLastModified(), modified.getValue())) {
+					return false;
+				}
+			}
+		}
+		for (String ident : identToEntry.keySet()) {
+			if (!toEvaluate.contains(ident) && !lastModified.containsKey(ident)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Some databases store the dates rounded to the second, the cached entries
+	 * hold the date with the milliseconds.
+	 */
+	private static boolean isSameSecond(Date cached, Date current) {
+		if (cached == null || current == null) {
+			return cached == current;
+		}
+		return Math.abs(cached.getTime() - current.getTime()) < 1000;
+	}
+
 	private Map<String, AssessmentEntry> loadAssessmentEntries(Identity identity) {
-		return getAssessmentManager()
-				.getAssessmentEntries(identity)
+		List<AssessmentEntry> entries;
+		if (preloadedEntries != null) {
+			entries = preloadedEntries;
+			preloadedEntries = null;
+		} else {
+			entries = getAssessmentManager().getAssessmentEntries(identity);
+		}
+		return entries
 				.stream()
 				.collect(Collectors.toMap(AssessmentEntry::getSubIdent, Function.identity()));
 	}
@@ -147,7 +286,7 @@ public class AssessmentAccounting implements ScoreAccounting {
 		return entry;
 	}
 	
-	private AccountingResult updateEntryRecursiv(CourseNode courseNode, Blocker blocker) {
+	private AccountingResult updateEntryRecursiv(CourseNode courseNode, Blocker blocker, Set<String> toEvaluate) {
 		log.debug("Evaluate course node: type '{}', ident: '{}'", courseNode.getType(), courseNode.getIdent());
 		
 		AssessmentEvaluation currentEvaluation = evalCourseNode(courseNode);
@@ -186,8 +325,13 @@ public class AssessmentAccounting implements ScoreAccounting {
 			INode child = courseNode.getChildAt(i);
 			if (child instanceof CourseNode) {
 				CourseNode childCourseNode = (CourseNode) child;
-				AccountingResult childResult = updateEntryRecursiv(childCourseNode, childrenBlocker);
-				children.add(childResult);
+				if (toEvaluate == null || toEvaluate.contains(childCourseNode.getIdent())) {
+					AccountingResult childResult = updateEntryRecursiv(childCourseNode, childrenBlocker, toEvaluate);
+					children.add(childResult);
+				} else {
+					// Unchanged subtree: the cached evaluation is still valid
+					children.add(evalCourseNode(childCourseNode));
+				}
 			}
 		}
 		
@@ -35,6 +35,18 @@ public interface ScoreAccounting {
 	void evaluateAll();
 
 	boolean evaluateAll(boolean update);
+	
+	/**
+	 * Evaluates the course after the assessment entry of a single course node
+	 * has changed. Implementations may only evaluate the course nodes which
+	 * depend on the changed one. The default is to evaluate the whole tree.
+	 * 
+	 * @param changedCourseNode The course node with the changed assessment entry
+	 * @param update true if the assessment entries should be updated
+	 */
+	default boolean evaluateChanged(CourseNode changedCourseNode, boolean update) {
+		return evaluateAll(update);
+	}
 
 	/**
 	 * Get the score evaluation for a given course node without using the cache.
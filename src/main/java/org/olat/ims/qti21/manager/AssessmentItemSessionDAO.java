@@ -19,6 +19,7 @@
  */
 package org.olat.ims.qti21.manager;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -99,6 +100,23 @@ public class AssessmentItemSessionDAO {
 			.getResultList();
 	}
 	
+	/**
+	 * @param testSessionKeys A list of primary keys of test sessions
+	 * @return The item sessions of all the specified test sessions
+	 */
+	public List<AssessmentItemSession> getAssessmentItemSessions(List<Long> testSessionKeys) {
+		if(testSessionKeys == null || testSessionKeys.isEmpty()) return new ArrayList<>();
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("select itemSession from qtiassessmentitemsession itemSession")
+		  .append(" where itemSession.assessmentTestSession.key in (:assessmentTestSessionKeys)");
+		
+		return dbInstance.getCurrentEntityManager()
+			.createQuery(sb.toString(), AssessmentItemSession.class)
+			.setParameter("assessmentTestSessionKeys", testSessionKeys)
+			.getResultList();
+	}
+	
 	public List<AssessmentItemSession> getAssessmentItemSessions(RepositoryEntryRef entry, String subIdent, RepositoryEntry testEntry, String itemRef) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("select itemSession from qtiassessmentitemsession itemSession")
@@ -19,6 +19,7 @@
  */
 package org.olat.ims.qti21.manager;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -84,6 +85,25 @@ public class AssessmentResponseDAO {
 				.getResultList();
 	}
 	
+	/**
+	 * The responses of several test sessions with their item session fetched.
+	 * 
+	 * @param testSessionKeys A list of primary keys of test sessions
+	 * @return The responses
+	 */
+	public List<AssessmentResponse> getResponses(List<Long> testSessionKeys) {
+		if(testSessionKeys == null || testSessionKeys.isEmpty()) return new ArrayList<>();
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("select response from qtiassessmentresponse response")
+		  .append(" inner join fetch response.assessmentItemSession itemSession")
+		  .append(" where itemSession.assessmentTestSession.key in (:assessmentTestSessionKeys)");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), AssessmentResponse.class)
+				.setParameter("assessmentTestSessionKeys", testSessionKeys)
+				.getResultList();
+	}
+	
 	public void save(Collection<AssessmentResponse> responses) {
 		if(responses != null && responses.isEmpty()) return;
 		
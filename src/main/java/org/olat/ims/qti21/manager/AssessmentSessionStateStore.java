@@ -0,0 +1,354 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ims.qti21.manager;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.WebappHelper;
+import org.olat.core.util.cache.CacheWrapper;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Description:<br>
+ * Store for the states of the test and item sessions. The states are saved
+ * in an append-only log of compact records (deflated Java serialization)
+ * next to the XML files, the last complete record is the current state.
+ * The serialized form of the last state is cached per file, a load
+ * only needs to check the length and the modification date of the log
+ * to validate the cached entry (the other nodes of a cluster can append
+ * to the same log) and to deserialize a private copy of the state.<br>
+ * The log is compacted to its last record if it grows above a threshold.
+ * If the state cannot be serialized or the log cannot be read, the callers
+ * fall back to the XML files.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class AssessmentSessionStateStore implements InitializingBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(AssessmentSessionStateStore.class);
+	
+	private static final int MAGIC = 0x51544953;
+	private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+	private static final int NUM_OF_LOCKS = 64;
+	
+	private final Object[] locks = new Object[NUM_OF_LOCKS];
+	private CacheWrapper<File,CachedState> statesCache;
+	
+	@Value("${qti21.session.state.binary.enabled:true}")
+	private volatile boolean enabled;
+	@Value("${qti21.session.state.compact.threshold:262144}")
+	private long compactThreshold;
+	
+	@Autowired
+	private CoordinatorManager coordinatorManager;
+	
+	public AssessmentSessionStateStore() {
+		for(int i=0; i<NUM_OF_LOCKS; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		statesCache = coordinatorManager.getCoordinator().getCacher().getCache("QTIWorks", "sessionStates");
+	}
+	
+	/**
+	 * The flag is checked on every write. If the store is disabled, the writes
+	 * delete the log and the callers save the XML, a log which still exists
+	 * is always the newest state of its session.
+	 * 
+	 * @return true if the states are written in the binary log
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Only used by unit tests.
+	 * 
+	 * @param threshold The length of the log above which it is compacted
+	 */
+	protected void setCompactThreshold(long threshold) {
+		this.compactThreshold = threshold;
+	}
+	
+	private Object getLock(File stateFile) {
+		return locks[Math.floorMod(stateFile.hashCode(), NUM_OF_LOCKS)];
+	}
+	
+	/**
+	 * @param stateFile The log file
+	 * @return true if the log exists
+	 */
+	public boolean exists(File stateFile) {
+		return stateFile.exists();
+	}
+	
+	/**
+	 * Load the last state saved in the log. The log is read even if the store
+	 * is disabled: as long as the session didn't write its state after the store
+	 * was disabled, the log is newer than the XML.
+	 * 
+	 * @param stateFile The log file
+	 * @return A new instance of the state or null if the log doesn't exist
+	 * 		or cannot be read
+	 */
+	public <U extends Serializable> U load(File stateFile, Class<U> type) {
+		long lastModified = stateFile.lastModified();
+		if(lastModified == 0l) {// the file doesn't exist
+			statesCache.remove(stateFile);
+			return null;
+		}
+		
+		long length = stateFile.length();
+		CachedState cachedState = statesCache.get(stateFile);
+		if(cachedState == null || !cachedState.isValid(lastModified, length)) {
+			synchronized(getLock(stateFile)) {
+				cachedState = readLastRecord(stateFile);
+			}
+			if(cachedState == null) {
+				return null;
+			}
+			statesCache.put(stateFile, cachedState);
+		}
+		
+		try {
+			return type.cast(deserialize(cachedState.getData()));
+		} catch(Exception | LinkageError e) {
+			// the classes can have changed, the XML is the reference
+			log.warn("Cannot read the session state: {}", stateFile, e);
+			statesCache.remove(stateFile);
+			return null;
+		}
+	}
+	
+	/**
+	 * Append the state to the log.
+	 * 
+	 * @param stateFile The log file
+	 * @param state The state
+	 * @return true if the state is saved, false if the caller need to save it
+	 * 		an other way
+	 */
+	public boolean store(File stateFile, Serializable state) {
+		if(!enabled) {
+			// don't let an outdated log shadow the XML if the store is enabled again
+			if(stateFile.exists()) {
+				delete(stateFile);
+			}
+			return false;
+		}
+		
+		byte[] data;
+		try {
+			data = serialize(state);
+		} catch(IOException | RuntimeException e) {
+			log.warn("Cannot serialize the session state: {}", stateFile, e);
+			delete(stateFile);
+			return false;
+		}
+		
+		synchronized(getLock(stateFile)) {
+			try {
+				if(stateFile.length() + data.length > compactThreshold) {
+					rewrite(stateFile, data);
+				} else {
+					append(stateFile, data);
+				}
+				statesCache.put(stateFile, new CachedState(data, stateFile.lastModified(), stateFile.length()));
+				return true;
+			} catch(IOException e) {
+				log.error("Cannot write the session state: {}", stateFile, e);
+				statesCache.remove(stateFile);
+				FileUtils.deleteFile(stateFile);
+				return false;
+			}
+		}
+	}
+	
+	public void delete(File stateFile) {
+		statesCache.remove(stateFile);
+		if(stateFile.exists()) {
+			synchronized(getLock(stateFile)) {
+				FileUtils.deleteFile(stateFile);
+			}
+		}
+	}
+	
+	private void append(File stateFile, byte[] data) throws IOException {
+		try(OutputStream fileOut = new FileOutputStream(stateFile, true);
+				DataOutputStream out = new DataOutputStream(fileOut)) {
+			out.write(toRecord(data));
+		}
+	}
+	
+	private void rewrite(File stateFile, byte[] data) throws IOException {
+		File tmpFile = new File(stateFile.getParentFile(), stateFile.getName() + "." + WebappHelper.getNodeId() + ".tmp");
+		try(OutputStream out = new FileOutputStream(tmpFile)) {
+			out.write(toRecord(data));
+		}
+		
+		try {
+			Files.move(tmpFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException e) {
+			FileUtils.deleteFile(tmpFile);
+			throw e;
+		}
+	}
+	
+	/**
+	 * A record is: magic, length of the data, CRC32 of the data, data
+	 * 
+	 * @param data The serialized state
+	 * @return The record
+	 */
+	private byte[] toRecord(byte[] data) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + 16);
+		try(DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(data.length);
+			out.writeLong(crc.getValue());
+			out.write(data);
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Read the last complete record of the log. A truncated or corrupted
+	 * record at the end (crash during a write) is ignored.
+	 * 
+	 * @param stateFile The log
+	 * @return The last record or null
+	 */
+	private CachedState readLastRecord(File stateFile) {
+		long lastModified = stateFile.lastModified();
+		long length = stateFile.length();
+		
+		byte[] lastData = null;
+		try(InputStream fileIn = Files.newInputStream(stateFile.toPath());
+				DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+			for(;;) {
+				int magic;
+				try {
+					magic = in.readInt();
+				} catch(EOFException e) {
+					break;
+				}
+				int dataLength = in.readInt();
+				long checksum = in.readLong();
+				if(magic != MAGIC || dataLength < 0 || dataLength > MAX_RECORD_LENGTH) {
+					log.warn("Corrupted session state: {}", stateFile);
+					break;
+				}
+				
+				byte[] data = new byte[dataLength];
+				in.readFully(data);
+				CRC32 crc = new CRC32();
+				crc.update(data);
+				if(crc.getValue() != checksum) {
+					log.warn("Corrupted session state: {}", stateFile);
+					break;
+				}
+				lastData = data;
+			}
+		} catch(EOFException e) {
+			log.warn("Truncated session state: {}", stateFile);
+		} catch(IOException e) {
+			log.error("Cannot read the session state: {}", stateFile, e);
+			return null;
+		}
+		return lastData == null ? null : new CachedState(lastData, lastModified, length);
+	}
+	
+	private static byte[] serialize(Serializable state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+		DeflaterOutputStream deflaterOut = new DeflaterOutputStream(bytes);
+		try(ObjectOutputStream objectOut = new ObjectOutputStream(deflaterOut)) {
+			objectOut.writeObject(state);
+			objectOut.flush();
+			deflaterOut.finish();
+		}
+		return bytes.toByteArray();
+	}
+	
+	private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+		try(ObjectInputStream objectIn = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+			return objectIn.readObject();
+		}
+	}
+	
+	private static class CachedState implements Serializable {
+
+		private static final long serialVersionUID = -7431206393342856102L;
+		
+		private final byte[] data;
+		private final long lastModified;
+		private final long length;
+		
+		public CachedState(byte[] data, long lastModified, long length) {
+			this.data = data;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+		
+		public byte[] getData() {
+			return data;
+		}
+		
+		public boolean isValid(long fileLastModified, long fileLength) {
+			return lastModified == fileLastModified && length == fileLength;
+		}
+	}
+}
@@ -26,6 +26,9 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.persistence.TypedQuery;
@@ -793,6 +796,57 @@ public class AssessmentTestSessionDAO {
 		return query.getResultList();
 	}
 	
+	/**
+	 * The same test sessions as getTestSessionsOfResponse but only their primary keys,
+	 * in the same order. Used to export the results page by page.
+	 * 
+	 * @param searchParams The search parameters
+	 * @return A list of primary keys of test sessions
+	 */
+	public List<Long> getTestSessionKeysOfResponse(QTI21StatisticSearchParams searchParams) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select testSession.key from qtiassessmenttestsession testSession ")
+		  .append(" inner join testSession.assessmentEntry assessmentEntry")
+		  .append(" left join assessmentEntry.identity as ident")
+		  .append(" left join ident.user as usr");
+		
+		decorateTestSessionPermission(sb, searchParams);
+		//need to be anonymized
+		sb.append(" order by usr.lastName, testSession.key");
+		
+		TypedQuery<Long> query = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class);
+		decorateTestSessionPermission(query, searchParams) ;
+		return query.getResultList();
+	}
+	
+	/**
+	 * Load the test sessions with their assessment entry, the assessed identity and its user.
+	 * 
+	 * @param keys The primary keys of the test sessions
+	 * @return The test sessions in the order of the specified keys
+	 */
+	public List<AssessmentTestSession> loadTestSessionsByKeys(List<Long> keys) {
+		if(keys == null || keys.isEmpty()) return new ArrayList<>();
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("select testSession from qtiassessmenttestsession testSession ")
+		  .append(" inner join fetch testSession.assessmentEntry assessmentEntry")
+		  .append(" left join fetch assessmentEntry.identity as ident")
+		  .append(" left join fetch ident.user as usr")
+		  .append(" where testSession.key in (:keys)");
+		
+		Map<Long,AssessmentTestSession> keyToSessions = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), AssessmentTestSession.class)
+				.setParameter("keys", keys)
+				.getResultList().stream()
+				.collect(Collectors.toMap(AssessmentTestSession::getKey, Function.identity(), (u, v) -> u));
+		return keys.stream()
+				.map(keyToSessions::get)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+	
 	/**
 	 * Decorate a testSession query with the permissions of the specified search parameters.
 	 * 
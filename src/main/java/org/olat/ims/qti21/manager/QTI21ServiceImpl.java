@@ -192,6 +192,8 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	
 	private static final Logger log = Tracing.createLoggerFor(QTI21ServiceImpl.class);
 	
+	private static final String TEST_SESSION_STATE_BINARY = "testSessionState.bin";
+	
 	private static XStream configXstream = XStreamHelper.createXStreamInstance();
 	static {
 		XStream.setupDefaultSecurity(configXstream);
@@ -224,6 +226,8 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	private CoordinatorManager coordinatorManager;
 	@Autowired
 	private MailManager mailManager;
+	@Autowired
+	private AssessmentSessionStateStore sessionStateStore;
 	
 
 	private JqtiExtensionManager jqtiExtensionManager;
@@ -575,7 +579,7 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 			session = null;
 		} else {
 			File sessionFile = getTestSessionStateFile(session);
-			if(!sessionFile.exists()) {
+			if(!sessionFile.exists() && !sessionStateStore.exists(getTestSessionStateBinaryFile(session))) {
 				session = null;
 			}
 		}
@@ -671,6 +675,10 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 
 	@Override
 	public TestSessionState loadTestSessionState(AssessmentTestSession candidateSession) {
+		TestSessionState testSessionState = sessionStateStore.load(getTestSessionStateBinaryFile(candidateSession), TestSessionState.class);
+		if(testSessionState != null) {
+			return testSessionState;
+		}
         Document document = loadStateDocument(candidateSession);
         return document == null ? null: TestSessionStateXmlMarshaller.unmarshal(document.getDocumentElement());
     }
@@ -682,6 +690,10 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
     
     @Override
 	public ItemSessionState loadItemSessionState(AssessmentTestSession session, AssessmentItemSession itemSession) {
+		ItemSessionState itemSessionState = sessionStateStore.load(getItemSessionStateBinaryFile(session, itemSession), ItemSessionState.class);
+		if(itemSessionState != null) {
+			return itemSessionState;
+		}
         Document document = loadStateDocument(session, itemSession);
         return document == null ? null: ItemSessionStateXmlMarshaller.unmarshal(document.getDocumentElement());
 	}
@@ -806,6 +818,13 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 		if(candidateSession.getFinishTime() == null) {
 			storeAssessmentResultFile(candidateSession, assessmentResult);
 		}
+		// Materialize the XML of the state for the archive only at the end of a step
+		// of the candidate, the intermediate states are saved in the binary store
+		if(testSessionState.isEnded() || testSessionState.isExited() || testSessionState.isSuspended()) {
+			storeTestSessionState(candidateSession, testSessionState);
+		} else {
+			storeTestSessionStateBinary(candidateSession, testSessionState);
+		}
         // Then record test outcome variables to DB
         recordOutcomeVariables(candidateSession, assessmentResult.getTestResult(), auditLogger);
         // Set duration
@@ -1140,6 +1159,7 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 		}
 		
 		storeAssessmentResultFile(candidateSession, assessmentResult);
+		storeTestSessionStateDocument(candidateSession, testSessionState);
 		if(qtiModule.isDigitalSignatureEnabled() && digitalSignature.isDigitalSignature()) {
     		signAssessmentResult(candidateSession, digitalSignature, assessedIdentity);
     	}
@@ -1162,6 +1182,7 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 
 		testSessionDao.deleteTestSession(candidateSession);
 		FileUtils.deleteFile(sessionState);
+		sessionStateStore.delete(new File(myStore, TEST_SESSION_STATE_BINARY));
 		if(resultFile != null) {
 			FileUtils.deleteFile(resultFile);
 		}
@@ -1322,28 +1343,44 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 		return event;
 	}
 	
+	/**
+	 * Save the state in the binary store, the XML is only written
+	 * if the binary store cannot save it.
+	 * 
+	 * @param candidateEvent The event
+	 * @param testSessionState The state of the test session
+	 */
 	private void storeTestSessionState(CandidateEvent candidateEvent, TestSessionState testSessionState) {
-		Document stateDocument = TestSessionStateXmlMarshaller.marshal(testSessionState);
-		File sessionFile = getTestSessionStateFile(candidateEvent);
-		storeStateDocument(stateDocument, sessionFile);
+		storeTestSessionStateBinary(candidateEvent.getCandidateSession(), testSessionState);
+	}
+	
+	private void storeTestSessionStateBinary(AssessmentTestSession candidateSession, TestSessionState testSessionState) {
+		if(!sessionStateStore.store(getTestSessionStateBinaryFile(candidateSession), testSessionState)) {
+			storeTestSessionStateDocument(candidateSession, testSessionState);
+		}
 	}
 	
 	private void storeTestSessionState(AssessmentTestSession candidateSession, TestSessionState testSessionState) {
+		sessionStateStore.store(getTestSessionStateBinaryFile(candidateSession), testSessionState);
+		storeTestSessionStateDocument(candidateSession, testSessionState);
+	}
+	
+	private void storeTestSessionStateDocument(AssessmentTestSession candidateSession, TestSessionState testSessionState) {
 		Document stateDocument = TestSessionStateXmlMarshaller.marshal(testSessionState);
 		File sessionFile = getTestSessionStateFile(candidateSession);
 		storeStateDocument(stateDocument, sessionFile);
 	}
-
-	private File getTestSessionStateFile(CandidateEvent candidateEvent) {
-		AssessmentTestSession candidateSession = candidateEvent.getCandidateSession();
-		return getTestSessionStateFile(candidateSession);
-	}
     
 	private File getTestSessionStateFile(AssessmentTestSession candidateSession) {
 		File myStore = testSessionDao.getSessionStorage(candidateSession);
 		return new File(myStore, "testSessionState.xml");
 	}
 	
+	private File getTestSessionStateBinaryFile(AssessmentTestSession candidateSession) {
+		File myStore = testSessionDao.getSessionStorage(candidateSession);
+		return new File(myStore, TEST_SESSION_STATE_BINARY);
+	}
+	
     @Override
 	public CandidateEvent recordCandidateItemEvent(AssessmentTestSession candidateSession,AssessmentItemSession itemSession,
 			RepositoryEntryRef testEntry, RepositoryEntryRef entry, CandidateItemEventType itemEventType,
@@ -1382,6 +1419,8 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	}
 
 	public void storeItemSessionState(AssessmentItemSession itemSession, CandidateEvent candidateEvent, ItemSessionState itemSessionState) {
+		// item sessions don't have an archive step, the XML is always written
+		sessionStateStore.store(getItemSessionStateBinaryFile(candidateEvent.getCandidateSession(), itemSession), itemSessionState);
         Document stateDocument = ItemSessionStateXmlMarshaller.marshal(itemSessionState);
         File sessionFile = getItemSessionStateFile(candidateEvent.getCandidateSession(), itemSession);
         storeStateDocument(stateDocument, sessionFile);
@@ -1392,6 +1431,12 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 		String filename = "itemSessionState_" + itemSession.getKey() + ".xml";
 		return new File(myStore, filename);
 	}
+	
+	private File getItemSessionStateBinaryFile(AssessmentTestSession candidateSession, AssessmentItemSession itemSession) {
+		File myStore = testSessionDao.getSessionStorage(candidateSession);
+		String filename = "itemSessionState_" + itemSession.getKey() + ".bin";
+		return new File(myStore, filename);
+	}
     
 	private void storeStateDocument(Document stateXml, File sessionFile) {
         XsltSerializationOptions xsltSerializationOptions = new XsltSerializationOptions();
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -144,6 +145,8 @@ public class QTI21ArchiveFormat {
 	
 	private static final Logger log = Tracing.createLoggerFor(QTI21ArchiveFormat.class);
 	
+	private static final int PAGE_SIZE = 50;
+	
 	private Translator translator;
 	
 	private ResolvedAssessmentTest resolvedAssessmentTest;
@@ -266,14 +269,14 @@ public class QTI21ArchiveFormat {
 		resolvedAssessmentTest = qtiService.loadAndResolveAssessmentTest(unzippedDirRoot, false, false);
 		
 		//content
-		final List<AssessmentTestSession> sessions = testSessionDao.getTestSessionsOfResponse(searchParams);
+		final List<Long> sessionKeys = testSessionDao.getTestSessionKeysOfResponse(searchParams);
 		try(OpenXMLWorkbook workbook = new OpenXMLWorkbook(exportStream, 1)) {
 			//headers
 			OpenXMLWorksheet exportSheet = workbook.nextWorksheet();
 			exportSheet.setHeaderRows(2);
 			writeHeaders_1(exportSheet, workbook);
 			writeHeaders_2(exportSheet, workbook);
-			writeData(sessions, exportSheet, workbook);
+			writeData(sessionKeys, exportSheet, workbook);
 		} catch(Exception e) {
 			log.error("", e);
 		}
@@ -299,14 +302,14 @@ public class QTI21ArchiveFormat {
 		return new OpenXMLWorkbookResource(label) {
 			@Override
 			protected void generate(OutputStream out) {
-				final List<AssessmentTestSession> sessions = testSessionDao.getTestSessionsOfResponse(searchParams);
+				final List<Long> sessionKeys = testSessionDao.getTestSessionKeysOfResponse(searchParams);
 				try(OpenXMLWorkbook workbook = new OpenXMLWorkbook(out, 1)) {
 					//headers
 					OpenXMLWorksheet exportSheet = workbook.nextWorksheet();
 					exportSheet.setHeaderRows(2);
 					writeHeaders_1(exportSheet, workbook);
 					writeHeaders_2(exportSheet, workbook);
-					writeData(sessions, exportSheet, workbook);
+					writeData(sessionKeys, exportSheet, workbook);
 				} catch (Exception e) {
 					log.error("", e);
 				}
@@ -464,31 +467,58 @@ public class QTI21ArchiveFormat {
 	}
 	
 	/**
-	 * The 2 lists, sessions and responses are order by the user name and the test session key.
-	 * @param sessions A list of test sessions ordered by test session key
-	 * @param responses A list of responses ordered by test session key
+	 * Write the sessions page by page, the keys are ordered by the user name
+	 * and the test session key.
+	 * 
+	 * @param sessionKeys A list of test session keys
 	 * @param exportSheet
 	 * @param workbook
 	 */
-	private void writeData(List<AssessmentTestSession> sessions, OpenXMLWorksheet exportSheet, OpenXMLWorkbook workbook) {
-		int numOfSessions = sessions.size();
-		for(int i=0; i<numOfSessions; i++) {
-			AssessmentTestSession testSession = sessions.get(i);
-			SessionResponses sessionResponses = new SessionResponses(testSession);
-			List<AssessmentResponse> responses = responseDao.getResponses(testSession);
-			for(AssessmentResponse response:responses) {
-				AssessmentItemSession itemSession = response.getAssessmentItemSession();
+	private void writeData(List<Long> sessionKeys, OpenXMLWorksheet exportSheet, OpenXMLWorkbook workbook) {
+		int num = 0;
+		int numOfSessions = sessionKeys.size();
+		for(int i=0; i<numOfSessions; i += PAGE_SIZE) {
+			List<Long> pageKeys = sessionKeys.subList(i, Math.min(i + PAGE_SIZE, numOfSessions));
+			List<SessionResponses> page = loadSessionResponses(pageKeys);
+			for(SessionResponses sessionResponses:page) {
+				writeDataRow(++num, sessionResponses, exportSheet, workbook);
+			}
+			// only a page of sessions, item sessions and responses in memory
+			DBFactory.getInstance().commitAndCloseSession();
+		}
+	}
+	
+	/**
+	 * Load a page of test sessions with all their item sessions and responses,
+	 * with one query for each type.
+	 * 
+	 * @param testSessionKeys The primary keys of the test sessions
+	 * @return The sessions in the order of the keys
+	 */
+	private List<SessionResponses> loadSessionResponses(List<Long> testSessionKeys) {
+		List<AssessmentTestSession> testSessions = testSessionDao.loadTestSessionsByKeys(testSessionKeys);
+		Map<Long,SessionResponses> keyToResponses = new LinkedHashMap<>();
+		for(AssessmentTestSession testSession:testSessions) {
+			keyToResponses.put(testSession.getKey(), new SessionResponses(testSession));
+		}
+		
+		List<AssessmentResponse> responses = responseDao.getResponses(testSessionKeys);
+		for(AssessmentResponse response:responses) {
+			AssessmentItemSession itemSession = response.getAssessmentItemSession();
+			SessionResponses sessionResponses = keyToResponses.get(itemSession.getAssessmentTestSession().getKey());
+			if(sessionResponses != null) {
 				sessionResponses.addResponse(itemSession, response);
 			}
-			
-			List<AssessmentItemSession> itemSessions = itemSessionDao.getAssessmentItemSessions(testSession);
-			for(AssessmentItemSession itemSession:itemSessions) {
+		}
+		
+		List<AssessmentItemSession> itemSessions = itemSessionDao.getAssessmentItemSessions(testSessionKeys);
+		for(AssessmentItemSession itemSession:itemSessions) {
+			SessionResponses sessionResponses = keyToResponses.get(itemSession.getAssessmentTestSession().getKey());
+			if(sessionResponses != null) {
 				sessionResponses.addItemSession(itemSession);
 			}
-			
-			writeDataRow(i + 1, sessionResponses, exportSheet, workbook);	
-			DBFactory.getInstance().commitAndCloseSession();
 		}
+		return new ArrayList<>(keyToResponses.values());
 	}
 	
 	private void writeDataRow(int num, SessionResponses responses, OpenXMLWorksheet exportSheet, OpenXMLWorkbook workbook) {
@@ -146,6 +146,17 @@ public class LDAPLoginModule extends AbstractSpringModule {
 	private boolean ldapSyncCronSync;
 	@Value("${ldap.ldapSyncCronSyncExpression}")
 	private String ldapSyncCronSyncExpression;
+	/**
+	 * Synchronize only the users changed since the last successful sync (based
+	 * on the created and last modified timestamp attributes). A full sync runs
+	 * after a restart, after a failed sync and every ldapSyncDeltaFullSyncInterval hours.
+	 */
+	@Value("${ldap.ldapSyncDelta:false}")
+	private boolean ldapSyncDelta;
+	@Value("${ldap.ldapSyncDeltaFullSyncInterval:24}")
+	private int ldapSyncDeltaFullSyncInterval;
+	@Value("${ldap.ldapSyncDeltaOverlap:300}")
+	private int ldapSyncDeltaOverlap;
 	// User LDAP attributes to be synced and a map with the mandatory attributes
 
 
@@ -484,6 +495,33 @@ public class LDAPLoginModule extends AbstractSpringModule {
 		return ldapSyncCronSync;
 	}
 
+	public boolean isLdapSyncDelta() {
+		return ldapSyncDelta;
+	}
+	
+	/**
+	 * [used by tests]
+	 * @param ldapSyncDelta
+	 */
+	public void setLdapSyncDelta(boolean ldapSyncDelta) {
+		this.ldapSyncDelta = ldapSyncDelta;
+	}
+
+	/**
+	 * @return The max. time in hours between two full synchronizations
+	 */
+	public int getLdapSyncDeltaFullSyncInterval() {
+		return ldapSyncDeltaFullSyncInterval;
+	}
+
+	/**
+	 * @return The time in seconds the delta synchronization looks back before the
+	 * 		last sync to tolerate clock drift between the LDAP server and OpenOLAT
+	 */
+	public int getLdapSyncDeltaOverlap() {
+		return ldapSyncDeltaOverlap;
+	}
+
 	public String getLdapSyncCronSyncExpression() {
 		return ldapSyncCronSyncExpression;
 	}
@@ -116,6 +116,7 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 	private static final String TIMEOUT_KEY = "com.sun.jndi.ldap.connect.timeout";
 	private static boolean batchSyncIsRunning = false;
 	private static Date lastSyncDate = null; // first sync is always a full sync
+	private final LDAPSyncState syncState = new LDAPSyncState();
 	
 	private Coordinator coordinator;
 	private TaskExecutorManager taskExecutorManager;
@@ -1023,6 +1024,11 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 		
 		coordinator.getEventBus().fireEventToListenersOf(new LDAPEvent(LDAPEvent.SYNCHING), ldapSyncLockOres);
 		
+		// a delta sync needs a successful sync and the state of the last full sync on this node
+		Date since = isDeltaSyncPossible() ? lastSyncDate : null;
+		if(since != null) {
+			since = new Date(since.getTime() - (ldapLoginModule.getLdapSyncDeltaOverlap() * 1000l));
+		}
 		lastSyncDate = null;
 		
 		LdapContext ctx = null;
@@ -1041,8 +1047,16 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 
 			//check server capabilities
 			// Get time before sync to have a save sync time when sync is successful
-			String sinceSentence = (lastSyncDate == null ? "" : " since last sync from " + lastSyncDate);
-			if (ldapLoginModule.isDeleteRemovedLDAPUsersOnSync()) {
+			boolean deltaSync = since != null;
+			String sinceSentence = (since == null ? "" : " since last sync from " + since);
+			if(deltaSync) {
+				log.info("LDAP batch sync: delta sync{}", sinceSentence);
+			} else {
+				// the full sync rebuilds the state
+				syncState.clear();
+			}
+			// deleted users can only be found by a full sync
+			if (!deltaSync && ldapLoginModule.isDeleteRemovedLDAPUsersOnSync()) {
 				doBatchSyncDeletedUsers(ctx, sinceSentence);
 				// bind again to use an initial unmodified context. lookup of server-properties might fail otherwise!
 				ctx.close();
@@ -1050,16 +1064,28 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 			}
 			
 			Map<String,LDAPUser> dnToIdentityKeyMap = new HashMap<>();
-			List<LDAPUser> ldapUsers = doBatchSyncNewAndModifiedUsers(ctx, sinceSentence, dnToIdentityKeyMap, errors);
+			List<LDAPUser> ldapUsers = doBatchSyncNewAndModifiedUsers(ctx, since, sinceSentence, dnToIdentityKeyMap, errors);
+			// changed users and the groups they leave or join
+			Set<String> changedDns = deltaSync ? new HashSet<>() : null;
+			Set<String> affectedGroupIds = deltaSync ? new HashSet<>() : null;
+			for(LDAPUser ldapUser:ldapUsers) {
+				syncState.putUser(ldapUser, affectedGroupIds);
+				if(changedDns != null && ldapUser.getDn() != null) {
+					changedDns.add(ldapUser.getDn());
+				}
+			}
 			ctx.close();
 			ctx = bindSystem();
 			//sync groups by LDAP groups or attributes
-			doBatchSyncGroups(ctx, ldapUsers, dnToIdentityKeyMap, errors);
+			doBatchSyncGroups(ctx, ldapUsers, dnToIdentityKeyMap, changedDns, affectedGroupIds, errors);
 			//sync roles
-			doBatchSyncRoles(ctx, ldapUsers, dnToIdentityKeyMap, errors);
+			doBatchSyncRoles(ctx, ldapUsers, dnToIdentityKeyMap, changedDns, errors);
 			
 			// update sync time and set running flag
 			lastSyncDate = timeBeforeSync;
+			if(!deltaSync) {
+				syncState.setLastFullSync(timeBeforeSync);
+			}
 			
 			ctx.close();
 			success = true;
@@ -1089,7 +1115,29 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 		}
 	}
 	
-	private void doBatchSyncRoles(LdapContext ctx, List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors)
+	private boolean isDeltaSyncPossible() {
+		if(!ldapLoginModule.isLdapSyncDelta() || lastSyncDate == null) {
+			return false;
+		}
+		Date lastFullSync = syncState.getLastFullSync();
+		if(lastFullSync == null) {
+			return false;
+		}
+		long fullSyncInterval = ldapLoginModule.getLdapSyncDeltaFullSyncInterval() * 60l * 60l * 1000l;
+		return System.currentTimeMillis() - lastFullSync.getTime() < fullSyncInterval;
+	}
+	
+	/**
+	 * 
+	 * @param ctx The LDAP context
+	 * @param ldapUsers The users loaded by the sync (only the changed ones for a delta sync)
+	 * @param dnToIdentityKeyMap Map of the known users
+	 * @param changedDns The DN of the changed users for a delta sync, null for a full sync
+	 * @param errors The errors
+	 * @throws NamingException
+	 */
+	private void doBatchSyncRoles(LdapContext ctx, List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap,
+			Set<String> changedDns, LDAPError errors)
 	throws NamingException {
 		ctx.close();
 		ctx = bindSystem();
@@ -1100,32 +1148,32 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 		//authors
 		if(syncConfiguration.getAuthorsGroupBase() != null && !syncConfiguration.getAuthorsGroupBase().isEmpty()) {
 			List<LDAPGroup> authorGroups = ldapDao.searchGroups(ctx, syncConfiguration.getAuthorsGroupBase());
-			syncRole(ctx, authorGroups, organisation, OrganisationRoles.author, dnToIdentityKeyMap, errors);
+			syncRole(ctx, authorGroups, organisation, OrganisationRoles.author, dnToIdentityKeyMap, changedDns, errors);
 		}
 		//user managers
 		if(syncConfiguration.getUserManagersGroupBase() != null && !syncConfiguration.getUserManagersGroupBase().isEmpty()) {
 			List<LDAPGroup> userManagerGroups = ldapDao.searchGroups(ctx, syncConfiguration.getUserManagersGroupBase());
-			syncRole(ctx, userManagerGroups, organisation, OrganisationRoles.usermanager, dnToIdentityKeyMap, errors);
+			syncRole(ctx, userManagerGroups, organisation, OrganisationRoles.usermanager, dnToIdentityKeyMap, changedDns, errors);
 		}
 		//group managers
 		if(syncConfiguration.getGroupManagersGroupBase() != null && !syncConfiguration.getGroupManagersGroupBase().isEmpty()) {
 			List<LDAPGroup> groupManagerGroups = ldapDao.searchGroups(ctx, syncConfiguration.getGroupManagersGroupBase());
-			syncRole(ctx, groupManagerGroups, organisation, OrganisationRoles.groupmanager, dnToIdentityKeyMap, errors);
+			syncRole(ctx, groupManagerGroups, organisation, OrganisationRoles.groupmanager, dnToIdentityKeyMap, changedDns, errors);
 		}
 		//question pool managers
 		if(syncConfiguration.getQpoolManagersGroupBase() != null && !syncConfiguration.getQpoolManagersGroupBase().isEmpty()) {
 			List<LDAPGroup> qpoolManagerGroups = ldapDao.searchGroups(ctx, syncConfiguration.getQpoolManagersGroupBase());
-			syncRole(ctx, qpoolManagerGroups, organisation, OrganisationRoles.poolmanager, dnToIdentityKeyMap, errors);
+			syncRole(ctx, qpoolManagerGroups, organisation, OrganisationRoles.poolmanager, dnToIdentityKeyMap, changedDns, errors);
 		}
 		//curriculum managers
 		if(syncConfiguration.getCurriculumManagersGroupBase() != null && !syncConfiguration.getCurriculumManagersGroupBase().isEmpty()) {
 			List<LDAPGroup> curriculumManagerGroups = ldapDao.searchGroups(ctx, syncConfiguration.getCurriculumManagersGroupBase());
-			syncRole(ctx, curriculumManagerGroups, organisation, OrganisationRoles.curriculummanager, dnToIdentityKeyMap, errors);
+			syncRole(ctx, curriculumManagerGroups, organisation, OrganisationRoles.curriculummanager, dnToIdentityKeyMap, changedDns, errors);
 		}
 		//learning resource manager
 		if(syncConfiguration.getLearningResourceManagersGroupBase() != null && !syncConfiguration.getLearningResourceManagersGroupBase().isEmpty()) {
 			List<LDAPGroup> resourceManagerGroups = ldapDao.searchGroups(ctx, syncConfiguration.getLearningResourceManagersGroupBase());
-			syncRole(ctx, resourceManagerGroups, organisation, OrganisationRoles.learnresourcemanager, dnToIdentityKeyMap, errors);
+			syncRole(ctx, resourceManagerGroups, organisation, OrganisationRoles.learnresourcemanager, dnToIdentityKeyMap, changedDns, errors);
 		}
 
 		int count = 0;
@@ -1178,13 +1226,20 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 	}
 	
 	private void syncRole(LdapContext ctx, List<LDAPGroup> groups, Organisation organisation, OrganisationRoles role,
-			Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors) {
+			Map<String,LDAPUser> dnToIdentityKeyMap, Set<String> changedDns, LDAPError errors) {
 		if(groups == null || groups.isEmpty()) return;
 		
 		for(LDAPGroup group:groups) {
 			List<String> members = group.getMembers();
+			String groupKey = "role:" + role.name() + ":" + group.getCommonName();
+			// roles are only added, if the members didn't change, only the changed users need a sync
+			boolean onlyChangedUsers = changedDns != null && !syncState.isGroupChanged(groupKey, members);
+			syncState.putGroup(groupKey, members);
 			if(members != null && !members.isEmpty()) {
 				for(String member:members) {
+					if(onlyChangedUsers && !changedDns.contains(member)) {
+						continue;
+					}
 					LDAPUser ldapUser = getLDAPUser(ctx, member, dnToIdentityKeyMap, errors);
 					if(ldapUser != null && ldapUser.getCachedIdentity() != null) {
 						syncRole(ldapUser, organisation, role);
@@ -1291,10 +1346,23 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 		dbInstance.commitAndCloseSession();
 	}
 	
-	private List<LDAPUser> doBatchSyncNewAndModifiedUsers(LdapContext ctx, String sinceSentence, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors) {
+	/**
+	 * 
+	 * @param ctx The LDAP context
+	 * @param since The date of the last sync for a delta sync or null for a full sync
+	 * @param sinceSentence A sentence for the log
+	 * @param dnToIdentityKeyMap Map of the known users
+	 * @param errors The errors
+	 * @return The list of users loaded from LDAP, without the unchanged ones for a delta sync
+	 */
+	private List<LDAPUser> doBatchSyncNewAndModifiedUsers(LdapContext ctx, Date since, String sinceSentence,
+			Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors) {
 		// Get new and modified users from LDAP
 		int count = 0;
-		List<LDAPUser> ldapUserList = ldapDao.getUserAttributesModifiedSince(lastSyncDate, ctx);
+		List<LDAPUser> ldapUserList = ldapDao.getUserAttributesModifiedSince(since, ctx);
+		if(since != null) {
+			ldapUserList = filterUnchangedUsers(ldapUserList, dnToIdentityKeyMap);
+		}
 		
 		// Check for new and modified users
 		List<LDAPUser> newLdapUserList = new ArrayList<>();
@@ -1401,7 +1469,42 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 		return ldapUserList;
 	}
 	
-	private void doBatchSyncGroups(LdapContext ctx, List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors)
+	/**
+	 * The modify timestamp changes with every operational attribute (last logon...),
+	 * the users with the same attributes as in the last sync are removed
+	 * from the list and only added to the map of known users.
+	 * 
+	 * @param ldapUsers The list of users loaded from LDAP
+	 * @param dnToIdentityKeyMap Map of the known users
+	 * @return The list of changed users
+	 */
+	private List<LDAPUser> filterUnchangedUsers(List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap) {
+		List<LDAPUser> changedUsers = new ArrayList<>(ldapUsers.size());
+		for(LDAPUser ldapUser:ldapUsers) {
+			LDAPSyncState.UserState state = syncState.getUser(ldapUser.getDn());
+			if(LDAPSyncState.isUnchanged(state, ldapUser)) {
+				ldapUser.setCachedIdentity(new IdentityRefImpl(state.getIdentityKey()));
+				dnToIdentityKeyMap.put(ldapUser.getDn(), ldapUser);
+			} else {
+				changedUsers.add(ldapUser);
+			}
+		}
+		log.info("LDAP batch sync: {} of {} modified users with changed attributes", changedUsers.size(), ldapUsers.size());
+		return changedUsers;
+	}
+	
+	/**
+	 * 
+	 * @param ctx The LDAP context
+	 * @param ldapUsers The users loaded by the sync (only the changed ones for a delta sync)
+	 * @param dnToIdentityKeyMap Map of the known users
+	 * @param changedDns The DN of the changed users for a delta sync, null for a full sync
+	 * @param affectedGroupIds The groups the changed users leave or join (delta sync only)
+	 * @param errors The errors
+	 * @throws NamingException
+	 */
+	private void doBatchSyncGroups(LdapContext ctx, List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap,
+			Set<String> changedDns, Set<String> affectedGroupIds, LDAPError errors)
 	throws NamingException {
 		ctx.close();
 		
@@ -1416,11 +1519,32 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 			List<String> groupDNs = syncConfiguration.getLdapGroupBases();
 			List<LDAPGroup> ldapGroups = ldapDao.searchGroups(ctx, groupDNs);
 			for(LDAPGroup ldapGroup:ldapGroups) {
+				String groupKey = "group:" + ldapGroup.getCommonName();
+				if(changedDns != null && (syncState.isGroupChanged(groupKey, ldapGroup.getMembers())
+						|| containsAny(ldapGroup.getMembers(), changedDns))) {
+					affectedGroupIds.add(ldapGroup.getCommonName());
+				}
+				syncState.putGroup(groupKey, ldapGroup.getMembers());
 				cnToGroupMap.put(ldapGroup.getCommonName(), ldapGroup);
 			}
 		}
 		if(syncConfiguration.syncGroupWithAttribute()) {
-			doSyncGroupByAttribute(ldapUsers, cnToGroupMap);
+			if(changedDns == null) {
+				doSyncGroupByAttribute(ldapUsers, cnToGroupMap);
+			} else {
+				// all the members of the affected groups, changed or not
+				doSyncGroupByAttribute(syncState.getUsersInGroups(affectedGroupIds), cnToGroupMap);
+			}
+		}
+		if(changedDns != null) {
+			cnToGroupMap.keySet().retainAll(affectedGroupIds);
+			if(syncConfiguration.syncGroupWithAttribute()) {
+				// the last members left the group
+				for(String affectedGroupId:affectedGroupIds) {
+					cnToGroupMap.computeIfAbsent(affectedGroupId, LDAPGroup::new);
+				}
+			}
+			log.info("LDAP batch sync: {} groups affected by the changes", cnToGroupMap.size());
 		}
 		
 		if(syncConfiguration.syncGroupWithLDAPGroup() || syncConfiguration.syncGroupWithAttribute()) {
@@ -1601,8 +1725,27 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, AuthenticationPro
 		return managedBusinessGroup;
 	}
 	
+	private static boolean containsAny(List<String> members, Set<String> dns) {
+		if(members != null && !dns.isEmpty()) {
+			for(String member:members) {
+				if(dns.contains(member)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
 	private LDAPUser getLDAPUser(LdapContext ctx, String member, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors) {
 		LDAPUser ldapUser = dnToIdentityKeyMap.get(member);
+		if(ldapUser == null) {
+			// known by the last synchronization
+			LDAPSyncState.UserState state = syncState.getUser(member);
+			if(state != null && state.getIdentityKey() != null) {
+				ldapUser = state.toLDAPUser(member);
+				dnToIdentityKeyMap.put(member, ldapUser);
+			}
+		}
 
 		IdentityRef identity = ldapUser == null ? null : ldapUser.getCachedIdentity();
 		if(identity == null) {
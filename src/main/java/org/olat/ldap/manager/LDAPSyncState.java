@@ -0,0 +1,289 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ldap.manager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+
+import org.olat.basesecurity.model.IdentityRefImpl;
+import org.olat.ldap.model.LDAPUser;
+
+/**
+ * The state of the last batch synchronization, kept in memory by the node
+ * which runs the sync. For every DN it remembers the identity and a hash of
+ * the synchronized attributes, for every LDAP group a hash of its members.
+ * A delta synchronization uses it to skip the users and groups which didn't
+ * change since the last run. The state is rebuilt by every full synchronization.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+class LDAPSyncState {
+	
+	private final Map<String,UserState> users = new HashMap<>();
+	private final Map<String,Long> groups = new HashMap<>();
+	private Date lastFullSync;
+	
+	public synchronized Date getLastFullSync() {
+		return lastFullSync;
+	}
+	
+	public synchronized void setLastFullSync(Date lastFullSync) {
+		this.lastFullSync = lastFullSync;
+	}
+	
+	/**
+	 * Start a full synchronization from scratch.
+	 */
+	public synchronized void clear() {
+		users.clear();
+		groups.clear();
+		lastFullSync = null;
+	}
+	
+	public synchronized int size() {
+		return users.size();
+	}
+	
+	public synchronized UserState getUser(String dn) {
+		return dn == null ? null : users.get(dn);
+	}
+	
+	/**
+	 * Remember the state of the specified user. The user need an identity.
+	 * 
+	 * @param ldapUser The LDAP user with its attributes and its cached identity
+	 * @param affectedGroupIds If not null, collects the groups the user was
+	 * 		member of before and is member of now
+	 */
+	public synchronized void putUser(LDAPUser ldapUser, Set<String> affectedGroupIds) {
+		if(ldapUser.getDn() == null || ldapUser.getCachedIdentity() == null) return;
+		
+		UserState newState = new UserState(ldapUser.getCachedIdentity().getKey(), hash(ldapUser),
+				ldapUser.isCoach(), ldapUser.getGroupIds(), ldapUser.getCoachedGroupIds());
+		UserState oldState = users.put(ldapUser.getDn(), newState);
+		if(affectedGroupIds != null) {
+			if(oldState != null) {
+				oldState.collectGroupIds(affectedGroupIds);
+			}
+			newState.collectGroupIds(affectedGroupIds);
+		}
+	}
+	
+	/**
+	 * @param groupIds A list of group identifiers
+	 * @return Lightweight LDAP users (DN, identity, coach flag and groups) of all
+	 * 		the users which are member or coach of at least one of the specified groups
+	 */
+	public synchronized List<LDAPUser> getUsersInGroups(Set<String> groupIds) {
+		List<LDAPUser> members = new ArrayList<>();
+		if(groupIds.isEmpty()) return members;
+		
+		for(Map.Entry<String,UserState> entry:users.entrySet()) {
+			UserState state = entry.getValue();
+			if(state.isInGroups(groupIds)) {
+				members.add(state.toLDAPUser(entry.getKey()));
+			}
+		}
+		return members;
+	}
+	
+	/**
+	 * @param key The key of the group
+	 * @param members The list of DN of the members
+	 * @return true if the list of members is not the same as in the last synchronization
+	 */
+	public synchronized boolean isGroupChanged(String key, List<String> members) {
+		Long previousHash = groups.get(key);
+		return previousHash == null || previousHash.longValue() != hash(members);
+	}
+	
+	public synchronized void putGroup(String key, List<String> members) {
+		groups.put(key, Long.valueOf(hash(members)));
+	}
+	
+	public static boolean isUnchanged(UserState state, LDAPUser ldapUser) {
+		return state != null && state.getIdentityKey() != null
+				&& state.getAttributesHash() == hash(ldapUser);
+	}
+	
+	/**
+	 * The hash include the attributes and the values calculated from them
+	 * with the current configuration (coach flag, groups...). The order
+	 * of the attributes and of the values doesn't matter.
+	 * 
+	 * @param ldapUser The LDAP user
+	 * @return A hash of the attributes
+	 */
+	public static long hash(LDAPUser ldapUser) {
+		MessageDigest digest = digest();
+		Attributes attributes = ldapUser.getAttributes();
+		if(attributes != null) {
+			try {
+				Map<String,List<String>> sortedAttributes = new TreeMap<>();
+				for(NamingEnumeration<? extends Attribute> attrs = attributes.getAll(); attrs.hasMore(); ) {
+					Attribute attr = attrs.next();
+					List<String> values = new ArrayList<>();
+					for(NamingEnumeration<?> attrValues = attr.getAll(); attrValues.hasMore(); ) {
+						Object value = attrValues.next();
+						if(value instanceof byte[]) {
+							values.add(Arrays.toString((byte[])value));
+						} else if(value != null) {
+							values.add(value.toString());
+						}
+					}
+					values.sort(null);
+					sortedAttributes.put(attr.getID().toLowerCase(), values);
+				}
+				for(Map.Entry<String,List<String>> attr:sortedAttributes.entrySet()) {
+					update(digest, attr.getKey());
+					for(String value:attr.getValue()) {
+						update(digest, value);
+					}
+				}
+			} catch (NamingException e) {
+				// a hash which never match
+				update(digest, e.getMessage());
+				update(digest, Long.toString(System.nanoTime()));
+			}
+		}
+		update(digest, Boolean.toString(ldapUser.isCoach()));
+		update(digest, ldapUser.getGroupIds());
+		update(digest, ldapUser.getCoachedGroupIds());
+		return ByteBuffer.wrap(digest.digest()).getLong();
+	}
+	
+	public static long hash(List<String> members) {
+		MessageDigest digest = digest();
+		if(members != null) {
+			List<String> sortedMembers = new ArrayList<>(members);
+			sortedMembers.sort(null);
+			update(digest, sortedMembers);
+		}
+		return ByteBuffer.wrap(digest.digest()).getLong();
+	}
+	
+	private static void update(MessageDigest digest, Collection<String> values) {
+		update(digest, values == null ? "-" : Integer.toString(values.size()));
+		if(values != null) {
+			for(String value:values) {
+				update(digest, value);
+			}
+		}
+	}
+	
+	private static void update(MessageDigest digest, String value) {
+		if(value != null) {
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+		digest.update((byte)0);
+	}
+	
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	public static class UserState {
+		
+		private final Long identityKey;
+		private final long attributesHash;
+		private final boolean coach;
+		private final List<String> groupIds;
+		private final List<String> coachedGroupIds;
+		
+		public UserState(Long identityKey, long attributesHash, boolean coach,
+				List<String> groupIds, List<String> coachedGroupIds) {
+			this.identityKey = identityKey;
+			this.attributesHash = attributesHash;
+			this.coach = coach;
+			this.groupIds = groupIds == null || groupIds.isEmpty() ? null : List.copyOf(groupIds);
+			this.coachedGroupIds = coachedGroupIds == null || coachedGroupIds.isEmpty() ? null : List.copyOf(coachedGroupIds);
+		}
+		
+		public Long getIdentityKey() {
+			return identityKey;
+		}
+		
+		public long getAttributesHash() {
+			return attributesHash;
+		}
+		
+		private void collectGroupIds(Set<String> collector) {
+			if(groupIds != null) {
+				collector.addAll(groupIds);
+			}
+			if(coachedGroupIds != null) {
+				collector.addAll(coachedGroupIds);
+			}
+		}
+		
+		private boolean isInGroups(Set<String> ids) {
+			if(groupIds != null) {
+				for(String groupId:groupIds) {
+					if(ids.contains(groupId)) {
+						return true;
+					}
+				}
+			}
+			if(coachedGroupIds != null) {
+				for(String coachedGroupId:coachedGroupIds) {
+					if(ids.contains(coachedGroupId)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * @param dn The DN of the user
+		 * @return An LDAP user without attributes
+		 */
+		public LDAPUser toLDAPUser(String dn) {
+			LDAPUser ldapUser = new LDAPUser();
+			ldapUser.setDn(dn);
+			ldapUser.setCoach(coach);
+			ldapUser.setGroupIds(groupIds == null ? new ArrayList<>() : new ArrayList<>(groupIds));
+			ldapUser.setCoachedGroupIds(coachedGroupIds == null ? new ArrayList<>() : new ArrayList<>(coachedGroupIds));
+			ldapUser.setCachedIdentity(new IdentityRefImpl(identityKey));
+			return ldapUser;
+		}
+	}
+}
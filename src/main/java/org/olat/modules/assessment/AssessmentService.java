@@ -22,6 +22,7 @@ package org.olat.modules.assessment;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.olat.core.id.Identity;
 import org.olat.group.BusinessGroup;
@@ -82,6 +83,15 @@ public interface AssessmentService {
 	
 	public List<AssessmentEntry> loadAssessmentEntriesByAssessedIdentity(Identity assessedIdentity, RepositoryEntry entry);
 	
+	public List<AssessmentEntry> loadAssessmentEntriesByAssessedIdentity(Identity assessedIdentity, RepositoryEntry entry, Collection<String> subIdents);
+	
+	/**
+	 * @param assessedIdentity The assessed user
+	 * @param entry The course
+	 * @return The last modification date of the assessment entries of the user by course element identifier
+	 */
+	public Map<String,Date> getAssessmentEntriesLastModified(Identity assessedIdentity, RepositoryEntry entry);
+	
 	public List<AssessmentEntryScoring> loadRootAssessmentEntriesByAssessedIdentity(Identity assessedIdentity, Collection<Long> entryKeys);
 	
 	public List<AssessmentEntry> loadAssessmentEntries(BusinessGroup assessedGroup, RepositoryEntry entry, String subIdent);
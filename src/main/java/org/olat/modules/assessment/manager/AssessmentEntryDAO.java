@@ -22,7 +22,9 @@ package org.olat.modules.assessment.manager;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.TypedQuery;
@@ -387,6 +389,83 @@ public class AssessmentEntryDAO {
 				.getResultList();
 	}
 
+	/**
+	 * Load the assessment entries of a user in a course for some course elements.
+	 * 
+	 * @param assessedIdentity The assessed user
+	 * @param entry The assessed course / repository entry
+	 * @param subIdents The identifiers of the course elements
+	 * @return A list of assessment entries
+	 */
+	public List<AssessmentEntry> loadAssessmentEntriesByAssessedIdentity(Identity assessedIdentity, RepositoryEntry entry, Collection<String> subIdents) {
+		if (subIdents == null || subIdents.isEmpty()) return Collections.emptyList();
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("select data from assessmententry data where data.repositoryEntry.key=:repositoryEntryKey and data.identity.key=:identityKey")
+		  .append(" and data.subIdent in (:subIdents)");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), AssessmentEntry.class)
+				.setParameter("repositoryEntryKey", entry.getKey())
+				.setParameter("identityKey", assessedIdentity.getKey())
+				.setParameter("subIdents", subIdents)
+				.getResultList();
+	}
+
+	/**
+	 * Load all the assessment entries of a list of users in a course.
+	 * 
+	 * @param identityKeys The keys of the assessed users
+	 * @param entry The assessed course / repository entry
+	 * @return A list of assessment entries
+	 */
+	public List<AssessmentEntry> loadAssessmentEntriesByAssessedIdentities(Collection<Long> identityKeys, RepositoryEntryRef entry) {
+		if (entry == null || identityKeys == null || identityKeys.isEmpty()) return Collections.emptyList();
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("select data from assessmententry data where data.repositoryEntry.key=:repositoryEntryKey and data.identity.key in (:identityKeys)");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), AssessmentEntry.class)
+				.setParameter("repositoryEntryKey", entry.getKey())
+				.setParameter("identityKeys", identityKeys)
+				.getResultList();
+	}
+
+	/**
+	 * @param assessedIdentity The assessed user
+	 * @param entry The assessed course / repository entry
+	 * @return The last modification date of all the assessment entries of the user in the course
+	 */
+	public Date getLastModified(IdentityRef assessedIdentity, RepositoryEntryRef entry) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select max(data.lastModified) from assessmententry data where data.repositoryEntry.key=:repositoryEntryKey and data.identity.key=:identityKey");
+		List<Date> lastModified = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Date.class)
+				.setParameter("repositoryEntryKey", entry.getKey())
+				.setParameter("identityKey", assessedIdentity.getKey())
+				.getResultList();
+		return lastModified.isEmpty() ? null : lastModified.get(0);
+	}
+
+	/**
+	 * @param assessedIdentity The assessed user
+	 * @param entry The assessed course / repository entry
+	 * @return The last modification date of the assessment entries of the user in the course by course element identifier
+	 */
+	public Map<String,Date> getLastModifiedBySubIdent(IdentityRef assessedIdentity, RepositoryEntryRef entry) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select data.subIdent, data.lastModified from assessmententry data where data.repositoryEntry.key=:repositoryEntryKey and data.identity.key=:identityKey");
+		List<Object[]> rawObjects = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("repositoryEntryKey", entry.getKey())
+				.setParameter("identityKey", assessedIdentity.getKey())
+				.getResultList();
+		Map<String,Date> lastModified = new HashMap<>();
+		for(Object[] rawObject:rawObjects) {
+			lastModified.put((String)rawObject[0], (Date)rawObject[1]);
+		}
+		return lastModified;
+	}
+
 	/**
 	 * Load all the assessment entry of the specific group. But aware that the query exclude the default group
 	 * of the repository entry! The query doesn't check the member ship but only the relation to the course.
@@ -22,6 +22,7 @@ package org.olat.modules.assessment.manager;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.PersistenceException;
 
@@ -126,6 +127,17 @@ public class AssessmentServiceImpl implements AssessmentService, UserDataDeletab
 		return assessmentEntryDao.loadAssessmentEntriesByAssessedIdentity(assessedIdentity, entry);
 	}
 
+	@Override
+	public List<AssessmentEntry> loadAssessmentEntriesByAssessedIdentity(Identity assessedIdentity,
+			RepositoryEntry entry, Collection<String> subIdents) {
+		return assessmentEntryDao.loadAssessmentEntriesByAssessedIdentity(assessedIdentity, entry, subIdents);
+	}
+
+	@Override
+	public Map<String,Date> getAssessmentEntriesLastModified(Identity assessedIdentity, RepositoryEntry entry) {
+		return assessmentEntryDao.getLastModifiedBySubIdent(assessedIdentity, entry);
+	}
+
 	@Override
 	public List<AssessmentEntry> loadAssessmentEntries(BusinessGroup assessedGroup, RepositoryEntry entry, String subIdent) {
 		return assessmentEntryDao.loadAssessmentEntryByGroup(assessedGroup.getBaseGroup(), entry, subIdent);
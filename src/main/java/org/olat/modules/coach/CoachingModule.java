@@ -45,6 +45,8 @@ public class CoachingModule  extends AbstractSpringModule implements ConfigOnOff
 	private boolean enabled;
 	@Value("${password.change.by.coach.allowed:false}")
 	private boolean resetPasswordEnabled;
+	@Value("${coaching.rollups.enabled:true}")
+	private boolean rollupsEnabled;
 	
 	@Autowired
 	public CoachingModule(CoordinatorManager coordinatorManager) {
@@ -66,6 +68,19 @@ public class CoachingModule  extends AbstractSpringModule implements ConfigOnOff
 	public boolean isResetPasswordEnabled() {
 		return resetPasswordEnabled;
 	}
+	
+	/**
+	 * @return true if the statistics of the courses and the students are
+	 * 		read from the rollups
+	 */
+	public boolean isRollupsEnabled() {
+		return rollupsEnabled;
+	}
+
+	public void setRollupsEnabled(boolean enabled) {
+		rollupsEnabled = enabled;
+		setStringProperty("coaching.rollups.enabled", Boolean.toString(enabled), true);
+	}
 
 	@Override
 	public void init() {
@@ -88,5 +103,10 @@ public class CoachingModule  extends AbstractSpringModule implements ConfigOnOff
 		if(StringHelper.containsNonWhitespace(enabledObj)) {
 			enabled = "true".equals(enabledObj);
 		}
+		
+		String rollupsEnabledObj = getStringPropertyValue("coaching.rollups.enabled", true);
+		if(StringHelper.containsNonWhitespace(rollupsEnabledObj)) {
+			rollupsEnabled = "true".equals(rollupsEnabledObj);
+		}
 	}
 }
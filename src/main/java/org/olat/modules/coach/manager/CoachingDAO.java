@@ -21,6 +21,7 @@ package org.olat.modules.coach.manager;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -32,6 +33,7 @@ import java.util.stream.Collectors;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import org.apache.logging.log4j.Logger;
 import org.olat.basesecurity.GroupRoles;
@@ -436,12 +438,21 @@ public class CoachingDAO {
 	}
 	
 	protected List<CourseStatEntry> getCoursesStatisticsNative(Identity coach) {
+		return getCoursesStatisticsNative(coach, null);
+	}
+	
+	/**
+	 * @param coach The coach
+	 * @param entryKeys Restrict the statistics to these courses or null for all the courses of the coach
+	 * @return The statistics of the courses
+	 */
+	protected List<CourseStatEntry> getCoursesStatisticsNative(Identity coach, Collection<Long> entryKeys) {
 		Map<Long,CourseStatEntry> map = new HashMap<>();		
-		boolean hasCourses = getCourses(coach, map);
+		boolean hasCourses = getCourses(coach, entryKeys, map);
 		if(hasCourses) {
-			getCoursesStatisticsUserInfosForCoach(coach, map);
-			getCoursesStatisticsUserInfosForOwner(coach, map);
-			getCoursesStatisticsStatements(coach, map);
+			getCoursesStatisticsUserInfosForCoach(coach, entryKeys, map);
+			getCoursesStatisticsUserInfosForOwner(coach, entryKeys, map);
+			getCoursesStatisticsStatements(coach, entryKeys, map);
 			for(Iterator<Map.Entry<Long,CourseStatEntry>> it=map.entrySet().iterator(); it.hasNext(); ) {
 				CourseStatEntry entry = it.next().getValue();
 				if(entry.getCountStudents() == 0) {
@@ -451,12 +462,35 @@ public class CoachingDAO {
 					entry.setCountNotAttempted(notAttempted);
 				}
 			}
-			getCourseCompletionStatements(coach, map);
+			getCourseCompletionStatements(coach, entryKeys, map);
 		}
 		return new ArrayList<>(map.values());
 	}
 
-	private boolean getCourses(IdentityRef coach, Map<Long,CourseStatEntry> map) {
+	/**
+	 * @param coach The coach
+	 * @return The keys of the courses coached or owned by the specified identity,
+	 * 		the same courses as the ones of the courses statistics
+	 */
+	protected List<Long> getCoursesKeys(IdentityRef coach) {
+		QueryBuilder sb = new QueryBuilder(1024);
+		sb.append("select distinct v.key")
+		  .append(" from repositoryentry v")
+		  .append(" inner join v.olatResource as res")
+		  .append(" inner join v.groups as relGroup")
+		  .append(" inner join relGroup.group as baseGroup")
+		  .append(" inner join baseGroup.members as coach on coach.role ")
+		  		.in(GroupRoles.coach, GroupRoles.owner)
+		  .append(" where coach.identity.key=:coachKey and res.resName='CourseModule'")
+		  .append(" and v.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed());
+
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class)
+				.setParameter("coachKey", coach.getKey())
+				.getResultList();
+	}
+
+	private boolean getCourses(IdentityRef coach, Collection<Long> entryKeys, Map<Long,CourseStatEntry> map) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select v.key, v.displayname, v.status")
 		  .append(" from repositoryentry v")
@@ -467,11 +501,17 @@ public class CoachingDAO {
 		  		.in(GroupRoles.coach, GroupRoles.owner)
 		  .append(" where coach.identity.key=:coachKey and res.resName='CourseModule'")
 		  .append(" and v.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed());
+		if(entryKeys != null) {
+			sb.append(" and v.key in (:entryKeys)");
+		}
 
-		List<Object[]> rawList = dbInstance.getCurrentEntityManager()
+		TypedQuery<Object[]> query = dbInstance.getCurrentEntityManager()
 				.createQuery(sb.toString(), Object[].class)
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(entryKeys != null) {
+			query.setParameter("entryKeys", entryKeys);
+		}
+		List<Object[]> rawList = query.getResultList();
 
 		for(Object[] rawStat:rawList) {
 			CourseStatEntry entry = new CourseStatEntry();
@@ -483,7 +523,7 @@ public class CoachingDAO {
 		return !rawList.isEmpty();
 	}
 	
-	private boolean getCoursesStatisticsUserInfosForCoach(Identity coach, Map<Long,CourseStatEntry> map) {
+	private boolean getCoursesStatisticsUserInfosForCoach(Identity coach, Collection<Long> entryKeys, Map<Long,CourseStatEntry> map) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select")
 		  .append("  sg_re.repositoryentry_id as re_id,")
@@ -496,12 +536,16 @@ public class CoachingDAO {
 		  .append(" left join o_as_user_course_infos pg_initial_launch")
 		  .append("   on (pg_initial_launch.fk_resource_id = sg_re.fk_olatresource and pg_initial_launch.fk_identity = sg_participant.fk_identity_id)")
 		  .append(" where sg_coach.fk_identity_id=:coachKey and sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+		  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 		  .append(" group by sg_re.repositoryentry_id");
 
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(entryKeys != null) {
+			query.setParameter("entryKeys", entryKeys);
+		}
+		List<?> rawList = query.getResultList();
 		
 		for(Object rawObject:rawList) {
 			Object[] rawStats = (Object[])rawObject;
@@ -515,7 +559,7 @@ public class CoachingDAO {
 		return !rawList.isEmpty();
 	}
 	
-	private boolean getCoursesStatisticsUserInfosForOwner(Identity coach, Map<Long,CourseStatEntry> map) {
+	private boolean getCoursesStatisticsUserInfosForOwner(Identity coach, Collection<Long> entryKeys, Map<Long,CourseStatEntry> map) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		if(dbInstance.isMySQL()) {
 			sb.append("select")
@@ -531,6 +575,7 @@ public class CoachingDAO {
 			  .append(" left join o_as_user_course_infos pg_initial_launch")
 			  .append("   on (pg_initial_launch.fk_resource_id = sg_re.fk_olatresource and pg_initial_launch.fk_identity = sg_participant.fk_identity_id)")
 			  .append(" where sg_coach.fk_identity_id=:coachKey and sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+			  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 			  .append(" group by sg_re.repositoryentry_id");
 		} else {
 			sb.append("select")
@@ -549,13 +594,17 @@ public class CoachingDAO {
 			  .append("  where owngroup.fk_entry_id = sg_re.repositoryentry_id and owngroup.r_defgroup=").appendTrue().append(" and sg_owner.fk_identity_id=:coachKey")
 			  .append("  and sg_owner.g_role ").in(GroupRoles.owner)
 			  .append(" )")
+			  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 			  .append(" group by sg_re.repositoryentry_id");
 		}
 
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(entryKeys != null) {
+			query.setParameter("entryKeys", entryKeys);
+		}
+		List<?> rawList = query.getResultList();
 		
 		for(Object rawObject:rawList) {
 			Object[] rawStats = (Object[])rawObject;
@@ -569,7 +618,7 @@ public class CoachingDAO {
 		return !rawList.isEmpty();
 	}
 	
-	private boolean getCoursesStatisticsStatements(Identity coach, Map<Long,CourseStatEntry> map) {
+	private boolean getCoursesStatisticsStatements(Identity coach, Collection<Long> entryKeys, Map<Long,CourseStatEntry> map) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select ")
 		  .append(" fin_statement.course_repo_key, ")
@@ -585,6 +634,7 @@ public class CoachingDAO {
 		  .append(" inner join o_bs_group_member sg_participant on (sg_participant.fk_group_id=sg_coach.fk_group_id and sg_participant.g_role='participant')")
 		  .append(" inner join o_as_eff_statement sg_statement on (sg_statement.fk_identity = sg_participant.fk_identity_id and sg_statement.fk_resource_id = sg_re.fk_olatresource) ")
 		  .append(" where sg_coach.fk_identity_id=:coachKey and sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+		  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 		  .append(" union select sg_statement.id ")
 		  .append(" from o_repositoryentry sg_re ")
 		  .append(" inner join o_re_to_group owngroup on (owngroup.fk_entry_id = sg_re.repositoryentry_id and owngroup.r_defgroup=").appendTrue().append(") ")
@@ -594,13 +644,17 @@ public class CoachingDAO {
 		  .append(" inner join o_bs_group_member sg_participant on (sg_participant.fk_group_id=togroup.fk_group_id and sg_participant.g_role='participant') ")
 		  .append(" inner join o_as_eff_statement sg_statement on (sg_statement.fk_identity = sg_participant.fk_identity_id and sg_statement.fk_resource_id = sg_re.fk_olatresource) ")
 		  .append(" where sg_coach.fk_identity_id=:coachKey and sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+		  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 		  .append(") ")
 		  .append("group by fin_statement.course_repo_key ");
 
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(entryKeys != null) {
+			query.setParameter("entryKeys", entryKeys);
+		}
+		List<?> rawList = query.getResultList();
 		
 		for(Object rawObject:rawList) {
 			Object[] rawStats = (Object[])rawObject;
@@ -619,7 +673,7 @@ public class CoachingDAO {
 		return !rawList.isEmpty();
 	}
 	
-	private boolean getCourseCompletionStatements(Identity coach, Map<Long, CourseStatEntry> map) {
+	private boolean getCourseCompletionStatements(Identity coach, Collection<Long> entryKeys, Map<Long, CourseStatEntry> map) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select ")
 		  .append(" ae.fk_entry, ")
@@ -634,6 +688,7 @@ public class CoachingDAO {
 		  .append(" inner join o_bs_group_member sg_participant on (sg_participant.fk_group_id=sg_coach.fk_group_id and sg_participant.g_role='participant')")
 		  .append(" inner join o_as_entry sg_ae on (sg_ae.fk_identity = sg_participant.fk_identity_id and sg_ae.fk_entry = sg_re.repositoryentry_id) ")
 		  .append(" where sg_coach.fk_identity_id=:coachKey and sg_ae.a_entry_root=").appendTrue()
+		  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 		  .append(" union ")
 		  .append(" select sg_ae.id ")
 		  .append(" from o_repositoryentry sg_re ")
@@ -643,13 +698,17 @@ public class CoachingDAO {
 		  .append(" inner join o_bs_group_member sg_participant on (sg_participant.fk_group_id=togroup.fk_group_id and sg_participant.g_role='participant') ")
 		  .append(" inner join o_as_entry sg_ae on (sg_ae.fk_identity = sg_participant.fk_identity_id and sg_ae.fk_entry = sg_re.repositoryentry_id) ")
 		  .append(" where sg_coach.fk_identity_id=:coachKey  and sg_ae.a_entry_root=").appendTrue()
+		  .append((entryKeys == null ? "" : " and sg_re.repositoryentry_id in (:entryKeys)"))
 		  .append(") ")
 		  .append("group by ae.fk_entry ");
 
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(entryKeys != null) {
+			query.setParameter("entryKeys", entryKeys);
+		}
+		List<?> rawList = query.getResultList();
 		
 		for(Object rawObject:rawList) {
 			Object[] rawStat = (Object[])rawObject;
@@ -664,9 +723,21 @@ public class CoachingDAO {
 	}
 	
 	protected List<StudentStatEntry> getStudentsStatisticsNative(Identity coach, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
+		return getStudentsStatisticsNative(coach, null, userPropertyHandlers, locale);
+	}
+	
+	/**
+	 * @param coach The coach
+	 * @param studentKeys Restrict the statistics to these students or null for all the students of the coach
+	 * @param userPropertyHandlers The user properties to load
+	 * @param locale The locale
+	 * @return The statistics of the students
+	 */
+	protected List<StudentStatEntry> getStudentsStatisticsNative(Identity coach, Collection<Long> studentKeys,
+			List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
 		Map<Long, StudentStatEntry> map = new HashMap<>();
-		boolean hasCoachedStudents = getStudentsStastisticInfosForCoach(coach, map, userPropertyHandlers, locale);
-		boolean hasOwnedStudents = getStudentsStastisticInfosForOwner(coach, map, userPropertyHandlers, locale);
+		boolean hasCoachedStudents = getStudentsStastisticInfosForCoach(coach, studentKeys, map, userPropertyHandlers, locale);
+		boolean hasOwnedStudents = getStudentsStastisticInfosForOwner(coach, studentKeys, map, userPropertyHandlers, locale);
 		if(hasOwnedStudents || hasCoachedStudents) {
 			for(StudentStatEntry entry:map.values()) {
 				entry.setCountRepo(entry.getRepoIds().size());
@@ -674,17 +745,17 @@ public class CoachingDAO {
 				entry.setInitialLaunch(entry.getLaunchIds().size());
 				entry.setLaunchIds(null);
 			}
-			getStudentsStatisticStatement(coach, hasCoachedStudents, hasOwnedStudents, map);
+			getStudentsStatisticStatement(coach, studentKeys, hasCoachedStudents, hasOwnedStudents, map);
 			for(StudentStatEntry entry:map.values()) {
 				int notAttempted = entry.getCountRepo() - entry.getCountPassed() - entry.getCountFailed();
 				entry.setCountNotAttempted(notAttempted);
 			}
-			getStudentsCompletionStatement(coach, hasCoachedStudents, hasOwnedStudents, map);
+			getStudentsCompletionStatement(coach, studentKeys, hasCoachedStudents, hasOwnedStudents, map);
 		}
 		return new ArrayList<>(map.values());
 	}
 	
-	private boolean getStudentsStastisticInfosForCoach(IdentityRef coach, Map<Long, StudentStatEntry> map, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
+	private boolean getStudentsStastisticInfosForCoach(IdentityRef coach, Collection<Long> studentKeys, Map<Long, StudentStatEntry> map, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select")
 		  .append("  sg_participant_id.id as part_id,")
@@ -702,15 +773,19 @@ public class CoachingDAO {
 		  .append(" left join o_as_user_course_infos pg_initial_launch")
 		  .append("   on (pg_initial_launch.fk_resource_id = sg_re.fk_olatresource and pg_initial_launch.fk_identity = sg_participant.fk_identity_id)")
 		  .append(" where sg_coach.fk_identity_id=:coachKey and sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+		  .append((studentKeys == null ? "" : " and sg_participant.fk_identity_id in (:studentKeys)"))
 		  .append(" group by sg_participant_id.id, sg_participant_user.user_id");
 		if(dbInstance.isOracle()) {
 			writeUserPropertiesGroupBy("sg_participant_user", sb, userPropertyHandlers);
 		}
 
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(studentKeys != null) {
+			query.setParameter("studentKeys", studentKeys);
+		}
+		List<?> rawList = query.getResultList();
 
 		int numOfProperties = userPropertyHandlers.size();
 		for(Object rawObject:rawList) {
@@ -747,7 +822,7 @@ public class CoachingDAO {
 		}	
 	}
 	
-	private boolean getStudentsStastisticInfosForOwner(IdentityRef coach, Map<Long, StudentStatEntry> map, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
+	private boolean getStudentsStastisticInfosForOwner(IdentityRef coach, Collection<Long> studentKeys, Map<Long, StudentStatEntry> map, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select")
 		  .append("  sg_participant_id.id as part_id,")
@@ -769,15 +844,19 @@ public class CoachingDAO {
 		  .append(" where sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed()).append(" and exists (")
 		  .append("  select sg_res.resource_id from o_olatresource sg_res where sg_re.fk_olatresource=sg_res.resource_id and sg_res.resname = 'CourseModule'")
 		  .append(" )")
+		  .append((studentKeys == null ? "" : " and sg_participant.fk_identity_id in (:studentKeys)"))
 		  .append(" group by sg_participant_id.id, sg_participant_user.user_id");
 		if(dbInstance.isOracle()) {
 			writeUserPropertiesGroupBy("sg_participant_user", sb, userPropertyHandlers);
 		}
 
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(studentKeys != null) {
+			query.setParameter("studentKeys", studentKeys);
+		}
+		List<?> rawList = query.getResultList();
 
 		int numOfProperties = userPropertyHandlers.size();
 		Map<Long,StudentStatEntry> stats = new HashMap<>();
@@ -832,7 +911,7 @@ public class CoachingDAO {
 		}
 	}
 	
-	private boolean getStudentsStatisticStatement(IdentityRef coach, boolean hasCoached, boolean hasOwned, Map<Long,StudentStatEntry> stats) {
+	private boolean getStudentsStatisticStatement(IdentityRef coach, Collection<Long> studentKeys, boolean hasCoached, boolean hasOwned, Map<Long,StudentStatEntry> stats) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select ")
 		  .append(" fin_statement.fk_identity, ")
@@ -851,7 +930,8 @@ public class CoachingDAO {
 			  .append("  inner join o_bs_group_member sg_participant on (sg_participant.fk_group_id=sg_coach.fk_group_id and sg_participant.g_role='participant')")
 			  .append("  inner join o_as_eff_statement sg_statement")
 			  .append("    on (sg_statement.fk_identity = sg_participant.fk_identity_id and sg_statement.fk_resource_id = sg_re.fk_olatresource)")
-			  .append("  where  sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed());
+			  .append("  where  sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+			  .append((studentKeys == null ? "" : " and sg_participant.fk_identity_id in (:studentKeys)"));
 		}
 		if(hasOwned) {
 			if(hasCoached) {
@@ -868,16 +948,20 @@ public class CoachingDAO {
 			  .append("  inner join o_bs_group_member sg_participant on (sg_participant.fk_group_id=togroup.fk_group_id and sg_participant.g_role='participant')")
 			  .append("  inner join o_as_eff_statement sg_statement ")
 			  .append("    on (sg_statement.fk_identity = sg_participant.fk_identity_id and sg_statement.fk_resource_id = sg_re.fk_olatresource)")
-			  .append("  where sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed()).append("");
+			  .append("  where sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
+			  .append((studentKeys == null ? "" : " and sg_participant.fk_identity_id in (:studentKeys)"));
 		  
 		}
 		sb.append(")")
 		  .append(" group by fin_statement.fk_identity");
 		
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(studentKeys != null) {
+			query.setParameter("studentKeys", studentKeys);
+		}
+		List<?> rawList = query.getResultList();
 		
 		for(Object rawObject:rawList) {
 			Object[] rawStat = (Object[])rawObject;
@@ -893,7 +977,7 @@ public class CoachingDAO {
 		return !rawList.isEmpty();
 	}
 	
-	private boolean getStudentsCompletionStatement(IdentityRef coach, boolean hasCoached, boolean hasOwned, Map<Long,StudentStatEntry> stats) {
+	private boolean getStudentsCompletionStatement(IdentityRef coach, Collection<Long> studentKeys, boolean hasCoached, boolean hasOwned, Map<Long,StudentStatEntry> stats) {
 		NativeQueryBuilder sb = new NativeQueryBuilder(1024, dbInstance);
 		sb.append("select ")
 		  .append(" ae.fk_identity, ")
@@ -911,7 +995,8 @@ public class CoachingDAO {
 			  .append(" inner join o_as_entry sg_ae")
 			  .append("    on (sg_ae.fk_identity = sg_participant.fk_identity_id and sg_ae.fk_entry = sg_re.repositoryentry_id)")
 			  .append(" where sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
-			  .append("    and sg_ae.a_entry_root=").appendTrue().append(" and sg_ae.a_completion is not null");
+			  .append("    and sg_ae.a_entry_root=").appendTrue().append(" and sg_ae.a_completion is not null")
+			  .append((studentKeys == null ? "" : " and sg_participant.fk_identity_id in (:studentKeys)"));
 		}
 		if(hasOwned) {
 			if(hasCoached) {
@@ -928,15 +1013,19 @@ public class CoachingDAO {
 			  .append(" inner join o_as_entry sg_ae ")
 			  .append("    on (sg_ae.fk_identity = sg_participant.fk_identity_id and sg_ae.fk_entry = sg_re.repositoryentry_id)")
 			  .append(" where sg_re.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed())
-			  .append("    and sg_ae.a_entry_root=").appendTrue().append(" and sg_ae.a_completion is not null");
+			  .append("    and sg_ae.a_entry_root=").appendTrue().append(" and sg_ae.a_completion is not null")
+			  .append((studentKeys == null ? "" : " and sg_participant.fk_identity_id in (:studentKeys)"));
 		}
 		sb.append(")")
 		  .append(" group by ae.fk_identity");
 		
-		List<?> rawList = dbInstance.getCurrentEntityManager()
+		Query query = dbInstance.getCurrentEntityManager()
 				.createNativeQuery(sb.toString())
-				.setParameter("coachKey", coach.getKey())
-				.getResultList();
+				.setParameter("coachKey", coach.getKey());
+		if(studentKeys != null) {
+			query.setParameter("studentKeys", studentKeys);
+		}
+		List<?> rawList = query.getResultList();
 		
 		for(Object rawObject:rawList) {
 			Object[] rawStat = (Object[])rawObject;
@@ -0,0 +1,382 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.coach.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.LockModeType;
+
+import org.olat.basesecurity.GroupRoles;
+import org.olat.basesecurity.IdentityRef;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.persistence.PersistenceHelper;
+import org.olat.core.commons.persistence.QueryBuilder;
+import org.olat.core.id.Identity;
+import org.olat.modules.coach.model.CoachingCourseRollupImpl;
+import org.olat.modules.coach.model.CoachingRollupStateImpl;
+import org.olat.modules.coach.model.CoachingStudentRollupImpl;
+import org.olat.modules.coach.model.CourseStatEntry;
+import org.olat.modules.coach.model.StudentStatEntry;
+import org.olat.repository.RepositoryEntryStatusEnum;
+import org.olat.user.propertyhandlers.UserPropertyHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class CoachingRollupDAO {
+	
+	@Autowired
+	private DB dbInstance;
+	
+	public CoachingRollupStateImpl createState(Identity coach) {
+		CoachingRollupStateImpl state = new CoachingRollupStateImpl();
+		state.setCreationDate(new Date());
+		state.setLastModified(state.getCreationDate());
+		state.setDirty(true);
+		state.setCoach(coach);
+		dbInstance.getCurrentEntityManager().persist(state);
+		return state;
+	}
+	
+	public CoachingRollupStateImpl loadState(IdentityRef coach) {
+		String query = "select state from coachrollupstate as state where state.coach.key=:coachKey";
+		List<CoachingRollupStateImpl> states = dbInstance.getCurrentEntityManager()
+				.createQuery(query, CoachingRollupStateImpl.class)
+				.setParameter("coachKey", coach.getKey())
+				.getResultList();
+		return states.isEmpty() ? null : states.get(0);
+	}
+	
+	/**
+	 * Load the state with a pessimistic lock. The lock is held during
+	 * the rebuild of the rollups of the coach.
+	 * 
+	 * @param state The state
+	 * @return The reloaded state or null if it was deleted in the meantime
+	 */
+	public CoachingRollupStateImpl loadStateForUpdate(CoachingRollupStateImpl state) {
+		String query = "select state from coachrollupstate as state where state.key=:stateKey";
+		List<CoachingRollupStateImpl> states = dbInstance.getCurrentEntityManager()
+				.createQuery(query, CoachingRollupStateImpl.class)
+				.setParameter("stateKey", state.getKey())
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+		return states.isEmpty() ? null : states.get(0);
+	}
+	
+	public CoachingRollupStateImpl updateState(CoachingRollupStateImpl state) {
+		state.setLastModified(new Date());
+		return dbInstance.getCurrentEntityManager().merge(state);
+	}
+	
+	/**
+	 * @param maxResults The max. number of coaches
+	 * @return The keys of the coaches with dirty rollups, the oldest first
+	 */
+	public List<Long> getDirtyCoachKeys(int maxResults) {
+		String query = "select state.coach.key from coachrollupstate as state where state.dirty=true order by state.lastModified asc";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query, Long.class)
+				.setFirstResult(0)
+				.setMaxResults(maxResults)
+				.getResultList();
+	}
+	
+	public int markDirty(Collection<Long> coachKeys) {
+		if(coachKeys == null || coachKeys.isEmpty()) return 0;
+		
+		String query = "update coachrollupstate set dirty=true, lastModified=:now where dirty=false and coach.key in (:coachKeys)";
+		Date now = new Date();
+		int rows = 0;
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(coachKeys))) {
+			rows += dbInstance.getCurrentEntityManager()
+					.createQuery(query)
+					.setParameter("now", now)
+					.setParameter("coachKeys", chunk)
+					.executeUpdate();
+		}
+		return rows;
+	}
+	
+	public int markAllDirty() {
+		String query = "update coachrollupstate set dirty=true, lastModified=:now where dirty=false";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query)
+				.setParameter("now", new Date())
+				.executeUpdate();
+	}
+	
+	/**
+	 * @param entryKeys A list of courses
+	 * @return The coaches and owners of the specified courses which have rollups,
+	 * 		mapped to their courses in the list
+	 */
+	public Map<Long,Set<Long>> getCoachesWithRollupsOfEntries(Collection<Long> entryKeys) {
+		if(entryKeys == null || entryKeys.isEmpty()) return Collections.emptyMap();
+		
+		QueryBuilder sb = new QueryBuilder(512);
+		sb.append("select distinct membership.identity.key, rel.entry.key from repoentrytogroup as rel")
+		  .append(" inner join rel.group as baseGroup")
+		  .append(" inner join baseGroup.members as membership")
+		  .append(" inner join coachrollupstate as state on (state.coach.key=membership.identity.key)")
+		  .append(" where rel.entry.key in (:entryKeys) and membership.role ").in(GroupRoles.coach, GroupRoles.owner);
+
+		Map<Long,Set<Long>> coachToEntryKeys = new HashMap<>();
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(entryKeys))) {
+			List<Object[]> rawObjects = dbInstance.getCurrentEntityManager()
+					.createQuery(sb.toString(), Object[].class)
+					.setParameter("entryKeys", chunk)
+					.getResultList();
+			for(Object[] rawObject:rawObjects) {
+				coachToEntryKeys.computeIfAbsent((Long)rawObject[0], key -> new HashSet<>())
+					.add((Long)rawObject[1]);
+			}
+		}
+		return coachToEntryKeys;
+	}
+	
+	/**
+	 * @param entryKeys A list of courses
+	 * @return The keys of the participants of the specified courses
+	 */
+	public List<Long> getParticipantKeysOfEntries(Collection<Long> entryKeys) {
+		if(entryKeys == null || entryKeys.isEmpty()) return Collections.emptyList();
+		
+		QueryBuilder sb = new QueryBuilder(512);
+		sb.append("select distinct membership.identity.key from repoentrytogroup as rel")
+		  .append(" inner join rel.group as baseGroup")
+		  .append(" inner join baseGroup.members as membership")
+		  .append(" where rel.entry.key in (:entryKeys) and membership.role ").in(GroupRoles.participant);
+
+		List<Long> participantKeys = new ArrayList<>();
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(entryKeys))) {
+			participantKeys.addAll(dbInstance.getCurrentEntityManager()
+					.createQuery(sb.toString(), Long.class)
+					.setParameter("entryKeys", chunk)
+					.getResultList());
+		}
+		return participantKeys;
+	}
+	
+	/**
+	 * @param groupKeys A list of business groups
+	 * @return The keys of the courses linked to the specified groups
+	 */
+	public List<Long> getEntryKeysOfBusinessGroups(Collection<Long> groupKeys) {
+		if(groupKeys == null || groupKeys.isEmpty()) return Collections.emptyList();
+		
+		QueryBuilder sb = new QueryBuilder(512);
+		sb.append("select distinct rel.entry.key from repoentrytogroup as rel")
+		  .append(" inner join businessgroup as bgroup on (bgroup.baseGroup.key=rel.group.key)")
+		  .append(" where bgroup.key in (:groupKeys)");
+
+		List<Long> entryKeys = new ArrayList<>();
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(groupKeys))) {
+			entryKeys.addAll(dbInstance.getCurrentEntityManager()
+					.createQuery(sb.toString(), Long.class)
+					.setParameter("groupKeys", chunk)
+					.getResultList());
+		}
+		return entryKeys;
+	}
+	
+	/**
+	 * @param resourceKeys A list of OLAT resources
+	 * @return The keys of the courses of the specified resources
+	 */
+	public List<Long> getEntryKeysOfResources(Collection<Long> resourceKeys) {
+		if(resourceKeys == null || resourceKeys.isEmpty()) return Collections.emptyList();
+		
+		QueryBuilder sb = new QueryBuilder(256);
+		sb.append("select v.key from repositoryentry as v")
+		  .append(" where v.olatResource.key in (:resourceKeys)");
+
+		List<Long> entryKeys = new ArrayList<>();
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(resourceKeys))) {
+			entryKeys.addAll(dbInstance.getCurrentEntityManager()
+					.createQuery(sb.toString(), Long.class)
+					.setParameter("resourceKeys", chunk)
+					.getResultList());
+		}
+		return entryKeys;
+	}
+	
+	public void createCourseRollup(Identity coach, CourseStatEntry entry) {
+		CoachingCourseRollupImpl rollup = new CoachingCourseRollupImpl();
+		rollup.setCreationDate(new Date());
+		rollup.setCoach(coach);
+		rollup.setEntryKey(entry.getRepoKey());
+		rollup.setNumOfStudents(entry.getCountStudents());
+		rollup.setInitialLaunch(entry.getInitialLaunch());
+		rollup.setPassed(entry.getCountPassed());
+		rollup.setFailed(entry.getCountFailed());
+		rollup.setNotAttempted(entry.getCountNotAttempted());
+		rollup.setAverageScore(entry.getAverageScore());
+		rollup.setAverageCompletion(entry.getAverageCompletion());
+		dbInstance.getCurrentEntityManager().persist(rollup);
+	}
+	
+	public void createStudentRollup(Identity coach, Identity student, StudentStatEntry entry) {
+		CoachingStudentRollupImpl rollup = new CoachingStudentRollupImpl();
+		rollup.setCreationDate(new Date());
+		rollup.setCoach(coach);
+		rollup.setStudent(student);
+		rollup.setNumOfCourses(entry.getCountRepo());
+		rollup.setInitialLaunch(entry.getInitialLaunch());
+		rollup.setPassed(entry.getCountPassed());
+		rollup.setFailed(entry.getCountFailed());
+		rollup.setNotAttempted(entry.getCountNotAttempted());
+		rollup.setAverageCompletion(entry.getAverageCompletion());
+		dbInstance.getCurrentEntityManager().persist(rollup);
+	}
+	
+	/**
+	 * The display name and the status are read from the course itself,
+	 * deleted courses and the courses with a status not visible in the
+	 * coaching tool are filtered.
+	 * 
+	 * @param coach The coach
+	 * @return The statistics of the courses saved in the rollups
+	 */
+	public List<CourseStatEntry> getCoursesStatistics(IdentityRef coach) {
+		QueryBuilder sb = new QueryBuilder(512);
+		sb.append("select rollup, v.displayname, v.status from coachcourserollup as rollup")
+		  .append(" inner join repositoryentry as v on (v.key=rollup.entryKey)")
+		  .append(" where rollup.coach.key=:coachKey and v.status ").in(RepositoryEntryStatusEnum.coachPublishedToClosed());
+		
+		List<Object[]> rawObjects = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("coachKey", coach.getKey())
+				.getResultList();
+		List<CourseStatEntry> entries = new ArrayList<>(rawObjects.size());
+		for(Object[] rawObject:rawObjects) {
+			CoachingCourseRollupImpl rollup = (CoachingCourseRollupImpl)rawObject[0];
+			CourseStatEntry entry = new CourseStatEntry();
+			entry.setRepoKey(rollup.getEntryKey());
+			entry.setRepoDisplayName((String)rawObject[1]);
+			entry.setRepoStatus(RepositoryEntryStatusEnum.valueOf((String)rawObject[2]));
+			entry.setCountStudents(rollup.getNumOfStudents());
+			entry.setInitialLaunch(rollup.getInitialLaunch());
+			entry.setCountPassed(rollup.getPassed());
+			entry.setCountFailed(rollup.getFailed());
+			entry.setCountNotAttempted(rollup.getNotAttempted());
+			entry.setAverageScore(rollup.getAverageScore());
+			entry.setAverageCompletion(rollup.getAverageCompletion());
+			entries.add(entry);
+		}
+		return entries;
+	}
+	
+	public List<StudentStatEntry> getStudentsStatistics(IdentityRef coach, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select rollup from coachstudentrollup as rollup")
+		  .append(" inner join fetch rollup.student as student")
+		  .append(" inner join fetch student.user as user")
+		  .append(" where rollup.coach.key=:coachKey");
+		
+		List<CoachingStudentRollupImpl> rollups = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), CoachingStudentRollupImpl.class)
+				.setParameter("coachKey", coach.getKey())
+				.getResultList();
+		List<StudentStatEntry> entries = new ArrayList<>(rollups.size());
+		for(CoachingStudentRollupImpl rollup:rollups) {
+			StudentStatEntry entry = new StudentStatEntry(rollup.getStudent(), userPropertyHandlers, locale);
+			entry.setCountRepo(rollup.getNumOfCourses());
+			entry.setRepoIds(null);
+			entry.setInitialLaunch(rollup.getInitialLaunch());
+			entry.setLaunchIds(null);
+			entry.setCountPassed(rollup.getPassed());
+			entry.setCountFailed(rollup.getFailed());
+			entry.setCountNotAttempted(rollup.getNotAttempted());
+			entry.setAverageCompletion(rollup.getAverageCompletion());
+			entries.add(entry);
+		}
+		return entries;
+	}
+	
+	public void deleteRollups(IdentityRef coach) {
+		dbInstance.getCurrentEntityManager()
+				.createQuery("delete from coachcourserollup rollup where rollup.coach.key=:coachKey")
+				.setParameter("coachKey", coach.getKey())
+				.executeUpdate();
+		dbInstance.getCurrentEntityManager()
+				.createQuery("delete from coachstudentrollup rollup where rollup.coach.key=:coachKey")
+				.setParameter("coachKey", coach.getKey())
+				.executeUpdate();
+	}
+	
+	public void deleteCourseRollups(IdentityRef coach, Collection<Long> entryKeys) {
+		if(entryKeys == null || entryKeys.isEmpty()) return;
+		
+		String query = "delete from coachcourserollup rollup where rollup.coach.key=:coachKey and rollup.entryKey in (:entryKeys)";
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(entryKeys))) {
+			dbInstance.getCurrentEntityManager()
+					.createQuery(query)
+					.setParameter("coachKey", coach.getKey())
+					.setParameter("entryKeys", chunk)
+					.executeUpdate();
+		}
+	}
+	
+	public void deleteStudentRollups(IdentityRef coach, Collection<Long> studentKeys) {
+		if(studentKeys == null || studentKeys.isEmpty()) return;
+		
+		String query = "delete from coachstudentrollup rollup where rollup.coach.key=:coachKey and rollup.student.key in (:studentKeys)";
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(new ArrayList<>(studentKeys))) {
+			dbInstance.getCurrentEntityManager()
+					.createQuery(query)
+					.setParameter("coachKey", coach.getKey())
+					.setParameter("studentKeys", chunk)
+					.executeUpdate();
+		}
+	}
+	
+	/**
+	 * Delete the state and the rollups of the coach and the rollups
+	 * of the other coaches where the identity is a student.
+	 * 
+	 * @param identity The identity
+	 */
+	public void deleteUserData(IdentityRef identity) {
+		deleteRollups(identity);
+		dbInstance.getCurrentEntityManager()
+				.createQuery("delete from coachstudentrollup rollup where rollup.student.key=:identityKey")
+				.setParameter("identityKey", identity.getKey())
+				.executeUpdate();
+		dbInstance.getCurrentEntityManager()
+				.createQuery("delete from coachrollupstate state where state.coach.key=:identityKey")
+				.setParameter("identityKey", identity.getKey())
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.coach.manager;
+
+import org.olat.core.CoreSpringFactory;
+import org.olat.core.commons.services.scheduler.JobWithDB;
+import org.olat.modules.coach.CoachingModule;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+/**
+ * Rebuild the rollups of the coaches affected by the last changes.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@DisallowConcurrentExecution
+public class CoachingRollupJob extends JobWithDB {
+
+	@Override
+	public void executeWithDB(JobExecutionContext context)
+	throws JobExecutionException {
+		CoachingModule coachingModule = CoreSpringFactory.getImpl(CoachingModule.class);
+		if(coachingModule.isEnabled() && coachingModule.isRollupsEnabled()) {
+			CoreSpringFactory.getImpl(CoachingRollupManager.class).processChanges();
+		}
+	}
+}
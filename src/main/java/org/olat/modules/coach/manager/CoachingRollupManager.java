@@ -0,0 +1,408 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.coach.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.PersistenceException;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.basesecurity.BaseSecurity;
+import org.olat.basesecurity.IdentityImpl;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.persistence.PersistenceHelper;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.Identity;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.Encoder;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.group.ui.edit.BusinessGroupModifiedEvent;
+import org.olat.group.ui.edit.BusinessGroupRepositoryEntryEvent;
+import org.olat.modules.coach.model.CoachingRollupStateImpl;
+import org.olat.modules.coach.model.CourseStatEntry;
+import org.olat.modules.coach.model.StudentStatEntry;
+import org.olat.repository.RepositoryEntry;
+import org.olat.repository.model.RepositoryEntryMembershipModifiedEvent;
+import org.olat.user.UserDataDeletable;
+import org.olat.user.propertyhandlers.UserPropertyHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the statistics of the coaching tool in rollup tables,
+ * one row per course and one per student for every coach. The
+ * courses changed by an efficiency statement, a membership, the first
+ * launch of a participant or the assessment entry of the root node
+ * are collected in memory, the job CoachingRollupJob marks their coaches
+ * as dirty and rebuilds the rollups of the dirty coaches with the
+ * same queries as the live statistics. Only the rows of the changed
+ * courses and of their students are rebuilt, all the rollups of a coach
+ * are rebuilt if its courses changed or if the changes are not known
+ * by this node. A nightly job marks all the coaches as dirty to catch
+ * the changes without event.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class CoachingRollupManager implements GenericEventListener, UserDataDeletable {
+	
+	private static final Logger log = Tracing.createLoggerFor(CoachingRollupManager.class);
+	
+	private final Set<Long> changedEntryKeys = ConcurrentHashMap.newKeySet();
+	private final Set<Long> changedGroupKeys = ConcurrentHashMap.newKeySet();
+	private final Set<Long> changedResourceKeys = ConcurrentHashMap.newKeySet();
+	private final Set<Long> changedIdentityKeys = ConcurrentHashMap.newKeySet();
+	private final Map<Long,PendingChanges> pendingChanges = new ConcurrentHashMap<>();
+	private volatile long markAllDirtyTime = 0l;
+	
+	@Value("${coaching.rollups.rebuild.batch.size:100}")
+	private int rebuildBatchSize;
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private CoachingDAO coachingDao;
+	@Autowired
+	private CoachingRollupDAO rollupDao;
+	@Autowired
+	private BaseSecurity securityManager;
+	@Autowired
+	private CoordinatorManager coordinator;
+	
+	@PostConstruct
+	void initListener() {
+		coordinator.getCoordinator().getEventBus().registerFor(this, null, OresHelper.lookupType(RepositoryEntry.class));
+	}
+
+	@Override
+	public void event(Event event) {
+		if(event instanceof RepositoryEntryMembershipModifiedEvent) {
+			RepositoryEntryMembershipModifiedEvent rmme = (RepositoryEntryMembershipModifiedEvent)event;
+			courseChanged(rmme.getRepositoryEntryKey());
+			identityChanged(rmme.getIdentityKey());
+		} else if(event instanceof BusinessGroupRepositoryEntryEvent) {
+			courseChanged(((BusinessGroupRepositoryEntryEvent)event).getEntryKey());
+		} else if(event instanceof BusinessGroupModifiedEvent) {
+			BusinessGroupModifiedEvent bgme = (BusinessGroupModifiedEvent)event;
+			if(bgme.getModifiedGroupKey() != null) {
+				changedGroupKeys.add(bgme.getModifiedGroupKey());
+				identityChanged(bgme.getAffectedIdentityKey());
+			}
+		}
+	}
+	
+	/**
+	 * Remember that the statistics of the course changed. The method
+	 * doesn't make any query, the coaches of the course are resolved
+	 * by the next run of the job.
+	 * 
+	 * @param entryKey The key of the course
+	 */
+	public void courseChanged(Long entryKey) {
+		if(entryKey != null) {
+			changedEntryKeys.add(entryKey);
+		}
+	}
+	
+	/**
+	 * Remember that the statistics of the course changed, as
+	 * {@link #courseChanged(Long)} but for the callers which only know
+	 * the resource of the course, as the first launch of a course.
+	 * 
+	 * @param resourceKey The key of the OLAT resource of the course
+	 */
+	public void courseResourceChanged(Long resourceKey) {
+		if(resourceKey != null) {
+			changedResourceKeys.add(resourceKey);
+		}
+	}
+	
+	/**
+	 * Remember that the memberships of the identity changed, the identity
+	 * can be removed from a course and not be a participant anymore.
+	 * 
+	 * @param identityKey The key of the identity
+	 */
+	private void identityChanged(Long identityKey) {
+		if(identityKey != null) {
+			changedIdentityKeys.add(identityKey);
+		}
+	}
+	
+	/**
+	 * Mark the coaches of the changed courses as dirty and rebuild the
+	 * rollups of a batch of dirty coaches.
+	 */
+	public void processChanges() {
+		markChangedCoursesDirty();
+		
+		List<Long> coachKeys = rollupDao.getDirtyCoachKeys(rebuildBatchSize);
+		dbInstance.commitAndCloseSession();
+		for(Long coachKey:coachKeys) {
+			PendingChanges changes = pendingChanges.remove(coachKey);
+			try {
+				Identity coach = securityManager.loadIdentityByKey(coachKey);
+				if(coach != null) {
+					rebuild(coach, false, changes);
+				}
+				dbInstance.commitAndCloseSession();
+			} catch (Exception e) {
+				log.error("Cannot rebuild the coaching rollups of identity: {}", coachKey, e);
+				dbInstance.rollbackAndCloseSession();
+				if(changes != null) {
+					pendingChanges.merge(coachKey, changes, PendingChanges::merge);
+				}
+			}
+		}
+	}
+	
+	private void markChangedCoursesDirty() {
+		Set<Long> entryKeys = drain(changedEntryKeys);
+		Set<Long> groupKeys = drain(changedGroupKeys);
+		Set<Long> resourceKeys = drain(changedResourceKeys);
+		Set<Long> identityKeys = drain(changedIdentityKeys);
+		if(entryKeys.isEmpty() && groupKeys.isEmpty() && resourceKeys.isEmpty()) return;
+		
+		try {
+			entryKeys.addAll(rollupDao.getEntryKeysOfBusinessGroups(groupKeys));
+			entryKeys.addAll(rollupDao.getEntryKeysOfResources(resourceKeys));
+			Map<Long,Set<Long>> coachToEntryKeys = rollupDao.getCoachesWithRollupsOfEntries(entryKeys);
+			int marked = rollupDao.markDirty(coachToEntryKeys.keySet());
+			dbInstance.commitAndCloseSession();
+			
+			for(Map.Entry<Long,Set<Long>> coachEntryKeys:coachToEntryKeys.entrySet()) {
+				PendingChanges changes = new PendingChanges(coachEntryKeys.getValue(), identityKeys);
+				pendingChanges.merge(coachEntryKeys.getKey(), changes, PendingChanges::merge);
+			}
+			log.debug("{} changed courses, {} coaches marked as dirty", entryKeys.size(), marked);
+		} catch (Exception e) {
+			log.error("Cannot mark the coaching rollups as dirty", e);
+			dbInstance.rollbackAndCloseSession();
+			changedEntryKeys.addAll(entryKeys);
+			changedGroupKeys.addAll(groupKeys);
+			changedResourceKeys.addAll(resourceKeys);
+			changedIdentityKeys.addAll(identityKeys);
+		}
+	}
+	
+	private Set<Long> drain(Set<Long> keys) {
+		Set<Long> drained = new HashSet<>();
+		for(Long key:keys) {
+			if(keys.remove(key)) {
+				drained.add(key);
+			}
+		}
+		return drained;
+	}
+	
+	/**
+	 * Mark the rollups of every coach as dirty, the job will rebuild
+	 * them batch after batch.
+	 */
+	public void markAllDirty() {
+		markAllDirtyTime = System.currentTimeMillis();
+		pendingChanges.clear();
+		int marked = rollupDao.markAllDirty();
+		dbInstance.commitAndCloseSession();
+		log.info("Rollups of {} coaches marked for rebuild", marked);
+	}
+	
+	public List<CourseStatEntry> getCoursesStatistics(Identity coach) {
+		ensureRollups(coach);
+		return rollupDao.getCoursesStatistics(coach);
+	}
+	
+	public List<StudentStatEntry> getStudentsStatistics(Identity coach, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
+		ensureRollups(coach);
+		return rollupDao.getStudentsStatistics(coach, userPropertyHandlers, locale);
+	}
+	
+	/**
+	 * Build the rollups synchronously if the coach has none or if its
+	 * list of courses changed since the last build. A coach added to or
+	 * removed from a course doesn't fire any event.
+	 * 
+	 * @param coach The coach
+	 */
+	private void ensureRollups(Identity coach) {
+		CoachingRollupStateImpl state = rollupDao.loadState(coach);
+		if(state == null || state.getLastBuild() == null
+				|| !fingerprint(coachingDao.getCoursesKeys(coach)).equals(state.getCoursesFingerprint())) {
+			rebuild(coach, true);
+			dbInstance.commit();
+		}
+	}
+	
+	/**
+	 * Rebuild the rollups of the specified coach.
+	 * 
+	 * @param coach The coach
+	 * @param force If false, the rollups are only rebuilt if they are dirty
+	 */
+	public void rebuild(Identity coach, boolean force) {
+		rebuild(coach, force, null);
+	}
+	
+	/**
+	 * @param changes The changed courses and identities or null to rebuild all the rollups
+	 */
+	private void rebuild(Identity coach, boolean force, PendingChanges changes) {
+		CoachingRollupStateImpl state = rollupDao.loadState(coach);
+		if(state == null) {
+			state = createState(coach);
+		}
+		if(state != null) {
+			state = rollupDao.loadStateForUpdate(state);
+		}
+		if(state == null || (!force && !state.isDirty())) {
+			// deleted or rebuilt by an other node in the meantime
+			return;
+		}
+		
+		List<Long> courseKeys = coachingDao.getCoursesKeys(coach);
+		String coursesFingerprint = fingerprint(courseKeys);
+		if(changes == null || state.getLastBuild() == null
+				|| state.getLastBuild().getTime() < markAllDirtyTime
+				|| !coursesFingerprint.equals(state.getCoursesFingerprint())) {
+			rebuildAll(coach);
+		} else {
+			rebuildChanges(coach, changes);
+		}
+		
+		state.setDirty(false);
+		state.setLastBuild(new Date());
+		state.setCoursesFingerprint(coursesFingerprint);
+		rollupDao.updateState(state);
+	}
+	
+	private void rebuildAll(Identity coach) {
+		List<CourseStatEntry> courses = coachingDao.getCoursesStatisticsNative(coach);
+		List<StudentStatEntry> students = coachingDao.getStudentsStatisticsNative(coach, Collections.emptyList(), Locale.ENGLISH);
+		rollupDao.deleteRollups(coach);
+		createRollups(coach, courses, students);
+	}
+	
+	/**
+	 * Rebuild the rows of the changed courses and of their students. The
+	 * identities removed from a course are not participants anymore but
+	 * their rows need to be updated too.
+	 */
+	private void rebuildChanges(Identity coach, PendingChanges changes) {
+		List<Long> entryKeys = new ArrayList<>(changes.getEntryKeys());
+		Set<Long> studentKeySet = new HashSet<>(rollupDao.getParticipantKeysOfEntries(entryKeys));
+		studentKeySet.addAll(changes.getIdentityKeys());
+		List<Long> studentKeys = new ArrayList<>(studentKeySet);
+		
+		List<CourseStatEntry> courses = new ArrayList<>();
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(entryKeys)) {
+			courses.addAll(coachingDao.getCoursesStatisticsNative(coach, chunk));
+		}
+		List<StudentStatEntry> students = new ArrayList<>();
+		for(List<Long> chunk:PersistenceHelper.collectionOfChunks(studentKeys)) {
+			students.addAll(coachingDao.getStudentsStatisticsNative(coach, chunk, Collections.emptyList(), Locale.ENGLISH));
+		}
+		rollupDao.deleteCourseRollups(coach, entryKeys);
+		rollupDao.deleteStudentRollups(coach, studentKeys);
+		createRollups(coach, courses, students);
+		log.debug("Coaching rollups of {}: {} courses and {} students rebuilt", coach.getKey(), entryKeys.size(), studentKeys.size());
+	}
+	
+	private void createRollups(Identity coach, List<CourseStatEntry> courses, List<StudentStatEntry> students) {
+		for(CourseStatEntry course:courses) {
+			rollupDao.createCourseRollup(coach, course);
+		}
+		for(StudentStatEntry student:students) {
+			Identity studentRef = dbInstance.getCurrentEntityManager().getReference(IdentityImpl.class, student.getIdentityKey());
+			rollupDao.createStudentRollup(coach, studentRef, student);
+		}
+	}
+	
+	private CoachingRollupStateImpl createState(Identity coach) {
+		CoachingRollupStateImpl state;
+		try {
+			dbInstance.commit();
+			state = rollupDao.createState(coach);
+			dbInstance.commit();
+		} catch(PersistenceException e) {
+			// created by an other thread
+			dbInstance.rollback();
+			state = rollupDao.loadState(coach);
+		}
+		return state;
+	}
+	
+	private String fingerprint(List<Long> courseKeys) {
+		String keys = courseKeys.stream()
+				.sorted()
+				.map(Object::toString)
+				.collect(Collectors.joining(","));
+		return Encoder.md5hash(keys);
+	}
+
+	@Override
+	public void deleteUserData(Identity identity, String newDeletedUserName) {
+		rollupDao.deleteUserData(identity);
+	}
+	
+	/**
+	 * The courses and the identities changed since the last
+	 * rebuild of the rollups of a coach.
+	 */
+	private static class PendingChanges {
+		
+		private final Set<Long> entryKeys;
+		private final Set<Long> identityKeys;
+		
+		public PendingChanges(Set<Long> entryKeys, Set<Long> identityKeys) {
+			this.entryKeys = new HashSet<>(entryKeys);
+			this.identityKeys = new HashSet<>(identityKeys);
+		}
+		
+		public Set<Long> getEntryKeys() {
+			return entryKeys;
+		}
+		
+		public Set<Long> getIdentityKeys() {
+			return identityKeys;
+		}
+		
+		public PendingChanges merge(PendingChanges changes) {
+			Set<Long> mergedEntryKeys = new HashSet<>(entryKeys);
+			mergedEntryKeys.addAll(changes.getEntryKeys());
+			Set<Long> mergedIdentityKeys = new HashSet<>(identityKeys);
+			mergedIdentityKeys.addAll(changes.getIdentityKeys());
+			return new PendingChanges(mergedEntryKeys, mergedIdentityKeys);
+		}
+	}
+}
@@ -36,6 +36,7 @@ import org.olat.course.assessment.manager.EfficiencyStatementManager;
 import org.olat.course.assessment.model.UserEfficiencyStatementForCoaching;
 import org.olat.group.BusinessGroup;
 import org.olat.group.BusinessGroupService;
+import org.olat.modules.coach.CoachingModule;
 import org.olat.modules.coach.CoachingService;
 import org.olat.modules.coach.model.CoachingSecurity;
 import org.olat.modules.coach.model.CourseStatEntry;
@@ -64,6 +65,10 @@ public class CoachingServiceImpl implements CoachingService {
 	@Autowired
 	private CoachingDAO coachingDao;
 	@Autowired
+	private CoachingModule coachingModule;
+	@Autowired
+	private CoachingRollupManager coachingRollupManager;
+	@Autowired
 	private LectureModule lectureModule;
 	@Autowired
 	private BusinessGroupService businessGroupService;
@@ -104,6 +109,9 @@ public class CoachingServiceImpl implements CoachingService {
 
 	@Override
 	public List<StudentStatEntry> getStudentsStatistics(Identity coach, List<UserPropertyHandler> userPropertyHandlers, Locale locale) {
+		if(coachingModule.isRollupsEnabled()) {
+			return coachingRollupManager.getStudentsStatistics(coach, userPropertyHandlers, locale);
+		}
 		return coachingDao.getStudentsStatisticsNative(coach, userPropertyHandlers, locale);
 	}
 
@@ -114,6 +122,9 @@ public class CoachingServiceImpl implements CoachingService {
 
 	@Override
 	public List<CourseStatEntry> getCoursesStatistics(Identity coach) {
+		if(coachingModule.isRollupsEnabled()) {
+			return coachingRollupManager.getCoursesStatistics(coach);
+		}
 		return coachingDao.getCoursesStatisticsNative(coach);
 	}
 
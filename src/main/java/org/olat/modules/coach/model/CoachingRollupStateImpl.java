@@ -0,0 +1,165 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.coach.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.olat.basesecurity.IdentityImpl;
+import org.olat.core.id.CreateInfo;
+import org.olat.core.id.Identity;
+import org.olat.core.id.ModifiedInfo;
+import org.olat.core.id.Persistable;
+
+/**
+ * The state of the statistics rollups of a coach: when they were
+ * built, from which list of courses and if they need to be rebuilt.
+ * The row is locked during the rebuild of the rollups of the coach.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Entity(name="coachrollupstate")
+@Table(name="o_coach_rollup_state")
+public class CoachingRollupStateImpl implements CreateInfo, ModifiedInfo, Persistable {
+
+	private static final long serialVersionUID = -2604739542316071329L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id", nullable=false, unique=true, insertable=true, updatable=false)
+	private Long key;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="creationdate", nullable=false, insertable=true, updatable=false)
+	private Date creationDate;
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="lastmodified", nullable=false, insertable=true, updatable=true)
+	private Date lastModified;
+	
+	@Column(name="r_dirty", nullable=false, insertable=true, updatable=true)
+	private boolean dirty;
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="r_last_build", nullable=true, insertable=true, updatable=true)
+	private Date lastBuild;
+	@Column(name="r_courses_fingerprint", nullable=true, insertable=true, updatable=true)
+	private String coursesFingerprint;
+	
+	@ManyToOne(targetEntity=IdentityImpl.class, fetch=FetchType.LAZY, optional=false)
+	@JoinColumn(name="fk_coach", nullable=false, insertable=true, updatable=false)
+	private Identity coach;
+
+	@Override
+	public Long getKey() {
+		return key;
+	}
+	
+	public void setKey(Long key) {
+		this.key = key;
+	}
+
+	@Override
+	public Date getCreationDate() {
+		return creationDate;
+	}
+
+	public void setCreationDate(Date creationDate) {
+		this.creationDate = creationDate;
+	}
+
+	@Override
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	@Override
+	public void setLastModified(Date lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	public Date getLastBuild() {
+		return lastBuild;
+	}
+
+	public void setLastBuild(Date lastBuild) {
+		this.lastBuild = lastBuild;
+	}
+
+	/**
+	 * @return A hash of the keys of the courses the coach coaches or owns
+	 * 		at the time of the last build
+	 */
+	public String getCoursesFingerprint() {
+		return coursesFingerprint;
+	}
+
+	public void setCoursesFingerprint(String coursesFingerprint) {
+		this.coursesFingerprint = coursesFingerprint;
+	}
+
+	public Identity getCoach() {
+		return coach;
+	}
+
+	public void setCoach(Identity coach) {
+		this.coach = coach;
+	}
+
+	@Override
+	public int hashCode() {
+		return getKey() == null ? 738265 : getKey().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == this) {
+			return true;
+		}
+		if(obj instanceof CoachingRollupStateImpl) {
+			CoachingRollupStateImpl state = (CoachingRollupStateImpl)obj;
+			return getKey() != null && getKey().equals(state.getKey());
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equalsByPersistableKey(Persistable persistable) {
+		return equals(persistable);
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.coach.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.olat.basesecurity.IdentityImpl;
+import org.olat.core.id.CreateInfo;
+import org.olat.core.id.Identity;
+import org.olat.core.id.Persistable;
+
+/**
+ * The precalculated statistics of a student as seen by a coach, the
+ * same values as StudentStatEntry without the user properties.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Entity(name="coachstudentrollup")
+@Table(name="o_coach_student_rollup")
+public class CoachingStudentRollupImpl implements CreateInfo, Persistable {
+
+	private static final long serialVersionUID = -6383390671745210867L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id", nullable=false, unique=true, insertable=true, updatable=false)
+	private Long key;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="creationdate", nullable=false, insertable=true, updatable=false)
+	private Date creationDate;
+	
+	@Column(name="s_num_courses", nullable=false, insertable=true, updatable=true)
+	private int numOfCourses;
+	@Column(name="s_initial_launch", nullable=false, insertable=true, updatable=true)
+	private int initialLaunch;
+	@Column(name="s_passed", nullable=false, insertable=true, updatable=true)
+	private int passed;
+	@Column(name="s_failed", nullable=false, insertable=true, updatable=true)
+	private int failed;
+	@Column(name="s_not_attempted", nullable=false, insertable=true, updatable=true)
+	private int notAttempted;
+	@Column(name="s_average_completion", nullable=true, insertable=true, updatable=true)
+	private Double averageCompletion;
+	
+	@ManyToOne(targetEntity=IdentityImpl.class, fetch=FetchType.LAZY, optional=false)
+	@JoinColumn(name="fk_coach", nullable=false, insertable=true, updatable=false)
+	private Identity coach;
+	@ManyToOne(targetEntity=IdentityImpl.class, fetch=FetchType.LAZY, optional=false)
+	@JoinColumn(name="fk_student", nullable=false, insertable=true, updatable=false)
+	private Identity student;
+
+	@Override
+	public Long getKey() {
+		return key;
+	}
+	
+	public void setKey(Long key) {
+		this.key = key;
+	}
+
+	@Override
+	public Date getCreationDate() {
+		return creationDate;
+	}
+
+	public void setCreationDate(Date creationDate) {
+		this.creationDate = creationDate;
+	}
+
+	public int getNumOfCourses() {
+		return numOfCourses;
+	}
+
+	public void setNumOfCourses(int numOfCourses) {
+		this.numOfCourses = numOfCourses;
+	}
+
+	public int getInitialLaunch() {
+		return initialLaunch;
+	}
+
+	public void setInitialLaunch(int initialLaunch) {
+		this.initialLaunch = initialLaunch;
+	}
+
+	public int getPassed() {
+		return passed;
+	}
+
+	public void setPassed(int passed) {
+		this.passed = passed;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public void setFailed(int failed) {
+		this.failed = failed;
+	}
+
+	public int getNotAttempted() {
+		return notAttempted;
+	}
+
+	public void setNotAttempted(int notAttempted) {
+		this.notAttempted = notAttempted;
+	}
+
+	public Double getAverageCompletion() {
+		return averageCompletion;
+	}
+
+	public void setAverageCompletion(Double averageCompletion) {
+		this.averageCompletion = averageCompletion;
+	}
+
+	public Identity getCoach() {
+		return coach;
+	}
+
+	public void setCoach(Identity coach) {
+		this.coach = coach;
+	}
+
+	public Identity getStudent() {
+		return student;
+	}
+
+	public void setStudent(Identity student) {
+		this.student = student;
+	}
+
+	@Override
+	public int hashCode() {
+		return getKey() == null ? 583921 : getKey().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == this) {
+			return true;
+		}
+		if(obj instanceof CoachingStudentRollupImpl) {
+			CoachingStudentRollupImpl rollup = (CoachingStudentRollupImpl)obj;
+			return getKey() != null && getKey().equals(rollup.getKey());
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equalsByPersistableKey(Persistable persistable) {
+		return equals(persistable);
+	}
+}
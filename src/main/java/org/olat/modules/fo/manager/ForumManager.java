@@ -27,6 +27,7 @@ package org.olat.modules.fo.manager;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -36,12 +37,15 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
 
 import org.apache.logging.log4j.Logger;
+import org.olat.basesecurity.IdentityImpl;
 import org.olat.basesecurity.IdentityRef;
+import org.olat.basesecurity.model.IdentityRefImpl;
 import org.olat.core.commons.modules.bc.FolderConfig;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.persistence.PersistenceHelper;
@@ -69,14 +73,14 @@ import org.olat.modules.fo.Pseudonym;
 import org.olat.modules.fo.QuoteAndTagFilter;
 import org.olat.modules.fo.Status;
 import org.olat.modules.fo.model.ForumImpl;
+import org.olat.modules.fo.model.ForumReadStateImpl;
 import org.olat.modules.fo.model.ForumThread;
+import org.olat.modules.fo.model.ForumThreadSummaryImpl;
 import org.olat.modules.fo.model.ForumUserStatistics;
 import org.olat.modules.fo.model.MessageImpl;
-import org.olat.modules.fo.model.MessageLightImpl;
 import org.olat.modules.fo.model.MessageStatistics;
 import org.olat.modules.fo.model.PseudonymImpl;
 import org.olat.modules.fo.model.PseudonymStatistics;
-import org.olat.modules.fo.model.ReadMessageImpl;
 import org.olat.modules.fo.ui.MessagePeekview;
 import org.olat.user.UserManager;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -100,6 +104,10 @@ public class ForumManager {
 	private UserManager userManager;
 	@Autowired
 	private MarkingService markingService;
+	@Autowired
+	private ForumReadStateDAO readStateDao;
+	@Autowired
+	private ForumThreadSummaryDAO threadSummaryDao;
 	
 	public int countThread(Long messageKey) {
 		String query = "select count(msg) from fomessage as msg where msg.key=:messageKey or msg.threadtop.key=:messageKey";
@@ -277,53 +285,51 @@ public class ForumManager {
 	
 	public List<ForumThread> getForumThreads(Forum forum, Identity identity) {
 		StringBuilder sb = new StringBuilder();
-		sb.append("select msg ")
-		  .append(" , (select count(replies.key) from fomessage as replies")
-		  .append("  where replies.threadtop.key=msg.key and replies.forum.key=:forumKey")
-		  .append(" ) as numOfMessages")
-		  .append(" , (select max(replies.lastModified) from fomessage as replies")
-		  .append("  where replies.threadtop.key=msg.key and replies.forum.key=:forumKey")
-		  .append(" ) as lastModified");
-
-		if(identity != null) {
-			sb.append(" , (select count(read.key) from foreadmessage as read, fomessage as posts")
-			  .append("  where (posts.threadtop.key=msg.key or posts.key=msg.key) and read.message.key=posts.key and read.identity.key=:identityKey")
-			  .append(" ) as numOfReadMessages")
-			  .append(" ,(select count(mark.key) from ").append(MarkImpl.class.getName()).append(" as mark, fomessage as mposts ")
-			  .append("   where mark.creator.key=:identityKey and mark.resId=:forumKey and (mposts.threadtop.key=msg.key or mposts.key=msg.key)")
-			  .append("    and mposts.key=cast(mark.resSubPath as long) and mark.resName='Forum'")
-			  .append(" ) as marks");
-		}
-		
-		sb.append(" from fomessage as msg ")
+		sb.append("select msg, summary from fomessage as msg")
 		  .append(" left join fetch msg.creator as creator")
+		  .append(" left join fothreadsummary as summary on (summary.threadtopKey=msg.key)")
 		  .append(" where msg.forum.key=:forumKey and msg.threadtop is null");
 
-		TypedQuery<Object[]> objectsQuery = dbInstance.getCurrentEntityManager()
+		List<Object[]> objects = dbInstance.getCurrentEntityManager()
 				.createQuery(sb.toString(), Object[].class)
-				.setParameter("forumKey", forum.getKey());
+				.setParameter("forumKey", forum.getKey())
+				.getResultList();
+		
+		Map<Long,int[]> readAndMarkedByThreads = null;
 		if(identity != null) {
-			objectsQuery.setParameter("identityKey", identity.getKey());
+			readAndMarkedByThreads = getReadAndMarkedMessagesByThreads(forum, identity);
 		}
-
-		List<Object[]> objects = objectsQuery.getResultList();
+		
+		// threads without summary are not migrated yet
+		Map<Long,Object[]> statistics = null;
 		List<ForumThread> threadList = new ArrayList<>(objects.size());
 		for(Object[] object:objects) {
 			Message msg = (Message)object[0];
-			Number numOfMessagesLong = (Number)object[1];
-			Date lastModified = (Date)object[2];
-			int numOfMessages = numOfMessagesLong == null ? 1 : numOfMessagesLong.intValue() + 1;
+			ForumThreadSummaryImpl summary = (ForumThreadSummaryImpl)object[1];
+			
+			int numOfReplies;
+			Date lastModified;
+			if(summary != null) {
+				numOfReplies = summary.getNumOfReplies();
+				lastModified = summary.getLastReplyDate();
+			} else {
+				if(statistics == null) {
+					statistics = threadSummaryDao.calculateStatistics(forum.getKey());
+				}
+				Object[] threadStatistics = statistics.get(msg.getKey());
+				numOfReplies = threadStatistics == null ? 0 : ((Number)threadStatistics[0]).intValue();
+				lastModified = threadStatistics == null ? null : (Date)threadStatistics[1];
+			}
+			
+			int numOfMessages = numOfReplies + 1;
 			String creator = userManager.getUserDisplayName(msg.getCreator());
 			ForumThread thread = new ForumThread(msg, creator, lastModified, numOfMessages);
 			
-			if(identity != null) {
-				Number readMessages = (Number)object[3];
-				int numOfReadMessages = readMessages == null ? 0 : readMessages.intValue();
+			if(readAndMarkedByThreads != null) {
+				int[] readAndMarked = readAndMarkedByThreads.get(msg.getKey());
+				int numOfReadMessages = readAndMarked == null ? 0 : readAndMarked[0];
 				thread.setNewMessages(numOfMessages - numOfReadMessages);
-
-				Number numOfMarkedMessagesLong = (Number)object[4];
-				int numOfMarkedMessages = numOfMarkedMessagesLong == null ? 0 : numOfMarkedMessagesLong.intValue();
-				thread.setMarkedMessages(numOfMarkedMessages);
+				thread.setMarkedMessages(readAndMarked == null ? 0 : readAndMarked[1]);
 			}
 			
 			threadList.add(thread);
@@ -331,6 +337,63 @@ public class ForumManager {
 		return threadList;
 	}
 	
+	/**
+	 * Count the read and the marked messages of the specified user, thread
+	 * per thread. The messages of the forum are loaded as pairs of keys, the
+	 * read set and the marks are mapped to their threads in memory.
+	 * 
+	 * @param forum The forum
+	 * @param identity The user
+	 * @return A map thread top key to the number of read and marked messages
+	 */
+	private Map<Long,int[]> getReadAndMarkedMessagesByThreads(Forum forum, IdentityRef identity) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select msg.key, threadtop.key from fomessage as msg")
+		  .append(" left join msg.threadtop as threadtop")
+		  .append(" where msg.forum.key=:forumKey");
+		List<Object[]> rawObjects = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("forumKey", forum.getKey())
+				.getResultList();
+		Map<Long,Long> messageToThreads = new HashMap<>();
+		for(Object[] rawObject:rawObjects) {
+			Long messageKey = (Long)rawObject[0];
+			Long threadtopKey = (Long)rawObject[1];
+			messageToThreads.put(messageKey, threadtopKey == null ? messageKey : threadtopKey);
+		}
+		
+		Map<Long,int[]> readAndMarkedByThreads = new HashMap<>();
+		Set<Long> readKeys = getReadSet(identity, forum);
+		for(Long readKey:readKeys) {
+			Long threadtopKey = messageToThreads.get(readKey);
+			if(threadtopKey != null) {
+				readAndMarkedByThreads.computeIfAbsent(threadtopKey, key -> new int[2])[0]++;
+			}
+		}
+		
+		StringBuilder mb = new StringBuilder();
+		mb.append("select mark.resSubPath from ").append(MarkImpl.class.getName()).append(" as mark")
+		  .append(" where mark.creator.key=:identityKey and mark.resName='Forum' and mark.resId=:forumKey");
+		List<String> markedSubPaths = dbInstance.getCurrentEntityManager()
+				.createQuery(mb.toString(), String.class)
+				.setParameter("identityKey", identity.getKey())
+				.setParameter("forumKey", forum.getKey())
+				.getResultList();
+		Set<Long> markedKeys = new HashSet<>();
+		for(String markedSubPath:markedSubPaths) {
+			if(StringHelper.isLong(markedSubPath)) {
+				markedKeys.add(Long.valueOf(markedSubPath));
+			}
+		}
+		for(Long markedKey:markedKeys) {
+			Long threadtopKey = messageToThreads.get(markedKey);
+			if(threadtopKey != null) {
+				readAndMarkedByThreads.computeIfAbsent(threadtopKey, key -> new int[2])[1]++;
+			}
+		}
+		return readAndMarkedByThreads;
+	}
+	
 	public boolean existsMessageById(Long messageKey) {
 		StringBuilder query = new StringBuilder();
 		query.append("select msg.key from fomessage as msg")
@@ -666,19 +729,26 @@ public class ForumManager {
 	}
 	
 	/**
-	 * Implementation with one entry per message.
+	 * The read state can contain the keys of deleted messages, only the
+	 * messages still in the forum are counted.
+	 * 
 	 * @param identity
 	 * @param forumkey
 	 * @return number of read messages
 	 */
 	public int countReadMessagesByUserAndForum(IdentityRef identity, Long forumkey) {
-		String query = "select count(msg) from foreadmessage as msg where msg.identity.key=:identityKey and msg.forum.key=:forumKey";
-		List<Number> count = dbInstance.getCurrentEntityManager()
-				.createQuery(query, Number.class)
-				.setParameter("identityKey", identity.getKey())
+		Set<Long> readKeys = getReadSet(identity, forumkey);
+		if(readKeys.isEmpty()) {
+			return 0;
+		}
+		
+		String query = "select msg.key from fomessage as msg where msg.forum.key=:forumKey";
+		List<Long> messageKeys = dbInstance.getCurrentEntityManager()
+				.createQuery(query, Long.class)
 				.setParameter("forumKey", forumkey)
 				.getResultList();
-		return count == null || count.isEmpty() || count.get(0) == null ? 0 : count.get(0).intValue();
+		readKeys.retainAll(new HashSet<>(messageKeys));
+		return readKeys.size();
 	}
 
 	/**
@@ -764,6 +834,8 @@ public class ForumManager {
 		dbInstance.getCurrentEntityManager().createQuery(deleteReadMessages)
 			.setParameter("forumKey", forumKey)
 			.executeUpdate();
+		readStateDao.deleteReadStates(forumKey);
+		threadSummaryDao.deleteSummaries(forumKey);
 		// delete messages
 		String messagesToDelete = "select msg from fomessage as msg where msg.forum.key=:forumKey and msg.threadtop.key is null";
 		List<Message> threadsToDelete = dbInstance.getCurrentEntityManager()
@@ -838,8 +910,15 @@ public class ForumManager {
 		} else {
 			m = dbInstance.getCurrentEntityManager().merge(m);
 		}
+		updateThreadSummary(m);
 		return m;
 	}
+	
+	private void updateThreadSummary(Message m) {
+		Message threadtop = m.getThreadtop();
+		Long threadtopKey = threadtop == null ? m.getKey() : threadtop.getKey();
+		threadSummaryDao.updateSummary(m.getForum().getKey(), threadtopKey);
+	}
 
 	/**
 	 * creates (in RAM only) a new Message<br>
@@ -877,7 +956,12 @@ public class ForumManager {
 		if (updateLastModifiedDate) {
 			message.setLastModified(new Date());
 		}
-		return dbInstance.getCurrentEntityManager().merge(message);
+		Message mergedMessage = dbInstance.getCurrentEntityManager().merge(message);
+		// only the date of the last reply can change
+		if (updateLastModifiedDate && mergedMessage.getThreadtop() != null) {
+			updateThreadSummary(mergedMessage);
+		}
+		return mergedMessage;
 	}
 
 	/**
@@ -885,7 +969,19 @@ public class ForumManager {
 	 * @param m
 	 */
 	public void deleteMessageTree(Long forumKey, Message m) {
+		deleteMessageTreeAndUpdateThread(forumKey, m);
+	}
+	
+	/**
+	 * Delete the message and its children and update the summary
+	 * of the thread the message was part of.
+	 */
+	private void deleteMessageTreeAndUpdateThread(Long forumKey, Message m) {
+		Message threadtop = m.getThreadtop();
 		deleteMessageRecursion(forumKey, m);
+		if(threadtop != null) {
+			threadSummaryDao.updateSummary(forumKey, threadtop.getKey());
+		}
 	}
 
 	private void deleteMessageRecursion(final Long forumKey, Message m) {
@@ -902,6 +998,9 @@ public class ForumManager {
 		// make sure the message is reloaded if it is not in the hibernate session cache
 		Message reloadedMessage = dbInstance.getCurrentEntityManager().find(MessageImpl.class, m.getKey());
 		if(reloadedMessage != null) {
+			if(reloadedMessage.getThreadtop() == null) {
+				threadSummaryDao.deleteSummary(reloadedMessage.getKey());
+			}
 			// delete all properties of one single message
 			dbInstance.getCurrentEntityManager().remove(reloadedMessage);
 			
@@ -1044,10 +1143,15 @@ public class ForumManager {
 			newTopMessage.setThreadtop(null);
 			newTopMessage = dbInstance.getCurrentEntityManager().merge(newTopMessage);
 
+			Long oldThreadtopKey = msg.getThreadtop().getKey();
 			for(Message message : subthreadList) {
 				message.setThreadtop(newTopMessage);
 				message = dbInstance.getCurrentEntityManager().merge(message);
 			}
+			
+			Long forumKey = newTopMessage.getForum().getKey();
+			threadSummaryDao.updateSummary(forumKey, oldThreadtopKey);
+			threadSummaryDao.updateSummary(forumKey, newTopMessage.getKey());
 
 			dbInstance.commit();// before sending async event
 			ForumChangedEvent event = new ForumChangedEvent(ForumChangedEvent.SPLIT, newTopMessage.getKey(), null, null);
@@ -1087,7 +1191,7 @@ public class ForumManager {
 		markingService.getMarkManager().moveMarks(ores, msg.getKey().toString(), message.getKey().toString());
 		
 		moveMessageContainer(oldMessage.getForum().getKey(), oldMessage.getKey(), message.getForum().getKey(), message.getKey());
-		deleteMessageRecursion(oldMessage.getForum().getKey(), oldMessage);
+		deleteMessageTreeAndUpdateThread(oldMessage.getForum().getKey(), oldMessage);
 		return message;
 	}
 	
@@ -1193,7 +1297,7 @@ public class ForumManager {
 			}
 		}
 		// deletes all children of the old top message recursively
-		deleteMessageRecursion(oldMessage.getForum().getKey(), oldMessage);
+		deleteMessageTreeAndUpdateThread(oldMessage.getForum().getKey(), oldMessage);
 		
 		return message;
 	}	
@@ -1223,7 +1327,7 @@ public class ForumManager {
 		if (hasChildren(oldParent)) {
 			moveThreadToAnotherForumRecursively(oldParent, newParent, targetThread);
 		}
-		deleteMessageRecursion(oldParent.getForum().getKey(), oldParent);
+		deleteMessageTreeAndUpdateThread(oldParent.getForum().getKey(), oldParent);
 		return newParent;
 	}
 	
@@ -1277,17 +1381,32 @@ public class ForumManager {
 	 * @param forum
 	 * @return a set with the read messages keys for the input identity and forum.  
 	 */
-	public Set<Long> getReadSet(IdentityRef identity, Forum forum) {	
+	public Set<Long> getReadSet(IdentityRef identity, Forum forum) {
+		return getReadSet(identity, forum.getKey());
+	}
+	
+	private Set<Long> getReadSet(IdentityRef identity, Long forumKey) {
+		ForumReadStateImpl state = readStateDao.loadReadState(identity, forumKey);
+		if(state != null) {
+			return readStateDao.getReadMessageKeys(state);
+		}
+		return getLegacyReadSet(identity, forumKey);
+	}
+	
+	/**
+	 * @return The read messages saved with one entry per message
+	 */
+	private Set<Long> getLegacyReadSet(IdentityRef identity, Long forumKey) {
 		StringBuilder query = new StringBuilder();
 		query.append("select rmsg.message.key from foreadmessage as rmsg")
 		     .append(" inner join rmsg.message as msg")
 		     .append(" where rmsg.forum.key=:forumKey and rmsg.identity.key=:identityKey");
 		List<Long> messageKeys = dbInstance.getCurrentEntityManager()
 			.createQuery(query.toString(), Long.class)
-			.setParameter("forumKey", forum.getKey())
+			.setParameter("forumKey", forumKey)
 			.setParameter("identityKey", identity.getKey())
 			.getResultList();
-		return new HashSet<>(messageKeys);	
+		return new HashSet<>(messageKeys);
 	}
 	
 	/**
@@ -1297,18 +1416,14 @@ public class ForumManager {
 	 * @param forum
 	 * @param msg
 	 */
-	public void markNewMessageAsRead(Identity identity, Forum forum, Message msg) {		
-		//Check if the message was not already deleted
-		ReadMessageImpl readMessage = new ReadMessageImpl();
-		readMessage.setIdentity(identity);
-		readMessage.setMessage(msg);
-		readMessage.setForum(forum);
-		dbInstance.getCurrentEntityManager().persist(readMessage);
+	public void markNewMessageAsRead(Identity identity, Forum forum, Message msg) {
+		addToReadState(identity, forum, msg.getKey());
 	}
 	
 	/**
-	 * Implementation with one entry per forum message.
-	 * Adds a new entry into the ReadMessage for the input message and identity.
+	 * Adds the message to the read state of the identity in the
+	 * specified forum.
+	 * 
 	 * @param msg
 	 * @param identity
 	 */
@@ -1316,18 +1431,120 @@ public class ForumManager {
 		//Check if the message was not already deleted
 		Message retrievedMessage = loadMessage(msg.getKey());
 		if(retrievedMessage != null) {
-			ReadMessageImpl readMessage = new ReadMessageImpl();
-			readMessage.setIdentity(identity);
-			if(msg instanceof MessageLightImpl) {
-				readMessage.setMessage(msg);
+			addToReadState(identity, forum, msg.getKey());
+		}
+	}
+	
+	/**
+	 * Adds the messages to the read state of the identity in the
+	 * specified forum. The state is decoded and encoded only once.
+	 * 
+	 * @param identity The user
+	 * @param forum The forum
+	 * @param messages The messages to mark as read
+	 */
+	public void markAsRead(Identity identity, Forum forum, Collection<? extends MessageLight> messages) {
+		if(messages == null || messages.isEmpty()) return;
+		
+		List<Long> messageKeys = messages.stream()
+				.map(MessageLight::getKey)
+				.collect(Collectors.toList());
+		//Check if the messages were not already deleted
+		String query = "select msg.key from fomessage as msg where msg.key in (:messageKeys)";
+		List<Long> existingKeys = dbInstance.getCurrentEntityManager()
+				.createQuery(query, Long.class)
+				.setParameter("messageKeys", messageKeys)
+				.getResultList();
+		if(!existingKeys.isEmpty()) {
+			addToReadState(identity, forum, existingKeys);
+		}
+	}
+	
+	private void addToReadState(Identity identity, Forum forum, Long messageKey) {
+		addToReadState(identity, forum, List.of(messageKey));
+	}
+	
+	private void addToReadState(Identity identity, Forum forum, Collection<Long> messageKeys) {
+		ForumReadStateImpl state = readStateDao.loadReadStateForUpdate(identity, forum.getKey());
+		if(state == null) {
+			// the first read of the user, an other thread can create the state in parallel
+			readStateDao.lockForum(forum.getKey());
+			state = readStateDao.loadReadStateForUpdate(identity, forum.getKey());
+			if(state == null) {
+				createReadState(identity, forum, messageKeys);
+				return;
+			}
+		}
+		
+		Set<Long> readKeys = readStateDao.getReadMessageKeys(state);
+		if(readKeys.addAll(messageKeys)) {
+			readStateDao.updateReadState(state, readKeys);
+		}
+	}
+	
+	/**
+	 * Create the read state with the old read messages of the user in this
+	 * forum and the specified messages.
+	 */
+	private void createReadState(Identity identity, Forum forum, Collection<Long> messageKeys) {
+		// convert the old read messages of the user in this forum
+		Set<Long> readKeys = getLegacyReadSet(identity, forum.getKey());
+		readKeys.addAll(messageKeys);
+		ForumReadStateImpl state = readStateDao.createReadState(identity, forum, readKeys);
+		// the state can be the one created by an other transaction
+		if(state != null) {
+			Set<Long> stateKeys = readStateDao.getReadMessageKeys(state);
+			if(stateKeys.addAll(readKeys)) {
+				readStateDao.updateReadState(state, stateKeys);
+			}
+		}
+		deleteLegacyReadMessages(identity, forum.getKey());
+	}
+	
+	private void deleteLegacyReadMessages(IdentityRef identity, Long forumKey) {
+		String query = "delete from foreadmessage as rmsg where rmsg.identity.key=:identityKey and rmsg.forum.key=:forumKey";
+		dbInstance.getCurrentEntityManager().createQuery(query)
+			.setParameter("identityKey", identity.getKey())
+			.setParameter("forumKey", forumKey)
+			.executeUpdate();
+	}
+	
+	/**
+	 * Convert the read messages saved with one entry per message of the
+	 * specified forum to a read state per user. The old entries are
+	 * deleted.
+	 * 
+	 * @param forumKey The forum
+	 * @return The number of users converted
+	 */
+	public int convertLegacyReadMessages(Long forumKey) {
+		String identitiesQuery = "select distinct rmsg.identity.key from foreadmessage as rmsg where rmsg.forum.key=:forumKey";
+		List<Long> identityKeys = dbInstance.getCurrentEntityManager()
+				.createQuery(identitiesQuery, Long.class)
+				.setParameter("forumKey", forumKey)
+				.getResultList();
+		
+		Forum forum = dbInstance.getCurrentEntityManager().getReference(ForumImpl.class, forumKey);
+		for(Long identityKey:identityKeys) {
+			IdentityRef identityRef = new IdentityRefImpl(identityKey);
+			Set<Long> readKeys = getLegacyReadSet(identityRef, forumKey);
+			ForumReadStateImpl state = readStateDao.loadReadStateForUpdate(identityRef, forumKey);
+			if(state == null) {
+				Identity identity = dbInstance.getCurrentEntityManager().getReference(IdentityImpl.class, identityKey);
+				readStateDao.createReadState(identity, forum, readKeys);
 			} else {
-				msg = dbInstance.getCurrentEntityManager().getReference(MessageLightImpl.class, msg.getKey());
-				readMessage.setMessage(msg);
+				Set<Long> stateKeys = readStateDao.getReadMessageKeys(state);
+				if(stateKeys.addAll(readKeys)) {
+					readStateDao.updateReadState(state, stateKeys);
+				}
 			}
-			
-			readMessage.setForum(forum);
-			dbInstance.getCurrentEntityManager().persist(readMessage);
-		}		
+		}
+		
+		String deleteQuery = "delete from foreadmessage as rmsg where rmsg.forum.key=:forumKey";
+		dbInstance.getCurrentEntityManager().createQuery(deleteQuery)
+			.setParameter("forumKey", forumKey)
+			.executeUpdate();
+		return identityKeys.size();
 	}
 	
 	/**
@@ -1360,6 +1577,9 @@ public class ForumManager {
 					.setParameter("masterKey", masterForumKey)
 					.setParameter("mergerKey", forumToMerge)
 					.executeUpdate();
+				
+				threadSummaryDao.moveSummaries(forumToMerge, masterForumKey);
+				readStateDao.mergeReadStates(forumToMerge, masterForumKey);
 			}
 		}
 		return rows;
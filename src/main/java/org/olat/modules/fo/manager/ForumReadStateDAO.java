@@ -0,0 +1,203 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.fo.manager;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+
+import org.apache.logging.log4j.Logger;
+import org.hibernate.exception.ConstraintViolationException;
+import org.olat.basesecurity.IdentityRef;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.id.Identity;
+import org.olat.core.logging.Tracing;
+import org.olat.modules.fo.Forum;
+import org.olat.modules.fo.model.ForumImpl;
+import org.olat.modules.fo.model.ForumReadStateImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class ForumReadStateDAO {
+	
+	private static final Logger log = Tracing.createLoggerFor(ForumReadStateDAO.class);
+	
+	@Autowired
+	private DB dbInstance;
+	
+	/**
+	 * Create the read state of the user in the specified forum. The method
+	 * doesn't commit, the transaction belongs to the caller. If an other
+	 * transaction created the state in the meantime, the unique constraint on
+	 * the user and the forum is caught and the existing state is returned
+	 * without the specified messages.
+	 * 
+	 * @param identity The user
+	 * @param forum The forum
+	 * @param messageKeys The read messages
+	 * @return The new state or the state created by an other transaction
+	 */
+	public ForumReadStateImpl createReadState(Identity identity, Forum forum, Collection<Long> messageKeys) {
+		ForumReadStateImpl state = new ForumReadStateImpl();
+		state.setCreationDate(new Date());
+		state.setLastModified(state.getCreationDate());
+		state.setIdentity(identity);
+		state.setForum(forum);
+		state.setMessages(ReadMessageKeysCodec.encode(messageKeys));
+		state.setNumOfMessages(messageKeys == null ? 0 : messageKeys.size());
+		try {
+			dbInstance.getCurrentEntityManager().persist(state);
+			dbInstance.getCurrentEntityManager().flush();
+		} catch(PersistenceException e) {
+			if(e.getCause() instanceof ConstraintViolationException) {
+				log.warn("Read state already created for identity {} in forum {}", identity.getKey(), forum.getKey());
+				dbInstance.getCurrentEntityManager().detach(state);
+				state = loadReadStateForUpdate(identity, forum.getKey());
+			} else {
+				throw e;
+			}
+		}
+		return state;
+	}
+	
+	/**
+	 * Lock the forum until the end of the transaction. The creators of the
+	 * read states of a forum wait on this lock, so the second one finds the
+	 * state of the first one instead of violating the unique constraint.
+	 * 
+	 * @param forumKey The forum
+	 */
+	public void lockForum(Long forumKey) {
+		String query = "select fo from forum as fo where fo.key=:forumKey";
+		dbInstance.getCurrentEntityManager()
+				.createQuery(query, ForumImpl.class)
+				.setParameter("forumKey", forumKey)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+	}
+	
+	public ForumReadStateImpl loadReadState(IdentityRef identity, Long forumKey) {
+		return loadReadState(identity, forumKey, false);
+	}
+	
+	/**
+	 * Load the read state with a pessimistic lock, use it before updating
+	 * the state to not lose a message marked as read in parallel.
+	 * 
+	 * @param identity The user
+	 * @param forumKey The forum
+	 * @return The read state or null
+	 */
+	public ForumReadStateImpl loadReadStateForUpdate(IdentityRef identity, Long forumKey) {
+		return loadReadState(identity, forumKey, true);
+	}
+	
+	private ForumReadStateImpl loadReadState(IdentityRef identity, Long forumKey, boolean forUpdate) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select state from foreadstate as state")
+		  .append(" where state.identity.key=:identityKey and state.forum.key=:forumKey");
+		
+		TypedQuery<ForumReadStateImpl> query = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), ForumReadStateImpl.class)
+				.setParameter("identityKey", identity.getKey())
+				.setParameter("forumKey", forumKey);
+		if(forUpdate) {
+			query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+		}
+		List<ForumReadStateImpl> states = query.getResultList();
+		return states.isEmpty() ? null : states.get(0);
+	}
+	
+	public List<ForumReadStateImpl> getReadStates(Long forumKey) {
+		String query = "select state from foreadstate as state where state.forum.key=:forumKey";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query, ForumReadStateImpl.class)
+				.setParameter("forumKey", forumKey)
+				.getResultList();
+	}
+	
+	public Set<Long> getReadMessageKeys(ForumReadStateImpl state) {
+		return ReadMessageKeysCodec.decode(state.getMessages());
+	}
+	
+	public ForumReadStateImpl updateReadState(ForumReadStateImpl state, Collection<Long> messageKeys) {
+		state.setLastModified(new Date());
+		state.setMessages(ReadMessageKeysCodec.encode(messageKeys));
+		state.setNumOfMessages(messageKeys == null ? 0 : messageKeys.size());
+		return dbInstance.getCurrentEntityManager().merge(state);
+	}
+	
+	/**
+	 * Move the read states of a forum to an other one. If a user has
+	 * already a read state in the target forum, the two states are
+	 * merged.
+	 * 
+	 * @param fromForumKey The merged forum
+	 * @param toForumKey The target forum
+	 */
+	public void mergeReadStates(Long fromForumKey, Long toForumKey) {
+		List<ForumReadStateImpl> fromStates = getReadStates(fromForumKey);
+		if(fromStates.isEmpty()) {
+			return;
+		}
+		
+		Map<Long,ForumReadStateImpl> toStates = getReadStates(toForumKey).stream()
+				.collect(Collectors.toMap(state -> state.getIdentity().getKey(), state -> state, (u, v) -> u));
+		Forum toForum = dbInstance.getCurrentEntityManager().getReference(ForumImpl.class, toForumKey);
+		for(ForumReadStateImpl fromState:fromStates) {
+			ForumReadStateImpl toState = toStates.get(fromState.getIdentity().getKey());
+			if(toState == null) {
+				fromState.setForum(toForum);
+				fromState.setLastModified(new Date());
+				dbInstance.getCurrentEntityManager().merge(fromState);
+			} else {
+				Set<Long> messageKeys = getReadMessageKeys(toState);
+				messageKeys.addAll(getReadMessageKeys(fromState));
+				updateReadState(toState, messageKeys);
+				deleteReadState(fromState);
+			}
+		}
+	}
+	
+	public void deleteReadState(ForumReadStateImpl state) {
+		dbInstance.getCurrentEntityManager().remove(state);
+	}
+	
+	public int deleteReadStates(Long forumKey) {
+		String query = "delete from foreadstate as state where state.forum.key=:forumKey";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query)
+				.setParameter("forumKey", forumKey)
+				.executeUpdate();
+	}
+}
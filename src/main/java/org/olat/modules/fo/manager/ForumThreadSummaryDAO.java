@@ -0,0 +1,202 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.fo.manager;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.LockModeType;
+
+import org.olat.core.commons.persistence.DB;
+import org.olat.modules.fo.model.ForumThreadSummaryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class ForumThreadSummaryDAO {
+	
+	@Autowired
+	private DB dbInstance;
+	
+	/**
+	 * Recalculate the number of replies and the date of the last reply
+	 * of the specified thread. The summary is created if needed and
+	 * deleted if the thread doesn't exist anymore.
+	 * 
+	 * @param forumKey The forum of the thread
+	 * @param threadtopKey The key of the top message of the thread
+	 * @return The summary or null if the thread was deleted
+	 */
+	public ForumThreadSummaryImpl updateSummary(Long forumKey, Long threadtopKey) {
+		ForumThreadSummaryImpl summary = loadSummaryForUpdate(threadtopKey);
+
+		String existsQuery = "select msg.key from fomessage as msg where msg.key=:threadtopKey";
+		List<Long> threadtops = dbInstance.getCurrentEntityManager()
+				.createQuery(existsQuery, Long.class)
+				.setParameter("threadtopKey", threadtopKey)
+				.getResultList();
+		if(threadtops.isEmpty()) {
+			if(summary != null) {
+				dbInstance.getCurrentEntityManager().remove(summary);
+			}
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("select count(msg.key), max(msg.lastModified) from fomessage as msg")
+		  .append(" where msg.threadtop.key=:threadtopKey");
+		Object[] statistics = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("threadtopKey", threadtopKey)
+				.getSingleResult();
+		int numOfReplies = statistics[0] == null ? 0 : ((Number)statistics[0]).intValue();
+		Date lastReplyDate = (Date)statistics[1];
+
+		if(summary == null) {
+			summary = new ForumThreadSummaryImpl();
+			summary.setCreationDate(new Date());
+			summary.setLastModified(summary.getCreationDate());
+			summary.setForumKey(forumKey);
+			summary.setThreadtopKey(threadtopKey);
+			summary.setNumOfReplies(numOfReplies);
+			summary.setLastReplyDate(lastReplyDate);
+			dbInstance.getCurrentEntityManager().persist(summary);
+		} else {
+			summary.setLastModified(new Date());
+			summary.setForumKey(forumKey);
+			summary.setNumOfReplies(numOfReplies);
+			summary.setLastReplyDate(lastReplyDate);
+			summary = dbInstance.getCurrentEntityManager().merge(summary);
+		}
+		return summary;
+	}
+	
+	public ForumThreadSummaryImpl loadSummary(Long threadtopKey) {
+		String query = "select summary from fothreadsummary as summary where summary.threadtopKey=:threadtopKey";
+		List<ForumThreadSummaryImpl> summaries = dbInstance.getCurrentEntityManager()
+				.createQuery(query, ForumThreadSummaryImpl.class)
+				.setParameter("threadtopKey", threadtopKey)
+				.getResultList();
+		return summaries.isEmpty() ? null : summaries.get(0);
+	}
+	
+	private ForumThreadSummaryImpl loadSummaryForUpdate(Long threadtopKey) {
+		String query = "select summary from fothreadsummary as summary where summary.threadtopKey=:threadtopKey";
+		List<ForumThreadSummaryImpl> summaries = dbInstance.getCurrentEntityManager()
+				.createQuery(query, ForumThreadSummaryImpl.class)
+				.setParameter("threadtopKey", threadtopKey)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+		return summaries.isEmpty() ? null : summaries.get(0);
+	}
+	
+	/**
+	 * Calculate the statistics of all threads of the forum directly
+	 * from the messages, without the summaries.
+	 * 
+	 * @param forumKey The forum
+	 * @return A map thread top key to an array with the number of replies and the date of the last reply
+	 */
+	public Map<Long,Object[]> calculateStatistics(Long forumKey) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select msg.threadtop.key, count(msg.key), max(msg.lastModified) from fomessage as msg")
+		  .append(" where msg.forum.key=:forumKey and msg.threadtop.key is not null")
+		  .append(" group by msg.threadtop.key");
+		List<Object[]> rawObjects = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("forumKey", forumKey)
+				.getResultList();
+		Map<Long,Object[]> statistics = new HashMap<>();
+		for(Object[] rawObject:rawObjects) {
+			statistics.put((Long)rawObject[0], new Object[] { rawObject[1], rawObject[2] });
+		}
+		return statistics;
+	}
+	
+	/**
+	 * Create the summaries of all the threads of the specified forum
+	 * which doesn't have one.
+	 * 
+	 * @param forumKey The forum
+	 * @return The number of created summaries
+	 */
+	public int createMissingSummaries(Long forumKey) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select msg.key from fomessage as msg")
+		  .append(" where msg.forum.key=:forumKey and msg.threadtop.key is null")
+		  .append(" and not exists (select summary.key from fothreadsummary as summary where summary.threadtopKey=msg.key)");
+		List<Long> threadtopKeys = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class)
+				.setParameter("forumKey", forumKey)
+				.getResultList();
+		if(threadtopKeys.isEmpty()) {
+			return 0;
+		}
+		
+		Map<Long,Object[]> statistics = calculateStatistics(forumKey);
+		Date now = new Date();
+		for(Long threadtopKey:threadtopKeys) {
+			Object[] threadStatistics = statistics.get(threadtopKey);
+			ForumThreadSummaryImpl summary = new ForumThreadSummaryImpl();
+			summary.setCreationDate(now);
+			summary.setLastModified(now);
+			summary.setForumKey(forumKey);
+			summary.setThreadtopKey(threadtopKey);
+			if(threadStatistics != null) {
+				summary.setNumOfReplies(((Number)threadStatistics[0]).intValue());
+				summary.setLastReplyDate((Date)threadStatistics[1]);
+			}
+			dbInstance.getCurrentEntityManager().persist(summary);
+		}
+		return threadtopKeys.size();
+	}
+	
+	public int moveSummaries(Long fromForumKey, Long toForumKey) {
+		String query = "update fothreadsummary set forumKey=:toForumKey where forumKey=:fromForumKey";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query)
+				.setParameter("toForumKey", toForumKey)
+				.setParameter("fromForumKey", fromForumKey)
+				.executeUpdate();
+	}
+	
+	public int deleteSummary(Long threadtopKey) {
+		String query = "delete from fothreadsummary as summary where summary.threadtopKey=:threadtopKey";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query)
+				.setParameter("threadtopKey", threadtopKey)
+				.executeUpdate();
+	}
+	
+	public int deleteSummaries(Long forumKey) {
+		String query = "delete from fothreadsummary as summary where summary.forumKey=:forumKey";
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(query)
+				.setParameter("forumKey", forumKey)
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.fo.manager;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.logging.log4j.Logger;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.StringHelper;
+
+/**
+ * Encode a set of message keys in a compact string: the keys are
+ * sorted, the differences between two consecutive keys are written
+ * as variable length integers, the result is deflated and at the
+ * end Base64 encoded. The keys of a forum are allocated in a narrow
+ * range, a read set of several thousands messages uses a few
+ * kilobytes.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class ReadMessageKeysCodec {
+	
+	private static final Logger log = Tracing.createLoggerFor(ReadMessageKeysCodec.class);
+	
+	private ReadMessageKeysCodec() {
+		//
+	}
+	
+	public static String encode(Collection<Long> keys) {
+		if(keys == null || keys.isEmpty()) {
+			return null;
+		}
+		
+		long[] sortedKeys = keys.stream()
+				.filter(key -> key != null && key.longValue() >= 0l)
+				.mapToLong(Long::longValue)
+				.sorted()
+				.distinct()
+				.toArray();
+		
+		ByteArrayOutputStream raw = new ByteArrayOutputStream(sortedKeys.length * 2);
+		long previous = 0l;
+		for(long key:sortedKeys) {
+			writeVarLong(raw, key - previous);
+			previous = key;
+		}
+		
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setInput(raw.toByteArray());
+			deflater.finish();
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.size());
+			byte[] buffer = new byte[1024];
+			while(!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				compressed.write(buffer, 0, length);
+			}
+			return Base64.getEncoder().encodeToString(compressed.toByteArray());
+		} finally {
+			deflater.end();
+		}
+	}
+	
+	public static Set<Long> decode(String encodedKeys) {
+		Set<Long> keys = new HashSet<>();
+		if(!StringHelper.containsNonWhitespace(encodedKeys)) {
+			return keys;
+		}
+		
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(Base64.getDecoder().decode(encodedKeys));
+			ByteArrayOutputStream raw = new ByteArrayOutputStream(encodedKeys.length() * 2);
+			byte[] buffer = new byte[1024];
+			while(!inflater.finished()) {
+				int length = inflater.inflate(buffer);
+				if(length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				raw.write(buffer, 0, length);
+			}
+			
+			byte[] bytes = raw.toByteArray();
+			long previous = 0l;
+			long delta = 0l;
+			int shift = 0;
+			for(byte b:bytes) {
+				delta |= (long)(b & 0x7F) << shift;
+				if((b & 0x80) == 0) {
+					previous += delta;
+					keys.add(Long.valueOf(previous));
+					delta = 0l;
+					shift = 0;
+				} else {
+					shift += 7;
+				}
+			}
+		} catch (IllegalArgumentException | DataFormatException e) {
+			log.error("Cannot decode read messages: {}", encodedKeys, e);
+		} finally {
+			inflater.end();
+		}
+		return keys;
+	}
+	
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while((value & ~0x7FL) != 0l) {
+			out.write((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int)value);
+	}
+}
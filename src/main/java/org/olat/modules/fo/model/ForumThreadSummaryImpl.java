@@ -0,0 +1,156 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.fo.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.olat.core.id.CreateInfo;
+import org.olat.core.id.ModifiedInfo;
+import org.olat.core.id.Persistable;
+
+/**
+ * Materialized statistics of a thread: the number of replies and
+ * the date of the last modification of a reply. It's maintained
+ * by the forum manager every time a message of the thread is
+ * created, updated, moved or deleted.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Entity(name="fothreadsummary")
+@Table(name="o_fo_thread_summary")
+public class ForumThreadSummaryImpl implements CreateInfo, ModifiedInfo, Persistable {
+
+	private static final long serialVersionUID = -3585317742981165337L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="id", nullable=false, unique=true, insertable=true, updatable=false)
+	private Long key;
+	
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="creationdate", nullable=false, insertable=true, updatable=false)
+	private Date creationDate;
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="lastmodified", nullable=false, insertable=true, updatable=true)
+	private Date lastModified;
+	
+	@Column(name="fk_forum", nullable=false, insertable=true, updatable=true)
+	private Long forumKey;
+	@Column(name="fk_thread_top", nullable=false, insertable=true, updatable=false)
+	private Long threadtopKey;
+	
+	@Column(name="t_num_of_replies", nullable=false, insertable=true, updatable=true)
+	private int numOfReplies;
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="t_last_reply_date", nullable=true, insertable=true, updatable=true)
+	private Date lastReplyDate;
+
+	@Override
+	public Long getKey() {
+		return key;
+	}
+	
+	public void setKey(Long key) {
+		this.key = key;
+	}
+
+	@Override
+	public Date getCreationDate() {
+		return creationDate;
+	}
+
+	public void setCreationDate(Date creationDate) {
+		this.creationDate = creationDate;
+	}
+
+	@Override
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	@Override
+	public void setLastModified(Date lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public Long getForumKey() {
+		return forumKey;
+	}
+
+	public void setForumKey(Long forumKey) {
+		this.forumKey = forumKey;
+	}
+
+	public Long getThreadtopKey() {
+		return threadtopKey;
+	}
+
+	public void setThreadtopKey(Long threadtopKey) {
+		this.threadtopKey = threadtopKey;
+	}
+
+	public int getNumOfReplies() {
+		return numOfReplies;
+	}
+
+	public void setNumOfReplies(int numOfReplies) {
+		this.numOfReplies = numOfReplies;
+	}
+
+	public Date getLastReplyDate() {
+		return lastReplyDate;
+	}
+
+	public void setLastReplyDate(Date lastReplyDate) {
+		this.lastReplyDate = lastReplyDate;
+	}
+
+	@Override
+	public int hashCode() {
+		return getKey() == null ? 826537 : getKey().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == this) {
+			return true;
+		}
+		if(obj instanceof ForumThreadSummaryImpl) {
+			ForumThreadSummaryImpl summary = (ForumThreadSummaryImpl)obj;
+			return getKey() != null && getKey().equals(summary.getKey());
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equalsByPersistableKey(Persistable persistable) {
+		return equals(persistable);
+	}
+}
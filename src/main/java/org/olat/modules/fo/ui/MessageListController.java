@@ -504,9 +504,15 @@ public class MessageListController extends BasicController implements GenericEve
 		}
 		
 		//append ui things
+		List<MessageLight> newMessages = new ArrayList<>();
 		for (MessageLight msg: messages) {
 			addMessageToCurrentMessagesAndVC(ureq, msg, keyToViews.get(msg.getKey()), marks, stats, rms);
+			if(rms != null && !rms.contains(msg.getKey())) {
+				newMessages.add(msg);
+			}
 		}
+		// mark now as read
+		markRead(newMessages);
 		
 		mainVC.contextPut("messages", views);
 		return views;
@@ -573,6 +579,13 @@ public class MessageListController extends BasicController implements GenericEve
 		}
 	}
 	
+	private void markRead(List<MessageLight> messages) {
+		if(!guestOnly && !messages.isEmpty()) {
+			forumManager.markAsRead(getIdentity(), forum, messages);
+			hasMarkedNewMessages = true;
+		}
+	}
+	
 	private void addMessageToCurrentMessagesAndVC(UserRequest ureq, MessageLight m, MessageView messageView,
 			Map<String,Mark> marks, Map<String,MarkResourceStat> stats, Set<Long> readSet) {
 		
@@ -583,8 +596,7 @@ public class MessageListController extends BasicController implements GenericEve
 		String keyString = m.getKey().toString();
 		if (readSet == null || readSet.contains(m.getKey())) {
 			messageView.setNewMessage(false);
-		} else {// mark now as read
-			markRead(m);
+		} else {
 			messageView.setNewMessage(true);
 		}
 		// add some data now
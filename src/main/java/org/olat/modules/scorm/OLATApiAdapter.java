@@ -365,6 +365,42 @@ public	class OLATApiAdapter implements ch.ethz.pfplms.scorm.api.ApiAdapterInterf
 		}
 	}
 	
+	/**
+	 * The values of the data model of the launched SCO which the browser
+	 * can cache. The keywords (_count, _children...) are calculated by
+	 * the RTE and the write-only elements cannot be read, they are not
+	 * part of the snapshot.
+	 * 
+	 * @return A map of the readable CMI elements with their current values
+	 */
+	public final Map<String,String> getCachableCmiValues() {
+		Map<String,String> values = new HashMap<>();
+		if (!isLaunched) return values;
+		
+		List<String> elements = new ArrayList<>(olatScoCmi.keySet());
+		elements.add("cmi.core.student_id");
+		elements.add("cmi.core.student_name");
+		for(String element:elements) {
+			if(isCachableCmiElement(element)) {
+				String value = core.LMSGetValue(element);
+				if("0".equals(core.LMSGetLastError())) {
+					values.put(element, value);
+				}
+			}
+		}
+		// reset the last error code for the SCO
+		core.LMSGetValue("cmi.core.student_id");
+		return values;
+	}
+	
+	public static final boolean isCachableCmiElement(String element) {
+		return element != null && element.startsWith("cmi.")
+				&& element.indexOf("._") < 0
+				&& !element.equals("cmi.core.exit")
+				&& !element.equals("cmi.core.session_time")
+				&& !element.startsWith("cmi.interactions.");
+	}
+	
 	/**
 	 * @return a String that points to the last accessed sco itemId
 	 */
@@ -32,6 +32,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.servlet.http.HttpServletRequest;
@@ -39,11 +40,13 @@ import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.olat.basesecurity.BaseSecurity;
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.modules.bc.FolderConfig;
 import org.olat.core.dispatcher.mapper.Mapper;
+import org.olat.core.gui.media.JSONMediaResource;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.gui.media.ServletUtil;
 import org.olat.core.gui.media.StringMediaResource;
@@ -93,6 +96,9 @@ public class ScormAPIMapper implements Mapper, ScormAPICallback, Serializable {
 	private Float currentScore;
 	private Boolean currentPassed;
 	private File cpRoot;
+	// idempotent commits of the client-side CMI cache
+	private long lastCacheSeq = -1l;
+	private String lastCacheResponse;
 	
 	public ScormAPIMapper() {
 		//for XStream
@@ -338,6 +344,10 @@ public class ScormAPIMapper implements Mapper, ScormAPICallback, Serializable {
 		if (apiCall != null) {
 			String returnValue = apiCall(apiCall, apiCallParamOne, apiCallParamTwo);
 			return createResource(returnValue, request);
+		} else if(relPath.contains("cache/initialize")) {
+			return cacheInitialize(request);
+		} else if(relPath.contains("cache/commit")) {
+			return cacheCommit(request);
 		} else if(relPath.contains("batch")) {
 			try {				
 				String batch = IOUtils.toString(request.getReader());
@@ -356,6 +366,86 @@ public class ScormAPIMapper implements Mapper, ScormAPICallback, Serializable {
 		return createResource("", request);
 	}
 	
+	/**
+	 * Initialize the SCO and send the readable part of its data model to
+	 * the browser which answers the LMSGetValue calls from this copy.
+	 * 
+	 * @param request The request
+	 * @return A JSON object with the result of LMSInitialize, the last error and the data model
+	 */
+	private synchronized MediaResource cacheInitialize(HttpServletRequest request) {
+		JSONObject response = new JSONObject();
+		try {
+			String param = request.getParameter("param1");
+			String result = scormAdapter.LMSInitialize(param == null ? "" : param);
+			response.put("result", result);
+			response.put("lastError", scormAdapter.LMSGetLastError());
+			JSONObject cmi = new JSONObject();
+			if("true".equals(result)) {
+				for(Map.Entry<String, String> entry:scormAdapter.getCachableCmiValues().entrySet()) {
+					cmi.put(entry.getKey(), entry.getValue());
+				}
+			}
+			response.put("cmi", cmi);
+			// a new attempt, the sequence restarts
+			lastCacheSeq = -1l;
+			lastCacheResponse = null;
+		} catch (JSONException e) {
+			log.error("", e);
+		}
+		return new JSONMediaResource(response, "UTF-8");
+	}
+	
+	private MediaResource cacheCommit(HttpServletRequest request) {
+		try {
+			String batch = IOUtils.toString(request.getReader());
+			return new JSONMediaResource(cacheCommit(batch), "UTF-8");
+		} catch (IOException | JSONException e) {
+			log.error("", e);
+			return createResource("", request);
+		}
+	}
+	
+	/**
+	 * Apply a batch of API calls collected by the browser, typically the
+	 * pending LMSSetValue followed by an LMSCommit, LMSFinish or an
+	 * LMSGetValue not in the cache of the browser. The batches are
+	 * numbered, a batch sent twice (a retry after a network error) is
+	 * not applied a second time, the response of the first one is
+	 * returned.
+	 * 
+	 * @param batch The batch as JSON object: {seq, calls:[{apiCall,param1,param2}]}
+	 * @return A JSON object with the results of the calls and the last error
+	 * @throws JSONException If the batch is not well formed
+	 */
+	synchronized JSONObject cacheCommit(String batch) throws JSONException {
+		JSONObject batchObj = new JSONObject(batch);
+		long seq = batchObj.getLong("seq");
+		if(seq <= lastCacheSeq && lastCacheResponse != null) {
+			log.debug("SCORM cache batch {} already applied", seq);
+			return new JSONObject(lastCacheResponse);
+		}
+		
+		JSONArray calls = batchObj.getJSONArray("calls");
+		JSONArray results = new JSONArray();
+		for(int i=0; i<calls.length(); i++) {
+			JSONObject call = calls.getJSONObject(i);
+			String result = apiCall(call.getString("apiCall"), call.optString("param1", ""), call.optString("param2", ""));
+			JSONObject callResult = new JSONObject();
+			callResult.put("result", result);
+			callResult.put("error", scormAdapter.LMSGetLastError());
+			results.put(callResult);
+		}
+		
+		JSONObject response = new JSONObject();
+		response.put("seq", seq);
+		response.put("results", results);
+		response.put("lastError", scormAdapter.LMSGetLastError());
+		lastCacheSeq = seq;
+		lastCacheResponse = response.toString();
+		return response;
+	}
+	
 	private String apiCall(String apiCall, String apiCallParamOne, String apiCallParamTwo) {
 		String returnValue = "";
 		if (apiCall.equals(LMS_INITIALIZE)) {
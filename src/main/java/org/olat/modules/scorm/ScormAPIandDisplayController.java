@@ -250,6 +250,7 @@ public class ScormAPIandDisplayController extends MainLayoutBasicController impl
 		Mapper mapper = new ScormAPIMapper(ureq.getIdentity(), scormResourceIdStr, courseIdNodeId, assessableType, cpRoot, scormAdapter, attemptsIncremented);
 		String scormCallbackUri = registerMapper(ureq, mapper);
 		myContent.contextPut("scormCallbackUri", scormCallbackUri+"/");
+		myContent.contextPut("clientCache", Boolean.valueOf(scormMainManager.isClientCacheEnabled()));
 	}
 	
 	/**
@@ -38,6 +38,7 @@ import org.olat.core.logging.Tracing;
 import org.olat.core.util.FileUtils;
 import org.olat.core.util.xml.XStreamHelper;
 import org.olat.fileresource.FileResourceManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.thoughtworks.xstream.XStream;
@@ -65,6 +66,17 @@ public class ScormMainManager {
 		configXstream.alias("deliveryOptions", DeliveryOptions.class);
 	}
 	
+	@Value("${scorm.runtime.client.cache:false}")
+	private boolean clientCacheEnabled;
+	
+	/**
+	 * @return true if the API adapter in the browser holds a copy of the
+	 * 		CMI data model and sends the changes in batches
+	 */
+	public boolean isClientCacheEnabled() {
+		return clientCacheEnabled;
+	}
+	
 	public ScormPackageConfig getScormPackageConfig(File cpRoot) {
 		File configXml = new File(cpRoot.getParentFile(), PACKAGE_CONFIG_FILE_NAME);
 		if(configXml.exists()) {
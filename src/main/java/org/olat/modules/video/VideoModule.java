@@ -76,6 +76,10 @@ public class VideoModule extends AbstractSpringModule {
 	private String transcodingResolutions;
 	@Value("${video.transcoding.taskset.cpuconfig}")
 	private String transcodingTasksetConfig;
+	@Value("${video.transcoding.local.processes:1}")
+	private int transcodingProcesses;
+	@Value("${video.transcoding.local.command:HandBrakeCLI}")
+	private String transcodingCommand;
 	@Value("${video.transcoding.dir}")
 	private String transcodingDir;
 	@Value("${video.transcoding.resolution.preferred}")
@@ -158,6 +162,7 @@ public class VideoModule extends AbstractSpringModule {
 		log.info("video.transcoding.resolution.preferred={}", getPreferredDefaultResolution());
 		log.info("video.transcoding.taskset.cpuconfig={}", getTranscodingTasksetConfig());
 		log.info("video.transcoding.local={}", isTranscodingLocal());
+		log.info("video.transcoding.local.processes={}", getTranscodingProcesses());
 		log.info("video.transcoding.profile={}", getVideoTranscodingProfile());
 
 		// Register video site for activation in top navigation
@@ -252,6 +257,44 @@ public class VideoModule extends AbstractSpringModule {
 			return null;
 		}
 	}
+	
+	/**
+	 * [used by tests]
+	 * @param config The taskset configuration or null to disable taskset
+	 */
+	public void setTranscodingTasksetConfig(String config) {
+		this.transcodingTasksetConfig = config;
+	}
+	
+	/**
+	 * @return The number of HandBrake processes running in parallel on this node
+	 */
+	public int getTranscodingProcesses() {
+		return Math.max(1, transcodingProcesses);
+	}
+
+	/**
+	 * [used by tests]
+	 * @param transcodingProcesses
+	 */
+	public void setTranscodingProcesses(int transcodingProcesses) {
+		this.transcodingProcesses = transcodingProcesses;
+	}
+
+	/**
+	 * @return The HandBrake command line, HandBrakeCLI by default
+	 */
+	public String getTranscodingCommand() {
+		return StringHelper.containsNonWhitespace(transcodingCommand) ? transcodingCommand.trim() : "HandBrakeCLI";
+	}
+
+	/**
+	 * [used by tests]
+	 * @param transcodingCommand
+	 */
+	public void setTranscodingCommand(String transcodingCommand) {
+		this.transcodingCommand = transcodingCommand;
+	}
 
 
 	@Override
@@ -24,6 +24,7 @@ import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.Query;
 
 import org.olat.core.commons.persistence.DB;
 import org.olat.modules.video.VideoTranscoding;
@@ -140,7 +141,7 @@ public class VideoTranscodingDAO {
 	}
 	
 	public VideoTranscoding getVideoTranscoding(Long key) {
-		String query = "select trans from videotranscoding as trans where trans.key=:transcodingKey";
+		String query = "select trans from videotranscoding as trans inner join fetch trans.videoResource as res where trans.key=:transcodingKey";
 		List<VideoTranscoding> transcoding = dbInstance.getCurrentEntityManager()
 				.createQuery(query, VideoTranscoding.class)
 				.setParameter("transcodingKey", key)
@@ -258,6 +259,91 @@ public class VideoTranscodingDAO {
 				.getResultList();
 	}
 	
+	/**
+	 * The primary keys of the video transcodings which are waiting and not
+	 * claimed by a transcoder, the lowest resolutions first.
+	 * 
+	 * @param maxResults The max. number of keys
+	 * @return A list of primary keys
+	 */
+	List<Long> getWaitingVideoTranscodingKeys(int maxResults) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select trans.key from videotranscoding as trans")
+		  .append(" where trans.transcoder is null and trans.status != 100 and trans.status > -2")
+		  .append(" order by trans.resolution asc, trans.creationDate asc, trans.key asc");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class)
+				.setFirstResult(0)
+				.setMaxResults(maxResults)
+				.getResultList();
+	}
+	
+	/**
+	 * Get the video transcodings claimed by the specified transcoder
+	 * and not finished.
+	 * 
+	 * @param transcoder The transcoder
+	 * @return A list of video transcodings
+	 */
+	List<VideoTranscoding> getVideoTranscodingsInProgress(String transcoder) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select trans from videotranscoding as trans")
+		  .append(" inner join fetch trans.videoResource as res")
+		  .append(" where trans.transcoder=:transcoder and trans.status != 100 and trans.status > -2")
+		  .append(" order by trans.resolution asc, trans.creationDate asc, trans.key asc");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), VideoTranscoding.class)
+				.setParameter("transcoder", transcoder)
+				.getResultList();
+	}
+	
+	/**
+	 * Set the transcoder of the video transcoding if it is still the expected
+	 * one. The update is atomic, only one transcoder of the cluster can claim
+	 * a video.
+	 * 
+	 * @param key The primary key of the video transcoding
+	 * @param currentTranscoder The expected transcoder, null if not claimed
+	 * @param transcoder The new transcoder
+	 * @return true if the video transcoding is claimed
+	 */
+	boolean claimVideoTranscoding(Long key, String currentTranscoder, String transcoder) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("update videotranscoding set transcoder=:transcoder, lastModified=:now")
+		  .append(" where key=:transcodingKey and ");
+		if(currentTranscoder == null) {
+			sb.append("transcoder is null");
+		} else {
+			sb.append("transcoder=:currentTranscoder");
+		}
+		
+		Query query = dbInstance.getCurrentEntityManager().createQuery(sb.toString())
+				.setParameter("transcoder", transcoder)
+				.setParameter("now", new Date())
+				.setParameter("transcodingKey", key);
+		if(currentTranscoder != null) {
+			query.setParameter("currentTranscoder", currentTranscoder);
+		}
+		return query.executeUpdate() == 1;
+	}
+	
+	/**
+	 * Update the progress of the transcoding without loading it.
+	 * 
+	 * @param key The primary key of the video transcoding
+	 * @param status The status or the percent done
+	 * @return false if the video transcoding was deleted
+	 */
+	boolean updateTranscodingProgress(Long key, int status) {
+		String query = "update videotranscoding set status=:status, lastModified=:now where key=:transcodingKey";
+		int rows = dbInstance.getCurrentEntityManager().createQuery(query)
+				.setParameter("status", status)
+				.setParameter("now", new Date())
+				.setParameter("transcodingKey", key)
+				.executeUpdate();
+		return rows > 0;
+	}
+	
 	/**
 	 * Gets the failed video transcodings.
 	 * currently error codes start at -2 until -4.
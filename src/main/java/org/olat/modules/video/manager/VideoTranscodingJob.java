@@ -27,16 +27,23 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.Logger;
-import org.hibernate.ObjectDeletedException;
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.commons.services.image.Size;
 import org.olat.core.commons.services.scheduler.JobWithDB;
 import org.olat.core.commons.services.video.MovieService;
+import org.olat.core.helpers.Settings;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.StringHelper;
+import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.vfs.LocalFileImpl;
 import org.olat.core.util.vfs.LocalFolderImpl;
 import org.olat.modules.video.VideoManager;
@@ -47,6 +54,7 @@ import org.olat.resource.OLATResource;
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
  * 
@@ -58,6 +66,7 @@ import org.quartz.JobExecutionException;
 public class VideoTranscodingJob extends JobWithDB {
 	
 	private static final Logger log = Tracing.createLoggerFor(VideoTranscodingJob.class);
+	private static final int MAX_CANDIDATES = 10;
 	private final List<String> resolutionsWithProfile = new ArrayList<>(Arrays.asList("1080", "720", "480"));
 
 	@Override
@@ -67,10 +76,11 @@ public class VideoTranscodingJob extends JobWithDB {
 	}
 
 	/**
-	 * Implementation of job execution
-	 * @param context
-	 * @return
-	 * @throws JobExecutionException
+	 * Implementation of job execution. The videos are transcoded by a pool
+	 * of workers, every worker claims the next video atomically so several
+	 * workers and several nodes never work on the same video.
+	 * 
+	 * @return true: all ok; false: an error happend along the way
 	 */
 	private boolean doExecute() {
 		VideoModule videoModule = CoreSpringFactory.getImpl(VideoModule.class);
@@ -79,17 +89,56 @@ public class VideoTranscodingJob extends JobWithDB {
 			return false;
 		}
 		
-		// Find first one to work with
+		String transcoder = getLocalTranscoder();
+		// transcodings interrupted by a restart of this node
+		Queue<VideoTranscoding> interruptedTranscodings = new ConcurrentLinkedQueue<>(getInterruptedVideos(transcoder));
+		DBFactory.getInstance().commitAndCloseSession();
+		
+		int processes = videoModule.getTranscodingProcesses();
+		ExecutorService executor = Executors.newFixedThreadPool(processes, new CustomizableThreadFactory("oo-video-transcoding-"));
+		List<Future<Boolean>> workers = new ArrayList<>(processes);
+		for(int i=0; i<processes; i++) {
+			workers.add(executor.submit(() -> transcodeVideos(transcoder, interruptedTranscodings)));
+		}
+		
 		boolean allOk = true;
-		for(VideoTranscoding videoTranscoding = getNextVideo(); videoTranscoding != null;  videoTranscoding = getNextVideo()) {
-			if(cancelTranscoding()) {
-				break;
+		try {
+			for(Future<Boolean> worker:workers) {
+				allOk &= worker.get().booleanValue();
 			}
-			allOk &= forkTranscodingProcess(videoTranscoding);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			allOk = false;
+		} catch (ExecutionException e) {
+			log.error("", e);
+			allOk = false;
+		} finally {
+			executor.shutdownNow();
 		}
 		return allOk;
 	}
 	
+	private Boolean transcodeVideos(String transcoder, Queue<VideoTranscoding> interruptedTranscodings) {
+		boolean allOk = true;
+		try {
+			while(!cancelTranscoding()) {
+				VideoTranscoding videoTranscoding = getNextVideo(transcoder, interruptedTranscodings);
+				if(videoTranscoding == null) {
+					break;
+				}
+				allOk &= forkTranscodingProcess(videoTranscoding);
+				DBFactory.getInstance().commitAndCloseSession();
+			}
+		} catch (Exception e) {
+			log.error("", e);
+			DBFactory.getInstance().rollbackAndCloseSession();
+			allOk = false;
+		} finally {
+			DBFactory.getInstance().commitAndCloseSession();
+		}
+		return Boolean.valueOf(allOk);
+	}
+	
 	private boolean cancelTranscoding() {
 		try {
 			VideoModule videoModule = CoreSpringFactory.getImpl(VideoModule.class);
@@ -100,26 +149,56 @@ public class VideoTranscodingJob extends JobWithDB {
 		}
 	}
 	
-	private VideoTranscoding getNextVideo() {
-		VideoManager videoManager = CoreSpringFactory.getImpl(VideoManager.class);
-		List<VideoTranscoding> videoTranscodings = videoManager.getVideoTranscodingsPendingAndInProgress();
-		VideoTranscoding videoTranscoding = null;
-		for (VideoTranscoding videoTrans : videoTranscodings) {
-			String transcoder = videoTrans.getTranscoder();
-			if (transcoder == null) { 
-				log.info("Start transcoding video with resolution::" + videoTrans.getResolution()
-					+ " for video resource::" + videoTrans.getVideoResource().getResourceableId());
-				videoTrans.setTranscoder(VideoTranscoding.TRANSCODER_LOCAL);
-				videoTranscoding = videoManager.updateVideoTranscoding(videoTrans);				
-				break;
-			} else if (transcoder.equals(VideoTranscoding.TRANSCODER_LOCAL)) {
-				log.info("Continue with transcoding video with resolution::" + videoTrans.getResolution()
-					+ " for video resource::" + videoTrans.getVideoResource().getResourceableId());
-				videoTranscoding = videoTrans;								
-				break;
+	/**
+	 * @return The name of the transcoder of this node, with the node id in cluster mode
+	 */
+	private String getLocalTranscoder() {
+		if(CoordinatorManager.getInstance().getCoordinator().isClusterMode()) {
+			return VideoTranscoding.TRANSCODER_LOCAL + " (node " + Settings.getNodeId() + ")";
+		}
+		return VideoTranscoding.TRANSCODER_LOCAL;
+	}
+	
+	private List<VideoTranscoding> getInterruptedVideos(String transcoder) {
+		VideoTranscodingDAO videoTranscodingDao = CoreSpringFactory.getImpl(VideoTranscodingDAO.class);
+		List<VideoTranscoding> videoTranscodings = new ArrayList<>(videoTranscodingDao.getVideoTranscodingsInProgress(transcoder));
+		if(!VideoTranscoding.TRANSCODER_LOCAL.equals(transcoder)) {
+			// claimed before the transcoders had the node id
+			List<VideoTranscoding> legacyTranscodings = videoTranscodingDao.getVideoTranscodingsInProgress(VideoTranscoding.TRANSCODER_LOCAL);
+			for(VideoTranscoding legacyTranscoding:legacyTranscodings) {
+				if(videoTranscodingDao.claimVideoTranscoding(legacyTranscoding.getKey(), VideoTranscoding.TRANSCODER_LOCAL, transcoder)) {
+					videoTranscodings.add(legacyTranscoding);
+				}
 			}
 		}
-		return videoTranscoding;
+		return videoTranscodings;
+	}
+	
+	private VideoTranscoding getNextVideo(String transcoder, Queue<VideoTranscoding> interruptedTranscodings) {
+		VideoTranscoding videoTranscoding = interruptedTranscodings.poll();
+		if(videoTranscoding != null) {
+			log.info("Continue with transcoding video with resolution::" + videoTranscoding.getResolution()
+				+ " for video resource::" + videoTranscoding.getVideoResource().getResourceableId());
+			return videoTranscoding;
+		}
+		
+		VideoTranscodingDAO videoTranscodingDao = CoreSpringFactory.getImpl(VideoTranscodingDAO.class);
+		for(List<Long> keys = videoTranscodingDao.getWaitingVideoTranscodingKeys(MAX_CANDIDATES); !keys.isEmpty();
+				keys = videoTranscodingDao.getWaitingVideoTranscodingKeys(MAX_CANDIDATES)) {
+			for(Long key:keys) {
+				boolean claimed = videoTranscodingDao.claimVideoTranscoding(key, null, transcoder);
+				DBFactory.getInstance().commitAndCloseSession();
+				if(claimed) {
+					videoTranscoding = videoTranscodingDao.getVideoTranscoding(key);
+					if(videoTranscoding != null) {
+						log.info("Start transcoding video with resolution::" + videoTranscoding.getResolution()
+							+ " for video resource::" + videoTranscoding.getVideoResource().getResourceableId());
+						return videoTranscoding;
+					}
+				}
+			}
+		}
+		return null;
 	}
 	
 	/**
@@ -147,9 +226,8 @@ public class VideoTranscodingJob extends JobWithDB {
 		
 		File transcodingFolder = ((LocalFolderImpl)videoManager.getTranscodingContainer(video)).getBasefile();
 		File transcodedFile = new File(transcodingFolder,  Integer.toString(videoTranscoding.getResolution()) + masterFile.getName());
-		// mark this as beeing transcoded by this local transcoder
-		videoTranscoding.setTranscoder(VideoTranscoding.TRANSCODER_LOCAL);
-		videoTranscoding = videoManager.updateVideoTranscoding(videoTranscoding);
+		// the transcoding was claimed by this transcoder
+		DBFactory.getInstance().commitAndCloseSession();
 		
 		String resolution = Integer.toString(videoTranscoding.getResolution());
 		String profile = "Normal"; // Legacy fallback		
@@ -164,7 +242,7 @@ public class VideoTranscodingJob extends JobWithDB {
 			cmd.add("-c");
 			cmd.add(tasksetConfig);			
 		}
-		cmd.add("HandBrakeCLI");
+		cmd.add(videoModule.getTranscodingCommand());
 		cmd.add("-i"); 
 		cmd.add(masterFile.getAbsolutePath());
 		cmd.add("-o"); 
@@ -254,7 +332,8 @@ public class VideoTranscodingJob extends JobWithDB {
 	 * @return false if the transcoding object was deleted
 	 */
 	private boolean updateStatus(Process proc, VideoTranscoding videoTranscoding) {
-		VideoManager videoManager = CoreSpringFactory.getImpl(VideoManager.class);
+		VideoTranscodingDAO videoTranscodingDao = CoreSpringFactory.getImpl(VideoTranscodingDAO.class);
+		int currentPercent = videoTranscoding.getStatus();
 		try(InputStream stdout = proc.getInputStream();
 			InputStreamReader isr = new InputStreamReader(stdout);
 			BufferedReader br = new BufferedReader(isr)) {
@@ -271,15 +350,17 @@ public class VideoTranscodingJob extends JobWithDB {
 						String percent = line.substring(2, end);
 						log.debug("Output: " + percent);		
 						// update version file for UI
-						try {
-							videoTranscoding.setStatus(Integer.parseInt(percent));
-							videoTranscoding = videoManager.updateVideoTranscoding(videoTranscoding);
-							DBFactory.getInstance().commitAndCloseSession();							
-						} catch (ObjectDeletedException e) {
-							// deleted by other process
-							proc.destroy();
-							br.close();
-							return false;
+						int newPercent = Integer.parseInt(percent);
+						if(newPercent != currentPercent) {
+							boolean exists = videoTranscodingDao.updateTranscodingProgress(videoTranscoding.getKey(), newPercent);
+							DBFactory.getInstance().commitAndCloseSession();
+							if(!exists) {
+								// deleted by other process
+								proc.destroy();
+								br.close();
+								return false;
+							}
+							currentPercent = newPercent;
 						}
 					}
 				}
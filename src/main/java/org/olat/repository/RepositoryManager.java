@@ -90,6 +90,7 @@ import org.olat.repository.model.RepositoryEntryMembership;
 import org.olat.repository.model.RepositoryEntryMembershipModifiedEvent;
 import org.olat.repository.model.RepositoryEntryPermissionChangeEvent;
 import org.olat.repository.model.RepositoryEntrySecurityImpl;
+import org.olat.repository.model.RepositoryEntryStatusChangedEvent;
 import org.olat.repository.model.RepositoryEntryToGroupRelation;
 import org.olat.repository.model.SearchRepositoryEntryParameters;
 import org.olat.resource.OLATResource;
@@ -655,6 +656,7 @@ public class RepositoryManager {
 		if(reloadedRe == null) {
 			return null;
 		}
+		RepositoryEntryStatusEnum previousStatus = reloadedRe.getEntryStatus();
 		reloadedRe.setEntryStatus(status);
 		reloadedRe.setAllUsers(allUsers);
 		reloadedRe.setGuests(guests);
@@ -662,6 +664,7 @@ public class RepositoryManager {
 		RepositoryEntry updatedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
 		dbInstance.commit();
 		lifeIndexer.indexDocument(RepositoryEntryDocument.TYPE, updatedRe.getKey());
+		fireStatusChangedEvent(updatedRe, previousStatus);
 		return updatedRe;
 	}
 	
@@ -750,6 +753,7 @@ public class RepositoryManager {
 		if(reloadedRe == null) {
 			return null;
 		}
+		RepositoryEntryStatusEnum previousStatus = reloadedRe.getEntryStatus();
 		reloadedRe.setEntryStatus(status);
 		reloadedRe.setAllUsers(allUsers);
 		reloadedRe.setGuests(guests);
@@ -766,6 +770,7 @@ public class RepositoryManager {
 		}
 
 		dbInstance.commit();
+		fireStatusChangedEvent(updatedRe, previousStatus);
 		return updatedRe;
 	}
 	
@@ -774,6 +779,7 @@ public class RepositoryManager {
 		if(reloadedRe == null) {
 			return null;
 		}
+		RepositoryEntryStatusEnum previousStatus = reloadedRe.getEntryStatus();
 		reloadedRe.setEntryStatus(status);
 
 		reloadedRe.setLastModified(new Date());
@@ -785,9 +791,18 @@ public class RepositoryManager {
 			updatedRe.getLifecycle().getCreationDate();
 		}
 		dbInstance.commit();
+		fireStatusChangedEvent(updatedRe, previousStatus);
 		return updatedRe;
 	}
 
+	private void fireStatusChangedEvent(RepositoryEntry entry, RepositoryEntryStatusEnum previousStatus) {
+		if(previousStatus != entry.getEntryStatus()) {
+			RepositoryEntryStatusChangedEvent statusChangedEvent = new RepositoryEntryStatusChangedEvent(entry.getKey());
+			CoordinatorManager.getInstance().getCoordinator().getEventBus()
+				.fireEventToListenersOf(statusChangedEvent, OresHelper.clone(entry));
+		}
+	}
+
 	public RepositoryEntry setLeaveSetting(final RepositoryEntry re,
 			RepositoryEntryAllowToLeaveOptions setting) {
 		RepositoryEntry reloadedRe = repositoryEntryDao.loadForUpdate(re);
@@ -21,20 +21,36 @@ package org.olat.repository.manager;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.persistence.LockModeType;
 
+import org.apache.logging.log4j.Logger;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.services.commentAndRating.UserCommentsDelegate;
 import org.olat.core.commons.services.commentAndRating.UserRatingsDelegate;
 import org.olat.core.commons.services.commentAndRating.manager.UserCommentsDAO;
 import org.olat.core.commons.services.commentAndRating.manager.UserRatingsDAO;
 import org.olat.core.id.OLATResourceable;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
+import org.olat.core.util.CounterAccumulator;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.model.RepositoryEntryStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 /**
@@ -45,6 +61,18 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class RepositoryEntryStatisticsDAO implements UserRatingsDelegate, UserCommentsDelegate {
+	
+	private static final Logger log = Tracing.createLoggerFor(RepositoryEntryStatisticsDAO.class);
+
+	@Value("${counters.accumulate.enabled:false}")
+	private boolean accumulate;
+	@Value("${counters.accumulate.interval:5}")
+	private int accumulateInterval;
+	
+	private final CounterAccumulator<Long> launchCounters = new CounterAccumulator<>();
+	private final CounterAccumulator<Long> downloadCounters = new CounterAccumulator<>();
+	private final ConcurrentMap<Long,Date> lastUsages = new ConcurrentHashMap<>();
+	private ScheduledExecutorService flushScheduler;
 
 	@Autowired
 	private DB dbInstance;
@@ -57,6 +85,31 @@ public class RepositoryEntryStatisticsDAO implements UserRatingsDelegate, UserCo
 	public void init() {
 		userRatingsDao.addDegelate(this);
 		userCommentsDao.addDelegate(this);
+		if(accumulate) {
+			long interval = Math.max(1, accumulateInterval);
+			flushScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("oo-repo-counters-"));
+			flushScheduler.scheduleWithFixedDelay(this::flushCounters, interval, interval, TimeUnit.SECONDS);
+		}
+	}
+	
+	@PreDestroy
+	public void destroy() {
+		if(flushScheduler != null) {
+			flushScheduler.shutdownNow();
+		}
+		flushCounters();
+	}
+	
+	public boolean isAccumulate() {
+		return accumulate;
+	}
+
+	/**
+	 * [used by tests]
+	 * @param accumulate
+	 */
+	public void setAccumulate(boolean accumulate) {
+		this.accumulate = accumulate;
 	}
 	
 	/**
@@ -64,6 +117,13 @@ public class RepositoryEntryStatisticsDAO implements UserRatingsDelegate, UserCo
 	 * @param re
 	 */
 	public void incrementLaunchCounter(RepositoryEntry re) {
+		if(accumulate) {
+			Long statsKey = re.getStatistics().getKey();
+			launchCounters.increment(statsKey);
+			updateLastUsage(statsKey, new Date());
+			return;
+		}
+		
 		String updateQuery = "update repoentrystats set launchCounter=launchCounter+1, lastUsage=:now where key=:statsKey";
 		int updated = dbInstance.getCurrentEntityManager().createQuery(updateQuery)
 			.setParameter("statsKey", re.getStatistics().getKey())
@@ -79,6 +139,13 @@ public class RepositoryEntryStatisticsDAO implements UserRatingsDelegate, UserCo
 	 * @param re
 	 */
 	public void incrementDownloadCounter(RepositoryEntry re) {
+		if(accumulate) {
+			Long statsKey = re.getStatistics().getKey();
+			downloadCounters.increment(statsKey);
+			updateLastUsage(statsKey, new Date());
+			return;
+		}
+		
 		String updateQuery = "update repoentrystats set downloadCounter=downloadCounter+1, lastUsage=:now where key=:statsKey";
 		int updated = dbInstance.getCurrentEntityManager().createQuery(updateQuery)
 			.setParameter("statsKey", re.getStatistics().getKey())
@@ -99,6 +166,11 @@ public class RepositoryEntryStatisticsDAO implements UserRatingsDelegate, UserCo
 		
 		Date newUsage = new Date();
 		if(re.getStatistics().getLastUsage().getTime() + 60000 < newUsage.getTime()) {
+			if(accumulate) {
+				updateLastUsage(re.getStatistics().getKey(), newUsage);
+				return;
+			}
+			
 			Calendar cal = Calendar.getInstance();
 			cal.add(Calendar.MINUTE, -1);
 			Date limit = cal.getTime();
@@ -115,6 +187,83 @@ public class RepositoryEntryStatisticsDAO implements UserRatingsDelegate, UserCo
 		}
 	}
 	
+	private void updateLastUsage(Long statsKey, Date lastUsage) {
+		lastUsages.merge(statsKey, lastUsage, (d1, d2) -> d1.after(d2) ? d1 : d2);
+	}
+	
+	/**
+	 * Write the launch and download counters and the last usages accumulated in
+	 * memory. The statistics are updated in the order of their primary keys
+	 * within one transaction.
+	 * 
+	 * @return The number of statistics updated
+	 */
+	public int flushCounters() {
+		if(launchCounters.isEmpty() && downloadCounters.isEmpty() && lastUsages.isEmpty()) {
+			return 0;
+		}
+		
+		long start = System.nanoTime();
+		Map<Long,Long> launches = launchCounters.drain();
+		Map<Long,Long> downloads = downloadCounters.drain();
+		Map<Long,Date> usages = new HashMap<>();
+		for(Long statsKey:lastUsages.keySet()) {
+			Date lastUsage = lastUsages.remove(statsKey);
+			if(lastUsage != null) {
+				usages.put(statsKey, lastUsage);
+			}
+		}
+		
+		Set<Long> statsKeys = new TreeSet<>();
+		statsKeys.addAll(launches.keySet());
+		statsKeys.addAll(downloads.keySet());
+		statsKeys.addAll(usages.keySet());
+		
+		int count = 0;
+		try {
+			for(Long statsKey:statsKeys) {
+				long launchDelta = launches.getOrDefault(statsKey, 0l).longValue();
+				long downloadDelta = downloads.getOrDefault(statsKey, 0l).longValue();
+				Date lastUsage = usages.get(statsKey);
+				if(lastUsage == null) {
+					lastUsage = new Date();
+				}
+				count += updateCounters(statsKey, launchDelta, downloadDelta, lastUsage);
+			}
+			dbInstance.commitAndCloseSession();
+			log.debug("Flush counters of {} repository entries in (ms): {}", count, CodeHelper.nanoToMilliTime(start));
+		} catch (Exception e) {
+			log.error("Cannot flush the counters of the repository entries", e);
+			dbInstance.rollbackAndCloseSession();
+			// try again at the next flush
+			launchCounters.addAll(launches);
+			downloadCounters.addAll(downloads);
+			for(Map.Entry<Long,Date> usage:usages.entrySet()) {
+				updateLastUsage(usage.getKey(), usage.getValue());
+			}
+			count = 0;
+		}
+		return count;
+	}
+	
+	private int updateCounters(Long statsKey, long launchDelta, long downloadDelta, Date lastUsage) {
+		if(launchDelta == 0l && downloadDelta == 0l) {
+			String updateQuery = "update repoentrystats set lastUsage=:now where key=:statsKey and lastUsage<:now";
+			return dbInstance.getCurrentEntityManager().createQuery(updateQuery)
+				.setParameter("statsKey", statsKey)
+				.setParameter("now", lastUsage)
+				.executeUpdate();
+		}
+		
+		String updateQuery = "update repoentrystats set launchCounter=launchCounter+:launches, downloadCounter=downloadCounter+:downloads, lastUsage=:now where key=:statsKey";
+		return dbInstance.getCurrentEntityManager().createQuery(updateQuery)
+			.setParameter("statsKey", statsKey)
+			.setParameter("launches", launchDelta)
+			.setParameter("downloads", downloadDelta)
+			.setParameter("now", lastUsage)
+			.executeUpdate();
+	}
+	
 	protected RepositoryEntryStatistics loadStatistics(OLATResourceable repositoryEntryRes) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("select v.statistics from ").append(RepositoryEntry.class.getName()).append(" as v")
@@ -494,6 +494,9 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 		}
 		reloadedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
 		dbInstance.commit();
+		
+		RepositoryEntryStatusChangedEvent statusChangedEvent = new RepositoryEntryStatusChangedEvent(reloadedRe.getKey());
+		coordinatorManager.getCoordinator().getEventBus().fireEventToListenersOf(statusChangedEvent, OresHelper.clone(reloadedRe));
 		return reloadedRe;
 	}
 
@@ -639,6 +642,9 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 		reloadedEntry.setEntryStatus(RepositoryEntryStatusEnum.published);
 		reloadedEntry = dbInstance.getCurrentEntityManager().merge(reloadedEntry);
 		dbInstance.commit();
+		
+		RepositoryEntryStatusChangedEvent statusChangedEvent = new RepositoryEntryStatusChangedEvent(reloadedEntry.getKey());
+		coordinatorManager.getCoordinator().getEventBus().fireEventToListenersOf(statusChangedEvent, OresHelper.clone(reloadedEntry));
 		return reloadedEntry;
 	}
 
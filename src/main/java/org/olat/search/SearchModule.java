@@ -101,6 +101,8 @@ public class SearchModule extends AbstractSpringModule {
 	private int searchTimeout;
 	@Value("${search.folder.pool.size:3}")
 	private int folderPoolSize;
+	@Value("${search.index.shards:1}")
+	private int indexShards;
 	@Value("${restart.window.start}")
 	private int restartWindowStart;
 	@Value("${restart.window.end}")
@@ -313,6 +315,13 @@ public class SearchModule extends AbstractSpringModule {
 		return folderPoolSize;
 	}
 
+	/**
+	 * @return Number of index writers of the full indexer, the shards are merged at the end.
+	 */
+	public int getIndexShards() {
+		return indexShards < 1 ? 1 : indexShards;
+	}
+
 	/**
 	 * @return Start hour for restart-window.
 	 */
@@ -87,6 +87,12 @@ public abstract class AbstractOlatDocument implements Serializable {
 
 	public static final String LICENSE_TYPE_FIELD_NAME = "licensetype";
 	
+	/** Owning repository entry or business group of documents which are only visible to their members. */
+	public static final String ACCESS_CONTEXT_FIELD_NAME = "accesscontext";
+	
+	/** Flag for the documents with an access context, documents without it are not pre-filtered. */
+	public static final String ACCESS_RESTRICTED_FIELD_NAME = "accessrestricted";
+	
 	public static final Set<String> getFields() {
 		Set<String> fields = new HashSet<>();
 		fields.add(DB_ID_NAME);
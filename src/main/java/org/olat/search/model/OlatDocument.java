@@ -47,6 +47,10 @@ import org.olat.core.util.StringHelper;
 public class OlatDocument extends AbstractOlatDocument {
 
 	private static final long serialVersionUID = 2632864475115088251L;
+	
+	public static final String REPOSITORY_ENTRY_CONTEXT = "RepositoryEntry:";
+	public static final String BUSINESS_GROUP_CONTEXT = "BusinessGroup:";
+	
 	private String content = "";
 	
 	public OlatDocument() {
@@ -124,9 +128,40 @@ public class OlatDocument extends AbstractOlatDocument {
 			document.add(new StringField(RESERVED_TO, "public", Field.Store.YES));
 		}
 		document.add(new StringField(LICENSE_TYPE_FIELD_NAME, getLicenseTypeKey(), Field.Store.YES));
+		
+		String accessContext = getAccessContext(getResourceUrl());
+		if(accessContext != null) {
+			document.add(new StringField(ACCESS_CONTEXT_FIELD_NAME, accessContext, Field.Store.NO));
+			document.add(new StringField(ACCESS_RESTRICTED_FIELD_NAME, "true", Field.Store.NO));
+		}
 		return document;
 	}
 	
+	/**
+	 * The access context is the repository entry of all documents in a repository
+	 * entry, and the business group of the documents within a group (forum, folder...)
+	 * but not the group itself which can be found by non-members if it's bookable.
+	 * 
+	 * @param resourceUrl The resource URL of the document
+	 * @return The access context (e.g. RepositoryEntry:2345) or null if the document
+	 * 		doesn't belong to a repository entry or a business group
+	 */
+	public static String getAccessContext(String resourceUrl) {
+		if(resourceUrl == null || !resourceUrl.startsWith("[")) return null;
+		
+		int end = resourceUrl.indexOf(']');
+		if(end < 0) return null;
+		
+		String context = resourceUrl.substring(1, end);
+		if(context.startsWith(REPOSITORY_ENTRY_CONTEXT)) {
+			return context;
+		}
+		if(context.startsWith(BUSINESS_GROUP_CONTEXT) && resourceUrl.length() > end + 1) {
+			return context;
+		}
+		return null;
+	}
+	
 	protected void appendDayField(Document document, String fieldName, Date date) {
 		if (date != null) {
 			try {
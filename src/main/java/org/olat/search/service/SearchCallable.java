@@ -24,6 +24,7 @@ import java.util.Locale;
 import java.util.concurrent.Callable;
 
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -95,7 +96,16 @@ class SearchCallable implements Callable<SearchResults> {
 			int n = SearchServiceFactory.getService().getSearchModuleConfig().getMaxHits();
 	
 			Query query = queryBuilder.build();
-			TopDocs docs = searcher.search(query, n);
+			// the filter only restricts the hits, the highlighting uses the query of the user
+			Query searchQuery = query;
+			Query accessFilter = searchService.getAccessFilter(identity, roles);
+			if(accessFilter != null) {
+				searchQuery = new BooleanQuery.Builder()
+						.add(query, Occur.MUST)
+						.add(accessFilter, Occur.FILTER)
+						.build();
+			}
+			TopDocs docs = searcher.search(searchQuery, n);
 			long queryTime = System.currentTimeMillis() - startTime;
 			if(debug) log.debug("hits.length()=" + docs.totalHits);
 			SearchResultsImpl searchResult = new SearchResultsImpl(searchService.getMainIndexer(), searcher, docs, query, searchService.getAnalyzer(), identity, roles, firstResult, maxResults, doHighlighting, false);
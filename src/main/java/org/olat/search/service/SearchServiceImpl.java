@@ -84,6 +84,7 @@ import org.olat.search.service.indexer.LifeFullIndexer;
 import org.olat.search.service.indexer.MainIndexer;
 import org.olat.search.service.searcher.ConditionalQueryAnalyzer;
 import org.olat.search.service.searcher.JmsSearchProvider;
+import org.olat.search.service.searcher.SearchAccessFilterProvider;
 import org.olat.search.service.spell.SearchSpellChecker;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
@@ -109,6 +110,7 @@ public class SearchServiceImpl implements SearchService, GenericEventListener {
 	private final ConditionalQueryAnalyzer conditionalQueryAnalyzer;
 	
 	private LifeFullIndexer lifeIndexer;
+	private SearchAccessFilterProvider accessFilterProvider;
 	private SearchSpellChecker searchSpellChecker;
 	private String indexPath;
 	private String permanentIndexPath;
@@ -179,6 +181,24 @@ public class SearchServiceImpl implements SearchService, GenericEventListener {
 		return mainIndexer;
 	}
 	
+	/**
+	 * [used by spring]
+	 * @param accessFilterProvider
+	 */
+	public void setAccessFilterProvider(SearchAccessFilterProvider accessFilterProvider) {
+		this.accessFilterProvider = accessFilterProvider;
+	}
+	
+	/**
+	 * @param identity The user
+	 * @param roles The roles of the user
+	 * @return A filter with the repository entries and business groups the user can access,
+	 * 		or null if the results cannot be pre-filtered
+	 */
+	protected Query getAccessFilter(Identity identity, Roles roles) {
+		return accessFilterProvider == null ? null : accessFilterProvider.getAccessFilterQuery(identity, roles);
+	}
+	
 	protected Analyzer getAnalyzer() {
 		return analyzer;
 	}
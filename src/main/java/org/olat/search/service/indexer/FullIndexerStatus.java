@@ -164,7 +164,7 @@ public class FullIndexerStatus {
 		this.documentCount = documentCount;
 	}
 	
-	public void incrementDocumentCount() {
+	public synchronized void incrementDocumentCount() {
 		documentCount++;
 	}
 
@@ -211,6 +211,11 @@ public class FullIndexerStatus {
 	}
 
 
+	/**
+	 * Increment the counter of a shard of the full indexer.
+	 * 
+	 * @param id The shard
+	 */
 	public void incrementPartDocumentCount(int id) {
 		partDocumentCounters[id]++;
 	}
@@ -60,6 +60,7 @@ import org.apache.lucene.store.FSDirectory;
 import org.olat.core.commons.persistence.DBFactory;
 import org.apache.logging.log4j.Logger;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.search.SearchModule;
 import org.olat.search.SearchService;
@@ -79,6 +80,8 @@ public class OlatFullIndexer {
 	private static final int MAX_WAITING_COUNT = 600;// = 10Min
 	private static final IndexerThreadFactory indexWriterThreadFactory = new IndexerThreadFactory("writer");
 	private static final IndexerThreadFactory indexWorkersThreadFactory = new IndexerThreadFactory("worker");
+	/* The shard of the documents of a worker thread */
+	private static final ThreadLocal<Integer> workerShard = new ThreadLocal<>();
 
 	private String indexPath;
 	private String tempIndexPath;
@@ -87,7 +90,8 @@ public class OlatFullIndexer {
 	 * Reference to indexer for done callback.
 	 */
 	private Index index;
-	private IndexWriter indexWriter;
+	private volatile IndexShard[] shards;
+	private final int numberOfShards;
 
 	/** Flag to stop indexing. */
 	private boolean stopIndexing;
@@ -107,8 +111,6 @@ public class OlatFullIndexer {
 
 	/* Define number of documents which will be added befor sleeping (indexInterval for CPU load). */
 	int documentsPerInterval;
-  /* Counts added documents in indexInterval. */
-	private int sleepDocumentCounter = 0;
 	/* List of Integer objects to count number of docs for each type. Key = document-type. */
 	private Map<String,Integer> documentCounters;
 	private Map<String,Integer> fileTypeCounters;
@@ -117,9 +119,11 @@ public class OlatFullIndexer {
 	private final SearchService searchService;
 	private final CoordinatorManager coordinatorManager;
 
-	private static final Object indexerWriterBlock = new Object();
 	private ThreadPoolExecutor indexerExecutor;
-	private ThreadPoolExecutor indexerWriterExecutor;
+	/* Counts added documents in indexInterval, for all the shards. */
+	private final AtomicInteger sleepDocumentCounter = new AtomicInteger();
+	/* The writers of all the shards pause until this time. */
+	private volatile long pauseUntil = 0l;
 
 	/**
 	 * 
@@ -146,7 +150,8 @@ public class OlatFullIndexer {
 		indexInterval = searchModule.getIndexInterval();
 		documentsPerInterval = searchModule.getDocumentsPerInterval();
 		ramBufferSizeMB = searchModule.getRAMBufferSizeMB();
-		fullIndexerStatus = new FullIndexerStatus(1);
+		numberOfShards = searchModule.getIndexShards();
+		fullIndexerStatus = new FullIndexerStatus(numberOfShards);
 		stopIndexing = true;
 		initStatus();
 		resetDocumentCounters();
@@ -222,30 +227,36 @@ public class OlatFullIndexer {
 	 * Create index-writer object. In multi-threaded mode ctreates an array of index-workers.
 	 * Start indexing with main-index as root object. Index recursive all elements.
 	 * At the end optimize and close new index. 
-	 * The new index is stored in [temporary-index-path]/main
+	 * The new index is stored in [temporary-index-path]/main. With more than one shard,
+	 * every shard is written in its own directory [temporary-index-path]/shard-n by its
+	 * own index writer and the shards are merged in the main index at the end.
 	 * @throws InterruptedException
 	 */
 	private void doIndex() throws InterruptedException{
+		File tempIndexDir = new File(tempIndexPath);
 		try {
 			if(indexerExecutor == null) {
-				BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(2);
+				// every worker writes its documents in its own shard
+				AtomicInteger workerCounter = new AtomicInteger();
+				ThreadFactory workersThreadFactory = runnable -> indexWorkersThreadFactory.newThread(() -> {
+					workerShard.set(Integer.valueOf(workerCounter.getAndIncrement()));
+					runnable.run();
+				});
+				BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(2 * numberOfShards);
 				indexerExecutor = new ThreadPoolExecutor(indexerPoolSize, indexerPoolSize, 0L, TimeUnit.MILLISECONDS,
-						queue, indexWorkersThreadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
-			}
-			if(indexerWriterExecutor == null) {
-				BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(2);
-				indexerWriterExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue, indexWriterThreadFactory);
+						queue, workersThreadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
 			}
 			
 			searchService.refresh();// make sure all is up-to-date
 			
-			File tempIndexDir = new File(tempIndexPath);
-			Directory tmpIndexPath = FSDirectory.open(new File(tempIndexDir, "main").toPath());
-			indexWriter = new IndexWriter(tmpIndexPath, newIndexWriterConfig());// analyzer, true, IndexWriter.MAX_TERM_LENGTH.UNLIMITED);
-			indexWriter.deleteAll();
+			shards = new IndexShard[numberOfShards];
+			for(int i=0; i<numberOfShards; i++) {
+				String shardName = numberOfShards == 1 ? "main" : "shard-" + i;
+				shards[i] = new IndexShard(i, new File(tempIndexDir, shardName));
+			}
 			
 			SearchResourceContext searchResourceContext = new SearchResourceContext();
-			log.info("doIndex start. OlatFullIndexer with Debug output");
+			log.info("doIndex start. OlatFullIndexer with Debug output, {} shard(s)", numberOfShards);
 			mainIndexer.doIndex(searchResourceContext, null /*no parent*/, this);
 			DBFactory.getInstance().commitAndCloseSession();
 	
@@ -256,17 +267,25 @@ public class OlatFullIndexer {
 			DBFactory.getInstance().commitAndCloseSession();
 			
 			log.info("Wait until index writer executor is finished");
-			int waitWriter = 0;
-			while (indexerWriterExecutor.getActiveCount() > 0 && (waitWriter++ < MAX_WAITING_COUNT)) { 
-				Thread.sleep(1000);
+			int indexSize = 0;
+			for(IndexShard shard:shards) {
+				int waitWriter = 0;
+				while (shard.getExecutor().getActiveCount() > 0 && (waitWriter++ < MAX_WAITING_COUNT)) { 
+					Thread.sleep(1000);
+				}
+				
+				log.info("Close index writer executor of shard {}", shard.getId());
+				indexSize += shard.getIndexWriter().maxDoc();
+				//shutdown the index writer thread
+				shard.getExecutor().submit(new CloseIndexCallable(shard));
+				shard.getExecutor().shutdown();
+				shard.getExecutor().awaitTermination(1, TimeUnit.MINUTES);
 			}
+			fullIndexerStatus.setIndexSize(indexSize);
 			
-			log.info("Close index writer executor");
-			fullIndexerStatus.setIndexSize(indexWriter.maxDoc());
-			//shutdown the index writer thread
-			indexerWriterExecutor.submit(new CloseIndexCallable());
-			indexerWriterExecutor.shutdown();
-			indexerWriterExecutor.awaitTermination(1, TimeUnit.MINUTES);
+			if(numberOfShards > 1) {
+				mergeShards(tempIndexDir);
+			}
 		} catch (IOException e) {
 			log.warn("Can not create IndexWriter, indexname=" + tempIndexPath, e);
 		} finally {
@@ -277,13 +296,50 @@ public class OlatFullIndexer {
 				indexerExecutor.shutdownNow();
 				indexerExecutor = null;
 			}
-			if(indexerWriterExecutor != null) {
-				indexerWriterExecutor.shutdownNow();
-				indexerWriterExecutor = null;
+			if(shards != null) {
+				for(IndexShard shard:shards) {
+					if(shard != null) {
+						shard.close();
+					}
+				}
+				if(numberOfShards > 1) {
+					for(IndexShard shard:shards) {
+						if(shard != null) {
+							FileUtils.deleteDirsAndFiles(shard.getDirectoryFile(), true, true);
+						}
+					}
+				}
+				shards = null;
 			}
 		}
 	}
 	
+	/**
+	 * Merge the shards in [temporary-index-path]/main. The segments are copied
+	 * by Lucene, it's a lot faster than to reindex the documents.
+	 * 
+	 * @param tempIndexDir The temporary directory of the index
+	 * @throws IOException
+	 */
+	private void mergeShards(File tempIndexDir) throws IOException {
+		long start = System.currentTimeMillis();
+		log.info("Merge {} shards of the index", numberOfShards);
+		
+		Directory[] shardDirectories = new Directory[shards.length];
+		for(int i=0; i<shards.length; i++) {
+			shardDirectories[i] = shards[i].getDirectory();
+		}
+		
+		try(Directory mainDirectory = FSDirectory.open(new File(tempIndexDir, "main").toPath());
+				IndexWriter mainWriter = new IndexWriter(mainDirectory, newIndexWriterConfig())) {
+			mainWriter.deleteAll();
+			mainWriter.addIndexes(shardDirectories);
+			mainWriter.commit();
+			fullIndexerStatus.setIndexSize(mainWriter.maxDoc());
+		}
+		log.info("Shards of the index merged in (ms): {}", (System.currentTimeMillis() - start));
+	}
+	
 	public Future<Boolean> submit(Callable<Boolean> task) {
 		if(indexerExecutor != null && !indexerExecutor.isShutdown()) {
 			return indexerExecutor.submit(task);
@@ -355,9 +411,10 @@ public class OlatFullIndexer {
 	public void addDocument(Document document) throws InterruptedException {
 		DBFactory.getInstance().commitAndCloseSession();
 		
-		if (!stopIndexing && indexerWriterExecutor != null && !indexerWriterExecutor.isShutdown()) {
-			synchronized(indexerWriterBlock) {//once at a time please, wait, you have enough time
-				Future<Boolean> future = indexerWriterExecutor.submit(new AddDocumentCallable(document));
+		IndexShard shard = getShard(document);
+		if (!stopIndexing && shard != null && !shard.getExecutor().isShutdown()) {
+			synchronized(shard) {//once at a time please, wait, you have enough time
+				Future<Boolean> future = shard.getExecutor().submit(new AddDocumentCallable(shard, document));
 				try {
 					future.get();
 				} catch (ExecutionException e) {
@@ -372,6 +429,31 @@ public class OlatFullIndexer {
 		fullIndexerStatus.setNumberRunningFolderIndexer(indexerExecutor.getActiveCount());
 	}
 	
+	/**
+	 * The documents of the folder indexers are written in the shard of
+	 * their worker thread, the documents of the other threads (the main
+	 * indexer or a task run by the caller) are partitioned by their resource URL.
+	 * 
+	 * @param document The document to index
+	 * @return The shard which will write the document
+	 */
+	private IndexShard getShard(Document document) {
+		IndexShard[] currentShards = shards;
+		if(currentShards == null) {
+			return null;
+		}
+		if(currentShards.length == 1) {
+			return currentShards[0];
+		}
+		Integer shard = workerShard.get();
+		if(shard != null) {
+			return currentShards[shard.intValue() % currentShards.length];
+		}
+		String resourceUrl = document.get(OlatDocument.RESOURCEURL_FIELD_NAME);
+		int hash = resourceUrl == null ? 0 : resourceUrl.hashCode();
+		return currentShards[Math.floorMod(hash, currentShards.length)];
+	}
+	
 	private void incrementFileTypeCounter(Document document) {
 		String fileType = document.get(OlatDocument.FILETYPE_FIELD_NAME);
 		if ( (fileType != null) && (!fileType.equals(""))) {
@@ -396,7 +478,7 @@ public class OlatFullIndexer {
 		documentCounters.put(documentType, Integer.valueOf(intValue));
 	}
 
-	private void countIndexPerMinute() {
+	private synchronized void countIndexPerMinute() {
 		long currentTime = System.currentTimeMillis();
 		if (lastMinute+60000 > currentTime) {
 			// it is teh same minute
@@ -447,31 +529,40 @@ public class OlatFullIndexer {
 	}
 	
 	private class CloseIndexCallable implements Callable<Boolean> {
+		
+		private final IndexShard shard;
+		
+		public CloseIndexCallable(IndexShard shard) {
+			this.shard = shard;
+		}
 
 		@Override
 		public Boolean call() throws Exception {
-			indexWriter.commit();
-			indexWriter.close();
-			indexWriter = null;
+			shard.getIndexWriter().commit();
+			shard.getIndexWriter().close();
 			return Boolean.TRUE;
 		}
 	}
 	
 	private class AddDocumentCallable implements Callable<Boolean> {
+		private final IndexShard shard;
 		private final Document document;
 		
-		public AddDocumentCallable(Document document) {
+		public AddDocumentCallable(IndexShard shard, Document document) {
+			this.shard = shard;
 			this.document = document;
 		}
 
 		@Override
 		public Boolean call() throws Exception {
+			IndexWriter indexWriter = shard.getIndexWriter();
 			indexWriter.addDocument(document);
 			fullIndexerStatus.incrementDocumentCount();
-			if (indexInterval != 0 && sleepDocumentCounter++ >= documentsPerInterval) {
-				sleepDocumentCounter = 0;
-				Thread.sleep(indexInterval);
-			} else if (stopIndexing) {
+			fullIndexerStatus.incrementPartDocumentCount(shard.getId());
+			if (indexInterval != 0) {
+				throttle();
+			}
+			if (stopIndexing) {
 				throw new InterruptedException("Do stop indexing at element=" + indexWriter.maxDoc());
 			}
 			countIndexPerMinute();
@@ -479,6 +570,75 @@ public class OlatFullIndexer {
 		}
 	}
 	
+	/**
+	 * The throttle is global: after documentsPerInterval documents added in
+	 * any shard, the writers of all the shards pause indexInterval.
+	 */
+	private void throttle() throws InterruptedException {
+		if (sleepDocumentCounter.getAndIncrement() >= documentsPerInterval) {
+			sleepDocumentCounter.set(0);
+			pauseUntil = System.currentTimeMillis() + indexInterval;
+		}
+		long pause = pauseUntil - System.currentTimeMillis();
+		if (pause > 0) {
+			Thread.sleep(pause);
+		}
+	}
+	
+	/**
+	 * An index writer with its own directory and its own single threaded executor.
+	 */
+	private class IndexShard {
+		
+		private final int id;
+		private final File directoryFile;
+		private final Directory directory;
+		private final IndexWriter indexWriter;
+		private final ThreadPoolExecutor executor;
+		
+		public IndexShard(int id, File directoryFile) throws IOException {
+			this.id = id;
+			this.directoryFile = directoryFile;
+			directory = FSDirectory.open(directoryFile.toPath());
+			indexWriter = new IndexWriter(directory, newIndexWriterConfig());
+			indexWriter.deleteAll();
+			BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(2);
+			executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue, indexWriterThreadFactory);
+		}
+		
+		public int getId() {
+			return id;
+		}
+		
+		public File getDirectoryFile() {
+			return directoryFile;
+		}
+		
+		public Directory getDirectory() {
+			return directory;
+		}
+		
+		public IndexWriter getIndexWriter() {
+			return indexWriter;
+		}
+		
+		public ThreadPoolExecutor getExecutor() {
+			return executor;
+		}
+		
+		public void close() {
+			executor.shutdownNow();
+			try {
+				if(indexWriter.isOpen()) {
+					indexWriter.rollback();
+				}
+				directory.close();
+			} catch (IOException e) {
+				log.error("Cannot close the shard: {}", directoryFile, e);
+			}
+		}
+	}
+	
 	private static class IndexerThreadFactory implements ThreadFactory {
 
 		private static final AtomicInteger poolNumber = new AtomicInteger(1);
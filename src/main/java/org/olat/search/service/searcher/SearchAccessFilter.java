@@ -0,0 +1,143 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.search.service.searcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.olat.search.model.AbstractOlatDocument;
+import org.olat.search.model.OlatDocument;
+
+/**
+ * The repository entries and business groups an user can potentially
+ * access. The filter is a superset of the permissions, it only excludes
+ * the documents of the repository entries and business groups the user
+ * is not member of and which are not open to all users, guests or
+ * bookable. The documents which pass the filter are checked as before
+ * by the indexers.<br>
+ * The contexts open to all users are shared between the filters, every
+ * filter only holds the contexts of the memberships of its user.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class SearchAccessFilter implements Serializable {
+
+	private static final long serialVersionUID = -5253862658402516871L;
+	
+	private final Set<String> publicContexts;
+	private final HashSet<String> memberContexts;
+	
+	public SearchAccessFilter(Collection<Long> repositoryEntryKeys, Collection<Long> businessGroupKeys) {
+		this(Set.of(), repositoryEntryKeys, businessGroupKeys);
+	}
+	
+	/**
+	 * @param publicContexts The shared set of contexts open to all users (or guests), not copied
+	 * @param repositoryEntryKeys The repository entries the user is member of
+	 * @param businessGroupKeys The business groups the user is member of
+	 */
+	public SearchAccessFilter(Set<String> publicContexts, Collection<Long> repositoryEntryKeys, Collection<Long> businessGroupKeys) {
+		this.publicContexts = publicContexts;
+		memberContexts = new HashSet<>(((repositoryEntryKeys.size() + businessGroupKeys.size()) * 4) / 3 + 1);
+		for(Long repositoryEntryKey:repositoryEntryKeys) {
+			memberContexts.add(toRepositoryEntryContext(repositoryEntryKey));
+		}
+		for(Long businessGroupKey:businessGroupKeys) {
+			memberContexts.add(OlatDocument.BUSINESS_GROUP_CONTEXT + businessGroupKey);
+		}
+	}
+	
+	private SearchAccessFilter(Set<String> publicContexts, HashSet<String> memberContexts) {
+		this.publicContexts = publicContexts;
+		this.memberContexts = memberContexts;
+	}
+	
+	/**
+	 * @param contexts A set of public contexts
+	 * @return true if the filter uses exactly this instance of the public contexts
+	 */
+	public boolean hasPublicContexts(Set<String> contexts) {
+		return publicContexts == contexts;
+	}
+	
+	/**
+	 * @param contexts The new shared set of public contexts
+	 * @return A filter with the same member contexts and the specified public contexts
+	 */
+	public SearchAccessFilter withPublicContexts(Set<String> contexts) {
+		return new SearchAccessFilter(contexts, memberContexts);
+	}
+	
+	public static String toRepositoryEntryContext(Long repositoryEntryKey) {
+		return OlatDocument.REPOSITORY_ENTRY_CONTEXT + repositoryEntryKey;
+	}
+	
+	public boolean isAccessible(String accessContext) {
+		return accessContext == null || memberContexts.contains(accessContext) || publicContexts.contains(accessContext);
+	}
+	
+	public int size() {
+		return publicContexts.size() + memberContexts.size();
+	}
+	
+	/**
+	 * @return The number of contexts specific to the user
+	 */
+	public int memberSize() {
+		return memberContexts.size();
+	}
+	
+	/**
+	 * @return A query which match the documents without restriction or in one of
+	 * 		the access contexts
+	 */
+	public Query toQuery() {
+		BooleanQuery.Builder unrestricted = new BooleanQuery.Builder();
+		unrestricted.add(new MatchAllDocsQuery(), Occur.MUST);
+		unrestricted.add(new TermQuery(new Term(AbstractOlatDocument.ACCESS_RESTRICTED_FIELD_NAME, "true")), Occur.MUST_NOT);
+		
+		BooleanQuery.Builder filter = new BooleanQuery.Builder();
+		filter.add(unrestricted.build(), Occur.SHOULD);
+		if(!publicContexts.isEmpty() || !memberContexts.isEmpty()) {
+			List<BytesRef> terms = new ArrayList<>(size());
+			for(String accessContext:publicContexts) {
+				terms.add(new BytesRef(accessContext));
+			}
+			for(String accessContext:memberContexts) {
+				terms.add(new BytesRef(accessContext));
+			}
+			filter.add(new TermInSetQuery(AbstractOlatDocument.ACCESS_CONTEXT_FIELD_NAME, terms), Occur.SHOULD);
+		}
+		return filter.build();
+	}
+}
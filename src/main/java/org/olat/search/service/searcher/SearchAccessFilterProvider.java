@@ -0,0 +1,283 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.search.service.searcher;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.Query;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.Identity;
+import org.olat.core.id.Roles;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
+import org.olat.core.util.cache.CacheWrapper;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.event.EventBus;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.group.BusinessGroup;
+import org.olat.group.model.BusinessGroupDeletedEvent;
+import org.olat.group.ui.edit.BusinessGroupModifiedEvent;
+import org.olat.modules.curriculum.CurriculumElement;
+import org.olat.modules.curriculum.CurriculumElementMembershipEvent;
+import org.olat.repository.RepositoryEntry;
+import org.olat.repository.model.RepositoryEntryMembershipModifiedEvent;
+import org.olat.repository.model.RepositoryEntryStatusChangedEvent;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compute the access filter of an user for the full-text search. The
+ * filter is cached for some minutes, the time of a search session, and
+ * only applied to users without administrative, author or manager roles
+ * which have a lot of special permissions on the repository entries.<br>
+ * The repository entries open to all users or to guests are loaded once
+ * and shared by all filters, the per-user filters only hold the keys of
+ * the memberships and are invalidated if the memberships change.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+@Service
+public class SearchAccessFilterProvider implements GenericEventListener, InitializingBean, DisposableBean {
+	
+	private static final Logger log = Tracing.createLoggerFor(SearchAccessFilterProvider.class);
+	
+	@Value("${search.access.prefilter.enabled:true}")
+	private boolean enabled;
+	@Value("${search.access.prefilter.public.lifetime:60}")
+	private long publicContextsLifetimeInSeconds;
+	
+	private CacheWrapper<Long,SearchAccessFilter> filtersCache;
+	private volatile PublicContexts usersPublicContexts;
+	private volatile PublicContexts guestsPublicContexts;
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private CoordinatorManager coordinatorManager;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		filtersCache = coordinatorManager.getCoordinator().getCacher().getCache("SearchService", "accessFilters");
+		EventBus eventBus = coordinatorManager.getCoordinator().getEventBus();
+		eventBus.registerFor(this, null, OresHelper.lookupType(RepositoryEntry.class));
+		eventBus.registerFor(this, null, OresHelper.lookupType(BusinessGroup.class));
+		eventBus.registerFor(this, null, OresHelper.lookupType(CurriculumElement.class));
+	}
+	
+	@Override
+	public void destroy() throws Exception {
+		EventBus eventBus = coordinatorManager.getCoordinator().getEventBus();
+		eventBus.deregisterFor(this, OresHelper.lookupType(RepositoryEntry.class));
+		eventBus.deregisterFor(this, OresHelper.lookupType(BusinessGroup.class));
+		eventBus.deregisterFor(this, OresHelper.lookupType(CurriculumElement.class));
+	}
+
+	@Override
+	public void event(Event event) {
+		if(event instanceof RepositoryEntryMembershipModifiedEvent) {
+			invalidate(((RepositoryEntryMembershipModifiedEvent)event).getIdentityKey());
+		} else if(event instanceof BusinessGroupModifiedEvent) {
+			BusinessGroupModifiedEvent e = (BusinessGroupModifiedEvent)event;
+			if(BusinessGroupModifiedEvent.IDENTITY_ADDED_EVENT.equals(e.getCommand())
+					|| BusinessGroupModifiedEvent.IDENTITY_REMOVED_EVENT.equals(e.getCommand())
+					|| BusinessGroupModifiedEvent.MYSELF_ASOWNER_REMOVED_EVENT.equals(e.getCommand())) {
+				invalidate(e.getAffectedIdentityKey());
+			}
+		} else if(event instanceof BusinessGroupDeletedEvent) {
+			List<Long> memberKeys = ((BusinessGroupDeletedEvent)event).getMemberKeys();
+			if(memberKeys != null) {
+				memberKeys.forEach(this::invalidate);
+			}
+		} else if(event instanceof CurriculumElementMembershipEvent) {
+			invalidate(((CurriculumElementMembershipEvent)event).getIdentityKey());
+		} else if(event instanceof RepositoryEntryStatusChangedEvent) {
+			invalidatePublicContexts();
+		}
+	}
+	
+	/**
+	 * Reload the shared list of the repository entries open to all users
+	 * or guests by the next computation of a filter.
+	 */
+	protected void invalidatePublicContexts() {
+		usersPublicContexts = null;
+		guestsPublicContexts = null;
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * 
+	 * @param identity The user
+	 * @param roles The roles of the user
+	 * @return A query to use as filter or null if the documents cannot be pre-filtered for this user
+	 */
+	public Query getAccessFilterQuery(Identity identity, Roles roles) {
+		SearchAccessFilter filter = getAccessFilter(identity, roles);
+		return filter == null ? null : filter.toQuery();
+	}
+	
+	public SearchAccessFilter getAccessFilter(Identity identity, Roles roles) {
+		if(!enabled || identity == null || roles == null || !isFilterable(roles)) {
+			return null;
+		}
+		
+		final boolean guestOnly = roles.isGuestOnly();
+		final Set<String> publicContexts = getPublicContexts(guestOnly);
+		SearchAccessFilter filter = filtersCache.computeIfAbsent(identity.getKey(), key -> {
+			long start = System.nanoTime();
+			List<Long> repositoryEntryKeys = guestOnly ? List.of() : getMemberRepositoryEntryKeys(identity);
+			List<Long> businessGroupKeys = guestOnly ? List.of() : getBusinessGroupKeys(identity);
+			SearchAccessFilter accessFilter = new SearchAccessFilter(publicContexts, repositoryEntryKeys, businessGroupKeys);
+			log.debug("Search access filter of {} with {} member contexts computed in (ms): {}",
+					key, accessFilter.memberSize(), CodeHelper.nanoToMilliTime(start));
+			return accessFilter;
+		});
+		if(!filter.hasPublicContexts(publicContexts)) {
+			// the public contexts were refreshed, the member contexts are still valid
+			filter = filter.withPublicContexts(publicContexts);
+			filtersCache.put(identity.getKey(), filter);
+		}
+		return filter;
+	}
+	
+	public void invalidate(Identity identity) {
+		if(identity != null) {
+			invalidate(identity.getKey());
+		}
+	}
+	
+	public void invalidate(Long identityKey) {
+		if(identityKey != null) {
+			filtersCache.remove(identityKey);
+		}
+	}
+	
+	/**
+	 * The users with the roles administrator, principal, author and all
+	 * managers have a lot of special permissions. They see the documents
+	 * as before.
+	 * 
+	 * @param roles The roles of the user
+	 * @return true if the documents can be pre-filtered for these roles
+	 */
+	private boolean isFilterable(Roles roles) {
+		return !roles.isSystemAdmin() && !roles.isAdministrator() && !roles.isPrincipal()
+				&& !roles.isAuthor() && !roles.isManager();
+	}
+	
+	/**
+	 * The contexts of the repository entries open to all users, guests or
+	 * bookable, respectively open to guests. The set is shared by all filters
+	 * and reloaded after its lifetime or if the status of an entry changed.
+	 * 
+	 * @param guestOnly If the contexts for guests are requested
+	 * @return An unmodifiable set of contexts
+	 */
+	private Set<String> getPublicContexts(boolean guestOnly) {
+		PublicContexts contexts = guestOnly ? guestsPublicContexts : usersPublicContexts;
+		long now = System.currentTimeMillis();
+		if(contexts == null || contexts.isExpired(now, publicContextsLifetimeInSeconds * 1000l)) {
+			contexts = new PublicContexts(now, loadPublicRepositoryEntryContexts(guestOnly));
+			if(guestOnly) {
+				guestsPublicContexts = contexts;
+			} else {
+				usersPublicContexts = contexts;
+			}
+		}
+		return contexts.getContexts();
+	}
+	
+	private Set<String> loadPublicRepositoryEntryContexts(boolean guestOnly) {
+		String q = guestOnly
+				? "select v.key from repositoryentry as v where v.guests=true"
+				: "select v.key from repositoryentry as v where v.allUsers=true or v.guests=true or v.bookable=true";
+		List<Long> keys = dbInstance.getCurrentEntityManager()
+				.createQuery(q, Long.class)
+				.getResultList();
+		Set<String> contexts = new HashSet<>((keys.size() * 4) / 3 + 1);
+		for(Long key:keys) {
+			contexts.add(SearchAccessFilter.toRepositoryEntryContext(key));
+		}
+		return Collections.unmodifiableSet(contexts);
+	}
+	
+	/**
+	 * Member of the repository entries (directly, via business groups
+	 * or curriculum elements).
+	 * 
+	 * @param identity The user
+	 * @return A list of repository entries primary keys
+	 */
+	private List<Long> getMemberRepositoryEntryKeys(Identity identity) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select distinct rel.entry.key from repoentrytogroup as rel")
+		  .append(" inner join rel.group as baseGroup")
+		  .append(" inner join baseGroup.members as membership")
+		  .append(" where membership.identity.key=:identityKey");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class)
+				.setParameter("identityKey", identity.getKey())
+				.getResultList();
+	}
+	
+	private List<Long> getBusinessGroupKeys(Identity identity) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select bgi.key from businessgroup as bgi")
+		  .append(" inner join bgi.baseGroup as baseGroup")
+		  .append(" inner join baseGroup.members as membership")
+		  .append(" where membership.identity.key=:identityKey");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class)
+				.setParameter("identityKey", identity.getKey())
+				.getResultList();
+	}
+	
+	private static class PublicContexts {
+		
+		private final long loaded;
+		private final Set<String> contexts;
+		
+		public PublicContexts(long loaded, Set<String> contexts) {
+			this.loaded = loaded;
+			this.contexts = contexts;
+		}
+		
+		public Set<String> getContexts() {
+			return contexts;
+		}
+		
+		public boolean isExpired(long now, long lifetime) {
+			return now - loaded > lifetime;
+		}
+	}
+}
@@ -19,9 +19,13 @@
  */
 package org.olat.upgrade;
 
+import java.util.List;
+
 import org.apache.logging.log4j.Logger;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.logging.Tracing;
+import org.olat.modules.fo.manager.ForumManager;
+import org.olat.modules.fo.manager.ForumThreadSummaryDAO;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -36,9 +40,15 @@ public class OLATUpgrade_15_4_0 extends OLATUpgrade {
 
 	private static final String VERSION = "OLAT_15.4.0";
 	private static final String INIT_VFS_MODIFIED_BY = "INIT VFS MODIFIED BY";
+	private static final String INIT_FORUM_THREAD_SUMMARIES = "INIT FORUM THREAD SUMMARIES";
+	private static final String MIGRATE_FORUM_READ_MESSAGES = "MIGRATE FORUM READ MESSAGES";
 	
 	@Autowired
 	private DB dbInstance;
+	@Autowired
+	private ForumManager forumManager;
+	@Autowired
+	private ForumThreadSummaryDAO forumThreadSummaryDao;
 
 	public OLATUpgrade_15_4_0() {
 		super();
@@ -61,6 +71,8 @@ public class OLATUpgrade_15_4_0 extends OLATUpgrade {
 		
 		boolean allOk = true;
 		allOk &= initVfsModifiedBy(upgradeManager, uhd);
+		allOk &= initForumThreadSummaries(upgradeManager, uhd);
+		allOk &= migrateForumReadMessages(upgradeManager, uhd);
 
 		uhd.setInstallationComplete(allOk);
 		upgradeManager.setUpgradesHistory(uhd, VERSION);
@@ -97,4 +109,63 @@ public class OLATUpgrade_15_4_0 extends OLATUpgrade {
 		return allOk;
 	}
 	
+	private boolean initForumThreadSummaries(UpgradeManager upgradeManager, UpgradeHistoryData uhd) {
+		boolean allOk = true;
+		if (!uhd.getBooleanDataValue(INIT_FORUM_THREAD_SUMMARIES)) {
+			try {
+				List<Long> forumKeys = dbInstance.getCurrentEntityManager()
+						.createQuery("select fo.key from forum as fo order by fo.key", Long.class)
+						.getResultList();
+				dbInstance.commitAndCloseSession();
+				
+				int counter = 0;
+				for(Long forumKey:forumKeys) {
+					forumThreadSummaryDao.createMissingSummaries(forumKey);
+					if(++counter % 100 == 0) {
+						dbInstance.commitAndCloseSession();
+						log.info("Thread summaries of forums created: {} / {}", counter, forumKeys.size());
+					}
+				}
+				dbInstance.commitAndCloseSession();
+			} catch (Exception e) {
+				dbInstance.rollbackAndCloseSession();
+				log.error("", e);
+				return false;
+			}
+			
+			uhd.setBooleanDataValue(INIT_FORUM_THREAD_SUMMARIES, allOk);
+			upgradeManager.setUpgradesHistory(uhd, VERSION);
+		}
+		return allOk;
+	}
+	
+	private boolean migrateForumReadMessages(UpgradeManager upgradeManager, UpgradeHistoryData uhd) {
+		boolean allOk = true;
+		if (!uhd.getBooleanDataValue(MIGRATE_FORUM_READ_MESSAGES)) {
+			try {
+				List<Long> forumKeys = dbInstance.getCurrentEntityManager()
+						.createQuery("select distinct rmsg.forum.key from foreadmessage as rmsg", Long.class)
+						.getResultList();
+				dbInstance.commitAndCloseSession();
+				
+				int counter = 0;
+				for(Long forumKey:forumKeys) {
+					forumManager.convertLegacyReadMessages(forumKey);
+					dbInstance.commitAndCloseSession();
+					if(++counter % 100 == 0) {
+						log.info("Read messages of forums migrated: {} / {}", counter, forumKeys.size());
+					}
+				}
+			} catch (Exception e) {
+				dbInstance.rollbackAndCloseSession();
+				log.error("", e);
+				return false;
+			}
+			
+			uhd.setBooleanDataValue(MIGRATE_FORUM_READ_MESSAGES, allOk);
+			upgradeManager.setUpgradesHistory(uhd, VERSION);
+		}
+		return allOk;
+	}
+	
 }
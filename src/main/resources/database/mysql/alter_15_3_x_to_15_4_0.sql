@@ -85,3 +85,83 @@ alter table o_teams_attendee add constraint teams_att_meet_idx foreign key (fk_m
 alter table o_ap_appointment add column fk_teams_id bigint;
 alter table o_ap_appointment add constraint ap_appointment_teams_idx foreign key (fk_teams_id) references o_teams_meeting (id);
 
+-- forum thread summary and read state
+create table o_fo_thread_summary (
+   id bigint not null auto_increment,
+   creationdate datetime not null,
+   lastmodified datetime not null,
+   t_num_of_replies bigint default 0 not null,
+   t_last_reply_date datetime,
+   fk_forum bigint not null,
+   fk_thread_top bigint not null,
+   unique(fk_thread_top),
+   primary key (id)
+);
+alter table o_fo_thread_summary ENGINE = InnoDB;
+
+create table o_fo_read_state (
+   id bigint not null auto_increment,
+   creationdate datetime not null,
+   lastmodified datetime not null,
+   r_num_of_messages bigint default 0 not null,
+   r_messages mediumtext,
+   fk_identity bigint not null,
+   fk_forum bigint not null,
+   unique(fk_identity, fk_forum),
+   primary key (id)
+);
+alter table o_fo_read_state ENGINE = InnoDB;
+
+alter table o_fo_thread_summary add constraint fo_summary_forum_idx foreign key (fk_forum) references o_forum (forum_id);
+alter table o_fo_read_state add constraint fo_state_ident_idx foreign key (fk_identity) references o_bs_identity (id);
+alter table o_fo_read_state add constraint fo_state_forum_idx foreign key (fk_forum) references o_forum (forum_id);
+
+-- coaching rollups
+create table o_coach_rollup_state (
+   id bigint not null auto_increment,
+   creationdate datetime not null,
+   lastmodified datetime not null,
+   r_dirty bool default false not null,
+   r_last_build datetime,
+   r_courses_fingerprint varchar(64),
+   fk_coach bigint not null,
+   unique(fk_coach),
+   primary key (id)
+);
+alter table o_coach_rollup_state ENGINE = InnoDB;
+
+create table o_coach_course_rollup (
+   id bigint not null auto_increment,
+   creationdate datetime not null,
+   c_entry_key bigint not null,
+   c_num_students bigint default 0 not null,
+   c_initial_launch bigint default 0 not null,
+   c_passed bigint default 0 not null,
+   c_failed bigint default 0 not null,
+   c_not_attempted bigint default 0 not null,
+   c_average_score float(65,30),
+   c_average_completion float(65,30),
+   fk_coach bigint not null,
+   primary key (id)
+);
+alter table o_coach_course_rollup ENGINE = InnoDB;
+
+create table o_coach_student_rollup (
+   id bigint not null auto_increment,
+   creationdate datetime not null,
+   s_num_courses bigint default 0 not null,
+   s_initial_launch bigint default 0 not null,
+   s_passed bigint default 0 not null,
+   s_failed bigint default 0 not null,
+   s_not_attempted bigint default 0 not null,
+   s_average_completion float(65,30),
+   fk_coach bigint not null,
+   fk_student bigint not null,
+   primary key (id)
+);
+alter table o_coach_student_rollup ENGINE = InnoDB;
+
+alter table o_coach_rollup_state add constraint coach_state_coach_idx foreign key (fk_coach) references o_bs_identity (id);
+alter table o_coach_course_rollup add constraint coach_crollup_coach_idx foreign key (fk_coach) references o_bs_identity (id);
+alter table o_coach_student_rollup add constraint coach_srollup_coach_idx foreign key (fk_coach) references o_bs_identity (id);
+alter table o_coach_student_rollup add constraint coach_srollup_student_idx foreign key (fk_student) references o_bs_identity (id);
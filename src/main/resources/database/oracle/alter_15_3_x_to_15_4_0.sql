@@ -90,4 +90,83 @@ alter table o_ap_appointment add fk_teams_id number(20);
 alter table o_ap_appointment add constraint ap_appointment_teams_idx foreign key (fk_teams_id) references o_teams_meeting (id);
 create index idx_ap_appointment_teams_idx on o_ap_appointment(fk_teams_id);
 
+-- forum thread summary and read state
+create table o_fo_thread_summary (
+   id number(20) generated always as identity,
+   creationdate timestamp not null,
+   lastmodified timestamp not null,
+   t_num_of_replies number(20) default 0 not null,
+   t_last_reply_date timestamp,
+   fk_forum number(20) not null,
+   fk_thread_top number(20) not null,
+   unique(fk_thread_top),
+   primary key (id)
+);
+
+create table o_fo_read_state (
+   id number(20) generated always as identity,
+   creationdate timestamp not null,
+   lastmodified timestamp not null,
+   r_num_of_messages number(20) default 0 not null,
+   r_messages CLOB,
+   fk_identity number(20) not null,
+   fk_forum number(20) not null,
+   unique(fk_identity, fk_forum),
+   primary key (id)
+);
+
+alter table o_fo_thread_summary add constraint fo_summary_forum_idx foreign key (fk_forum) references o_forum (forum_id);
+create index idx_fo_summary_forum_idx on o_fo_thread_summary(fk_forum);
+alter table o_fo_read_state add constraint fo_state_ident_idx foreign key (fk_identity) references o_bs_identity (id);
+alter table o_fo_read_state add constraint fo_state_forum_idx foreign key (fk_forum) references o_forum (forum_id);
+create index idx_fo_state_forum_idx on o_fo_read_state(fk_forum);
+
+-- coaching rollups
+create table o_coach_rollup_state (
+   id number(20) generated always as identity,
+   creationdate timestamp not null,
+   lastmodified timestamp not null,
+   r_dirty number default 0 not null,
+   r_last_build timestamp,
+   r_courses_fingerprint varchar2(64 char),
+   fk_coach number(20) not null,
+   unique(fk_coach),
+   primary key (id)
+);
+
+create table o_coach_course_rollup (
+   id number(20) generated always as identity,
+   creationdate timestamp not null,
+   c_entry_key number(20) not null,
+   c_num_students number(20) default 0 not null,
+   c_initial_launch number(20) default 0 not null,
+   c_passed number(20) default 0 not null,
+   c_failed number(20) default 0 not null,
+   c_not_attempted number(20) default 0 not null,
+   c_average_score float,
+   c_average_completion float,
+   fk_coach number(20) not null,
+   primary key (id)
+);
+
+create table o_coach_student_rollup (
+   id number(20) generated always as identity,
+   creationdate timestamp not null,
+   s_num_courses number(20) default 0 not null,
+   s_initial_launch number(20) default 0 not null,
+   s_passed number(20) default 0 not null,
+   s_failed number(20) default 0 not null,
+   s_not_attempted number(20) default 0 not null,
+   s_average_completion float,
+   fk_coach number(20) not null,
+   fk_student number(20) not null,
+   primary key (id)
+);
 
+alter table o_coach_rollup_state add constraint coach_state_coach_idx foreign key (fk_coach) references o_bs_identity (id);
+alter table o_coach_course_rollup add constraint coach_crollup_coach_idx foreign key (fk_coach) references o_bs_identity (id);
+create index idx_coach_crollup_coach_idx on o_coach_course_rollup(fk_coach);
+alter table o_coach_student_rollup add constraint coach_srollup_coach_idx foreign key (fk_coach) references o_bs_identity (id);
+create index idx_coach_srollup_coach_idx on o_coach_student_rollup(fk_coach);
+alter table o_coach_student_rollup add constraint coach_srollup_student_idx foreign key (fk_student) references o_bs_identity (id);
+create index idx_coach_srollup_student_idx on o_coach_student_rollup(fk_student);
@@ -85,6 +85,9 @@ function passApiCall(apiCall, param1, param2) {
 */
 function olatonunload(){
 	if (debug) dump("func:olatonunload: is called\n");
+	if (isScormClientCache() && hasCacheUnsentCalls()) {
+		cacheSend();
+	}
 	if(window.frameId && document.getElementById(frameId) && this.frames[frameId]){
 		// Mozilla and others
 		var iframeDoc = document.getElementById(frameId).contentDocument;
@@ -109,15 +112,237 @@ function queueCall(apiCall, param1, param2) {
 	openolatScormUnloadQueue.push(entry);
 }
 
+/******************************************************************
+* CLIENT-SIDE CACHE OF THE CMI DATA MODEL
+* Used if olatScormClientCache is true. The readable values are sent
+* by the server at LMSInitialize and answered locally, the LMSSetValue
+* are queued and sent as one numbered batch together with the next
+* call which needs the server (LMSCommit, LMSFinish, LMSGetValue of an
+* element not in the cache). The server doesn't apply a batch twice,
+* a batch can be retried safely.
+*******************************************************************/
+var openolatScormCache = {
+	values: {},
+	pending: [],
+	failed: null,
+	seq: 0,
+	lastError: "0"
+};
+
+function isScormClientCache() {
+	return typeof olatScormClientCache !== "undefined" && olatScormClientCache;
+}
+
+// keywords and write-only elements are always asked to the server
+function isCachableCmiElement(element) {
+	return element.indexOf("cmi.") == 0 && element.indexOf("._") < 0
+		&& element != "cmi.core.exit" && element != "cmi.core.session_time"
+		&& element.indexOf("cmi.interactions.") != 0;
+}
+
+/******************************************************************
+* The elements of the SCORM 1.2 data model which the browser can
+* validate. The other elements (objectives, interactions, student
+* data and preferences...) are sent directly to the server.
+*******************************************************************/
+var openolatScormCmiElements = {
+	"cmi.core.student_id": { readOnly: true },
+	"cmi.core.student_name": { readOnly: true },
+	"cmi.core.lesson_location": { type: "CMIString255" },
+	"cmi.core.credit": { readOnly: true },
+	"cmi.core.lesson_status": { vocabulary: ["passed", "completed", "failed", "incomplete", "browsed"] },
+	"cmi.core.entry": { readOnly: true },
+	"cmi.core.score.raw": { type: "CMIScore" },
+	"cmi.core.score.max": { type: "CMIScore" },
+	"cmi.core.score.min": { type: "CMIScore" },
+	"cmi.core.total_time": { readOnly: true },
+	"cmi.core.lesson_mode": { readOnly: true },
+	"cmi.core.exit": { writeOnly: true, vocabulary: ["time-out", "suspend", "logout", ""] },
+	"cmi.core.session_time": { writeOnly: true, type: "CMITimespan" },
+	"cmi.suspend_data": { type: "CMIString4096" },
+	"cmi.launch_data": { readOnly: true },
+	"cmi.comments_from_lms": { readOnly: true }
+};
+
+function isCmiValueValid(definition, value) {
+	if (definition.vocabulary) {
+		return definition.vocabulary.indexOf(value) >= 0;
+	}
+	switch(definition.type) {
+		case "CMIString255": return value.length <= 255;
+		case "CMIString4096": return value.length <= 4096;
+		case "CMIScore":
+			if (value == "") return true;
+			if (!/^[0-9]+(\.[0-9]+)?$/.test(value)) return false;
+			var score = parseFloat(value);
+			return score >= 0 && score <= 100;
+		case "CMITimespan": return /^[0-9]{2,4}:[0-9]{2}:[0-9]{2}(\.[0-9]{1,2})?$/.test(value);
+	}
+	return true;
+}
+
+/**
+* Validate the value of an element of the data model. Returns the SCORM
+* error code or null if the element cannot be validated by the browser.
+*/
+function cacheValidate(element, value) {
+	if (element.indexOf("cmi.core.") == 0 && element.indexOf("._") > 0) {
+		return "402";// keywords cannot be set
+	}
+	var definition = openolatScormCmiElements[element];
+	if (!definition) {
+		return element.indexOf("cmi.core.") == 0 ? "401" : null;
+	}
+	if (definition.readOnly) {
+		return "403";
+	}
+	return isCmiValueValid(definition, value) ? "0" : "405";
+}
+
+function cacheInitialize(s) {
+	var req = new XMLHttpRequest();
+	req.open("POST", olatCommandUri + "cache/initialize/", false);
+	req.setRequestHeader('Content-Type','application/x-www-form-urlencoded;charset=UTF-8');
+	req.setRequestHeader('Accept','application/json');
+	req.send('param1=' + encodeURIComponent(s));
+	if (req.status != 200) {
+		return "false";
+	}
+	var response = JSON.parse(req.responseText);
+	openolatScormCache.values = response.cmi;
+	openolatScormCache.pending = [];
+	openolatScormCache.failed = null;
+	openolatScormCache.seq = 0;
+	openolatScormCache.lastError = response.lastError;
+	return response.result;
+}
+
+function cachePost(data) {
+	var req = new XMLHttpRequest();
+	req.open("POST", olatCommandUri + "cache/commit/", false);
+	req.setRequestHeader('Content-Type','application/json;charset=UTF-8');
+	req.setRequestHeader('Accept','application/json');
+	req.send(data);
+	if (req.status == 200) {
+		return JSON.parse(req.responseText);
+	}
+	return null;
+}
+
+function cachePostWithRetry(data) {
+	var response = null;
+	for (var attempt=0; attempt<2 && response == null; attempt++) {
+		try {
+			response = cachePost(data);
+		} catch(e) {
+			if (window.console) console.log(e);
+		}
+	}
+	return response;
+}
+
+function cacheApply(calls, response) {
+	var results = response.results;
+	for (var j=0; j<calls.length && j<results.length; j++) {
+		// a value refused by the server is not cached
+		if (calls[j].apiCall == 'LMSSetValue' && results[j].result != 'true') {
+			delete openolatScormCache.values[calls[j].param1];
+		}
+	}
+	openolatScormCache.lastError = response.lastError;
+}
+
+/**
+* Send the pending calls and the specified one (optional) to the server.
+* Returns the result of the specified call or undefined if the server
+* cannot be reached. In this case, the batch is kept with its sequence
+* number and sent again unchanged before any other call, the server
+* applies it only once.
+*/
+function cacheSend(apiCall, param1, param2) {
+	var failed = openolatScormCache.failed;
+	if (failed != null) {
+		var previousResponse = cachePostWithRetry(failed.data);
+		if (previousResponse == null) {
+			if (apiCall == 'LMSSetValue') {
+				openolatScormCache.pending.push({ apiCall: apiCall, param1: param1, param2: param2 });
+			}
+			return undefined;
+		}
+		openolatScormCache.failed = null;
+		cacheApply(failed.calls, previousResponse);
+	}
+	
+	var calls = openolatScormCache.pending;
+	openolatScormCache.pending = [];
+	if (apiCall) {
+		calls.push({ apiCall: apiCall, param1: param1, param2: param2 });
+	}
+	var data = JSON.stringify({ seq: ++openolatScormCache.seq, calls: calls });
+	var response = cachePostWithRetry(data);
+	if (response == null) {
+		openolatScormCache.failed = { calls: calls, data: data };
+		return undefined;
+	}
+	
+	cacheApply(calls, response);
+	var results = response.results;
+	return apiCall && results.length > 0 ? results[results.length - 1].result : "";
+}
+
+function cacheSendBeacon(apiCall, param1, param2) {
+	if (openolatScormCache.failed != null) {
+		navigator.sendBeacon(olatCommandUri + "cache/commit/", new Blob([openolatScormCache.failed.data], { type: 'application/json' }));
+		openolatScormCache.failed = null;
+	}
+	if (apiCall) {
+		openolatScormCache.pending.push({ apiCall: apiCall, param1: param1, param2: param2 });
+	}
+	if (openolatScormCache.pending.length > 0) {
+		var batch = JSON.stringify({ seq: ++openolatScormCache.seq, calls: openolatScormCache.pending });
+		openolatScormCache.pending = [];
+		navigator.sendBeacon(olatCommandUri + "cache/commit/", new Blob([batch], { type: 'application/json' }));
+	}
+}
+
+function hasCacheUnsentCalls() {
+	return openolatScormCache.pending.length > 0 || openolatScormCache.failed != null;
+}
+
+window.addEventListener("pagehide", function() {
+	if (isScormClientCache()) {
+		cacheSendBeacon();
+	}
+});
+
 /******************************************************************
 * SCORM API FUNCTIONS 
 * These functions are used in the SCORM content to
 * communicate with the LMS.
 *******************************************************************/
 function LMSInitialize (s) {
+	if (isScormClientCache()) {
+		return cacheInitialize(s);
+	}
 	return passApiCall('LMSInitialize',s,'');
 }
 function LMSFinish (s) {
+	if (isScormClientCache()) {
+		var cachedResult = cacheSend('LMSFinish', s, '');
+		if (typeof cachedResult === "undefined") {
+			// Communication problem, try to send the failed batch with LMSFinish as beacon
+			cacheSendBeacon();
+			cachedResult = "true";
+		}
+		setTimeout(function(){
+			try {
+				pingAfterFinish();
+			} catch(e) {
+				if (window.console) console.log("Problem pinging OpenOlat: ", e);
+			}
+		});
+		return cachedResult;
+	}
 	var finishedResult = passApiCall('LMSFinish', s, '');
 	if(typeof val === "undefined") {
 		// Communication problem, try to send all queued data as beacon
@@ -137,6 +362,27 @@ function LMSFinish (s) {
 	return finishedResult;
 }
 function LMSSetValue (l, r) {
+	if (isScormClientCache()) {
+		var value = (r === null || typeof r === "undefined") ? "" : String(r);
+		var error = cacheValidate(l, value);
+		if (error == null) {
+			// cannot be validated by the browser, ask the server and don't cache the value
+			var setResult = cacheSend('LMSSetValue', l, value);
+			return typeof setResult === "undefined" ? "true" : setResult;
+		} else if (error != "0") {
+			openolatScormCache.lastError = error;
+			return "false";
+		}
+		openolatScormCache.pending.push({ apiCall: 'LMSSetValue', param1: l, param2: value });
+		if (isCachableCmiElement(l)) {
+			openolatScormCache.values[l] = value;
+		}
+		openolatScormCache.lastError = "0";
+		if (openolatScormCache.pending.length >= 250) {
+			cacheSend();
+		}
+		return "true";
+	}
 	var val = passApiCall('LMSSetValue',l,r);
 	if(typeof val === "undefined") {
 		queueCall('LMSSetValue', l, r);
@@ -145,9 +391,31 @@ function LMSSetValue (l, r) {
 	return val;
 }
 function LMSGetValue (s) {
+	if (isScormClientCache()) {
+		var definition = openolatScormCmiElements[s];
+		if (definition && definition.writeOnly) {
+			openolatScormCache.lastError = "404";
+			return "";
+		}
+		if (openolatScormCache.values.hasOwnProperty(s)) {
+			openolatScormCache.lastError = "0";
+			return openolatScormCache.values[s];
+		}
+		var val = cacheSend('LMSGetValue', s, '');
+		if (typeof val === "undefined") {
+			return "";
+		}
+		if (openolatScormCache.lastError == "0" && isCachableCmiElement(s)) {
+			openolatScormCache.values[s] = val;
+		}
+		return val;
+	}
 	return passApiCall('LMSGetValue',s,'');
 }
 function LMSGetLastError () {
+	if (isScormClientCache()) {
+		return openolatScormCache.lastError;
+	}
 	var val = passApiCall('LMSGetLastError','','');
 	if(typeof val === "undefined") {
 		val = "0";
@@ -165,6 +433,11 @@ function LMSGetDiagnostic (s) {
 	return passApiCall('LMSGetDiagnostic',s,'');
 }
 function LMSCommit (s) {
+	if (isScormClientCache()) {
+		var cachedResult = cacheSend('LMSCommit', s, '');
+		// the values stay in the queue and are sent with the next batch
+		return typeof cachedResult === "undefined" ? "true" : cachedResult;
+	}
 	var val = passApiCall('LMSCommit',s,'');
 	if(typeof val === "undefined") {
 		queueCall('LMSCommit', s, '');
@@ -401,6 +401,94 @@ public class ICalFileCalendarManagerTest extends OlatTestCase {
 		log.info("Duration save: " + (stop - start) + " ms.");
 	}
 	
+	@Test
+	public void testListEventsForPeriodWithIndex() {
+		Kalendar kalendar = new Kalendar("index-" + UUID.randomUUID(), CalendarManager.TYPE_USER);
+		
+		Random rand = new Random(42l);
+		Calendar cal = Calendar.getInstance();
+		cal.add(Calendar.YEAR, -1);
+		long kalendarStart = cal.getTimeInMillis();
+		long oneYear = 365l * 24l * 60l * 60l * 1000l;
+		for (int i = 0; i < 2000; i++) {
+			long begin = kalendarStart + (long)(rand.nextDouble() * oneYear);
+			KalendarEvent event = new KalendarEvent("id" + i, "test" + i, new Date(begin), rand.nextInt(1000 * 60 * 60 * 48));
+			kalendar.addEvent(event);
+		}
+		for (int i = 0; i < 20; i++) {
+			long begin = kalendarStart + (long)(rand.nextDouble() * oneYear);
+			KalendarEvent event = new KalendarEvent("rid" + i, "recurring" + i, new Date(begin), 1000 * 60 * 60);
+			Date recurrenceEnd = i % 2 == 0 ? null : new Date(begin + (long)(rand.nextDouble() * oneYear));
+			event.setRecurrenceRule(calendarManager.getRecurrenceRule(KalendarEvent.WEEKLY, recurrenceEnd));
+			kalendar.addEvent(event);
+		}
+		
+		try {
+			for (int i = 0; i < 20; i++) {
+				Date from = new Date(kalendarStart + (long)(rand.nextDouble() * oneYear));
+				Date to = new Date(from.getTime() + rand.nextInt(1000 * 60 * 60 * 24 * 31));
+				
+				calendarManager.setEventIndexEnabled(true);
+				List<KalendarEvent> indexedEvents = calendarManager.getEvents(kalendar, from, to, true);
+				calendarManager.setEventIndexEnabled(false);
+				List<KalendarEvent> scannedEvents = calendarManager.getEvents(kalendar, from, to, true);
+				
+				Assert.assertEquals(toKeys(scannedEvents), toKeys(indexedEvents));
+			}
+		} finally {
+			calendarManager.setEventIndexEnabled(true);
+		}
+	}
+	
+	private List<String> toKeys(List<KalendarEvent> events) {
+		List<String> keys = new ArrayList<>();
+		for(KalendarEvent event:events) {
+			keys.add(event.getID() + "/" + event.getBegin().getTime());
+		}
+		Collections.sort(keys);
+		return keys;
+	}
+	
+	@Test
+	public void testJournal() throws IOException {
+		Identity test = JunitTestHelper.createAndPersistIdentityAsRndUser("ical-journal-");
+		Kalendar cal = calendarManager.getPersonalCalendar(test).getKalendar();
+		// the first change writes the file
+		KalendarEvent firstEvent = new KalendarEvent("id-journal-1", "First journaled event", new Date(), 60 * 60 * 1000);
+		calendarManager.addEventTo(cal, firstEvent);
+		File calendarFile = calendarManager.getCalendarFile(CalendarManager.TYPE_USER, test.getName());
+		CalendarJournal journal = new CalendarJournal(calendarFile);
+		Assert.assertTrue(calendarFile.exists());
+		Assert.assertFalse(journal.exists());
+		
+		// the next ones are journaled
+		KalendarEvent secondEvent = new KalendarEvent("id-journal-2", "Second journaled event", new Date(), 60 * 60 * 1000);
+		calendarManager.addEventTo(cal, secondEvent);
+		KalendarEvent reloadedFirstEvent = calendarManager.getPersonalCalendar(test).getKalendar().getEvent("id-journal-1", null);
+		reloadedFirstEvent.setSubject("First journaled event changed");
+		calendarManager.updateEventFrom(cal, reloadedFirstEvent);
+		calendarManager.removeEventFrom(cal, secondEvent);
+		Assert.assertTrue(journal.exists());
+		Assert.assertFalse(FileUtils.readFileToString(calendarFile, "UTF-8").contains("First journaled event changed"));
+		
+		// reload from file and journal
+		emptyCalendarCache();
+		Kalendar reloadedCal = calendarManager.getPersonalCalendar(test).getKalendar();
+		Assert.assertEquals(1, reloadedCal.getEvents().size());
+		Assert.assertEquals("First journaled event changed", reloadedCal.getEvent("id-journal-1", null).getSubject());
+		Assert.assertNull(reloadedCal.getEvent("id-journal-2", null));
+		
+		// compact
+		calendarManager.compactJournals();
+		Assert.assertFalse(journal.exists());
+		Assert.assertTrue(FileUtils.readFileToString(calendarFile, "UTF-8").contains("First journaled event changed"));
+		
+		emptyCalendarCache();
+		Kalendar compactedCal = calendarManager.getPersonalCalendar(test).getKalendar();
+		Assert.assertEquals(1, compactedCal.getEvents().size());
+		Assert.assertEquals("First journaled event changed", compactedCal.getEvent("id-journal-1", null).getSubject());
+	}
+	
 	/**
 	 * A recurring event with the start and end date reversed. This error
 	 * in the calendar cause the whole calendar to crash.
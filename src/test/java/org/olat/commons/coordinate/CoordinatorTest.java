@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
@@ -312,6 +313,51 @@ public class CoordinatorTest extends OlatTestCase {
 		});//end syncerCallback
 	}
 	
+	/**
+	 * Two threads lock the same resources given in a different order: they must
+	 * not dead lock and the protected regions must not overlap.
+	 */
+	@Test
+	public void testDoInSyncSeveralResources() throws Exception {
+		final String type = "testDoInSyncSeveralResources-" + UUID.randomUUID();
+		final List<OLATResourceable> resources = new ArrayList<>();
+		for(long i=1; i<=5; i++) {
+			resources.add(OresHelper.createOLATResourceableInstance(type, Long.valueOf(i)));
+		}
+		final List<OLATResourceable> reversedResources = new ArrayList<>(resources);
+		Collections.reverse(reversedResources);
+		
+		final AtomicInteger inRegion = new AtomicInteger();
+		final List<Exception> exceptionHolder = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch finishCount = new CountDownLatch(2);
+		for(List<OLATResourceable> toLock:List.of(resources, reversedResources)) {
+			new Thread(() -> {
+				try {
+					for(int i=0; i<10; i++) {
+						CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(toLock, () -> {
+							if(inRegion.incrementAndGet() != 1) {
+								exceptionHolder.add(new Exception("Protected regions overlap"));
+							}
+							sleep(5);
+							inRegion.decrementAndGet();
+						});
+					}
+				} catch (Exception e) {
+					exceptionHolder.add(e);
+				} finally {
+					DBFactory.getInstance().commitAndCloseSession();
+					finishCount.countDown();
+				}
+			}).start();
+		}
+		
+		Assert.assertTrue("Dead lock", finishCount.await(60, TimeUnit.SECONDS));
+		for (Exception exception : exceptionHolder) {
+			log.error("exception: ", exception);
+		}
+		Assert.assertEquals("It throws an exception in test", 0, exceptionHolder.size());
+	}
+	
 	@Test
 	public void testSyncerAssertAlreadyDoInSyncFor() {
 		final OLATResourceable ores = OresHelper.createOLATResourceableInstance("testSyncerAssertAlreadyDoInSyncFor", new Long("123"));
@@ -0,0 +1,90 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class PLockLeasesTest {
+	
+	@Test
+	public void acquireRelease() {
+		PLockLeases leases = new PLockLeases(10000l);
+		PLockLeases.Lease lease = leases.acquire("asset-1");
+		Assert.assertTrue(lease.isGranted());
+		Assert.assertEquals("asset-1", lease.getAsset());
+		Assert.assertEquals(1, leases.size());
+		
+		leases.release(lease);
+		Assert.assertEquals(0, leases.size());
+	}
+	
+	@Test
+	public void waitForRelease() throws Exception {
+		PLockLeases leases = new PLockLeases(10000l);
+		PLockLeases.Lease lease = leases.acquire("asset-2");
+		
+		CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+			PLockLeases.Lease secondLease = leases.acquire("asset-2");
+			boolean granted = secondLease.isGranted();
+			leases.release(secondLease);
+			return Boolean.valueOf(granted);
+		});
+		
+		Thread.sleep(100);
+		Assert.assertFalse(waiting.isDone());
+		leases.release(lease);
+		Assert.assertTrue(waiting.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(0, leases.size());
+	}
+	
+	@Test
+	public void leaseExpires() throws Exception {
+		PLockLeases leases = new PLockLeases(200l);
+		PLockLeases.Lease lease = leases.acquire("asset-3");
+		
+		long start = System.currentTimeMillis();
+		CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+			PLockLeases.Lease secondLease = leases.acquire("asset-3");
+			boolean granted = secondLease.isGranted();
+			leases.release(secondLease);
+			return Boolean.valueOf(granted);
+		});
+		
+		// the holder doesn't release in time, the second thread goes on without the lease
+		Assert.assertFalse(waiting.get(5, TimeUnit.SECONDS));
+		Assert.assertTrue(System.currentTimeMillis() - start >= 150l);
+		
+		leases.release(lease);
+		Assert.assertEquals(0, leases.size());
+		// the lease is free again
+		PLockLeases.Lease thirdLease = leases.acquire("asset-3");
+		Assert.assertTrue(thirdLease.isGranted());
+		leases.release(thirdLease);
+	}
+}
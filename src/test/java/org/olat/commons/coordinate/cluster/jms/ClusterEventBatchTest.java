@@ -0,0 +1,98 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.event.MultiUserEvent;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class ClusterEventBatchTest {
+	
+	@Test
+	public void writeReadFrame() throws Exception {
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("BatchTest", 42l);
+		OLATResourceable type = OresHelper.lookupType(ClusterEventBatchTest.class);
+		
+		ClusterEventBatch batch = new ClusterEventBatch();
+		batch.add(ores, new MultiUserEvent("first"));
+		batch.add(type, new MultiUserEvent("second"));
+		
+		byte[] frame = batch.toFrame(Integer.valueOf(3), 17l);
+		List<JMSWrapper> wrappers = ClusterEventBatch.fromFrame(frame);
+		Assert.assertEquals(2, wrappers.size());
+		
+		JMSWrapper first = wrappers.get(0);
+		Assert.assertEquals(Integer.valueOf(3), first.getNodeId());
+		Assert.assertEquals(17l, first.getMsgId());
+		Assert.assertEquals("BatchTest", first.getOres().getResourceableTypeName());
+		Assert.assertEquals(Long.valueOf(42), first.getOres().getResourceableId());
+		Assert.assertEquals("first", first.getMultiUserEvent().getCommand());
+		
+		JMSWrapper second = wrappers.get(1);
+		Assert.assertEquals(type.getResourceableTypeName(), second.getOres().getResourceableTypeName());
+		Assert.assertNull(second.getOres().getResourceableId());
+		Assert.assertEquals("second", second.getMultiUserEvent().getCommand());
+	}
+	
+	@Test
+	public void deduplicate() throws Exception {
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("BatchTest", 42l);
+		OLATResourceable otherOres = OresHelper.createOLATResourceableInstance("BatchTest", 43l);
+		
+		ClusterEventBatch batch = new ClusterEventBatch();
+		for(int i=0; i<100; i++) {
+			batch.add(ores, new MultiUserEvent("changed"));
+		}
+		batch.add(otherOres, new MultiUserEvent("changed"));
+		batch.add(ores, new MultiUserEvent("deleted"));
+		Assert.assertEquals(102, batch.size());
+		
+		List<JMSWrapper> wrappers = ClusterEventBatch.fromFrame(batch.toFrame(Integer.valueOf(1), 1l));
+		Assert.assertEquals(3, wrappers.size());
+		Assert.assertEquals("changed", wrappers.get(0).getMultiUserEvent().getCommand());
+		Assert.assertEquals(Long.valueOf(43), wrappers.get(1).getOres().getResourceableId());
+		Assert.assertEquals("deleted", wrappers.get(2).getMultiUserEvent().getCommand());
+	}
+	
+	@Test
+	public void latencyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i=0; i<90; i++) {
+			histogram.addMeasurement(3);
+		}
+		for(int i=0; i<10; i++) {
+			histogram.addMeasurement(700);
+		}
+		Assert.assertEquals(100, histogram.getNum());
+		Assert.assertEquals(5, histogram.getPercentile(50));
+		Assert.assertEquals(1000, histogram.getPercentile(99));
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getNum());
+	}
+}
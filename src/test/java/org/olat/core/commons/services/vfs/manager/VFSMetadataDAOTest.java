@@ -134,6 +134,24 @@ public class VFSMetadataDAOTest extends OlatTestCase {
 		Assert.assertEquals(1, loadedMetadata.getDownloadCount());
 	}
 	
+	@Test
+	public void incrementDownloadCounter_delta() {
+		String uuid = UUID.randomUUID().toString();
+		String relativePath = "/bcroot/hello/world/";
+		String filename = uuid + ".pdf";
+		String uri = "file:///Users/frentix/Documents/bcroot/hello/world/image.jpg";
+		String uriProtocol = "file";
+		VFSMetadata metadata = vfsMetadataDao.createMetadata(uuid, relativePath, filename, new Date(), 18l, false, uri, uriProtocol, null);
+		dbInstance.commitAndCloseSession();
+		
+		vfsMetadataDao.increaseDownloadCount(relativePath, filename, 12);
+		vfsMetadataDao.increaseDownloadCount(relativePath, filename);
+		dbInstance.commitAndCloseSession();
+		
+		VFSMetadata loadedMetadata = vfsMetadataDao.loadMetadata(metadata.getKey());
+		Assert.assertEquals(13, loadedMetadata.getDownloadCount());
+	}
+	
 	@Test
 	public void setDownloadCounter() {
 		String uuid = UUID.randomUUID().toString();
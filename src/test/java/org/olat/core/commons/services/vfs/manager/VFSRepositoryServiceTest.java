@@ -26,9 +26,13 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
@@ -43,6 +47,7 @@ import org.olat.core.commons.services.license.LicenseType;
 import org.olat.core.commons.services.license.manager.LicenseCleaner;
 import org.olat.core.commons.services.vfs.VFSMetadata;
 import org.olat.core.commons.services.vfs.VFSRepositoryService;
+import org.olat.core.commons.services.vfs.VFSThumbnailMetadata;
 import org.olat.core.id.Identity;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.FileUtils;
@@ -75,6 +80,10 @@ public class VFSRepositoryServiceTest extends OlatTestCase {
 	@Autowired
 	private LicenseCleaner licenseCleaner;
 	@Autowired
+	private VFSMetadataDAO metadataDao;
+	@Autowired
+	private VFSThumbnailDAO thumbnailDao;
+	@Autowired
 	private VFSRepositoryService vfsRepositoryService;
 	
 	@Before
@@ -239,6 +248,98 @@ public class VFSRepositoryServiceTest extends OlatTestCase {
 		assertThat(createdLicenseType).isNotNull();
 	}
 	
+	@Test
+	public void getThumbnailConcurrent() throws Exception {
+		VFSLeaf leaf = createImage();
+		VFSMetadata metadata = vfsRepositoryService.getMetadataFor(leaf);
+		dbInstance.commitAndCloseSession();
+		
+		int numOfThreads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(numOfThreads);
+		List<VFSLeaf> thumbnails = Collections.synchronizedList(new ArrayList<>());
+		for(int i=0; i<numOfThreads; i++) {
+			new Thread(() -> {
+				try {
+					start.await();
+					thumbnails.add(vfsRepositoryService.getThumbnail(leaf, 160, 160, true));
+					dbInstance.commitAndCloseSession();
+				} catch (Exception e) {
+					log.error("", e);
+					dbInstance.rollbackAndCloseSession();
+				} finally {
+					finish.countDown();
+				}
+			}).start();
+		}
+		start.countDown();
+		Assert.assertTrue(finish.await(60, TimeUnit.SECONDS));
+		
+		// all get the same thumbnail, generated once
+		Assert.assertEquals(numOfThreads, thumbnails.size());
+		for(VFSLeaf thumbnail:thumbnails) {
+			Assert.assertNotNull(thumbnail);
+			Assert.assertEquals(thumbnails.get(0).getName(), thumbnail.getName());
+		}
+		List<VFSThumbnailMetadata> thumbnailsMetadata = thumbnailDao.loadByMetadata(metadata);
+		Assert.assertEquals(1, thumbnailsMetadata.size());
+	}
+	
+	@Test
+	public void getThumbnailIfReady() {
+		VFSRepositoryServiceImpl serviceImpl = (VFSRepositoryServiceImpl)vfsRepositoryService;
+		VFSLeaf leaf = createImage();
+		vfsRepositoryService.getMetadataFor(leaf);
+		dbInstance.commitAndCloseSession();
+		
+		try {
+			serviceImpl.setAsyncThumbnails(true);
+			long generated = serviceImpl.getNumOfGeneratedThumbnails();
+			// not ready, queued
+			VFSLeaf thumbnail = vfsRepositoryService.getThumbnailIfReady(leaf, 140, 140, false);
+			Assert.assertNull(thumbnail);
+			dbInstance.commitAndCloseSession();
+			
+			waitForCondition(() -> serviceImpl.getNumOfGeneratedThumbnails() > generated
+					&& vfsRepositoryService.getThumbnailIfReady(leaf, 140, 140, false) != null, 10000);
+			
+			VFSLeaf readyThumbnail = vfsRepositoryService.getThumbnailIfReady(leaf, 140, 140, false);
+			Assert.assertNotNull(readyThumbnail);
+			Assert.assertTrue(readyThumbnail.getSize() > 32);
+			Assert.assertTrue(serviceImpl.getMaxThumbnailLatency() > 0.0d);
+		} finally {
+			serviceImpl.setAsyncThumbnails(false);
+		}
+	}
+	
+	/**
+	 * The metadata saved by the caller is committed before the
+	 * thumbnail is queued, the worker doesn't create a second row.
+	 */
+	@Test
+	public void generateThumbnails() {
+		VFSRepositoryServiceImpl serviceImpl = (VFSRepositoryServiceImpl)vfsRepositoryService;
+		VFSLeaf leaf = createImage();
+		VFSMetadata metadata = vfsRepositoryService.getMetadataFor(leaf);
+		
+		try {
+			serviceImpl.setAsyncThumbnails(true);
+			vfsRepositoryService.generateThumbnails(List.of(leaf), 160, 160, false);
+			dbInstance.commitAndCloseSession();
+			
+			waitForCondition(() -> vfsRepositoryService.getThumbnailIfReady(leaf, 160, 160, false) != null, 10000);
+			Assert.assertNotNull(vfsRepositoryService.getThumbnailIfReady(leaf, 160, 160, false));
+			dbInstance.commitAndCloseSession();
+		} finally {
+			serviceImpl.setAsyncThumbnails(false);
+		}
+		
+		long rows = metadataDao.getMetadatas(metadata.getRelativePath()).stream()
+				.filter(m -> leaf.getName().equals(m.getFilename()))
+				.count();
+		Assert.assertEquals(1l, rows);
+	}
+	
 	@Test
 	public void readWriteBinary() {
 		String filename = UUID.randomUUID() + ".txt";
@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.List;
 import java.util.UUID;
 
 import javax.ws.rs.core.UriBuilder;
@@ -43,12 +44,16 @@ import org.apache.logging.log4j.Logger;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
+import org.olat.basesecurity.BaseSecurity;
 import org.olat.basesecurity.GroupRoles;
 import org.olat.core.commons.modules.bc.FolderConfig;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.id.Identity;
+import org.olat.core.id.IdentityEnvironment;
+import org.olat.core.id.Roles;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.FileUtils;
+import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.vfs.VFSContainer;
 import org.olat.core.util.vfs.VFSItem;
 import org.olat.core.util.vfs.VFSLeaf;
@@ -58,9 +63,14 @@ import org.olat.core.util.vfs.VFSManager;
 import org.olat.core.util.vfs.lock.LockInfo;
 import org.olat.core.util.vfs.lock.LockResult;
 import org.olat.course.CourseFactory;
+import org.olat.course.CoursefolderWebDAVCache;
+import org.olat.course.CoursefolderWebDAVCache.CoursefolderEntries;
 import org.olat.course.ICourse;
 import org.olat.repository.RepositoryEntry;
+import org.olat.repository.RepositoryManager;
 import org.olat.repository.RepositoryService;
+import org.olat.repository.controllers.EntryChangedEvent;
+import org.olat.repository.controllers.EntryChangedEvent.Change;
 import org.olat.repository.manager.RepositoryEntryRelationDAO;
 import org.olat.restapi.CoursePublishTest;
 import org.olat.test.JunitTestHelper;
@@ -88,6 +98,12 @@ public class WebDAVCommandsTest extends WebDAVTestCase {
 	private RepositoryService repositoryService;
 	@Autowired
 	private RepositoryEntryRelationDAO repositoryEntryRelationDao;
+	@Autowired
+	private RepositoryManager repositoryManager;
+	@Autowired
+	private BaseSecurity securityManager;
+	@Autowired
+	private CoursefolderWebDAVCache coursefolderCache;
 	
 	@After
 	public void resetWebDAVModule() {
@@ -941,6 +957,40 @@ public class WebDAVCommandsTest extends WebDAVTestCase {
 		return deployTestCourse(author, null, "Mkdirs", courseWithForumsUrl);
 	}
 
+	@Test
+	public void coursefoldersCache()
+	throws IOException, URISyntaxException {
+		IdentityWithLogin author = JunitTestHelper.createAndPersistRndAuthor("webdav-15-");
+		IdentityWithLogin assistant = JunitTestHelper.createAndPersistRndAuthor("webdav-16-");
+		RepositoryEntry re = deployTestCourse(author.getIdentity(), assistant.getIdentity());
+		
+		Roles roles = securityManager.getRoles(assistant.getIdentity());
+		IdentityEnvironment identityEnv = new IdentityEnvironment(assistant.getIdentity(), roles);
+		CoursefolderEntries entries = coursefolderCache.getEntries(identityEnv);
+		Assert.assertTrue(entries.getEditorEntries().contains(re));
+		// second call is served by the cache
+		Assert.assertSame(entries, coursefolderCache.getEntries(identityEnv));
+		
+		// rename the course, the entry is reloaded in the cached list
+		re = repositoryManager.setDescriptionAndName(re, "Renamed Kurs", null);
+		dbInstance.commitAndCloseSession();
+		EntryChangedEvent changedEvent = new EntryChangedEvent(re, author.getIdentity(), Change.modifiedDescription, "test");
+		CoordinatorManager.getInstance().getCoordinator().getEventBus()
+			.fireEventToListenersOf(changedEvent, RepositoryService.REPOSITORY_EVENT_ORES);
+		
+		CoursefolderEntries refreshedEntries = coursefolderCache.getEntries(identityEnv);
+		Assert.assertEquals(entries.getLoadTime(), refreshedEntries.getLoadTime());
+		Assert.assertEquals(1, refreshedEntries.getEditorEntries().size());
+		Assert.assertEquals("Renamed Kurs", refreshedEntries.getEditorEntries().get(0).getDisplayname());
+		
+		// remove the assistant, the cache of the assistant is invalidated
+		repositoryManager.removeOwners(author.getIdentity(), List.of(assistant.getIdentity()), re, null);
+		dbInstance.commitAndCloseSession();
+		
+		CoursefolderEntries reloadedEntries = coursefolderCache.getEntries(identityEnv);
+		Assert.assertFalse(reloadedEntries.getEditorEntries().contains(re));
+	}
+	
 	private RepositoryEntry deployTestCourse(Identity author, Identity coAuthor)
 	throws URISyntaxException {
 		URL courseWithForumsUrl = CoursePublishTest.class.getResource("myCourseWS.zip");
@@ -20,6 +20,8 @@
 package org.olat.core.dispatcher.mapper;
 
 import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletRequest;
@@ -30,6 +32,8 @@ import org.junit.Test;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.dispatcher.mapper.manager.MapperDAO;
 import org.olat.core.dispatcher.mapper.manager.MapperKey;
+import org.olat.core.dispatcher.mapper.manager.MapperServiceImpl;
+import org.olat.core.dispatcher.mapper.model.PersistedMapper;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.util.CodeHelper;
 import org.olat.core.util.SessionInfo;
@@ -215,6 +219,203 @@ public class MapperServiceTest extends OlatTestCase {
 		Assert.assertEquals(modKey, reloadedMapper2.getKey());
 	}
 	
+	@Test
+	public void writeBehind_disposedWithinGracePeriod() {
+		MapperServiceImpl mapperServiceImpl = (MapperServiceImpl)mapperService;
+		boolean writeBehind = mapperServiceImpl.isWriteBehindEnabled();
+		try {
+			mapperServiceImpl.setWriteBehindEnabled(true);
+			
+			UserSession session = createUserSession();
+			PersistentMapper mapper = new PersistentMapper(UUID.randomUUID().toString());
+			MapperKey mapperKey = mapperService.register(session, mapper);
+			dbInstance.commitAndCloseSession();
+			
+			// only in memory
+			Assert.assertNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+			Assert.assertEquals(mapper, mapperService.getMapperById(session, mapperKey.getMapperId()));
+			
+			// disposed before the grace period, never written
+			mapperService.cleanUp(Collections.<MapperKey>singletonList(mapperKey));
+			Assert.assertEquals(0, mapperServiceImpl.flushPendingMappers(List.of(mapperKey.getMapperId())));
+			Assert.assertNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+		} finally {
+			mapperServiceImpl.setWriteBehindEnabled(writeBehind);
+		}
+	}
+	
+	@Test
+	public void writeBehind_stillInUse() {
+		MapperServiceImpl mapperServiceImpl = (MapperServiceImpl)mapperService;
+		boolean writeBehind = mapperServiceImpl.isWriteBehindEnabled();
+		try {
+			mapperServiceImpl.setWriteBehindEnabled(true);
+			
+			UserSession session = createUserSession();
+			PersistentMapper mapper = new PersistentMapper(UUID.randomUUID().toString());
+			MapperKey mapperKey = mapperService.register(session, mapper);
+			dbInstance.commitAndCloseSession();
+			
+			// not yet after the grace period
+			mapperServiceImpl.flushPendingMappers(0l);
+			Assert.assertNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+			
+			int written = mapperServiceImpl.flushPendingMappers(List.of(mapperKey.getMapperId()));
+			Assert.assertEquals(1, written);
+			Assert.assertNotNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+			
+			// an other node retrieves it from the database
+			PersistentMapper reloadedMapper = (PersistentMapper)mapperDao.retrieveMapperById(mapperKey.getMapperId());
+			Assert.assertEquals(mapper.getKey(), reloadedMapper.getKey());
+			
+			mapperService.cleanUp(session.getSessionInfo().getSession().getId());
+		} finally {
+			mapperServiceImpl.setWriteBehindEnabled(writeBehind);
+		}
+	}
+	
+	@Test
+	public void writeBehind_sessionPassivated() {
+		MapperServiceImpl mapperServiceImpl = (MapperServiceImpl)mapperService;
+		boolean writeBehind = mapperServiceImpl.isWriteBehindEnabled();
+		try {
+			mapperServiceImpl.setWriteBehindEnabled(true);
+			
+			UserSession session = createUserSession();
+			PersistentMapper mapper = new PersistentMapper(UUID.randomUUID().toString());
+			MapperKey mapperKey = mapperService.register(session, mapper);
+			dbInstance.commitAndCloseSession();
+			
+			String sessionId = session.getSessionInfo().getSession().getId();
+			mapperService.persistPendingMappers(sessionId);
+			Assert.assertNotNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+			
+			mapperService.cleanUp(sessionId);
+		} finally {
+			mapperServiceImpl.setWriteBehindEnabled(writeBehind);
+		}
+	}
+	
+	@Test
+	public void writeBehind_cacheableDeduplicated() {
+		MapperServiceImpl mapperServiceImpl = (MapperServiceImpl)mapperService;
+		boolean writeBehind = mapperServiceImpl.isWriteBehindEnabled();
+		try {
+			mapperServiceImpl.setWriteBehindEnabled(true);
+			
+			UserSession session = createUserSession();
+			String mapperId = UUID.randomUUID().toString();
+			String key = UUID.randomUUID().toString();
+			// a burst of identical registrations
+			MapperKey mapperKey = null;
+			for(int i=0; i<10; i++) {
+				mapperKey = mapperService.register(session, mapperId, new PersistentMapper(key));
+			}
+			dbInstance.commitAndCloseSession();
+			Assert.assertNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+			List<String> mapperIds = List.of(mapperKey.getMapperId());
+			
+			Assert.assertEquals(1, mapperServiceImpl.flushPendingMappers(mapperIds));
+			Assert.assertNotNull(mapperDao.loadByMapperId(mapperKey.getMapperId()));
+			
+			// same configuration again, nothing to write
+			mapperService.register(session, mapperId, new PersistentMapper(key));
+			Assert.assertEquals(0, mapperServiceImpl.flushPendingMappers(mapperIds));
+			
+			// changed configuration
+			String modKey = UUID.randomUUID().toString();
+			mapperService.register(session, mapperId, new PersistentMapper(modKey));
+			Assert.assertEquals(1, mapperServiceImpl.flushPendingMappers(mapperIds));
+			PersistentMapper reloadedMapper = (PersistentMapper)mapperDao.retrieveMapperById(mapperKey.getMapperId());
+			Assert.assertEquals(modKey, reloadedMapper.getKey());
+			
+			mapperService.cleanUp(session.getSessionInfo().getSession().getId());
+		} finally {
+			mapperServiceImpl.setWriteBehindEnabled(writeBehind);
+		}
+	}
+	
+	/**
+	 * A cacheable mapper registered again and again is written after the grace
+	 * period of its first registration, and as long as one session uses it.
+	 */
+	@Test
+	public void writeBehind_cacheableReregistered() throws Exception {
+		MapperServiceImpl mapperServiceImpl = (MapperServiceImpl)mapperService;
+		boolean writeBehind = mapperServiceImpl.isWriteBehindEnabled();
+		try {
+			mapperServiceImpl.setWriteBehindEnabled(true);
+			
+			UserSession session1 = createUserSession();
+			UserSession session2 = createUserSession();
+			String mapperId = UUID.randomUUID().toString();
+			String key = UUID.randomUUID().toString();
+			MapperKey mapperKey1 = mapperService.register(session1, mapperId, new PersistentMapper(key));
+			long firstRegistration = System.currentTimeMillis();
+			Thread.sleep(50);
+			MapperKey mapperKey2 = mapperService.register(session2, mapperId, new PersistentMapper(key));
+			dbInstance.commitAndCloseSession();
+			Assert.assertEquals(mapperKey1.getMapperId(), mapperKey2.getMapperId());
+			
+			// the second session doesn't use the mapper anymore, the first one still
+			mapperService.cleanUp(Collections.<MapperKey>singletonList(mapperKey2));
+			Assert.assertTrue(mapperServiceImpl.flushPendingMappers(firstRegistration) >= 1);
+			dbInstance.commitAndCloseSession();
+			Assert.assertNotNull(mapperDao.loadByMapperId(mapperKey1.getMapperId()));
+			
+			mapperService.cleanUp(Collections.<MapperKey>singletonList(mapperKey1));
+		} finally {
+			mapperServiceImpl.setWriteBehindEnabled(writeBehind);
+		}
+	}
+	
+	@Test
+	public void writeBehind_cacheableRefreshExpiration() throws Exception {
+		MapperServiceImpl mapperServiceImpl = (MapperServiceImpl)mapperService;
+		boolean writeBehind = mapperServiceImpl.isWriteBehindEnabled();
+		try {
+			mapperServiceImpl.setWriteBehindEnabled(true);
+			
+			UserSession session = createUserSession();
+			String mapperId = UUID.randomUUID().toString();
+			String key = UUID.randomUUID().toString();
+			// expires after 2 seconds, an unchanged configuration is skipped only 1 second
+			MapperKey mapperKey = mapperService.register(session, mapperId, new PersistentMapper(key), 2);
+			dbInstance.commitAndCloseSession();
+			List<String> mapperIds = List.of(mapperKey.getMapperId());
+			
+			Assert.assertEquals(1, mapperServiceImpl.flushPendingMappers(mapperIds));
+			PersistedMapper persistedMapper = mapperDao.loadByMapperId(mapperKey.getMapperId());
+			Date firstExpirationDate = persistedMapper.getExpirationDate();
+			Assert.assertNotNull(firstExpirationDate);
+			
+			mapperService.register(session, mapperId, new PersistentMapper(key), 2);
+			Assert.assertEquals(0, mapperServiceImpl.flushPendingMappers(mapperIds));
+			
+			// after the half of the expiration time, the expiration date is refreshed
+			Thread.sleep(1100);
+			mapperService.register(session, mapperId, new PersistentMapper(key), 2);
+			Assert.assertEquals(1, mapperServiceImpl.flushPendingMappers(mapperIds));
+			dbInstance.commitAndCloseSession();
+			PersistedMapper refreshedMapper = mapperDao.loadByMapperId(mapperKey.getMapperId());
+			Assert.assertTrue(refreshedMapper.getExpirationDate().after(firstExpirationDate));
+			
+			mapperService.cleanUp(session.getSessionInfo().getSession().getId());
+		} finally {
+			mapperServiceImpl.setWriteBehindEnabled(writeBehind);
+		}
+	}
+	
+	@Test
+	public void getConfigurationHashValidity() {
+		// capped at the half of the expiration time
+		Assert.assertEquals(180000l, MapperServiceImpl.getConfigurationHashValidity(360));
+		// max. 1 hour
+		Assert.assertEquals(3600000l, MapperServiceImpl.getConfigurationHashValidity(24 * 3600));
+		// without expiration
+		Assert.assertEquals(3600000l, MapperServiceImpl.getConfigurationHashValidity(-1));
+	}
+	
 	private UserSession createUserSession() {
 		HttpSession httpSession = new MockHttpSession();
 		UserSession userSession = sessionManager.getUserSession(null, httpSession);
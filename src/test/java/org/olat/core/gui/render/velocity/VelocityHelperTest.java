@@ -0,0 +1,136 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.render.velocity;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.velocity.VelocityContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.util.io.SystemFileFilter;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class VelocityHelperTest extends OlatTestCase {
+	
+	private static final String TEMPLATE = "org/olat/core/gui/control/generic/closablewrapper/_content/callout.html";
+	
+	@Autowired
+	private VelocityTemplatesPreWarm velocityTemplatesPreWarm;
+	
+	@Test
+	public void templateRegistry() {
+		VelocityHelper helper = VelocityHelper.getInstance();
+		helper.clearResolvedTemplates();
+		Assert.assertEquals(0, helper.getNumOfResolvedTemplates());
+		
+		helper.precompile(TEMPLATE);
+		Assert.assertEquals(1, helper.getNumOfResolvedTemplates());
+		// compiled only once
+		helper.precompile(TEMPLATE);
+		Assert.assertEquals(1, helper.getNumOfResolvedTemplates());
+		
+		// rendered from the registry
+		StringWriter writer = new StringWriter();
+		helper.mergeContent(TEMPLATE, new VelocityContext(), writer, null);
+		Assert.assertEquals(1, helper.getNumOfResolvedTemplates());
+		Assert.assertTrue(writer.toString().length() > 0);
+	}
+	
+	@Test
+	public void templateMetrics() {
+		VelocityHelper helper = VelocityHelper.getInstance();
+		helper.resetTemplateMetrics();
+		
+		for(int i=0; i<3; i++) {
+			helper.mergeContent(TEMPLATE, new VelocityContext(), new StringWriter(), null);
+		}
+		
+		List<VelocityTemplateMetrics> metrics = helper.getTemplateMetrics();
+		if(helper.isTemplateMetricsEnabled()) {
+			Assert.assertEquals(1, metrics.size());
+			Assert.assertEquals(TEMPLATE, metrics.get(0).getTemplate());
+			Assert.assertEquals(3, metrics.get(0).getCount());
+		} else {
+			Assert.assertTrue(metrics.isEmpty());
+		}
+		
+		helper.resetTemplateMetrics();
+		Assert.assertTrue(helper.getTemplateMetrics().isEmpty());
+	}
+	
+	@Test
+	public void jmx() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName("org.olat.core:type=Velocity,name=VelocityHelper");
+		VelocityHelper.getInstance().register();
+		Assert.assertTrue(server.isRegistered(objectName));
+		
+		VelocityHelper.getInstance().precompile(TEMPLATE);
+		Object numOfTemplates = server.getAttribute(objectName, "NumOfResolvedTemplates");
+		Assert.assertEquals(Integer.valueOf(VelocityHelper.getInstance().getNumOfResolvedTemplates()), numOfTemplates);
+		Assert.assertNotNull(server.getAttribute(objectName, "TemplateMetrics"));
+		server.invoke(objectName, "resetTemplateMetrics", null, null);
+	}
+	
+	@Test
+	public void preWarmParallel() {
+		List<String> templates = new ArrayList<>();
+		collectTemplates("", new File("src/main/java"), templates, 250);
+		Assert.assertFalse(templates.isEmpty());
+		templates.add("org/olat/core/gui/control/generic/closablewrapper/_content/not_a_template.html");
+		
+		VelocityHelper helper = VelocityHelper.getInstance();
+		helper.clearResolvedTemplates();
+		int compiled = velocityTemplatesPreWarm.precompile(templates);
+		// all but the missing one, every template once
+		Assert.assertEquals(templates.size() - 1, compiled);
+		Assert.assertEquals(templates.size() - 1, helper.getNumOfResolvedTemplates());
+	}
+	
+	private void collectTemplates(String dir, File file, List<String> templates, int max) {
+		if(templates.size() >= max) {
+			return;
+		}
+		if("_content".equals(file.getName())) {
+			for(File template:file.listFiles(SystemFileFilter.DIRECTORY_FILES)) {
+				if(template.getName().endsWith(".html") && templates.size() < max) {
+					templates.add(dir + template.getName());
+				}
+			}
+		} else if(file.isDirectory()) {
+			for(File child:file.listFiles(SystemFileFilter.DIRECTORY_FILES)) {
+				collectTemplates(dir + child.getName() + "/", child, templates, max);
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.logging.activity;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.util.CodeHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class UserActivityLogWriterTest extends OlatTestCase {
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private UserActivityLogWriter userActivityLogWriter;
+	
+	@After
+	public void resetWriter() {
+		userActivityLogWriter.flush();
+		userActivityLogWriter.setEnabled(false);
+	}
+	
+	@Test
+	public void logSynchronous() {
+		userActivityLogWriter.setEnabled(false);
+		
+		String sessionId = "session-" + CodeHelper.getGlobalForeverUniqueID();
+		long synchronousLogs = userActivityLogWriter.getNumOfSynchronousLogs();
+		userActivityLogWriter.log(createLog(sessionId));
+		dbInstance.commitAndCloseSession();
+		
+		Assert.assertEquals(synchronousLogs + 1, userActivityLogWriter.getNumOfSynchronousLogs());
+		Assert.assertEquals(1, loadLogs(sessionId).size());
+	}
+	
+	@Test
+	public void logAsynchronous() throws Exception {
+		userActivityLogWriter.setEnabled(true);
+		
+		String sessionId = "session-" + CodeHelper.getGlobalForeverUniqueID();
+		long writtenLogs = userActivityLogWriter.getNumOfWrittenLogs();
+		for(int i=0; i<1000; i++) {
+			userActivityLogWriter.log(createLog(sessionId));
+		}
+		Date logged = new Date();
+		// the caller transaction doesn't save the logs
+		dbInstance.commitAndCloseSession();
+		
+		waitForCondition(() -> loadLogs(sessionId).size() == 1000, 10000);
+		
+		List<LoggingObject> logs = loadLogs(sessionId);
+		Assert.assertEquals(1000, logs.size());
+		// date of the log, not of the insert
+		Assert.assertFalse(logs.get(999).getCreationDate().after(logged));
+		Assert.assertTrue(userActivityLogWriter.getNumOfWrittenLogs() >= writtenLogs + 1000);
+		Assert.assertTrue(userActivityLogWriter.getMaxFlushLatency() > 0.0d);
+		Assert.assertEquals(0l, userActivityLogWriter.getNumOfFailedLogs());
+	}
+	
+	private LoggingObject createLog(String sessionId) {
+		LoggingObject logObj = new LoggingObject(sessionId, 123l, "u", "launch", "node");
+		logObj.setResourceAdminAction(Boolean.FALSE);
+		logObj.setBusinessPath("[RepositoryEntry:0][CourseNode:1]");
+		return logObj;
+	}
+	
+	private List<LoggingObject> loadLogs(String sessionId) {
+		List<LoggingObject> logs = dbInstance.getCurrentEntityManager()
+				.createQuery("select log from " + LoggingObject.class.getName() + " log where log.sessionId=:sessionId", LoggingObject.class)
+				.setParameter("sessionId", sessionId)
+				.getResultList();
+		dbInstance.commitAndCloseSession();
+		return logs;
+	}
+}
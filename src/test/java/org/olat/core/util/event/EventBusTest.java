@@ -0,0 +1,148 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.commons.coordinate.singlevm.SingleVMEventBus;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.event.businfo.BusListenerInfo;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class EventBusTest {
+	
+	@Test
+	public void registerFireDeregister() {
+		SingleVMEventBus bus = new SingleVMEventBus();
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("EventBusTest", 17l);
+		CountingListener listener = new CountingListener();
+		
+		bus.registerFor(listener, null, ores);
+		// register twice is ignored
+		bus.registerFor(listener, null, ores);
+		Assert.assertEquals(1, bus.getListeningIdentityCntFor(ores));
+		
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+		Assert.assertEquals(1, listener.getCount());
+		
+		// other id of the same type
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), OresHelper.createOLATResourceableInstance("EventBusTest", 18l));
+		Assert.assertEquals(1, listener.getCount());
+		
+		bus.deregisterFor(listener, ores);
+		Assert.assertEquals(0, bus.getListeningIdentityCntFor(ores));
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+		Assert.assertEquals(1, listener.getCount());
+		
+		Assert.assertEquals(2, bus.getStatistics().getTotalRegistrations());
+		Assert.assertEquals(3, bus.getStatistics().getTotalFires());
+		Assert.assertEquals(Long.valueOf(3), bus.getStatistics().getFiresPerType().get("EventBusTest"));
+	}
+	
+	@Test
+	public void typeListener() {
+		SingleVMEventBus bus = new SingleVMEventBus();
+		OLATResourceable type = OresHelper.lookupType(EventBusTest.class);
+		CountingListener typeListener = new CountingListener();
+		CountingListener instanceListener = new CountingListener();
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("EventBusTest", 17l);
+		bus.registerFor(typeListener, null, type);
+		bus.registerFor(instanceListener, null, ores);
+		
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), OresHelper.createOLATResourceableInstance("EventBusTest", 18l));
+		Assert.assertEquals(2, typeListener.getCount());
+		Assert.assertEquals(1, instanceListener.getCount());
+		
+		BusListenerInfo info = bus.createBusListenerInfo();
+		Assert.assertEquals(1, info.getCountFor(ores));
+		Assert.assertTrue(info.getAllDerivedStrings().contains("EventBusTest"));
+		
+		bus.deregisterFor(typeListener, type);
+		bus.deregisterFor(instanceListener, ores);
+		Assert.assertTrue(bus.createBusListenerInfo().getAllDerivedStrings().isEmpty());
+	}
+	
+	@Test
+	public void concurrentRegisterAndFire() throws Exception {
+		final SingleVMEventBus bus = new SingleVMEventBus();
+		final OLATResourceable ores = OresHelper.createOLATResourceableInstance("EventBusConcurrentTest", 17l);
+		final CountingListener permanent = new CountingListener();
+		bus.registerFor(permanent, null, ores);
+		
+		int numOfThreads = 8;
+		int numOfLoops = 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+		CountDownLatch latch = new CountDownLatch(numOfThreads);
+		List<Throwable> errors = new ArrayList<>();
+		for(int i=0; i<numOfThreads; i++) {
+			executor.execute(() -> {
+				try {
+					for(int j=0; j<numOfLoops; j++) {
+						CountingListener listener = new CountingListener();
+						bus.registerFor(listener, null, ores);
+						bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+						bus.deregisterFor(listener, ores);
+					}
+				} catch(Throwable e) {
+					synchronized(errors) {
+						errors.add(e);
+					}
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		
+		Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+		executor.shutdownNow();
+		Assert.assertTrue(errors.isEmpty());
+		Assert.assertEquals(numOfThreads * numOfLoops, permanent.getCount());
+		Assert.assertEquals(1, bus.getListeningIdentityCntFor(ores));
+	}
+	
+	private static class CountingListener implements GenericEventListener {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		public int getCount() {
+			return count.get();
+		}
+
+		@Override
+		public void event(Event event) {
+			count.incrementAndGet();
+		}
+	}
+}
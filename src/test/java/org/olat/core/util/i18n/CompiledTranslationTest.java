@@ -0,0 +1,76 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.i18n;
+
+import java.text.MessageFormat;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class CompiledTranslationTest {
+	
+	@Test
+	public void format_sameAsMessageFormat() {
+		String[] values = new String[] {
+			"Hello",
+			"Hello {0}",
+			"{0} and {1}",
+			"It's {0}'s course",
+			"Missing {3} argument",
+			"Quoted '{0}'",
+			"{1}{0}{1}"
+		};
+		Object[][] argsList = new Object[][] {
+			new Object[] { "Alice", "Bob" },
+			new Object[] { "It's", null },
+			new Object[] { 12, "twelve" },
+			new Object[] { new Date(0l), "epoch" },
+			new Object[0]
+		};
+		
+		for(String value:values) {
+			CompiledTranslation translation = new CompiledTranslation(value);
+			for(Object[] args:argsList) {
+				String expected = MessageFormat.format(value.replaceAll("'", "''"), args);
+				Assert.assertEquals(expected, translation.format(args));
+			}
+			Assert.assertEquals(value, translation.format(null));
+		}
+	}
+	
+	@Test
+	public void format_numberType() {
+		CompiledTranslation translation = new CompiledTranslation("{0,number,integer} points");
+		Object[] args = new Object[] { Integer.valueOf(1234) };
+		Assert.assertEquals(MessageFormat.format("{0,number,integer} points", args), translation.format(args));
+	}
+	
+	@Test
+	public void format_notFound() {
+		Assert.assertNull(CompiledTranslation.NOT_FOUND.format(null));
+		Assert.assertNull(CompiledTranslation.NOT_FOUND.format(new Object[] { "Hello" }));
+	}
+}
@@ -52,6 +52,7 @@ import org.olat.core.gui.translator.Translator;
 import org.olat.core.helpers.Settings;
 import org.olat.core.logging.AssertException;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
 import org.olat.core.util.FileUtils;
 import org.olat.core.util.Util;
 import org.olat.core.util.i18n.devtools.TranslationDevManager;
@@ -693,6 +694,56 @@ public class I18nTest extends OlatTestCase {
 		
 		i18nMgr.setCachingEnabled(true);
 	}
+	
+	/**
+	 * Compare the translations of the compiled tables with the resolved ones
+	 * and measure the time to translate all the keys of a bundle.
+	 */
+	@Test
+	public void compiledTables() {
+		String bundleName = "org.olat.core";
+		Locale locale = i18nMgr.getLocaleOrDefault("de");
+		Properties properties = i18nMgr.getResolvedProperties(locale, bundleName);
+		Set<String> keys = properties.stringPropertyNames();
+		Assert.assertFalse(keys.isEmpty());
+		Object[] args = new Object[] { "arg0", "arg1", "arg2" };
+		
+		boolean compiled = i18nMgr.isCompiledTablesEnabled();
+		try {
+			for(String key:keys) {
+				i18nMgr.setCompiledTablesEnabled(false);
+				String expected = i18nMgr.getLocalizedString(bundleName, key, args, locale, false, true);
+				i18nMgr.setCompiledTablesEnabled(true);
+				String translated = i18nMgr.getLocalizedString(bundleName, key, args, locale, false, true);
+				Assert.assertEquals(expected, translated);
+			}
+			
+			int iterations = 200;
+			i18nMgr.setCompiledTablesEnabled(false);
+			long resolvedTime = translateAll(bundleName, keys, args, locale, iterations);
+			i18nMgr.setCompiledTablesEnabled(true);
+			long compiledTime = translateAll(bundleName, keys, args, locale, iterations);
+			log.info("Translate {} keys {} times: resolved {} ms, compiled {} ms", keys.size(), iterations, resolvedTime, compiledTime);
+		} finally {
+			i18nMgr.setCompiledTablesEnabled(compiled);
+		}
+	}
+	
+	private long translateAll(String bundleName, Set<String> keys, Object[] args, Locale locale, int iterations) {
+		// warm up
+		for(int i=0; i<iterations / 4; i++) {
+			for(String key:keys) {
+				i18nMgr.getLocalizedString(bundleName, key, args, locale, false, true);
+			}
+		}
+		long start = System.nanoTime();
+		for(int i=0; i<iterations; i++) {
+			for(String key:keys) {
+				i18nMgr.getLocalizedString(bundleName, key, args, locale, false, true);
+			}
+		}
+		return CodeHelper.nanoToMilliTime(start);
+	}
 
 	
 	/**
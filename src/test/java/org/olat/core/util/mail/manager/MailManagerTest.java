@@ -19,6 +19,8 @@
  */
 package org.olat.core.util.mail.manager;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,12 +29,16 @@ import javax.mail.MessagingException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.Logger;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.id.Identity;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
 import org.olat.core.util.WebappHelper;
 import org.olat.core.util.mail.ContactList;
 import org.olat.core.util.mail.MailBundle;
@@ -54,9 +60,13 @@ import com.dumbster.smtp.SmtpMessage;
  */
 public class MailManagerTest extends OlatTestCase {
 	
+	private static final Logger log = Tracing.createLoggerFor(MailManagerTest.class);
+	
 	@Autowired
 	private MailManager mailManager;
 	@Autowired
+	private MailManagerImpl mailManagerImpl;
+	@Autowired
 	private MailModule mailModule;
 	@Autowired
 	private DB dbInstance;
@@ -283,4 +293,69 @@ public class MailManagerTest extends OlatTestCase {
 				msg3.getFrom()[0].equals(fromx));
 		Assert.assertNotNull(result3);
 	}
+	
+	/**
+	 * Send the same e-mails with a new SMTP connection per message, and with
+	 * the spool and one pooled connection. Dumbster handles one connection
+	 * after the other and register the messages when the connection is closed.
+	 */
+	@Test
+	public void sendMessages_spoolBenchmark() throws Exception {
+		final int numOfMails = 200;
+		Address from = new InternetAddress("spool-sender@frentix.com");
+		Address[] tos = new Address[] { new InternetAddress("spool-recipient@frentix.com") };
+		getSmtpServer().reset();
+		
+		// one connection per e-mail
+		long directStart = System.nanoTime();
+		for(int i=0; i<numOfMails; i++) {
+			MailerResult result = new MailerResult();
+			MimeMessage msg = mailManager.createMimeMessage(from, tos, null, null, "Direct " + i, "Hello world", null, result);
+			mailManager.sendMessage(msg, result);
+			Assert.assertEquals(MailerResult.OK, result.getReturnCode());
+		}
+		long directDuration = CodeHelper.nanoToMilliTime(directStart);
+		Assert.assertEquals(numOfMails, getSmtpServer().getReceivedEmails().size());
+		getSmtpServer().reset();
+		
+		// spool with a pooled connection
+		File spoolDir = new File(WebappHelper.getTmpDir(), "mailspool-" + UUID.randomUUID());
+		spoolDir.mkdirs();
+		MailSpool spool = new MailSpool(spoolDir, mailManagerImpl::createMailSession, 1, numOfMails, 0.0d, 3, 1000l);
+		try {
+			spool.start();
+			long spoolStart = System.nanoTime();
+			for(int i=0; i<numOfMails; i++) {
+				MailerResult result = new MailerResult();
+				MimeMessage msg = mailManager.createMimeMessage(from, tos, null, null, "Spooled " + i, "Hello world", null, result);
+				msg.saveChanges();
+				spool.spool(msg);
+			}
+			waitForCondition(() -> spool.getNumOfSentMails() >= numOfMails, 30000);
+			long spoolDuration = CodeHelper.nanoToMilliTime(spoolStart);
+			Assert.assertEquals(numOfMails, spool.getNumOfSentMails());
+			Assert.assertEquals(0, spool.getNumOfFailedMails());
+			
+			log.info("Send {} e-mails: {} ms with one connection per e-mail, {} ms with the spool", numOfMails, directDuration, spoolDuration);
+		} finally {
+			spool.stop();
+		}
+		
+		waitForCondition(() -> getSmtpServer().getReceivedEmails().size() >= numOfMails, 10000);
+		List<SmtpMessage> messages = getSmtpServer().getReceivedEmails();
+		Assert.assertEquals(numOfMails, messages.size());
+		Assert.assertEquals("spool-recipient@frentix.com", messages.get(0).getHeaderValue("To"));
+		String[] spooledFiles = spoolDir.list((dir, name) -> name.endsWith(".eml"));
+		Assert.assertEquals(0, spooledFiles.length);
+		getSmtpServer().reset();
+		deleteSpool(spoolDir);
+	}
+	
+	private void deleteSpool(File spoolDir) {
+		try {
+			FileUtils.deleteDirectory(spoolDir);
+		} catch (IOException e) {
+			log.error("", e);
+		}
+	}
 }
@@ -0,0 +1,87 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.mail.manager;
+
+import javax.mail.Address;
+import javax.mail.SendFailedException;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class MailSpoolTest {
+	
+	@Test
+	public void retryValidUnsentAndTransientAddresses() throws AddressException {
+		InternetAddress sent = new InternetAddress("sent@openolat.org");
+		InternetAddress unsent = new InternetAddress("unsent@openolat.org");
+		InternetAddress greylisted = new InternetAddress("greylisted@openolat.org");
+		InternetAddress unknown = new InternetAddress("unknown@openolat.org");
+		
+		SMTPAddressFailedException greylistedEx = new SMTPAddressFailedException(greylisted, "RCPT TO", 450, "450 Greylisted");
+		SMTPAddressFailedException unknownEx = new SMTPAddressFailedException(unknown, "RCPT TO", 550, "550 Unknown user");
+		greylistedEx.setNextException(unknownEx);
+		SendFailedException e = new SendFailedException("Invalid Addresses", greylistedEx,
+				new Address[] { sent }, new Address[] { unsent }, new Address[] { greylisted, unknown });
+		
+		Address[] retry = MailSpool.getRetryRecipients(e, new Address[] { sent, unsent, greylisted, unknown });
+		Assert.assertNotNull(retry);
+		Assert.assertArrayEquals(new Address[] { unsent, greylisted }, retry);
+	}
+	
+	@Test
+	public void retryAllOnTransientMessageError() throws AddressException {
+		InternetAddress to1 = new InternetAddress("to1@openolat.org");
+		InternetAddress to2 = new InternetAddress("to2@openolat.org");
+		
+		SMTPSendFailedException e = new SMTPSendFailedException("DATA", 451, "451 Try again later", null,
+				null, null, null);
+		Address[] retry = MailSpool.getRetryRecipients(e, new Address[] { to1, to2 });
+		Assert.assertArrayEquals(new Address[] { to1, to2 }, retry);
+	}
+	
+	@Test
+	public void failOnPermanentMessageError() throws AddressException {
+		InternetAddress to = new InternetAddress("to@openolat.org");
+		
+		SMTPSendFailedException e = new SMTPSendFailedException("DATA", 552, "552 Message too big", null,
+				null, new Address[] { to }, null);
+		Assert.assertNull(MailSpool.getRetryRecipients(e, new Address[] { to }));
+	}
+	
+	@Test
+	public void failOnPermanentAddressErrors() throws AddressException {
+		InternetAddress unknown = new InternetAddress("unknown@openolat.org");
+		
+		SMTPAddressFailedException unknownEx = new SMTPAddressFailedException(unknown, "RCPT TO", 550, "550 Unknown user");
+		SendFailedException e = new SendFailedException("Invalid Addresses", unknownEx,
+				null, null, new Address[] { unknown });
+		Assert.assertNull(MailSpool.getRetryRecipients(e, new Address[] { unknown }));
+	}
+}
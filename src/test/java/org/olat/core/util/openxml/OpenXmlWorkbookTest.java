@@ -22,7 +22,9 @@ package org.olat.core.util.openxml;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
@@ -74,6 +76,49 @@ public class OpenXmlWorkbookTest {
 		file.delete();
 	}
 	
+	@Test
+	public void sharedStrings() {
+		OpenXMLWorkbookSharedStrings sharedStrings = new OpenXMLWorkbookSharedStrings();
+		int hello = sharedStrings.add("Hello");
+		int world = sharedStrings.add("World");
+		Assert.assertEquals(hello, sharedStrings.add("Hello"));
+		Assert.assertEquals(world, sharedStrings.add("World"));
+		Assert.assertEquals(3, sharedStrings.size());
+		Assert.assertFalse(sharedStrings.isSpilled());
+		sharedStrings.close();
+	}
+	
+	@Test
+	public void sharedStringsSpilled() {
+		OpenXMLWorkbookSharedStrings sharedStrings = new OpenXMLWorkbookSharedStrings(1024);
+		
+		List<String> strings = new ArrayList<>();
+		strings.add("OpenOLAT");
+		for(int i=0; i<200; i++) {
+			String shortString = "Short " + i;
+			String longString = "A long answer to a question with a lot of text to write: " + i + " and some more text";
+			Assert.assertEquals(strings.size(), sharedStrings.add(shortString));
+			strings.add(shortString);
+			Assert.assertEquals(strings.size(), sharedStrings.add(longString));
+			strings.add(longString);
+		}
+		Assert.assertTrue(sharedStrings.isSpilled());
+		
+		// the strings are found again, in memory and on the disk
+		Assert.assertEquals(1, sharedStrings.add("Short 0"));
+		Assert.assertEquals(2, sharedStrings.add(strings.get(2)));
+		Assert.assertEquals(399, sharedStrings.add("Short 199"));
+		Assert.assertEquals(400, sharedStrings.add(strings.get(400)));
+		Assert.assertEquals(401, sharedStrings.size());
+		
+		List<String> iteratedStrings = new ArrayList<>();
+		for(String sharedString:sharedStrings) {
+			iteratedStrings.add(sharedString);
+		}
+		Assert.assertEquals(strings, iteratedStrings);
+		sharedStrings.close();
+	}
+	
 	/**
 	 * Don't forget that the argument of getColumn is zero based
 	 * @throws IOException
@@ -0,0 +1,185 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.id.Identity;
+import org.olat.core.util.FileUtils;
+import org.olat.repository.RepositoryEntry;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class CourseSnapshotStoreTest extends OlatTestCase {
+	
+	private File snapshotDir;
+	
+	@Before
+	public void createSnapshotDirectory() throws Exception {
+		snapshotDir = Files.createTempDirectory("snapshots").toFile();
+	}
+	
+	@After
+	public void deleteSnapshotDirectory() {
+		FileUtils.deleteDirsAndFiles(snapshotDir, true, true);
+	}
+	
+	@Test
+	public void storeAndLoadRunStructure() {
+		ICourse course = deployCourse();
+		File runStructureXml = getRunStructureFile(course);
+		CourseSnapshotStore store = new CourseSnapshotStore(true, snapshotDir);
+		
+		store.storeRunStructure(course.getResourceableId(), runStructureXml, course.getRunStructure());
+		Structure structure = store.loadRunStructure(course.getResourceableId(), runStructureXml);
+		
+		Assert.assertNotNull(structure);
+		Assert.assertEquals(course.getRunStructure().getRootNode().getIdent(), structure.getRootNode().getIdent());
+		Assert.assertEquals(course.getRunStructure().getRootNode().getChildCount(), structure.getRootNode().getChildCount());
+		Assert.assertEquals(1l, store.getSnapshotHits());
+		Assert.assertEquals(0l, store.getSnapshotMisses());
+		Assert.assertEquals(0l, store.getSnapshotErrors());
+	}
+	
+	@Test
+	public void loadRunStructure_noSnapshot() {
+		ICourse course = deployCourse();
+		CourseSnapshotStore store = new CourseSnapshotStore(true, snapshotDir);
+		
+		Structure structure = store.loadRunStructure(course.getResourceableId(), getRunStructureFile(course));
+		Assert.assertNull(structure);
+		Assert.assertEquals(0l, store.getSnapshotHits());
+		Assert.assertEquals(1l, store.getSnapshotMisses());
+	}
+	
+	@Test
+	public void loadRunStructure_staleSnapshot() throws Exception {
+		ICourse course = deployCourse();
+		File runStructureXml = getRunStructureFile(course);
+		CourseSnapshotStore store = new CourseSnapshotStore(true, snapshotDir);
+		store.storeRunStructure(course.getResourceableId(), runStructureXml, course.getRunStructure());
+		
+		// a new version of the run structure is published, in the same second
+		long lastModified = runStructureXml.lastModified();
+		String xml = new String(Files.readAllBytes(runStructureXml.toPath()), StandardCharsets.UTF_8);
+		Files.write(runStructureXml.toPath(), xml.replace("</", " </").getBytes(StandardCharsets.UTF_8));
+		Assert.assertTrue(runStructureXml.setLastModified(lastModified));
+		
+		Structure structure = store.loadRunStructure(course.getResourceableId(), runStructureXml);
+		Assert.assertNull(structure);
+		Assert.assertEquals(0l, store.getSnapshotHits());
+		Assert.assertEquals(1l, store.getSnapshotMisses());
+	}
+	
+	/**
+	 * A copy of the file with a new modification date is the same version.
+	 */
+	@Test
+	public void loadRunStructure_touchedXml() {
+		ICourse course = deployCourse();
+		File runStructureXml = getRunStructureFile(course);
+		CourseSnapshotStore store = new CourseSnapshotStore(true, snapshotDir);
+		store.storeRunStructure(course.getResourceableId(), runStructureXml, course.getRunStructure());
+		
+		Assert.assertTrue(runStructureXml.setLastModified(runStructureXml.lastModified() + 60000l));
+		
+		Structure structure = store.loadRunStructure(course.getResourceableId(), runStructureXml);
+		Assert.assertNotNull(structure);
+		Assert.assertEquals(1l, store.getSnapshotHits());
+		Assert.assertEquals(0l, store.getSnapshotMisses());
+	}
+	
+	@Test
+	public void loadRunStructure_corruptedSnapshot() throws Exception {
+		ICourse course = deployCourse();
+		File runStructureXml = getRunStructureFile(course);
+		CourseSnapshotStore store = new CourseSnapshotStore(true, snapshotDir);
+		store.storeRunStructure(course.getResourceableId(), runStructureXml, course.getRunStructure());
+		
+		File snapshot = new File(snapshotDir, course.getResourceableId() + ".runstructure.bin");
+		Assert.assertTrue(snapshot.exists());
+		// keep the header, break the serialized structure
+		byte[] content = Files.readAllBytes(snapshot.toPath());
+		int headerLength = 4 + 8 + 4 + 32;
+		byte[] corrupted = new byte[headerLength + 10];
+		System.arraycopy(content, 0, corrupted, 0, headerLength);
+		System.arraycopy("not a zip!".getBytes(StandardCharsets.UTF_8), 0, corrupted, headerLength, 10);
+		Files.write(snapshot.toPath(), corrupted);
+		
+		Structure structure = store.loadRunStructure(course.getResourceableId(), runStructureXml);
+		Assert.assertNull(structure);
+		Assert.assertEquals(1l, store.getSnapshotErrors());
+		Assert.assertFalse(snapshot.exists());
+	}
+	
+	@Test
+	public void disabled() {
+		ICourse course = deployCourse();
+		File runStructureXml = getRunStructureFile(course);
+		CourseSnapshotStore store = new CourseSnapshotStore(false, snapshotDir);
+		
+		store.storeRunStructure(course.getResourceableId(), runStructureXml, course.getRunStructure());
+		Assert.assertFalse(new File(snapshotDir, course.getResourceableId() + ".runstructure.bin").exists());
+		Assert.assertNull(store.loadRunStructure(course.getResourceableId(), runStructureXml));
+	}
+	
+	@Test
+	public void loadCourse_afterEviction() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsRndAuthor("snapshot-author");
+		RepositoryEntry entry = JunitTestHelper.deployBasicCourse(author);
+		ICourse course = CourseFactory.loadCourse(entry);
+		CourseSnapshotStore store = CourseFactory.getSnapshotStore();
+		Assert.assertNotNull(store);
+		long snapshotHits = store.getSnapshotHits();
+		
+		// load the course as after an eviction from the cache of the factory
+		PersistingCourseImpl reloadedCourse = new PersistingCourseImpl(entry);
+		reloadedCourse.load();
+		
+		Assert.assertEquals(course.getRunStructure().getRootNode().getIdent(), reloadedCourse.getRunStructure().getRootNode().getIdent());
+		Assert.assertTrue(store.isEnabled());
+		Assert.assertEquals(snapshotHits + 1, store.getSnapshotHits());
+		// the editor tree model is loaded on demand
+		Assert.assertNotNull(reloadedCourse.getEditorTreeModel());
+		Assert.assertEquals(course.getRunStructure().getRootNode().getIdent(),
+				reloadedCourse.getEditorTreeModel().getRootNode().getIdent());
+	}
+	
+	private ICourse deployCourse() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsRndAuthor("snapshot-author");
+		RepositoryEntry entry = JunitTestHelper.deployBasicCourse(author);
+		return CourseFactory.loadCourse(entry);
+	}
+	
+	private File getRunStructureFile(ICourse course) {
+		return new File(course.getCourseBaseContainer().getBasefile(), "runstructure.xml");
+	}
+}
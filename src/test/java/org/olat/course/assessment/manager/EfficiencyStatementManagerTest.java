@@ -33,6 +33,7 @@ import org.olat.basesecurity.GroupRoles;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.id.Identity;
 import org.olat.core.id.Roles;
+import org.olat.core.util.async.ProgressDelegate;
 import org.olat.core.util.mail.MailPackage;
 import org.olat.course.CourseFactory;
 import org.olat.course.ICourse;
@@ -153,6 +154,37 @@ public class EfficiencyStatementManagerTest extends OlatTestCase {
 		Assert.assertEquals(re.getKey(), effStatement.getCourseRepoEntryKey());
 	}
 	
+	@Test
+	public void updateEfficiencyStatementsBulk() throws URISyntaxException {
+		RepositoryEntry re = deployTestcourse();
+		ICourse course = CourseFactory.loadCourse(re);
+		
+		// more participants than a chunk
+		List<Identity> participants = new ArrayList<>();
+		List<UserEfficiencyStatement> statements = new ArrayList<>();
+		for(int i=0; i<60; i++) {
+			Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("Eff-Part-Bulk-" + i);
+			repositoryService.addRole(participant, re, GroupRoles.participant.name());
+			participants.add(participant);
+			statements.add(effManager.createUserEfficiencyStatement(new Date(), 2.0f, false, participant, re.getOlatResource()));
+		}
+		dbInstance.commitAndCloseSession();
+		
+		CountingProgressDelegate progress = new CountingProgressDelegate();
+		effManager.updateEfficiencyStatements(re, participants, progress);
+		dbInstance.commitAndCloseSession();
+		
+		Assert.assertTrue(progress.finished);
+		Assert.assertEquals(60.0f, progress.max, 0.00001);
+		Assert.assertEquals(60.0f, progress.actual, 0.00001);
+		for(UserEfficiencyStatement statement:statements) {
+			EfficiencyStatement effStatement = effManager.getUserEfficiencyStatementByKey(statement.getKey());
+			Assert.assertNotNull(effStatement);
+			Assert.assertEquals(course.getCourseTitle(), effStatement.getCourseTitle());
+			Assert.assertEquals(re.getKey(), effStatement.getCourseRepoEntryKey());
+		}
+	}
+	
 	@Test
 	public void getUserEfficiencyStatementFull() throws URISyntaxException {
 		RepositoryEntry re = deployTestcourse();
@@ -685,4 +717,30 @@ public class EfficiencyStatementManagerTest extends OlatTestCase {
 		return re;
 	}
 
+	private static class CountingProgressDelegate implements ProgressDelegate {
+		
+		private float max;
+		private float actual;
+		private boolean finished;
+
+		@Override
+		public synchronized void setMax(float max) {
+			this.max = max;
+		}
+
+		@Override
+		public synchronized void setActual(float value) {
+			actual = Math.max(actual, value);
+		}
+
+		@Override
+		public void setInfo(String message) {
+			//
+		}
+
+		@Override
+		public synchronized void finished() {
+			finished = true;
+		}
+	}
 }
@@ -19,17 +19,23 @@
  */
 package org.olat.course.run.scoring;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.util.Date;
 
+import org.apache.logging.log4j.Logger;
 import org.assertj.core.api.SoftAssertions;
 import org.junit.Test;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.id.Identity;
 import org.olat.core.id.IdentityEnvironment;
+import org.olat.core.logging.Tracing;
 import org.olat.core.util.DateUtils;
 import org.olat.course.CourseFactory;
 import org.olat.course.ICourse;
 import org.olat.course.Structure;
+import org.olat.course.assessment.CourseAssessmentService;
+import org.olat.course.condition.ConditionNodeAccessProvider;
 import org.olat.course.learningpath.LearningPathService;
 import org.olat.course.learningpath.manager.LearningPathNodeAccessProvider;
 import org.olat.course.nodes.CourseNode;
@@ -54,12 +60,16 @@ import org.springframework.beans.factory.annotation.Autowired;
  */
 public class AssessmentAccountingTest extends OlatTestCase {
 	
+	private static final Logger log = Tracing.createLoggerFor(AssessmentAccountingTest.class);
+	
 	@Autowired
 	private DB dbInstance;
 	@Autowired
 	private AssessmentService assessmentService;
 	@Autowired
 	private LearningPathService learningPathService;
+	@Autowired
+	private CourseAssessmentService courseAssessmentService;
 	
 	/**
 	 * Course (sequential)
@@ -583,6 +593,205 @@ public class AssessmentAccountingTest extends OlatTestCase {
 		softly.assertAll();
 	}
 
+	/**
+	 * Course (conventional)
+	 *   - ST
+	 *     - SP
+	 *   - ST (score of the SP in the first ST)
+	 *     - SP
+	 */
+	@Test
+	public void testEvaluateChangedConventional() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsAuthor("author");
+		RepositoryEntry courseEntry = JunitTestHelper.deployEmptyCourse(author, "Conventional",
+				RepositoryEntryStatusEnum.published, true, false);
+		ICourse course = CourseFactory.loadCourse(courseEntry);
+		course.getCourseConfig().setNodeAccessType(ConditionNodeAccessProvider.TYPE);
+		CourseEnvironment courseEnv = course.getCourseEnvironment();
+		
+		Structure runStructure = courseEnv.getRunStructure();
+		STCourseNode root = (STCourseNode)runStructure.getRootNode();
+		STCourseNode st_1 = new STCourseNode();
+		root.addChild(st_1);
+		SPCourseNode sp_1_1 = new SPCourseNode();
+		st_1.addChild(sp_1_1);
+		STCourseNode st_2 = new STCourseNode();
+		st_2.getScoreCalculator().setScoreExpression("getScore(\"" + sp_1_1.getIdent() + "\")");
+		root.addChild(st_2);
+		SPCourseNode sp_2_1 = new SPCourseNode();
+		st_2.addChild(sp_2_1);
+		
+		AccountingDependencies dependencies = AccountingDependencies.get(runStructure, course.getCourseConfig(),
+				courseAssessmentService);
+		SoftAssertions softly = new SoftAssertions();
+		softly.assertThat(dependencies.isIncremental()).isTrue();
+		softly.assertThat(dependencies.getNodesToEvaluate(sp_1_1.getIdent()))
+				.containsExactlyInAnyOrder(sp_1_1.getIdent(), st_1.getIdent(), st_2.getIdent(), root.getIdent());
+		softly.assertThat(dependencies.getNodesToEvaluate(sp_2_1.getIdent()))
+				.containsExactlyInAnyOrder(sp_2_1.getIdent(), st_2.getIdent(), root.getIdent());
+		softly.assertAll();
+		
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsUser("participant");
+		IdentityEnvironment identityEnv = new IdentityEnvironment();
+		identityEnv.setIdentity(participant);
+		UserCourseEnvironmentImpl userCourseEnv = new UserCourseEnvironmentImpl(identityEnv, courseEnv);
+		userCourseEnv.setUserRoles(false, false, true);
+		dbInstance.commitAndCloseSession();
+		
+		ScoreAccounting scoreAccounting = userCourseEnv.getScoreAccounting();
+		scoreAccounting.evaluateAll(true);
+		dbInstance.commitAndCloseSession();
+		
+		// The incremental evaluation has the same result as the evaluation of the whole tree
+		setDone(participant, courseEntry, sp_1_1);
+		scoreAccounting.evaluateChanged(sp_1_1, true);
+		dbInstance.commitAndCloseSession();
+		AssessmentEvaluation changedRoot = scoreAccounting.evalCourseNode(root);
+		AssessmentEvaluation changedSt1 = scoreAccounting.evalCourseNode(st_1);
+		AssessmentEvaluation changedSt2 = scoreAccounting.evalCourseNode(st_2);
+		
+		scoreAccounting.evaluateAll(true);
+		dbInstance.commitAndCloseSession();
+		
+		softly = new SoftAssertions();
+		softly.assertThat(changedRoot.getAssessmentStatus()).as("root").isEqualTo(scoreAccounting.evalCourseNode(root).getAssessmentStatus());
+		softly.assertThat(changedRoot.getScore()).as("root").isEqualTo(scoreAccounting.evalCourseNode(root).getScore());
+		softly.assertThat(changedSt1.getAssessmentStatus()).as("st_1").isEqualTo(scoreAccounting.evalCourseNode(st_1).getAssessmentStatus());
+		softly.assertThat(changedSt2.getAssessmentStatus()).as("st_2").isEqualTo(scoreAccounting.evalCourseNode(st_2).getAssessmentStatus());
+		softly.assertThat(changedSt2.getScore()).as("st_2").isEqualTo(scoreAccounting.evalCourseNode(st_2).getScore());
+		softly.assertThat(scoreAccounting.evalCourseNode(sp_1_1).getAssessmentStatus()).as("sp_1_1").isEqualTo(AssessmentEntryStatus.done);
+		softly.assertAll();
+	}
+	
+	/**
+	 * The assessment entry of a course node outside of the dependencies of the
+	 * changed course node is changed by an other session. The incremental
+	 * evaluation doesn't use the stale cached evaluation.
+	 */
+	@Test
+	public void testEvaluateChangedAfterExternalChange() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsAuthor("author");
+		RepositoryEntry courseEntry = JunitTestHelper.deployEmptyCourse(author, "Conventional",
+				RepositoryEntryStatusEnum.published, true, false);
+		ICourse course = CourseFactory.loadCourse(courseEntry);
+		course.getCourseConfig().setNodeAccessType(ConditionNodeAccessProvider.TYPE);
+		CourseEnvironment courseEnv = course.getCourseEnvironment();
+		
+		Structure runStructure = courseEnv.getRunStructure();
+		STCourseNode root = (STCourseNode)runStructure.getRootNode();
+		STCourseNode st_1 = new STCourseNode();
+		root.addChild(st_1);
+		SPCourseNode sp_1_1 = new SPCourseNode();
+		st_1.addChild(sp_1_1);
+		STCourseNode st_2 = new STCourseNode();
+		root.addChild(st_2);
+		SPCourseNode sp_2_1 = new SPCourseNode();
+		st_2.addChild(sp_2_1);
+		
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsUser("participant");
+		IdentityEnvironment identityEnv = new IdentityEnvironment();
+		identityEnv.setIdentity(participant);
+		UserCourseEnvironmentImpl userCourseEnv = new UserCourseEnvironmentImpl(identityEnv, courseEnv);
+		userCourseEnv.setUserRoles(false, false, true);
+		dbInstance.commitAndCloseSession();
+		
+		ScoreAccounting scoreAccounting = userCourseEnv.getScoreAccounting();
+		scoreAccounting.evaluateAll(true);
+		dbInstance.commitAndCloseSession();
+		
+		// the dates are rounded to the second by some databases
+		sleep(1500);
+		// changed by an other session, the cached evaluation of sp_1_1 is stale
+		setDone(participant, courseEntry, sp_1_1);
+		
+		setDone(participant, courseEntry, sp_2_1);
+		scoreAccounting.evaluateChanged(sp_2_1, true);
+		dbInstance.commitAndCloseSession();
+		
+		SoftAssertions softly = new SoftAssertions();
+		softly.assertThat(scoreAccounting.evalCourseNode(sp_1_1).getAssessmentStatus()).as("sp_1_1").isEqualTo(AssessmentEntryStatus.done);
+		softly.assertThat(scoreAccounting.evalCourseNode(sp_2_1).getAssessmentStatus()).as("sp_2_1").isEqualTo(AssessmentEntryStatus.done);
+		AssessmentEvaluation changedRoot = scoreAccounting.evalCourseNode(root);
+		AssessmentEvaluation changedSt1 = scoreAccounting.evalCourseNode(st_1);
+		
+		scoreAccounting.evaluateAll(true);
+		dbInstance.commitAndCloseSession();
+		softly.assertThat(changedRoot.getAssessmentStatus()).as("root").isEqualTo(scoreAccounting.evalCourseNode(root).getAssessmentStatus());
+		softly.assertThat(changedSt1.getAssessmentStatus()).as("st_1").isEqualTo(scoreAccounting.evalCourseNode(st_1).getAssessmentStatus());
+		softly.assertAll();
+	}
+	
+	/**
+	 * Course (conventional) with 10 ST and 20 SP per ST. Log the time
+	 * of the incremental evaluation after the change of a single SP and of the
+	 * evaluation of the whole tree.
+	 */
+	@Test
+	public void benchmarkEvaluateChanged() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsAuthor("author");
+		RepositoryEntry courseEntry = JunitTestHelper.deployEmptyCourse(author, "Benchmark",
+				RepositoryEntryStatusEnum.published, true, false);
+		ICourse course = CourseFactory.loadCourse(courseEntry);
+		course.getCourseConfig().setNodeAccessType(ConditionNodeAccessProvider.TYPE);
+		CourseEnvironment courseEnv = course.getCourseEnvironment();
+		
+		Structure runStructure = courseEnv.getRunStructure();
+		STCourseNode root = (STCourseNode)runStructure.getRootNode();
+		SPCourseNode changedNode = null;
+		for (int i = 0; i < 10; i++) {
+			STCourseNode st = new STCourseNode();
+			root.addChild(st);
+			for (int j = 0; j < 20; j++) {
+				SPCourseNode sp = new SPCourseNode();
+				st.addChild(sp);
+				changedNode = sp;
+			}
+		}
+		
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("participant");
+		IdentityEnvironment identityEnv = new IdentityEnvironment();
+		identityEnv.setIdentity(participant);
+		UserCourseEnvironmentImpl userCourseEnv = new UserCourseEnvironmentImpl(identityEnv, courseEnv);
+		userCourseEnv.setUserRoles(false, false, true);
+		ScoreAccounting scoreAccounting = userCourseEnv.getScoreAccounting();
+		scoreAccounting.evaluateAll(true);
+		dbInstance.commitAndCloseSession();
+		
+		int rounds = 20;
+		long fullTime = 0;
+		long incrementalTime = 0;
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			scoreAccounting.evaluateAll(true);
+			dbInstance.commitAndCloseSession();
+			fullTime += System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			scoreAccounting.evaluateChanged(changedNode, true);
+			dbInstance.commitAndCloseSession();
+			incrementalTime += System.nanoTime() - start;
+		}
+		
+		log.info("Evaluate all: {} ms, evaluate changed: {} ms (average of {} rounds, {} course nodes)",
+				(fullTime / rounds) / 1000000.0d, (incrementalTime / rounds) / 1000000.0d, rounds, 1 + 10 * 21);
+	}
+	
+	@Test
+	public void testDependenciesLearningPath() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsAuthor("author");
+		RepositoryEntry courseEntry = JunitTestHelper.deployEmptyCourse(author, "Learning Path",
+				RepositoryEntryStatusEnum.published, true, false);
+		ICourse course = CourseFactory.loadCourse(courseEntry);
+		course.getCourseConfig().setNodeAccessType(LearningPathNodeAccessProvider.TYPE);
+		
+		Structure runStructure = course.getCourseEnvironment().getRunStructure();
+		runStructure.getRootNode().addChild(new SPCourseNode());
+		
+		AccountingDependencies dependencies = AccountingDependencies.get(runStructure, course.getCourseConfig(),
+				courseAssessmentService);
+		assertThat(dependencies.isIncremental()).isFalse();
+	}
+
 	private void setDone(Identity identity, RepositoryEntry entry, SPCourseNode courseNode) {
 		AssessmentEntry assessmentEntry = assessmentService.loadAssessmentEntry(identity, entry, courseNode.getIdent());
 		assessmentEntry.setFullyAssessed(Boolean.TRUE);
@@ -0,0 +1,156 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ims.qti21.manager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.WebappHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class AssessmentSessionStateStoreTest extends OlatTestCase {
+	
+	private File tmpDir;
+	
+	@Autowired
+	private AssessmentSessionStateStore sessionStateStore;
+	
+	@Before
+	public void createTmpDir() {
+		tmpDir = new File(WebappHelper.getTmpDir(), "sessionstates" + UUID.randomUUID());
+		tmpDir.mkdirs();
+	}
+	
+	@After
+	public void deleteTmpDir() {
+		sessionStateStore.setCompactThreshold(262144);
+		sessionStateStore.setEnabled(true);
+		FileUtils.deleteDirsAndFiles(tmpDir, true, true);
+	}
+	
+	@Test
+	public void storeLoad() {
+		File stateFile = new File(tmpDir, "testSessionState.bin");
+		Assert.assertNull(sessionStateStore.load(stateFile, ArrayList.class));
+		
+		ArrayList<String> state = createState("first", 10);
+		Assert.assertTrue(sessionStateStore.store(stateFile, state));
+		long firstLength = stateFile.length();
+		
+		ArrayList<?> loadedState = sessionStateStore.load(stateFile, ArrayList.class);
+		Assert.assertEquals(state, loadedState);
+		Assert.assertNotSame(state, loadedState);
+		
+		// append a second record
+		ArrayList<String> secondState = createState("second", 10);
+		Assert.assertTrue(sessionStateStore.store(stateFile, secondState));
+		Assert.assertTrue(stateFile.length() > firstLength);
+		Assert.assertEquals(secondState, sessionStateStore.load(stateFile, ArrayList.class));
+	}
+	
+	@Test
+	public void compact() {
+		sessionStateStore.setCompactThreshold(1);
+		
+		File stateFile = new File(tmpDir, "testSessionState.bin");
+		Assert.assertTrue(sessionStateStore.store(stateFile, createState("state", 10)));
+		long singleRecordLength = stateFile.length();
+		
+		for(int i=0; i<5; i++) {
+			Assert.assertTrue(sessionStateStore.store(stateFile, createState("state", 10)));
+		}
+		Assert.assertEquals(singleRecordLength, stateFile.length());
+		Assert.assertEquals(createState("state", 10), sessionStateStore.load(stateFile, ArrayList.class));
+	}
+	
+	@Test
+	public void truncatedRecord() throws IOException {
+		File stateFile = new File(tmpDir, "testSessionState.bin");
+		ArrayList<String> state = createState("complete", 20);
+		Assert.assertTrue(sessionStateStore.store(stateFile, state));
+		
+		// simulate a crash in the middle of a write
+		try(OutputStream out = new FileOutputStream(stateFile, true)) {
+			out.write(new byte[] { 0x51, 0x54, 0x49, 0x53, 0x00, 0x00 });
+		}
+		
+		Assert.assertEquals(state, sessionStateStore.load(stateFile, ArrayList.class));
+	}
+	
+	/**
+	 * The store is disabled while a session is running: the log is read
+	 * until the session saves its state again, the next write removes it
+	 * so the XML written by the caller is the reference.
+	 */
+	@Test
+	public void disabledDuringSession() {
+		File stateFile = new File(tmpDir, "testSessionState.bin");
+		ArrayList<String> state = createState("enabled", 5);
+		Assert.assertTrue(sessionStateStore.store(stateFile, state));
+		
+		sessionStateStore.setEnabled(false);
+		Assert.assertEquals(state, sessionStateStore.load(stateFile, ArrayList.class));
+		Assert.assertTrue(sessionStateStore.exists(stateFile));
+		
+		Assert.assertFalse(sessionStateStore.store(stateFile, createState("disabled", 5)));
+		Assert.assertFalse(stateFile.exists());
+		Assert.assertNull(sessionStateStore.load(stateFile, ArrayList.class));
+		
+		// enabled again, the log is written from scratch
+		sessionStateStore.setEnabled(true);
+		ArrayList<String> newState = createState("enabled-again", 5);
+		Assert.assertTrue(sessionStateStore.store(stateFile, newState));
+		Assert.assertEquals(newState, sessionStateStore.load(stateFile, ArrayList.class));
+	}
+	
+	@Test
+	public void delete() {
+		File stateFile = new File(tmpDir, "testSessionState.bin");
+		Assert.assertTrue(sessionStateStore.store(stateFile, createState("deleted", 5)));
+		Assert.assertTrue(sessionStateStore.exists(stateFile));
+		
+		sessionStateStore.delete(stateFile);
+		Assert.assertFalse(stateFile.exists());
+		Assert.assertNull(sessionStateStore.load(stateFile, ArrayList.class));
+	}
+	
+	private ArrayList<String> createState(String prefix, int size) {
+		ArrayList<String> state = new ArrayList<>(size);
+		for(int i=0; i<size; i++) {
+			state.add(prefix + "-" + i);
+		}
+		return state;
+	}
+}
@@ -594,4 +594,45 @@ public class AssessmentTestSessionDAOTest extends OlatTestCase {
 		Assert.assertEquals(1, authorSessions.size());
 		Assert.assertEquals(testSession, authorSessions.get(0));
 	}
+	
+	@Test
+	public void getTestSessionKeysOfResponse_loadByKeys() {
+		// prepare a test and 2 users
+		RepositoryEntry testEntry = JunitTestHelper.createAndPersistRepositoryEntry();
+		Identity assessedIdentity = JunitTestHelper.createAndPersistIdentityAsRndUser("session-10");
+		AssessmentEntry assessmentEntry = assessmentService.getOrCreateAssessmentEntry(assessedIdentity, null, testEntry, null, null, testEntry);
+		dbInstance.commit();
+		repositoryEntryRelationDao.addRole(assessedIdentity, testEntry, GroupRoles.participant.name());
+		Group testDefaultGroup = repositoryEntryRelationDao.getDefaultGroup(testEntry);
+		
+		//create an assessment test session with a response
+		AssessmentTestSession testSession = testSessionDao.createAndPersistTestSession(testEntry, testEntry, null, assessmentEntry, assessedIdentity, null, null, false);
+		AssessmentItemSession itemSession = itemSessionDao.createAndPersistAssessmentItemSession(testSession, null, UUID.randomUUID().toString());
+		AssessmentResponse response = responseDao.createAssessmentResponse(testSession, itemSession, UUID.randomUUID().toString(), ResponseLegality.VALID, ResponseDataType.FILE);
+		Assert.assertNotNull(response);
+		dbInstance.commitAndCloseSession();
+		
+		testSession.setDuration(100l);
+		testSession.setFinishTime(new Date());
+		testSession = testSessionDao.update(testSession);
+		dbInstance.commitAndCloseSession();
+		
+		ArchiveOptions options = new ArchiveOptions();
+		options.setIdentities(Collections.singletonList(assessedIdentity));
+		QTI21StatisticSearchParams searchParams = new QTI21StatisticSearchParams(options, testEntry, null, null);
+		searchParams.setLimitToGroups(Collections.singletonList(testDefaultGroup));
+		searchParams.setLimitToIdentities(Collections.singletonList(assessedIdentity));
+		
+		List<Long> sessionKeys = testSessionDao.getTestSessionKeysOfResponse(searchParams);
+		Assert.assertEquals(Collections.singletonList(testSession.getKey()), sessionKeys);
+		
+		List<AssessmentTestSession> sessions = testSessionDao.loadTestSessionsByKeys(sessionKeys);
+		Assert.assertEquals(1, sessions.size());
+		Assert.assertEquals(testSession, sessions.get(0));
+		
+		List<AssessmentItemSession> itemSessions = itemSessionDao.getAssessmentItemSessions(sessionKeys);
+		Assert.assertEquals(Collections.singletonList(itemSession), itemSessions);
+		List<AssessmentResponse> responses = responseDao.getResponses(sessionKeys);
+		Assert.assertEquals(Collections.singletonList(response), responses);
+	}
 }
@@ -702,6 +702,63 @@ public class LDAPLoginManagerTest extends OlatTestCase {
 		Assert.assertEquals("Dupont", updatedIdentity.getUser().getLastName());
 	}
 	
+	@Test
+	public void syncDelta() throws LDAPException {
+		Assume.assumeTrue(ldapLoginModule.isLDAPEnabled());
+		
+		String createdAttribute = syncConfiguration.getLdapUserCreatedTimestampAttribute();
+		String lastModifiedAttribute = syncConfiguration.getLdapUserLastModifiedTimestampAttribute();
+		try {
+			syncConfiguration.setLdapUserCreatedTimestampAttribute("createTimestamp");
+			syncConfiguration.setLdapUserLastModifiedTimestampAttribute("modifyTimestamp");
+			ldapLoginModule.setLdapSyncDelta(true);
+			
+			// first sync is a full one
+			LDAPError errors = new LDAPError();
+			boolean allOk = ldapManager.doBatchSync(errors);
+			Assert.assertTrue(allOk);
+			Assert.assertNotNull(ldapManager.getLastSyncDate());
+			
+			// add a user, the delta sync creates it
+			String dn = "uid=deltasync,ou=person,dc=olattest,dc=org";
+			embeddedLdapRule.ldapConnection().add("dn: " + dn,
+					"objectClass: organizationalPerson", "objectClass: person",
+					"objectClass: inetOrgPerson", "objectClass: top",
+					"cn: Delta Sync", "givenname: Delta", "sn: Sync",
+					"mail: delta.sync@openolat.com", "uid: deltasync", "userPassword: olat");
+			
+			boolean deltaOk = ldapManager.doBatchSync(errors);
+			Assert.assertTrue(deltaOk);
+			Assert.assertTrue(errors.isEmpty());
+			
+			Identity identity = userManager.findUniqueIdentityByEmail("delta.sync@openolat.com");
+			Assert.assertNotNull(identity);
+			Assert.assertEquals("Delta", identity.getUser().getFirstName());
+			
+			// change it, the delta sync updates it
+			List<Modification> modifications = new ArrayList<>();
+			modifications.add(new Modification(ModificationType.REPLACE, "givenname", "Gamma"));
+			embeddedLdapRule.ldapConnection().modify(dn, modifications);
+			
+			boolean updateOk = ldapManager.doBatchSync(errors);
+			Assert.assertTrue(updateOk);
+			Assert.assertTrue(errors.isEmpty());
+			
+			Identity updatedIdentity = securityManager.loadIdentityByKey(identity.getKey());
+			Assert.assertEquals("Gamma", updatedIdentity.getUser().getFirstName());
+			Assert.assertEquals("Sync", updatedIdentity.getUser().getLastName());
+			
+			// nothing changed
+			boolean unchangedOk = ldapManager.doBatchSync(errors);
+			Assert.assertTrue(unchangedOk);
+			Assert.assertTrue(errors.isEmpty());
+		} finally {
+			ldapLoginModule.setLdapSyncDelta(false);
+			syncConfiguration.setLdapUserCreatedTimestampAttribute(createdAttribute);
+			syncConfiguration.setLdapUserLastModifiedTimestampAttribute(lastModifiedAttribute);
+		}
+	}
+	
 	@Test
 	public void updateDigestAutentications() throws LDAPException {
 		Assume.assumeTrue(ldapLoginModule.isLDAPEnabled());
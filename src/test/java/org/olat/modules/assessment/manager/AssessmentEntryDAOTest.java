@@ -681,6 +681,28 @@ public class AssessmentEntryDAOTest extends OlatTestCase {
 		Assert.assertEquals(0, assessmentEntriesId3.size());
 	}
 	
+	@Test
+	public void loadAssessmentEntriesByAssessedIdentity_subIdents() {
+		Identity assessedIdentity = JunitTestHelper.createAndPersistIdentityAsRndUser("as-node-16");
+		RepositoryEntry entry = JunitTestHelper.createAndPersistRepositoryEntry();
+		String subIdent1 = UUID.randomUUID().toString();
+		String subIdent2 = UUID.randomUUID().toString();
+		String subIdent3 = UUID.randomUUID().toString();
+		AssessmentEntry nodeAssessment1 = assessmentEntryDao.createAssessmentEntry(assessedIdentity, null, entry,
+				subIdent1, null, null);
+		AssessmentEntry nodeAssessment2 = assessmentEntryDao.createAssessmentEntry(assessedIdentity, null, entry,
+				subIdent2, null, null);
+		AssessmentEntry nodeAssessment3 = assessmentEntryDao.createAssessmentEntry(assessedIdentity, null, entry,
+				subIdent3, null, null);
+		dbInstance.commitAndCloseSession();
+		
+		List<AssessmentEntry> assessmentEntries = assessmentEntryDao
+				.loadAssessmentEntriesByAssessedIdentity(assessedIdentity, entry, Arrays.asList(subIdent1, subIdent3));
+		assertThat(assessmentEntries)
+			.containsExactlyInAnyOrder(nodeAssessment1, nodeAssessment3)
+			.doesNotContain(nodeAssessment2);
+	}
+	
 	@Test
 	public void loadAssessmentEntryByGroup() {
 		// a simulated course with 2 groups
@@ -0,0 +1,331 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.coach.manager;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.basesecurity.GroupRoles;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.id.Identity;
+import org.olat.course.assessment.manager.EfficiencyStatementManager;
+import org.olat.course.assessment.manager.UserCourseInformationsManager;
+import org.olat.modules.coach.CoachingLargeTest;
+import org.olat.modules.coach.model.CoachingRollupStateImpl;
+import org.olat.modules.coach.model.CourseStatEntry;
+import org.olat.modules.coach.model.StudentStatEntry;
+import org.olat.modules.coach.ui.UserListController;
+import org.olat.repository.RepositoryEntry;
+import org.olat.repository.RepositoryManager;
+import org.olat.repository.RepositoryService;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+import org.olat.user.UserManager;
+import org.olat.user.propertyhandlers.UserPropertyHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class CoachingRollupManagerTest extends OlatTestCase {
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private CoachingDAO coachingDao;
+	@Autowired
+	private UserManager userManager;
+	@Autowired
+	private CoachingRollupDAO coachingRollupDao;
+	@Autowired
+	private RepositoryManager repositoryManager;
+	@Autowired
+	private RepositoryService repositoryService;
+	@Autowired
+	private EfficiencyStatementManager effManager;
+	@Autowired
+	private CoachingRollupManager coachingRollupManager;
+	@Autowired
+	private UserCourseInformationsManager userCourseInformationsManager;
+	
+	@Test
+	public void getStatistics_sameAsNative() {
+		URL courseUrl = CoachingLargeTest.class.getResource("CoachingCourse.zip");
+		RepositoryEntry re1 = JunitTestHelper.deployCourse(null, "Coaching rollup 1", courseUrl);
+		RepositoryEntry re2 = JunitTestHelper.deployCourse(null, "Coaching rollup 2", courseUrl);
+		dbInstance.commitAndCloseSession();
+		
+		Identity coach = JunitTestHelper.createAndPersistIdentityAsAuthor("Coach-r-1-" + UUID.randomUUID());
+		repositoryService.addRole(coach, re1, GroupRoles.owner.name());
+		repositoryService.addRole(coach, re2, GroupRoles.coach.name());
+		Identity participant1 = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-1");
+		repositoryService.addRole(participant1, re1, GroupRoles.participant.name());
+		repositoryService.addRole(participant1, re2, GroupRoles.participant.name());
+		Identity participant2 = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-2");
+		repositoryService.addRole(participant2, re1, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		
+		effManager.createUserEfficiencyStatement(new Date(), 6.0f, true, participant1, re1.getOlatResource());
+		effManager.createUserEfficiencyStatement(new Date(), 2.0f, false, participant1, re2.getOlatResource());
+		effManager.createUserEfficiencyStatement(new Date(), 4.0f, true, participant2, re1.getOlatResource());
+		userCourseInformationsManager.updateUserCourseInformations(re1.getOlatResource(), participant1);
+		userCourseInformationsManager.updateUserCourseInformations(re1.getOlatResource(), participant2);
+		dbInstance.commitAndCloseSession();
+		
+		List<CourseStatEntry> nativeStats = coachingDao.getCoursesStatisticsNative(coach);
+		List<CourseStatEntry> rollupStats = coachingRollupManager.getCoursesStatistics(coach);
+		dbInstance.commitAndCloseSession();
+		
+		Assert.assertEquals(2, nativeStats.size());
+		Assert.assertEquals(nativeStats.size(), rollupStats.size());
+		for(CourseStatEntry nativeStat:nativeStats) {
+			CourseStatEntry rollupStat = getCourseStatEntry(nativeStat.getRepoKey(), rollupStats);
+			Assert.assertNotNull(rollupStat);
+			Assert.assertEquals(nativeStat.getRepoDisplayName(), rollupStat.getRepoDisplayName());
+			Assert.assertEquals(nativeStat.getRepoStatus(), rollupStat.getRepoStatus());
+			Assert.assertEquals(nativeStat.getCountStudents(), rollupStat.getCountStudents());
+			Assert.assertEquals(nativeStat.getCountPassed(), rollupStat.getCountPassed());
+			Assert.assertEquals(nativeStat.getCountFailed(), rollupStat.getCountFailed());
+			Assert.assertEquals(nativeStat.getCountNotAttempted(), rollupStat.getCountNotAttempted());
+			Assert.assertEquals(nativeStat.getInitialLaunch(), rollupStat.getInitialLaunch());
+			Assert.assertEquals(nativeStat.getAverageScore(), rollupStat.getAverageScore(), 0.0001f);
+		}
+		
+		List<UserPropertyHandler> userPropertyHandlers = userManager.getUserPropertyHandlersFor(UserListController.usageIdentifyer, false);
+		List<StudentStatEntry> nativeStudentStats = coachingDao.getStudentsStatisticsNative(coach, userPropertyHandlers, Locale.ENGLISH);
+		List<StudentStatEntry> rollupStudentStats = coachingRollupManager.getStudentsStatistics(coach, userPropertyHandlers, Locale.ENGLISH);
+		dbInstance.commitAndCloseSession();
+		
+		Assert.assertEquals(2, nativeStudentStats.size());
+		Assert.assertEquals(nativeStudentStats.size(), rollupStudentStats.size());
+		for(StudentStatEntry nativeStat:nativeStudentStats) {
+			StudentStatEntry rollupStat = getStudentStatEntry(nativeStat.getIdentityKey(), rollupStudentStats);
+			Assert.assertNotNull(rollupStat);
+			Assert.assertArrayEquals(nativeStat.getIdentityProps(), rollupStat.getIdentityProps());
+			Assert.assertEquals(nativeStat.getCountRepo(), rollupStat.getCountRepo());
+			Assert.assertEquals(nativeStat.getCountPassed(), rollupStat.getCountPassed());
+			Assert.assertEquals(nativeStat.getCountFailed(), rollupStat.getCountFailed());
+			Assert.assertEquals(nativeStat.getCountNotAttempted(), rollupStat.getCountNotAttempted());
+			Assert.assertEquals(nativeStat.getInitialLaunch(), rollupStat.getInitialLaunch());
+		}
+	}
+	
+	@Test
+	public void processChanges() {
+		URL courseUrl = CoachingLargeTest.class.getResource("CoachingCourse.zip");
+		RepositoryEntry re = JunitTestHelper.deployCourse(null, "Coaching rollup 3", courseUrl);
+		dbInstance.commitAndCloseSession();
+		
+		Identity coach = JunitTestHelper.createAndPersistIdentityAsAuthor("Coach-r-2-" + UUID.randomUUID());
+		repositoryService.addRole(coach, re, GroupRoles.coach.name());
+		Identity participant1 = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-3");
+		repositoryService.addRole(participant1, re, GroupRoles.participant.name());
+		Identity participant2 = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-4");
+		repositoryService.addRole(participant2, re, GroupRoles.participant.name());
+		effManager.createUserEfficiencyStatement(new Date(), 6.0f, true, participant1, re.getOlatResource());
+		dbInstance.commitAndCloseSession();
+		
+		CourseStatEntry stats = getCourseStatEntry(re.getKey(), coachingRollupManager.getCoursesStatistics(coach));
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, stats.getCountPassed());
+		Assert.assertEquals(1, stats.getCountNotAttempted());
+		
+		// a new statement doesn't change the rollups until the job runs
+		effManager.createUserEfficiencyStatement(new Date(), 4.0f, true, participant2, re.getOlatResource());
+		dbInstance.commitAndCloseSession();
+		
+		CourseStatEntry staleStats = getCourseStatEntry(re.getKey(), coachingRollupManager.getCoursesStatistics(coach));
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, staleStats.getCountPassed());
+		
+		coachingRollupManager.processChanges();
+		
+		CoachingRollupStateImpl state = coachingRollupDao.loadState(coach);
+		Assert.assertFalse(state.isDirty());
+		CourseStatEntry updatedStats = getCourseStatEntry(re.getKey(), coachingRollupManager.getCoursesStatistics(coach));
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(2, updatedStats.getCountPassed());
+		Assert.assertEquals(0, updatedStats.getCountNotAttempted());
+		Assert.assertEquals(5.0f, updatedStats.getAverageScore(), 0.0001f);
+	}
+	
+	/**
+	 * Only the rows of the changed course and of its students are rebuilt,
+	 * the removed participant is removed from the rollups.
+	 */
+	@Test
+	public void processChanges_changedCourse() {
+		URL courseUrl = CoachingLargeTest.class.getResource("CoachingCourse.zip");
+		RepositoryEntry re1 = JunitTestHelper.deployCourse(null, "Coaching rollup 7", courseUrl);
+		RepositoryEntry re2 = JunitTestHelper.deployCourse(null, "Coaching rollup 8", courseUrl);
+		dbInstance.commitAndCloseSession();
+		
+		Identity coach = JunitTestHelper.createAndPersistIdentityAsAuthor("Coach-r-5-" + UUID.randomUUID());
+		repositoryService.addRole(coach, re1, GroupRoles.coach.name());
+		repositoryService.addRole(coach, re2, GroupRoles.coach.name());
+		Identity participant1 = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-7");
+		repositoryService.addRole(participant1, re1, GroupRoles.participant.name());
+		repositoryService.addRole(participant1, re2, GroupRoles.participant.name());
+		Identity participant2 = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-8");
+		repositoryService.addRole(participant2, re2, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		
+		List<UserPropertyHandler> userPropertyHandlers = userManager.getUserPropertyHandlersFor(UserListController.usageIdentifyer, false);
+		Assert.assertEquals(2, coachingRollupManager.getCoursesStatistics(coach).size());
+		Assert.assertEquals(2, coachingRollupManager.getStudentsStatistics(coach, userPropertyHandlers, Locale.ENGLISH).size());
+		dbInstance.commitAndCloseSession();
+		
+		effManager.createUserEfficiencyStatement(new Date(), 6.0f, true, participant1, re2.getOlatResource());
+		repositoryManager.removeParticipants(coach, List.of(participant2), re2, null, false);
+		dbInstance.commitAndCloseSession();
+		
+		coachingRollupManager.processChanges();
+		
+		List<CourseStatEntry> nativeStats = coachingDao.getCoursesStatisticsNative(coach);
+		List<CourseStatEntry> rollupStats = coachingRollupManager.getCoursesStatistics(coach);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(nativeStats.size(), rollupStats.size());
+		for(CourseStatEntry nativeStat:nativeStats) {
+			CourseStatEntry rollupStat = getCourseStatEntry(nativeStat.getRepoKey(), rollupStats);
+			Assert.assertNotNull(rollupStat);
+			Assert.assertEquals(nativeStat.getCountStudents(), rollupStat.getCountStudents());
+			Assert.assertEquals(nativeStat.getCountPassed(), rollupStat.getCountPassed());
+			Assert.assertEquals(nativeStat.getCountNotAttempted(), rollupStat.getCountNotAttempted());
+		}
+		Assert.assertEquals(1, getCourseStatEntry(re2.getKey(), rollupStats).getCountPassed());
+		
+		List<StudentStatEntry> rollupStudentStats = coachingRollupManager.getStudentsStatistics(coach, userPropertyHandlers, Locale.ENGLISH);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, rollupStudentStats.size());
+		StudentStatEntry participantStats = getStudentStatEntry(participant1.getKey(), rollupStudentStats);
+		Assert.assertNotNull(participantStats);
+		Assert.assertEquals(2, participantStats.getCountRepo());
+		Assert.assertEquals(1, participantStats.getCountPassed());
+	}
+	
+	/**
+	 * The first launch of a course by a participant is collected
+	 * as a change of the course.
+	 */
+	@Test
+	public void processChanges_firstLaunch() {
+		URL courseUrl = CoachingLargeTest.class.getResource("CoachingCourse.zip");
+		RepositoryEntry re = JunitTestHelper.deployCourse(null, "Coaching rollup 9", courseUrl);
+		dbInstance.commitAndCloseSession();
+		
+		Identity coach = JunitTestHelper.createAndPersistIdentityAsAuthor("Coach-r-6-" + UUID.randomUUID());
+		repositoryService.addRole(coach, re, GroupRoles.coach.name());
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-9");
+		repositoryService.addRole(participant, re, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		
+		CourseStatEntry stats = getCourseStatEntry(re.getKey(), coachingRollupManager.getCoursesStatistics(coach));
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(0, stats.getInitialLaunch());
+		
+		userCourseInformationsManager.updateUserCourseInformations(re.getOlatResource(), participant);
+		dbInstance.commitAndCloseSession();
+		
+		coachingRollupManager.processChanges();
+		
+		CourseStatEntry updatedStats = getCourseStatEntry(re.getKey(), coachingRollupManager.getCoursesStatistics(coach));
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, updatedStats.getInitialLaunch());
+	}
+	
+	@Test
+	public void getCoursesStatistics_coachAdded() {
+		URL courseUrl = CoachingLargeTest.class.getResource("CoachingCourse.zip");
+		RepositoryEntry re1 = JunitTestHelper.deployCourse(null, "Coaching rollup 4", courseUrl);
+		RepositoryEntry re2 = JunitTestHelper.deployCourse(null, "Coaching rollup 5", courseUrl);
+		dbInstance.commitAndCloseSession();
+		
+		Identity coach = JunitTestHelper.createAndPersistIdentityAsAuthor("Coach-r-3-" + UUID.randomUUID());
+		repositoryService.addRole(coach, re1, GroupRoles.coach.name());
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-5");
+		repositoryService.addRole(participant, re1, GroupRoles.participant.name());
+		repositoryService.addRole(participant, re2, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		
+		List<CourseStatEntry> stats = coachingRollupManager.getCoursesStatistics(coach);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, stats.size());
+		
+		// no event, the list of courses of the coach changed
+		repositoryService.addRole(coach, re2, GroupRoles.coach.name());
+		dbInstance.commitAndCloseSession();
+		
+		List<CourseStatEntry> updatedStats = coachingRollupManager.getCoursesStatistics(coach);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(2, updatedStats.size());
+		Assert.assertNotNull(getCourseStatEntry(re2.getKey(), updatedStats));
+	}
+	
+	@Test
+	public void deleteUserData() {
+		URL courseUrl = CoachingLargeTest.class.getResource("CoachingCourse.zip");
+		RepositoryEntry re = JunitTestHelper.deployCourse(null, "Coaching rollup 6", courseUrl);
+		dbInstance.commitAndCloseSession();
+		
+		Identity coach = JunitTestHelper.createAndPersistIdentityAsAuthor("Coach-r-4-" + UUID.randomUUID());
+		repositoryService.addRole(coach, re, GroupRoles.coach.name());
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("Coaching-r-Part-6");
+		repositoryService.addRole(participant, re, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		
+		coachingRollupManager.rebuild(coach, true);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, coachingRollupDao.getStudentsStatistics(coach, Collections.emptyList(), Locale.ENGLISH).size());
+		
+		coachingRollupManager.deleteUserData(participant, "del-participant");
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(coachingRollupDao.getStudentsStatistics(coach, Collections.emptyList(), Locale.ENGLISH).isEmpty());
+		
+		coachingRollupManager.deleteUserData(coach, "del-coach");
+		dbInstance.commitAndCloseSession();
+		Assert.assertNull(coachingRollupDao.loadState(coach));
+	}
+	
+	private CourseStatEntry getCourseStatEntry(Long entryKey, List<CourseStatEntry> entries) {
+		for(CourseStatEntry entry:entries) {
+			if(entry.getRepoKey().equals(entryKey)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+	
+	private StudentStatEntry getStudentStatEntry(Long identityKey, List<StudentStatEntry> entries) {
+		for(StudentStatEntry entry:entries) {
+			if(entry.getIdentityKey().equals(identityKey)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+}
@@ -33,6 +33,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -43,7 +45,9 @@ import org.olat.modules.fo.manager.ForumManager;
 import org.olat.modules.fo.model.ForumThread;
 import org.olat.modules.fo.model.ForumUserStatistics;
 import org.olat.modules.fo.model.MessageImpl;
+import org.olat.modules.fo.model.MessageLightImpl;
 import org.olat.modules.fo.model.PseudonymStatistics;
+import org.olat.modules.fo.model.ReadMessageImpl;
 import org.olat.modules.fo.ui.MessagePeekview;
 import org.olat.repository.RepositoryEntry;
 import org.olat.test.JunitTestHelper;
@@ -183,6 +187,54 @@ public class ForumManagerTest extends OlatTestCase {
 		Assert.assertNotNull(forumThread2);
 	}
 	
+	@Test
+	public void getForumThreads_summaryAndReadState() {
+		Identity id1 = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-1");
+		Identity id2 = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-2");
+		Forum forum = forumManager.addAForum();
+		dbInstance.commit();
+		
+		Message thread = forumManager.createMessage(forum, id1, false);
+		thread.setTitle("Thread summary");
+		thread.setBody("Thread summary");
+		forumManager.addTopMessage(thread);
+		dbInstance.commit();
+
+		Message reply1 = forumManager.createMessage(forum, id2, false);
+		reply1.setTitle("Re: Thread summary");
+		reply1.setBody("Thread summary");
+		reply1 = forumManager.replyToMessage(reply1, thread);
+		dbInstance.commit();
+		
+		Message reply2 = forumManager.createMessage(forum, id2, false);
+		reply2.setTitle("Re: Re: Thread summary");
+		reply2.setBody("Thread summary");
+		reply2 = forumManager.replyToMessage(reply2, reply1);
+		dbInstance.commitAndCloseSession();
+		
+		forumManager.markAsRead(id1, forum, thread);
+		forumManager.markAsRead(id1, forum, reply1);
+		dbInstance.commitAndCloseSession();
+		
+		List<ForumThread> forumThreads = forumManager.getForumThreads(forum, id1);
+		Assert.assertEquals(1, forumThreads.size());
+		ForumThread forumThread = forumThreads.get(0);
+		Assert.assertEquals(thread.getKey(), forumThread.getKey());
+		Assert.assertEquals(3, forumThread.getNumOfPosts());
+		Assert.assertEquals(1, forumThread.getNewMessages());
+		Assert.assertNotNull(forumThread.getLastModified());
+		
+		// delete the last reply, the summary follows
+		forumManager.deleteMessageTree(forum.getKey(), reply2);
+		dbInstance.commitAndCloseSession();
+		
+		List<ForumThread> reducedThreads = forumManager.getForumThreads(forum, id1);
+		Assert.assertEquals(1, reducedThreads.size());
+		Assert.assertEquals(2, reducedThreads.get(0).getNumOfPosts());
+		Assert.assertEquals(0, reducedThreads.get(0).getNewMessages());
+		Assert.assertEquals(2, forumManager.countReadMessagesByUserAndForum(id1, forum.getKey()));
+	}
+	
 	@Test
 	public void getForumUserStatistics() {
 		Identity id1 = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-1");
@@ -620,6 +672,88 @@ public class ForumManagerTest extends OlatTestCase {
 		Assert.assertTrue(readSet2.contains(replyPseudo.getKey()));
 	}
 	
+	@Test
+	public void readMessages_legacy() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-3");
+		Forum forum = forumManager.addAForum();
+		dbInstance.commit();
+		
+		Message thread = forumManager.createMessage(forum, id, false);
+		thread.setTitle("Legacy read messages");
+		thread.setBody("Legacy read messages");
+		forumManager.addTopMessage(thread);
+		dbInstance.commit();
+	
+		Message reply = forumManager.createMessage(forum, id, false);
+		reply.setTitle("Re: Legacy read messages");
+		reply.setBody("Legacy read messages");
+		reply = forumManager.replyToMessage(reply, thread);
+		dbInstance.commitAndCloseSession();
+		
+		// read message saved with one entry per message
+		ReadMessageImpl readMessage = new ReadMessageImpl();
+		readMessage.setCreationDate(new Date());
+		readMessage.setIdentity(id);
+		readMessage.setForum(forum);
+		readMessage.setMessage(dbInstance.getCurrentEntityManager().getReference(MessageLightImpl.class, thread.getKey()));
+		dbInstance.getCurrentEntityManager().persist(readMessage);
+		dbInstance.commitAndCloseSession();
+		
+		Set<Long> legacyReadSet = forumManager.getReadSet(id, forum);
+		Assert.assertEquals(1, legacyReadSet.size());
+		Assert.assertTrue(legacyReadSet.contains(thread.getKey()));
+		
+		// the next read message converts the old entries
+		forumManager.markAsRead(id, forum, reply);
+		dbInstance.commitAndCloseSession();
+		
+		Set<Long> readSet = forumManager.getReadSet(id, forum);
+		Assert.assertEquals(2, readSet.size());
+		Assert.assertTrue(readSet.contains(thread.getKey()));
+		Assert.assertTrue(readSet.contains(reply.getKey()));
+		
+		List<Long> legacyKeys = dbInstance.getCurrentEntityManager()
+				.createQuery("select rmsg.key from foreadmessage as rmsg where rmsg.forum.key=:forumKey", Long.class)
+				.setParameter("forumKey", forum.getKey())
+				.getResultList();
+		Assert.assertTrue(legacyKeys.isEmpty());
+	}
+	
+	@Test
+	public void convertLegacyReadMessages() {
+		Identity id1 = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-4");
+		Identity id2 = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-5");
+		Forum forum = forumManager.addAForum();
+		dbInstance.commit();
+		
+		Message thread = forumManager.createMessage(forum, id1, false);
+		thread.setTitle("Convert read messages");
+		thread.setBody("Convert read messages");
+		forumManager.addTopMessage(thread);
+		dbInstance.commitAndCloseSession();
+		
+		for(Identity id:new Identity[] { id1, id2 }) {
+			ReadMessageImpl readMessage = new ReadMessageImpl();
+			readMessage.setCreationDate(new Date());
+			readMessage.setIdentity(id);
+			readMessage.setForum(forum);
+			readMessage.setMessage(dbInstance.getCurrentEntityManager().getReference(MessageLightImpl.class, thread.getKey()));
+			dbInstance.getCurrentEntityManager().persist(readMessage);
+		}
+		dbInstance.commitAndCloseSession();
+		
+		int converted = forumManager.convertLegacyReadMessages(forum.getKey());
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(2, converted);
+		
+		Set<Long> readSet1 = forumManager.getReadSet(id1, forum);
+		Assert.assertEquals(1, readSet1.size());
+		Assert.assertTrue(readSet1.contains(thread.getKey()));
+		Set<Long> readSet2 = forumManager.getReadSet(id2, forum);
+		Assert.assertEquals(1, readSet2.size());
+		Assert.assertTrue(readSet2.contains(thread.getKey()));
+	}
+	
 	@Test
 	public void updateMessage() {
 		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-1");
@@ -1390,6 +1524,76 @@ public class ForumManagerTest extends OlatTestCase {
 		dbInstance.commit();
 	}
 	
+	@Test
+	public void markAsRead_batch() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-14");
+		Forum forum = forumManager.addAForum();
+		dbInstance.commit();
+		
+		Message topMessage = forumManager.createMessage(forum, id, false);
+		topMessage.setTitle("Batch read");
+		topMessage.setBody("Batch read");
+		forumManager.addTopMessage(topMessage);
+		dbInstance.commit();
+
+		Message reply = forumManager.createMessage(forum, id, false);
+		reply.setTitle("Batch read reply");
+		reply.setBody("Batch read reply");
+		forumManager.replyToMessage(reply, topMessage);
+		dbInstance.commitAndCloseSession();
+		
+		forumManager.markAsRead(id, forum, List.of(topMessage, reply));
+		dbInstance.commitAndCloseSession();
+		
+		Set<Long> readSet = forumManager.getReadSet(id, forum);
+		Assert.assertEquals(2, readSet.size());
+		Assert.assertTrue(readSet.contains(topMessage.getKey()));
+		Assert.assertTrue(readSet.contains(reply.getKey()));
+	}
+	
+	/**
+	 * The first reads of a user in parallel create the read state only once
+	 * and don't lose a message.
+	 */
+	@Test
+	public void markAsRead_concurrentFirstReads() throws Exception {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-15");
+		Forum forum = forumManager.addAForum();
+		dbInstance.commit();
+		
+		List<Message> messages = new ArrayList<>();
+		for(int i=0; i<4; i++) {
+			Message topMessage = forumManager.createMessage(forum, id, false);
+			topMessage.setTitle("Concurrent read " + i);
+			topMessage.setBody("Concurrent read");
+			forumManager.addTopMessage(topMessage);
+			messages.add(topMessage);
+			dbInstance.commit();
+		}
+		dbInstance.commitAndCloseSession();
+		
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(messages.size());
+		for(Message message:messages) {
+			new Thread(() -> {
+				try {
+					start.await();
+					forumManager.markAsRead(id, forum, message);
+					dbInstance.commitAndCloseSession();
+				} catch(Exception e) {
+					dbInstance.rollbackAndCloseSession();
+				} finally {
+					finish.countDown();
+				}
+			}).start();
+		}
+		start.countDown();
+		Assert.assertTrue(finish.await(60, TimeUnit.SECONDS));
+		
+		Set<Long> readSet = forumManager.getReadSet(id, forum);
+		Assert.assertEquals(messages.size(), readSet.size());
+	}
+	
 	@Test
 	public void mergeForums() {
 		Identity id1 = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-9");
@@ -1452,6 +1656,56 @@ public class ForumManagerTest extends OlatTestCase {
 		}
 	}
 	
+	@Test
+	public void mergeForums_threadsAndReadStates() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("fo-11");
+		Forum masterForum = forumManager.addAForum();
+		Forum altForum = forumManager.addAForum();
+		dbInstance.commit();
+		
+		Message topMessage = forumManager.createMessage(masterForum, id, false);
+		topMessage.setTitle("Merged thread 1");
+		topMessage.setBody("Merged stuff");
+		forumManager.addTopMessage(topMessage);
+		
+		Message topAltMessage = forumManager.createMessage(altForum, id, false);
+		topAltMessage.setTitle("Merged thread 2");
+		topAltMessage.setBody("Merged stuff");
+		forumManager.addTopMessage(topAltMessage);
+		dbInstance.commit();
+		
+		Message replyAlt = forumManager.createMessage(altForum, id, false);
+		replyAlt.setTitle("Re: Merged thread 2");
+		replyAlt.setBody("Merged stuff");
+		forumManager.replyToMessage(replyAlt, topAltMessage);
+		dbInstance.commitAndCloseSession();
+		
+		forumManager.markAsRead(id, masterForum, topMessage);
+		forumManager.markAsRead(id, altForum, topAltMessage);
+		forumManager.markAsRead(id, altForum, replyAlt);
+		dbInstance.commitAndCloseSession();
+		
+		List<Long> forumsToMerge = new ArrayList<>();
+		forumsToMerge.add(altForum.getKey());
+		forumManager.mergeForums(masterForum.getKey(), forumsToMerge);
+		dbInstance.commitAndCloseSession();
+		
+		Set<Long> readSet = forumManager.getReadSet(id, masterForum);
+		Assert.assertEquals(3, readSet.size());
+		Assert.assertTrue(forumManager.getReadSet(id, altForum).isEmpty());
+		
+		List<ForumThread> forumThreads = forumManager.getForumThreads(masterForum, id);
+		Assert.assertEquals(2, forumThreads.size());
+		for(ForumThread forumThread:forumThreads) {
+			Assert.assertEquals(0, forumThread.getNewMessages());
+			if(forumThread.getKey().equals(topAltMessage.getKey())) {
+				Assert.assertEquals(2, forumThread.getNumOfPosts());
+			} else {
+				Assert.assertEquals(1, forumThread.getNumOfPosts());
+			}
+		}
+	}
+	
 	@Test
 	public void createProtectedPseudonym() {
 		String pseudonym = UUID.randomUUID().toString();
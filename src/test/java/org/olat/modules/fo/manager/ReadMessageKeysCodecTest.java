@@ -0,0 +1,75 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.fo.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class ReadMessageKeysCodecTest {
+	
+	@Test
+	public void encodeDecode() {
+		List<Long> keys = List.of(Long.valueOf(1200l), Long.valueOf(17l), Long.valueOf(5689421l), Long.valueOf(1201l));
+		String encoded = ReadMessageKeysCodec.encode(keys);
+		Assert.assertNotNull(encoded);
+		
+		Set<Long> decoded = ReadMessageKeysCodec.decode(encoded);
+		Assert.assertEquals(new HashSet<>(keys), decoded);
+	}
+	
+	@Test
+	public void encodeDecode_large() {
+		List<Long> keys = new ArrayList<>();
+		for(long i=0; i<5000; i++) {
+			keys.add(Long.valueOf(9000000000l + (i * 3)));
+		}
+		Collections.shuffle(keys);
+		String encoded = ReadMessageKeysCodec.encode(keys);
+		// much smaller than a list of keys
+		Assert.assertTrue(encoded.length() < 5000);
+		
+		Set<Long> decoded = ReadMessageKeysCodec.decode(encoded);
+		Assert.assertEquals(5000, decoded.size());
+		Assert.assertEquals(new HashSet<>(keys), decoded);
+	}
+	
+	@Test
+	public void encodeDecode_empty() {
+		Assert.assertNull(ReadMessageKeysCodec.encode(Collections.emptyList()));
+		Assert.assertTrue(ReadMessageKeysCodec.decode(null).isEmpty());
+		Assert.assertTrue(ReadMessageKeysCodec.decode("").isEmpty());
+	}
+	
+	@Test
+	public void decode_invalid() {
+		Assert.assertTrue(ReadMessageKeysCodec.decode("not encoded keys").isEmpty());
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.scorm;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.commons.modules.bc.FolderConfig;
+import org.olat.core.id.Identity;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.WebappHelper;
+import org.olat.core.util.ZipUtil;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class ScormAPIMapperTest extends OlatTestCase {
+	
+	/**
+	 * A batch of the client-side cache sent twice (a retry after a network
+	 * error) is applied only once, the response of the first one is returned.
+	 */
+	@Test
+	public void cacheCommit_duplicateSeq() throws IOException, URISyntaxException, JSONException {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("scorm-cache-1");
+		URL scormUrl = JunitTestHelper.class.getResource("file_resources/very_simple_scorm.zip");
+		File cpRoot = new File(WebappHelper.getTmpDir(), "scormcache" + UUID.randomUUID());
+		Assert.assertTrue(ZipUtil.unzip(new File(scormUrl.toURI()), cpRoot));
+		
+		OLATApiAdapter scormAdapter = new OLATApiAdapter();
+		scormAdapter.init(cpRoot, UUID.randomUUID().toString(), null, FolderConfig.getCanonicalRoot(),
+				id.getName(), "Scorm Cache", "normal", "credit", 1);
+		CountingCallback counter = new CountingCallback();
+		scormAdapter.addAPIListener(counter);
+		scormAdapter.launchItem(scormAdapter.getScormLastAccessedItemId());
+		Assert.assertEquals("true", scormAdapter.LMSInitialize(""));
+		
+		ScormAPIMapper mapper = new ScormAPIMapper(id, UUID.randomUUID().toString(), null, null, cpRoot, scormAdapter, false);
+		String batch = createBatch(1, "50");
+		JSONObject response = mapper.cacheCommit(batch);
+		Assert.assertEquals(1, counter.getCommits());
+		
+		JSONArray results = response.getJSONArray("results");
+		Assert.assertEquals(2, results.length());
+		Assert.assertEquals("true", results.getJSONObject(0).getString("result"));
+		Assert.assertEquals("true", results.getJSONObject(1).getString("result"));
+		
+		// the same batch is sent again
+		JSONObject retryResponse = mapper.cacheCommit(batch);
+		Assert.assertEquals(1, counter.getCommits());
+		Assert.assertEquals(response.toString(), retryResponse.toString());
+		
+		// the next batch is applied
+		mapper.cacheCommit(createBatch(2, "60"));
+		Assert.assertEquals(2, counter.getCommits());
+		Assert.assertEquals("60", scormAdapter.LMSGetValue("cmi.core.score.raw"));
+		
+		FileUtils.deleteDirsAndFiles(cpRoot, true, true);
+	}
+	
+	private String createBatch(long seq, String score) throws JSONException {
+		JSONArray calls = new JSONArray();
+		calls.put(createCall("LMSSetValue", "cmi.core.score.raw", score));
+		calls.put(createCall("LMSCommit", "", ""));
+		JSONObject batch = new JSONObject();
+		batch.put("seq", seq);
+		batch.put("calls", calls);
+		return batch.toString();
+	}
+	
+	private JSONObject createCall(String apiCall, String param1, String param2) throws JSONException {
+		JSONObject call = new JSONObject();
+		call.put("apiCall", apiCall);
+		call.put("param1", param1);
+		call.put("param2", param2);
+		return call;
+	}
+	
+	private static class CountingCallback implements ScormAPICallback {
+		
+		private int commits = 0;
+		
+		public int getCommits() {
+			return commits;
+		}
+
+		@Override
+		public void lmsCommit(String olatSahsId, Properties scoScores, Properties scoLessonStatus) {
+			commits++;
+		}
+
+		@Override
+		public void lmsFinish(String olatSahsId, Properties scoProps, Properties scoLessonStatus) {
+			//
+		}
+	}
+}
@@ -107,4 +107,69 @@ public class VideoTranscodingDAOTest extends OlatTestCase {
 			results = videoTranscodingDao.getVideoTranscodings(resource);
 			Assert.assertEquals(0,results.size());
 	}
+	
+	@Test
+	public void getWaitingVideoTranscodingKeys() {
+		OLATResource resource = JunitTestHelper.createRandomResource();
+		VideoTranscoding vTranscoding1080 = videoTranscodingDao.createVideoTranscoding(resource, 1080, "mp4");
+		VideoTranscoding vTranscoding480 = videoTranscodingDao.createVideoTranscoding(resource, 480, "mp4");
+		VideoTranscoding vTranscoding720 = videoTranscodingDao.createVideoTranscoding(resource, 720, "mp4");
+		dbInstance.commitAndCloseSession();
+		
+		List<Long> keys = videoTranscodingDao.getWaitingVideoTranscodingKeys(100000);
+		// lowest resolution first
+		int index480 = keys.indexOf(vTranscoding480.getKey());
+		int index720 = keys.indexOf(vTranscoding720.getKey());
+		int index1080 = keys.indexOf(vTranscoding1080.getKey());
+		Assert.assertTrue(index480 >= 0);
+		Assert.assertTrue(index480 < index720);
+		Assert.assertTrue(index720 < index1080);
+	}
+	
+	@Test
+	public void claimVideoTranscoding() {
+		OLATResource resource = JunitTestHelper.createRandomResource();
+		VideoTranscoding vTranscoding = videoTranscodingDao.createVideoTranscoding(resource, 720, "mp4");
+		dbInstance.commitAndCloseSession();
+		
+		boolean claimed = videoTranscodingDao.claimVideoTranscoding(vTranscoding.getKey(), null, "Transcoder 1");
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(claimed);
+		// already claimed
+		boolean claimedTwice = videoTranscodingDao.claimVideoTranscoding(vTranscoding.getKey(), null, "Transcoder 2");
+		dbInstance.commitAndCloseSession();
+		Assert.assertFalse(claimedTwice);
+		
+		VideoTranscoding reloadedTranscoding = videoTranscodingDao.getVideoTranscoding(vTranscoding.getKey());
+		Assert.assertEquals("Transcoder 1", reloadedTranscoding.getTranscoder());
+		List<Long> waitingKeys = videoTranscodingDao.getWaitingVideoTranscodingKeys(100000);
+		Assert.assertFalse(waitingKeys.contains(vTranscoding.getKey()));
+		List<VideoTranscoding> inProgress = videoTranscodingDao.getVideoTranscodingsInProgress("Transcoder 1");
+		Assert.assertTrue(inProgress.contains(vTranscoding));
+		
+		// hand over
+		boolean handedOver = videoTranscodingDao.claimVideoTranscoding(vTranscoding.getKey(), "Transcoder 1", "Transcoder 2");
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(handedOver);
+	}
+	
+	@Test
+	public void updateTranscodingProgress() {
+		OLATResource resource = JunitTestHelper.createRandomResource();
+		VideoTranscoding vTranscoding = videoTranscodingDao.createVideoTranscoding(resource, 480, "mp4");
+		dbInstance.commitAndCloseSession();
+		
+		boolean updated = videoTranscodingDao.updateTranscodingProgress(vTranscoding.getKey(), 42);
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(updated);
+		
+		VideoTranscoding reloadedTranscoding = videoTranscodingDao.getVideoTranscoding(vTranscoding.getKey());
+		Assert.assertEquals(42, reloadedTranscoding.getStatus());
+		
+		videoTranscodingDao.deleteVideoTranscoding(reloadedTranscoding);
+		dbInstance.commitAndCloseSession();
+		boolean deleted = !videoTranscodingDao.updateTranscodingProgress(vTranscoding.getKey(), 43);
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(deleted);
+	}
 }
@@ -0,0 +1,115 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.video.manager;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.util.vfs.LocalFolderImpl;
+import org.olat.core.util.vfs.VFSLeaf;
+import org.olat.modules.video.VideoManager;
+import org.olat.modules.video.VideoModule;
+import org.olat.modules.video.VideoTranscoding;
+import org.olat.resource.OLATResource;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Run the transcoding job with a fake HandBrakeCLI which copies the
+ * video and prints the progress as HandBrake.
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class VideoTranscodingJobTest extends OlatTestCase {
+	
+	private static final String FAKE_HANDBRAKE = "#!/bin/sh\n"
+			+ "while [ $# -gt 0 ]; do\n"
+			+ "  case \"$1\" in\n"
+			+ "    -i) IN=\"$2\"; shift;;\n"
+			+ "    -o) OUT=\"$2\"; shift;;\n"
+			+ "  esac\n"
+			+ "  shift\n"
+			+ "done\n"
+			+ "echo \"Encoding: task 1 of 1, 10.00 % (300.00 fps, avg 300.00 fps, ETA 00h00m01s)\"\n"
+			+ "cp \"$IN\" \"$OUT\"\n"
+			+ "echo \"Encoding: task 1 of 1, 90.00 % (300.00 fps, avg 300.00 fps, ETA 00h00m00s)\"\n";
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private VideoModule videoModule;
+	@Autowired
+	private VideoManager videoManager;
+	
+	@Test
+	public void transcodeInParallel() throws Exception {
+		File fakeHandBrake = File.createTempFile("HandBrakeCLI", ".sh");
+		Files.write(fakeHandBrake.toPath(), FAKE_HANDBRAKE.getBytes(StandardCharsets.UTF_8));
+		Assert.assertTrue(fakeHandBrake.setExecutable(true));
+		
+		OLATResource video = JunitTestHelper.createRandomResource();
+		VFSLeaf masterLeaf = videoManager.getMasterContainer(video).createChildLeaf("video.mp4");
+		try(InputStream in = VideoTranscodingJobTest.class.getResourceAsStream("VideoTranscodingJobTest.class");
+				OutputStream out = masterLeaf.getOutputStream(false)) {
+			IOUtils.copy(in, out);
+		}
+		VideoTranscoding transcoding720 = videoManager.createTranscoding(video, 720, "mp4");
+		VideoTranscoding transcoding480 = videoManager.createTranscoding(video, 480, "mp4");
+		dbInstance.commitAndCloseSession();
+		
+		boolean enabled = videoModule.isTranscodingEnabled();
+		String command = videoModule.getTranscodingCommand();
+		String taskset = videoModule.getTranscodingTasksetConfig();
+		int processes = videoModule.getTranscodingProcesses();
+		try {
+			videoModule.setTranscodingEnabled(true);
+			videoModule.setTranscodingCommand(fakeHandBrake.getAbsolutePath());
+			videoModule.setTranscodingTasksetConfig(null);
+			videoModule.setTranscodingProcesses(2);
+			
+			new VideoTranscodingJob().executeWithDB(null);
+		} finally {
+			videoModule.setTranscodingEnabled(enabled);
+			videoModule.setTranscodingCommand(command);
+			videoModule.setTranscodingTasksetConfig(taskset);
+			videoModule.setTranscodingProcesses(processes);
+			Files.deleteIfExists(fakeHandBrake.toPath());
+		}
+		
+		VideoTranscoding reloaded720 = videoManager.getVideoTranscoding(transcoding720.getKey());
+		Assert.assertEquals(VideoTranscoding.TRANSCODING_STATUS_DONE, reloaded720.getStatus());
+		Assert.assertEquals(VideoTranscoding.TRANSCODER_LOCAL, reloaded720.getTranscoder());
+		VideoTranscoding reloaded480 = videoManager.getVideoTranscoding(transcoding480.getKey());
+		Assert.assertEquals(VideoTranscoding.TRANSCODING_STATUS_DONE, reloaded480.getStatus());
+		
+		File transcodingFolder = ((LocalFolderImpl)videoManager.getTranscodingContainer(video)).getBasefile();
+		Assert.assertTrue(new File(transcodingFolder, "720video.mp4").exists());
+		Assert.assertTrue(new File(transcodingFolder, "480video.mp4").exists());
+	}
+}
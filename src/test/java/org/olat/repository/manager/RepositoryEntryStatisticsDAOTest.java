@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -41,6 +42,7 @@ import org.olat.core.id.OLATResourceable;
 import org.olat.core.id.Organisation;
 import org.apache.logging.log4j.Logger;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
 import org.olat.core.util.resource.OresHelper;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryEntryStatusEnum;
@@ -233,6 +235,77 @@ public class RepositoryEntryStatisticsDAOTest extends OlatTestCase {
 		log.info("testIncrementDownloadCounter finished");
 	}
 
+	/**
+	 * Throughput of concurrent launches of the same entry, directly
+	 * written and accumulated in memory.
+	 */
+	@Test
+	public void concurrentLaunches_accumulated() throws Exception {
+		Organisation defOrganisation = organisationService.getDefaultOrganisation();
+		RepositoryEntry directEntry = repositoryService.create(null, "Rei Ayanami", "-", "T1_direct", "T1_direct", null,
+				RepositoryEntryStatusEnum.trash, defOrganisation);
+		RepositoryEntry accumulatedEntry = repositoryService.create(null, "Rei Ayanami", "-", "T1_accumulated", "T1_accumulated", null,
+				RepositoryEntryStatusEnum.trash, defOrganisation);
+		dbInstance.commitAndCloseSession();
+		
+		final int numOfThreads = 10;
+		final int numOfLaunches = 20;
+		boolean accumulate = reStatisticsDao.isAccumulate();
+		try {
+			reStatisticsDao.setAccumulate(false);
+			long directTime = runConcurrentLaunches(directEntry.getKey(), numOfThreads, numOfLaunches);
+			reStatisticsDao.setAccumulate(true);
+			long accumulatedTime = runConcurrentLaunches(accumulatedEntry.getKey(), numOfThreads, numOfLaunches);
+			
+			long flushStart = System.nanoTime();
+			int flushed = reStatisticsDao.flushCounters();
+			long flushTime = CodeHelper.nanoToMilliTime(flushStart);
+			Assert.assertTrue(flushed >= 1);
+			log.info("{} concurrent launches: direct {} ms, accumulated {} ms (+ {} ms flush)",
+					(numOfThreads * numOfLaunches), directTime, accumulatedTime, flushTime);
+		} finally {
+			reStatisticsDao.setAccumulate(accumulate);
+		}
+		
+		RepositoryEntryStatistics directStats = reStatisticsDao.loadStatistics(directEntry);
+		Assert.assertEquals(numOfThreads * numOfLaunches, directStats.getLaunchCounter());
+		RepositoryEntryStatistics accumulatedStats = reStatisticsDao.loadStatistics(accumulatedEntry);
+		Assert.assertEquals(numOfThreads * numOfLaunches, accumulatedStats.getLaunchCounter());
+		dbInstance.commitAndCloseSession();
+	}
+	
+	private long runConcurrentLaunches(Long entryKey, int numOfThreads, int numOfLaunches) throws InterruptedException {
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final CountDownLatch doneSignal = new CountDownLatch(numOfThreads);
+		final AtomicInteger errors = new AtomicInteger();
+		for(int i=0; i<numOfThreads; i++) {
+			new Thread(() -> {
+				try {
+					startSignal.await();
+					for(int j=0; j<numOfLaunches; j++) {
+						RepositoryEntry entry = repositoryManager.lookupRepositoryEntry(entryKey);
+						repositoryService.incrementLaunchCounter(entry);
+						dbInstance.commitAndCloseSession();
+					}
+				} catch (Exception e) {
+					log.error("", e);
+					errors.incrementAndGet();
+					dbInstance.rollbackAndCloseSession();
+				} finally {
+					doneSignal.countDown();
+				}
+			}).start();
+		}
+		
+		long start = System.nanoTime();
+		startSignal.countDown();
+		boolean finished = doneSignal.await(120, TimeUnit.SECONDS);
+		long duration = CodeHelper.nanoToMilliTime(start);
+		Assert.assertTrue(finished);
+		Assert.assertEquals(0, errors.get());
+		return duration;
+	}
+
 	/**
 	 * Test concurrent increment of the launch counter
 	 */
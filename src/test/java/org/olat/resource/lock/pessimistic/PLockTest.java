@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
@@ -44,8 +45,10 @@ import org.olat.basesecurity.SecurityGroup;
 import org.olat.basesecurity.manager.SecurityGroupDAO;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.services.lock.pessimistic.PLock;
+import org.olat.core.commons.services.lock.pessimistic.PLockImpl;
 import org.olat.core.commons.services.lock.pessimistic.PessimisticLockManager;
 import org.olat.core.id.Identity;
+import org.olat.core.util.CodeHelper;
 import org.olat.core.logging.Tracing;
 import org.olat.test.JunitTestHelper;
 import org.olat.test.OlatTestCase;
@@ -420,6 +423,101 @@ public class PLockTest extends OlatTestCase {
 		}
 	}
 	
+	@Test
+	public void createPLocks() {
+		String prefix = "bulk-" + UUID.randomUUID().toString();
+		List<String> assets = new ArrayList<>();
+		for(int i=0; i<25; i++) {
+			assets.add(prefix + "-" + i);
+		}
+		// one already exists
+		pessimisticLockManager.findOrPersistPLock(assets.get(3));
+		dbInstance.commitAndCloseSession();
+		
+		int created = pessimisticLockManager.createPLocks(assets);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(24, created);
+		
+		// second time, nothing to do
+		int createdAgain = pessimisticLockManager.createPLocks(assets);
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(0, createdAgain);
+		
+		PLock plock = pessimisticLockManager.findOrPersistPLock(assets.get(10));
+		Assert.assertNotNull(plock);
+		Assert.assertEquals(assets.get(10), ((PLockImpl)plock).getAsset());
+		dbInstance.commitAndCloseSession();
+	}
+	
+	/**
+	 * Contention benchmark: N threads lock M new assets, first with the
+	 * global insert lock, then with insert-or-ignore.
+	 */
+	@Test
+	public void contentionBenchmark() throws Exception {
+		int numOfThreads = isOracleConfigured() ? 4 : 16;
+		int numOfAssets = 100;
+		
+		boolean insertIgnore = pessimisticLockManager.isInsertIgnore();
+		try {
+			pessimisticLockManager.setInsertIgnore(false);
+			long globalLockTime = runContention("global", numOfThreads, numOfAssets);
+			pessimisticLockManager.setInsertIgnore(true);
+			long insertIgnoreTime = runContention("ignore", numOfThreads, numOfAssets);
+			log.info("PLock contention {} threads x {} assets: global insert lock {} ms, insert-or-ignore {} ms",
+					numOfThreads, numOfAssets, globalLockTime, insertIgnoreTime);
+		} finally {
+			pessimisticLockManager.setInsertIgnore(insertIgnore);
+		}
+	}
+	
+	private long runContention(String mode, int numOfThreads, int numOfAssets) throws InterruptedException {
+		final String prefix = mode + "-" + UUID.randomUUID().toString();
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final CountDownLatch finishCount = new CountDownLatch(numOfThreads);
+		final AtomicInteger errors = new AtomicInteger();
+		for (int i = 0; i < numOfThreads; i++) {
+			final int offset = i;
+			new Thread(() -> {
+				try {
+					startSignal.await();
+					for(int j=0; j<numOfAssets; j++) {
+						// every thread starts at an other asset
+						String asset = prefix + "-" + ((j + offset) % numOfAssets);
+						PLock plock = pessimisticLockManager.findOrPersistPLock(asset);
+						if(plock == null) {
+							errors.incrementAndGet();
+						}
+						dbInstance.commit();
+					}
+				} catch (Exception e) {
+					log.error("", e);
+					errors.incrementAndGet();
+					dbInstance.rollback();
+				} finally {
+					finishCount.countDown();
+					dbInstance.closeSession();
+				}
+			}).start();
+		}
+		
+		long start = System.nanoTime();
+		startSignal.countDown();
+		boolean finished = finishCount.await(180, TimeUnit.SECONDS);
+		long duration = CodeHelper.nanoToMilliTime(start);
+		Assert.assertTrue(finished);
+		Assert.assertEquals(0, errors.get());
+		
+		// all rows are there, only once
+		List<String> assets = new ArrayList<>();
+		for(int j=0; j<numOfAssets; j++) {
+			assets.add(prefix + "-" + j);
+		}
+		Assert.assertEquals(0, pessimisticLockManager.createPLocks(assets));
+		dbInstance.commitAndCloseSession();
+		return duration;
+	}
+	
 	@Test
 	public void testSync() {
 		log.info("testing enrollment");
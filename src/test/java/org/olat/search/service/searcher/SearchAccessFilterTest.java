@@ -0,0 +1,225 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.search.service.searcher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.basesecurity.GroupRoles;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.id.Identity;
+import org.olat.core.id.Roles;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.repository.RepositoryEntry;
+import org.olat.repository.manager.RepositoryEntryRelationDAO;
+import org.olat.repository.model.RepositoryEntryMembershipModifiedEvent;
+import org.olat.search.model.AbstractOlatDocument;
+import org.olat.search.model.OlatDocument;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 17 Oct 2026<br>
+ *
+ */
+public class SearchAccessFilterTest extends OlatTestCase {
+	
+	private static final Logger log = Tracing.createLoggerFor(SearchAccessFilterTest.class);
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private RepositoryEntryRelationDAO repositoryEntryRelationDao;
+	@Autowired
+	private SearchAccessFilterProvider accessFilterProvider;
+	
+	@Test
+	public void getAccessContext() {
+		Assert.assertEquals("RepositoryEntry:2345", OlatDocument.getAccessContext("[RepositoryEntry:2345]"));
+		Assert.assertEquals("RepositoryEntry:2345", OlatDocument.getAccessContext("[RepositoryEntry:2345][CourseNode:9876]"));
+		Assert.assertEquals("BusinessGroup:12", OlatDocument.getAccessContext("[BusinessGroup:12][toolforum:0][Message:13]"));
+		// the group itself can be found by non-members
+		Assert.assertNull(OlatDocument.getAccessContext("[BusinessGroup:12]"));
+		Assert.assertNull(OlatDocument.getAccessContext("[Identity:12]"));
+		Assert.assertNull(OlatDocument.getAccessContext(""));
+		Assert.assertNull(OlatDocument.getAccessContext(null));
+	}
+	
+	@Test
+	public void getAccessFilter() {
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("search-filter-1");
+		RepositoryEntry memberEntry = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		RepositoryEntry openEntry = JunitTestHelper.createAndPersistRepositoryEntry(false);
+		RepositoryEntry closedEntry = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		repositoryEntryRelationDao.addRole(participant, memberEntry, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		accessFilterProvider.invalidatePublicContexts();
+		
+		SearchAccessFilter filter = accessFilterProvider.getAccessFilter(participant, Roles.userRoles());
+		Assert.assertNotNull(filter);
+		Assert.assertTrue(filter.isAccessible(OlatDocument.getAccessContext("[RepositoryEntry:" + memberEntry.getKey() + "]")));
+		Assert.assertTrue(filter.isAccessible(OlatDocument.getAccessContext("[RepositoryEntry:" + openEntry.getKey() + "][CourseNode:1]")));
+		Assert.assertFalse(filter.isAccessible(OlatDocument.getAccessContext("[RepositoryEntry:" + closedEntry.getKey() + "][CourseNode:1]")));
+		Assert.assertTrue(filter.isAccessible(OlatDocument.getAccessContext("[Identity:" + participant.getKey() + "]")));
+	}
+	
+	@Test
+	public void getAccessFilter_sharedPublicContexts() {
+		Identity participant1 = JunitTestHelper.createAndPersistIdentityAsRndUser("search-filter-3");
+		Identity participant2 = JunitTestHelper.createAndPersistIdentityAsRndUser("search-filter-4");
+		RepositoryEntry memberEntry = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		repositoryEntryRelationDao.addRole(participant1, memberEntry, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		
+		SearchAccessFilter filter1 = accessFilterProvider.getAccessFilter(participant1, Roles.userRoles());
+		SearchAccessFilter filter2 = accessFilterProvider.getAccessFilter(participant2, Roles.userRoles());
+		Assert.assertEquals(1, filter1.memberSize());
+		Assert.assertEquals(0, filter2.memberSize());
+		Assert.assertEquals(filter1.size() - 1, filter2.size());
+		
+		SearchAccessFilter reloadedFilter2 = accessFilterProvider.getAccessFilter(participant2, Roles.userRoles());
+		Assert.assertSame(filter2, reloadedFilter2);
+	}
+	
+	@Test
+	public void getAccessFilter_invalidatedByMembership() {
+		Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("search-filter-5");
+		RepositoryEntry entry = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		dbInstance.commitAndCloseSession();
+		
+		String accessContext = OlatDocument.getAccessContext("[RepositoryEntry:" + entry.getKey() + "]");
+		SearchAccessFilter filter = accessFilterProvider.getAccessFilter(participant, Roles.userRoles());
+		Assert.assertFalse(filter.isAccessible(accessContext));
+		
+		repositoryEntryRelationDao.addRole(participant, entry, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		CoordinatorManager.getInstance().getCoordinator().getEventBus()
+			.fireEventToListenersOf(RepositoryEntryMembershipModifiedEvent.roleParticipantAdded(participant, entry), entry);
+		
+		SearchAccessFilter updatedFilter = accessFilterProvider.getAccessFilter(participant, Roles.userRoles());
+		Assert.assertTrue(updatedFilter.isAccessible(accessContext));
+	}
+	
+	@Test
+	public void getAccessFilter_author() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsRndAuthor("search-filter-2");
+		dbInstance.commitAndCloseSession();
+		
+		SearchAccessFilter filter = accessFilterProvider.getAccessFilter(author, Roles.authorRoles());
+		Assert.assertNull(filter);
+	}
+	
+	/**
+	 * Compare the number of access checks and the latency to fill a page
+	 * of results for a user with access to 5 of 500 courses, with and without
+	 * the access filter in the query.
+	 */
+	@Test
+	public void benchmarkRestrictedUser() throws IOException {
+		int numOfEntries = 500;
+		int docsPerEntry = 40;
+		int pageSize = 10;
+		Set<Long> accessibleKeys = Set.of(7l, 123l, 256l, 389l, 499l);
+		
+		try(RAMDirectory directory = new RAMDirectory()) {
+			try(IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+				for(long i=0; i<numOfEntries; i++) {
+					for(int j=0; j<docsPerEntry; j++) {
+						OlatDocument document = new OlatDocument();
+						document.setTitle("Chapter " + j);
+						document.setContent("Introduction to statistics, chapter " + j);
+						document.setResourceUrl("[RepositoryEntry:" + i + "][CourseNode:" + j + "]");
+						writer.addDocument(document.getLuceneDocument());
+					}
+				}
+			}
+			
+			SearchAccessFilter filter = new SearchAccessFilter(accessibleKeys, List.of());
+			try(DirectoryReader reader = DirectoryReader.open(directory)) {
+				IndexSearcher searcher = new IndexSearcher(reader);
+				Query query = new TermQuery(new Term(AbstractOlatDocument.CONTENT_FIELD_NAME, "statistics"));
+				
+				long start = System.nanoTime();
+				int unfilteredChecks = fillPage(searcher, query, accessibleKeys, pageSize);
+				long unfilteredTime = CodeHelper.nanoToMilliTime(start);
+				
+				start = System.nanoTime();
+				Query filteredQuery = new BooleanQuery.Builder()
+						.add(query, Occur.MUST)
+						.add(filter.toQuery(), Occur.FILTER)
+						.build();
+				int filteredChecks = fillPage(searcher, filteredQuery, accessibleKeys, pageSize);
+				long filteredTime = CodeHelper.nanoToMilliTime(start);
+				
+				log.info("Page of {} results for a restricted user: {} access checks in {} ms without filter, {} access checks in {} ms with filter",
+						pageSize, unfilteredChecks, unfilteredTime, filteredChecks, filteredTime);
+				Assert.assertEquals(pageSize, filteredChecks);
+				Assert.assertTrue(unfilteredChecks > filteredChecks);
+			}
+		}
+	}
+	
+	/**
+	 * Simulate the loop of SearchResultsImpl.
+	 * 
+	 * @return The number of access checks needed to fill the page
+	 */
+	private int fillPage(IndexSearcher searcher, Query query, Set<Long> accessibleKeys, int pageSize) throws IOException {
+		Set<String> accessibleContexts = accessibleKeys.stream()
+				.map(key -> OlatDocument.REPOSITORY_ENTRY_CONTEXT + key)
+				.collect(Collectors.toSet());
+		
+		TopDocs docs = searcher.search(query, 1000);
+		List<Document> page = new ArrayList<>(pageSize);
+		int checks = 0;
+		for(int i=0; i<docs.scoreDocs.length && page.size() < pageSize; i++) {
+			Document doc = searcher.doc(docs.scoreDocs[i].doc);
+			checks++;
+			String accessContext = OlatDocument.getAccessContext(doc.get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME));
+			if(accessibleContexts.contains(accessContext)) {
+				page.add(doc);
+			}
+		}
+		return checks;
+	}
+}
@@ -44,6 +44,8 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 	org.olat.core.util.i18n.I18nTest.class,
+	org.olat.core.util.i18n.CompiledTranslationTest.class,
+	org.olat.core.logging.activity.UserActivityLogWriterTest.class,
 	// org.olat.core.util.mail.MailTest.class, // redisabled since mails are sent despite the fact that the whitelist is enabled
 	org.olat.core.gui.components.table.MultiSelectColumnDescriptorTest.class,
 	org.olat.core.gui.components.table.TableEventTest.class,
@@ -62,6 +64,8 @@ import org.junit.runners.Suite;
 	org.olat.core.util.filter.impl.XMLValidEntityFilterTest.class,
 	org.olat.core.helpers.SettingsTest.class,
 	org.olat.core.util.coordinate.LockEntryTest.class,
+	org.olat.core.util.event.EventBusTest.class,
+	org.olat.commons.coordinate.cluster.jms.ClusterEventBatchTest.class,
 	org.olat.modules.iq.DBPersistentLockManagerTest.class,
 	org.olat.core.util.StringHelperTest.class,
 	org.olat.core.util.FileUtilsTest.class,
@@ -76,6 +80,7 @@ import org.junit.runners.Suite;
 	org.olat.core.util.ZipUtilConcatTest.class,
 	org.olat.core.util.mail.EmailAddressValidatorTest.class,
 	org.olat.core.util.mail.manager.MailManagerTest.class,
+	org.olat.core.util.mail.manager.MailSpoolTest.class,
 	org.olat.core.util.mail.manager.MailUserDataManagerTest.class,
 	org.olat.core.util.openxml.OpenXmlWorkbookTest.class,
 	org.olat.core.util.openxml.OpenXMLDocumentTest.class,
@@ -86,6 +91,7 @@ import org.junit.runners.Suite;
 	org.olat.core.id.context.HistoryManagerTest.class,
 	org.olat.core.id.IdentityEnvironmentTest.class,
 	org.olat.core.gui.render.VelocityTemplateTest.class,
+	org.olat.core.gui.render.velocity.VelocityHelperTest.class,
 	org.olat.core.gui.control.generic.iframe.IFrameDeliveryMapperTest.class,
 	org.olat.note.NoteTest.class,
 	org.olat.user.UserTest.class,
@@ -99,6 +105,7 @@ import org.junit.runners.Suite;
 	org.olat.commons.lifecycle.LifeCycleManagerTest.class,
 	org.olat.commons.coordinate.cluster.jms.JMSTest.class,
 	org.olat.commons.coordinate.cluster.lock.LockTest.class,
+	org.olat.commons.coordinate.cluster.PLockLeasesTest.class,
 	org.olat.commons.coordinate.CoordinatorTest.class,
 	org.olat.core.commons.services.csp.manager.CSPManagerTest.class,
 	org.olat.core.commons.services.doceditor.manager.DocEditorIdentityServiceTest.class,
@@ -205,6 +212,7 @@ import org.junit.runners.Suite;
 	org.olat.course.groupsandrights.CourseGroupManagementTest.class,
 	org.olat.course.editor.PublishProcessTest.class,
 	org.olat.course.CourseXStreamAliasesTest.class,
+	org.olat.course.CourseSnapshotStoreTest.class,
 	org.olat.course.wizard.CourseWizardServiceTest.class,
 	org.olat.modules.adobeconnect.manager.AdobeConnectProviderTest.class,
 	org.olat.modules.adobeconnect.manager.AdobeConnectUserDAOTest.class,
@@ -235,6 +243,7 @@ import org.junit.runners.Suite;
 	org.olat.modules.wiki.versioning.diff.CookbookDiffTest.class,
 	org.olat.modules.wiki.gui.components.wikiToHtml.FilterUtilTest.class,
 	org.olat.modules.coach.manager.CoachingDAOTest.class,
+	org.olat.modules.coach.manager.CoachingRollupManagerTest.class,
 	org.olat.modules.coach.CoachingLargeTest.class,
 	org.olat.modules.curriculum.manager.CurriculumDAOTest.class,
 	org.olat.modules.curriculum.manager.CurriculumMemberQueriesTest.class,
@@ -338,6 +347,7 @@ import org.junit.runners.Suite;
 	org.olat.modules.teams.manager.MicrosoftGraphDAOTest.class,
 	org.olat.modules.video.VideoFormatTest.class,
 	org.olat.modules.video.manager.VideoTranscodingDAOTest.class,
+	org.olat.modules.video.manager.VideoTranscodingJobTest.class,
 	org.olat.modules.video.manager.VideoMetadataDAOTest.class,
 	org.olat.modules.video.manager.VideoXStreamTest.class,
 	org.olat.modules.video.manager.VideoMetaXStreamTest.class,
@@ -354,6 +364,7 @@ import org.junit.runners.Suite;
 	org.olat.search.service.document.file.HtmlDocumentTest.class,
 	org.olat.search.service.document.file.PDFDocumentTest.class,
 	org.olat.search.service.document.file.OfficeDocumentTest.class,
+	org.olat.search.service.searcher.SearchAccessFilterTest.class,
 	org.olat.core.commons.services.notifications.manager.NotificationsManagerTest.class,
 	org.olat.registration.RegistrationManagerTest.class,
 	org.olat.course.nodes.projectbroker.ProjectBrokerManagerTest.class,
@@ -371,6 +382,7 @@ import org.junit.runners.Suite;
 	org.olat.ims.qti21.manager.AssessmentTestSessionDAOTest.class,
 	org.olat.ims.qti21.manager.AssessmentItemSessionDAOTest.class,
 	org.olat.ims.qti21.manager.AssessmentResponseDAOTest.class,
+	org.olat.ims.qti21.manager.AssessmentSessionStateStoreTest.class,
 	org.olat.ims.qti21.manager.CorrectResponsesUtilTest.class,
 	org.olat.ims.qti21.model.xml.AssessmentItemBuilderTest.class,
 	org.olat.ims.qti21.model.xml.MultipleChoiceAssessmentItemBuilderTest.class,
@@ -538,6 +550,7 @@ import org.junit.runners.Suite;
 	org.olat.modules.edusharing.manager.EdusharingHtmlServiceImplTest.class,
 	org.olat.modules.edusharing.manager.EdusharingSecurityImplTest.class,
 	org.olat.modules.fo.WordCountTest.class,
+	org.olat.modules.fo.manager.ReadMessageKeysCodecTest.class,
 	org.olat.modules.forms.manager.EvaluationFormMangerImplTest.class,
 	org.olat.modules.forms.manager.RubricStatisticCalculatorTest.class,
 	org.olat.modules.forms.model.xml.ScaleTypeTest.class,
@@ -555,6 +568,7 @@ import org.junit.runners.Suite;
 	org.olat.modules.quality.analysis.TemporalKeyComparatorTest.class,
 	org.olat.modules.quality.generator.provider.ProviderHelperTest.class,
 	org.olat.modules.quality.manager.QualityServiceImplTest.class,
+	org.olat.modules.scorm.ScormAPIMapperTest.class,
 	org.olat.modules.webFeed.manager.FeedManagerImplTest.class,
 	org.olat.modules.webFeed.manager.RomeFeedFetcherTest.class,
 	org.olat.resource.accesscontrol.provider.auto.manager.AutoAccessManagerImplTest.class,